@@ -10,12 +10,22 @@ package javax.measure;
 
 import java.math.BigDecimal;
 import java.math.MathContext;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 import javax.measure.converter.AddConverter;
+import javax.measure.converter.AffineConverter;
+import javax.measure.converter.ConversionException;
 import javax.measure.converter.RationalConverter;
 import javax.measure.converter.UnitConverter;
 import javax.measure.quantity.Quantity;
 import javax.measure.unit.Unit;
+import javax.measure.unit.UnitTokenCache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 
 /**
  * <p> This class represents a measure whose value is an arbitrary-precision 
@@ -75,31 +85,195 @@ public class DecimalMeasure<Q extends Quantity> extends Measure<BigDecimal, Q> {
      * @throws NumberFormatException if the specified character sequence is 
      *         not a valid representation of decimal measure.
      */
-    @SuppressWarnings("unchecked")
     public static <Q extends Quantity> DecimalMeasure<Q> valueOf(CharSequence csq) {
-        String str = csq.toString();
-        int numberLength = str.length();
-        int unitStartIndex = -1;
-        for (int i=0; i < str.length(); i++) {
-            if (Character.isWhitespace(str.charAt(i))) {
-                for (int j=i+1; j < str.length(); j++) {
-                    if (!Character.isWhitespace(str.charAt(j))) {
-                        unitStartIndex = j;
+        return valueOf(csq, 0, csq.length(), null);
+    }
+
+    /**
+     * Returns the decimal measure for the textual representation held by
+     * the specified range of characters (see {@link #valueOf(CharSequence)}).
+     * No intermediate string is created for values of up to 18 digits.
+     * 
+     * @param csq the character sequence.
+     * @param start the index of the first character of the measure.
+     * @param end the index after the last character of the measure.
+     * @throws NumberFormatException if the specified range is not a valid 
+     *         representation of decimal measure.
+     */
+    public static <Q extends Quantity> DecimalMeasure<Q> valueOf(
+            CharSequence csq, int start, int end) {
+        return valueOf(csq, start, end, null);
+    }
+
+    /**
+     * Returns the decimal measure for the textual representation held by
+     * the specified range of characters, the unit being looked up in the
+     * specified token cache (no object other than the measure and its value
+     * is allocated when the unit has already been seen). For example:[code]
+     *     UnitTokenCache units = new UnitTokenCache(); // One per thread.
+     *     for (String line : lines) {
+     *         DecimalMeasure<Money> amount = DecimalMeasure.valueOf(line, 0, line.length(), units);
+     *         ...
+     *     }[/code]
+     * 
+     * @param csq the character sequence.
+     * @param start the index of the first character of the measure.
+     * @param end the index after the last character of the measure.
+     * @param units the cache of the units parsed so far or <code>null</code>
+     *        to use {@link Unit#valueOf(CharSequence)}.
+     * @throws NumberFormatException if the specified range is not a valid 
+     *         representation of decimal measure.
+     * @throws IllegalArgumentException if the unit cannot be parsed.
+     */
+    @SuppressWarnings("unchecked")
+    public static <Q extends Quantity> DecimalMeasure<Q> valueOf(
+            CharSequence csq, int start, int end, UnitTokenCache units) {
+        if ((start < 0) || (start > end) || (end > csq.length()))
+            throw new IndexOutOfBoundsException();
+        int numberEnd = end;
+        int unitStart = -1;
+        for (int i = start; i < end; i++) {
+            if (Character.isWhitespace(csq.charAt(i))) {
+                for (int j = i + 1; j < end; j++) {
+                    if (!Character.isWhitespace(csq.charAt(j))) {
+                        unitStart = j;
                         break;
                     }
                 }
-                numberLength = i;
+                numberEnd = i;
                 break;
             }
         }
-        BigDecimal decimal = new BigDecimal(str.substring(0, numberLength));
+        BigDecimal decimal = decimalOf(csq, start, numberEnd);
         Unit unit = Unit.ONE;
-        if (unitStartIndex > 0) {
-            unit = Unit.valueOf(str.substring(unitStartIndex));
+        if (unitStart > 0) {
+            if (units == null) {
+                unit = Unit.valueOf(csq.subSequence(unitStart, end));
+            } else {
+                try {
+                    unit = units.get(csq, unitStart, end);
+                } catch (ParseException e) {
+                    throw new IllegalArgumentException(e);
+                }
+            }
         }
         return new DecimalMeasure<Q>(decimal, unit);
     }
 
+    /**
+     * Parses the specified range of characters as a <code>BigDecimal</code>
+     * (same syntax as {@link BigDecimal#BigDecimal(String)}); values of up
+     * to 18 digits are built directly from their unscaled value and scale.
+     */
+    private static BigDecimal decimalOf(CharSequence csq, int start, int end) {
+        int i = start;
+        boolean negative = false;
+        if ((i < end) && ((csq.charAt(i) == '-') || (csq.charAt(i) == '+'))) {
+            negative = csq.charAt(i++) == '-';
+        }
+        long unscaled = 0;
+        int digits = 0;
+        int scale = 0;
+        boolean point = false;
+        for (; i < end; i++) {
+            char c = csq.charAt(i);
+            if ((c >= '0') && (c <= '9')) {
+                unscaled = unscaled * 10 + (c - '0');
+                digits++;
+                if (point) {
+                    scale++;
+                }
+            } else if ((c == '.') && !point) {
+                point = true;
+            } else {
+                break;
+            }
+        }
+        if ((i < end) && ((csq.charAt(i) == 'e') || (csq.charAt(i) == 'E'))
+                && (digits > 0)) {
+            int j = i + 1;
+            boolean negativeExp = false;
+            if ((j < end) && ((csq.charAt(j) == '-') || (csq.charAt(j) == '+'))) {
+                negativeExp = csq.charAt(j++) == '-';
+            }
+            int exp = 0;
+            int expDigits = 0;
+            for (; (j < end) && (csq.charAt(j) >= '0') && (csq.charAt(j) <= '9')
+                    && (expDigits < 9); j++, expDigits++) {
+                exp = exp * 10 + (csq.charAt(j) - '0');
+            }
+            if (expDigits > 0) {
+                scale -= negativeExp ? -exp : exp;
+                i = j;
+            }
+        }
+        if ((i == end) && (digits > 0) && (digits <= 18))
+            return BigDecimal.valueOf(negative ? -unscaled : unscaled, scale);
+        char[] chars = new char[end - start]; // Long or invalid number.
+        for (int j = start; j < end; j++) {
+            chars[j - start] = csq.charAt(j);
+        }
+        return new BigDecimal(chars);
+    }
+
+    /**
+     * Converts in place the specified decimal values from one unit to
+     * another. The conversion factor (exact whenever the converter is
+     * rational) is calculated once for all the values.
+     * 
+     * @param values the values stated in the source unit.
+     * @param off the index of the first value to convert.
+     * @param len the number of values to convert.
+     * @param from the source unit.
+     * @param to the target unit.
+     * @param mathContext the mathContext used to convert the values or 
+     *        <code>null</code> if none (exact conversion).
+     * @throws ConversionException if the units are not compatible.
+     * @throws ArithmeticException if a result is inexact but the
+     *         rounding mode is <code>MathContext.UNNECESSARY</code> or 
+     *         <code>mathContext</code> is <code>null</code> and a result has 
+     *         a non-terminating decimal expansion.
+     * @see #to(Unit, MathContext)
+     */
+    public static void convert(BigDecimal[] values, int off, int len,
+            Unit<?> from, Unit<?> to, MathContext mathContext) {
+        if ((off < 0) || (len < 0) || (off + len > values.length))
+            throw new IndexOutOfBoundsException();
+        DecimalConverter cvtr = DecimalConverter.valueOf(from, to);
+        if (cvtr == null)
+            return; // Identity.
+        for (int i = off; i < off + len; i++) {
+            values[i] = cvtr.convert(values[i], mathContext);
+        }
+    }
+
+    /**
+     * Returns the specified decimal values converted from one unit to
+     * another (see {@link #convert(BigDecimal[], int, int, Unit, Unit,
+     * MathContext)}).
+     * 
+     * @param values the values stated in the source unit.
+     * @param from the source unit.
+     * @param to the target unit.
+     * @param mathContext the mathContext used to convert the values or 
+     *        <code>null</code> if none (exact conversion).
+     * @return the values stated in the target unit (new list).
+     * @throws ConversionException if the units are not compatible.
+     * @throws ArithmeticException if a result is inexact but the
+     *         rounding mode is <code>MathContext.UNNECESSARY</code> or 
+     *         <code>mathContext</code> is <code>null</code> and a result has 
+     *         a non-terminating decimal expansion.
+     */
+    public static List<BigDecimal> convert(List<BigDecimal> values,
+            Unit<?> from, Unit<?> to, MathContext mathContext) {
+        DecimalConverter cvtr = DecimalConverter.valueOf(from, to);
+        ArrayList<BigDecimal> results = new ArrayList<BigDecimal>(values.size());
+        for (BigDecimal value : values) {
+            results.add((cvtr == null) ? value : cvtr.convert(value, mathContext));
+        }
+        return results;
+    }
+
     @Override
     public Unit<Q> getUnit() {
         return _unit;
@@ -143,29 +317,10 @@ public class DecimalMeasure<Q extends Quantity> extends Measure<BigDecimal, Q> {
     public DecimalMeasure<Q> to(Unit<Q> unit, MathContext mathContext) {
         if ((unit == _unit) || (unit.equals(_unit)))
             return this;
-        UnitConverter cvtr = _unit.getConverterTo(unit);
-        if (cvtr instanceof RationalConverter) {
-            RationalConverter factor = (RationalConverter) cvtr;
-            BigDecimal dividend = BigDecimal.valueOf(factor.getDividend());
-            BigDecimal divisor = BigDecimal.valueOf(factor.getDivisor());
-            BigDecimal result = mathContext == null ?
-                    _value.multiply(dividend).divide(divisor) :
-                        _value.multiply(dividend, mathContext).divide(divisor, mathContext);
-            return new DecimalMeasure<Q>(result, unit);        
-        } else if (cvtr.isLinear()) {
-            BigDecimal factor = BigDecimal.valueOf(cvtr.convert(1.0));
-            BigDecimal result = mathContext == null ?
-                    _value.multiply(factor) : _value.multiply(factor, mathContext);
-            return new DecimalMeasure<Q>(result, unit);
-        } else if (cvtr instanceof AddConverter) {
-            BigDecimal offset = BigDecimal.valueOf(((AddConverter)cvtr).getOffset());
-            BigDecimal result = mathContext == null ?
-                    _value.add(offset) : _value.add(offset, mathContext);
-            return new DecimalMeasure<Q>(result, unit);
-        } else { // Non-linear and not an offset, convert the double value.
-            BigDecimal result = BigDecimal.valueOf(cvtr.convert(_value.doubleValue()));
-            return new DecimalMeasure<Q>(result, unit);
-        }    
+        DecimalConverter cvtr = DecimalConverter.valueOf(_unit, unit);
+        BigDecimal result = (cvtr == null) ? _value : cvtr.convert(_value,
+                mathContext);
+        return new DecimalMeasure<Q>(result, unit);
     }
 
     public double doubleValue(Unit<Q> unit) {
@@ -174,5 +329,134 @@ public class DecimalMeasure<Q extends Quantity> extends Measure<BigDecimal, Q> {
         return _unit.getConverterTo(unit).convert(_value.doubleValue());            
     }
 
+    /**
+     * This class represents a converter of decimal values between two units;
+     * its constants are calculated once and instances are cached per pair
+     * of units.
+     */
+    private static final class DecimalConverter {
+
+        /**
+         * Holds the converters per pair of units (bounded).
+         */
+        private static final Cache<List<Unit<?>>, DecimalConverter> CACHE = Caffeine
+                .newBuilder().maximumSize(1024).build();
+
+        /**
+         * Holds the converter.
+         */
+        private final UnitConverter _converter;
+
+        /**
+         * Holds the exact factor (dividend / divisor if the divisor has
+         * no prime factor other than 2 and 5), the dividend otherwise or 
+         * <code>null</code> if the converter is not exact.
+         */
+        private final BigDecimal _factor;
+
+        /**
+         * Holds the divisor or <code>null</code> if the factor is exact.
+         */
+        private final BigDecimal _divisor;
+
+        /**
+         * Indicates if the factor is rational (exact results are scaled as
+         * for a division).
+         */
+        private final boolean _isRational;
+
+        /**
+         * Holds the offset or <code>null</code> if none.
+         */
+        private final BigDecimal _offset;
+
+        private DecimalConverter(UnitConverter cvtr) {
+            _converter = cvtr;
+            long dividend = 1;
+            long divisor = 1;
+            boolean isExact = true;
+            BigDecimal offset = null;
+            BigDecimal factor = null;
+            if (cvtr instanceof RationalConverter) {
+                dividend = ((RationalConverter) cvtr).getDividend();
+                divisor = ((RationalConverter) cvtr).getDivisor();
+            } else if ((cvtr instanceof AffineConverter)
+                    && ((AffineConverter) cvtr).isExact()) {
+                dividend = ((AffineConverter) cvtr).getDividend();
+                divisor = ((AffineConverter) cvtr).getDivisor();
+                offset = BigDecimal.valueOf(((AffineConverter) cvtr).getOffset());
+            } else if (cvtr.isLinear()) {
+                factor = BigDecimal.valueOf(cvtr.convert(1.0));
+            } else if (cvtr instanceof AddConverter) {
+                offset = BigDecimal.valueOf(((AddConverter) cvtr).getOffset());
+            } else {
+                isExact = false;
+            }
+            _offset = offset;
+            _isRational = isExact && (factor == null);
+            if (!isExact || (factor != null) || ((dividend == 1) && (divisor == 1))) {
+                _factor = factor;
+                _divisor = null;
+            } else if (isTerminating(divisor)) {
+                _factor = BigDecimal.valueOf(dividend).divide(
+                        BigDecimal.valueOf(divisor));
+                _divisor = null;
+            } else {
+                _factor = BigDecimal.valueOf(dividend);
+                _divisor = BigDecimal.valueOf(divisor);
+            }
+        }
+
+        /**
+         * Returns the converter between the specified units or
+         * <code>null</code> if the converter is the identity.
+         */
+        static DecimalConverter valueOf(Unit<?> from, Unit<?> to) {
+            DecimalConverter cvtr = CACHE.get(Arrays.<Unit<?>> asList(from,
+                    to), key -> new DecimalConverter(key.get(0)
+                    .getConverterTo(key.get(1))));
+            return (cvtr._converter == UnitConverter.IDENTITY) ? null : cvtr;
+        }
+
+        BigDecimal convert(BigDecimal value, MathContext mc) {
+            if ((_factor == null) && (_offset == null)) // Non-linear.
+                return BigDecimal.valueOf(_converter.convert(value.doubleValue()));
+            BigDecimal result = value;
+            if (_divisor != null) {
+                result = (mc == null) ? value.multiply(_factor).divide(_divisor)
+                        : value.multiply(_factor).divide(_divisor, mc);
+            } else if (_factor != null) {
+                result = (mc != null) ? value.multiply(_factor, mc)
+                        : _isRational ? scaled(value.multiply(_factor), value
+                                .scale()) : value.multiply(_factor);
+            }
+            if (_offset != null) {
+                result = (mc == null) ? result.add(_offset) : result.add(
+                        _offset, mc);
+            }
+            return result;
+        }
+
+        // Exact division scale (closest to the preferred scale).
+        private static BigDecimal scaled(BigDecimal value, int preferredScale) {
+            if (value.scale() <= preferredScale)
+                return value;
+            BigDecimal stripped = value.stripTrailingZeros();
+            return (stripped.scale() < preferredScale) ? value
+                    .setScale(preferredScale) : stripped;
+        }
+
+        // Indicates if 1 / divisor has a terminating decimal expansion.
+        private static boolean isTerminating(long divisor) {
+            while (divisor % 2 == 0) {
+                divisor /= 2;
+            }
+            while (divisor % 5 == 0) {
+                divisor /= 5;
+            }
+            return divisor == 1;
+        }
+    }
+
     private static final long serialVersionUID = 1L; 
 }
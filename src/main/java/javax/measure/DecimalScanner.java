@@ -0,0 +1,212 @@
+/*
+ * JScience - Java(TM) Tools and Libraries for the Advancement of Sciences.
+ * Copyright (C) 2007 - JScience (http://jscience.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package javax.measure;
+
+import java.text.ParseException;
+
+/**
+ * <p> This class parses numbers stated using the Java syntax
+ *     (e.g. <code>"-1.5e3"</code>) directly from characters or bytes
+ *     (ASCII) into primitive values.</p>
+ *
+ * <p> The value is exact (correctly rounded) when both the mantissa and
+ *     the power of ten are exactly representable as <code>double</code>
+ *     (up to 15 significant digits and exponents within
+ *     <code>[-22, 22]</code>); the JDK parsing is used otherwise.
+ *     Instances of this class hold the last number scanned, they are
+ *     not synchronized.</p>
+ */
+final class DecimalScanner {
+
+    /**
+     * Holds the powers of ten exactly representable as double.
+     */
+    private static final double[] POW10 = new double[23];
+    static {
+        POW10[0] = 1.0;
+        for (int i = 1; i < POW10.length; i++) {
+            POW10[i] = POW10[i - 1] * 10;
+        }
+    }
+
+    /**
+     * Holds the value of the last number scanned.
+     */
+    double _doubleValue;
+
+    /**
+     * Holds the exact value of the last number scanned if integer.
+     */
+    long _longValue;
+
+    /**
+     * Indicates if the last number scanned is an integer (exact).
+     */
+    boolean _isLong;
+
+    /**
+     * Holds the characters of the bytes being scanned.
+     */
+    private char[] _chars = new char[32];
+
+    /**
+     * Scans the number starting at the specified index.
+     *
+     * @param  chars the characters.
+     * @param  start the index of the first character of the number.
+     * @param  end the index after the last character which may be read.
+     * @return the index after the last character of the number.
+     * @throws ParseException if there is no valid number at the specified
+     *         index (the error offset is an index in the characters).
+     */
+    int scan(char[] chars, int start, int end) throws ParseException {
+        int i = start;
+        boolean isNegative = false;
+        if ((i < end) && ((chars[i] == '-') || (chars[i] == '+'))) {
+            isNegative = chars[i++] == '-';
+        }
+        long mantissa = 0;
+        int digits = 0; // Significant digits.
+        int exponent = 0;
+        boolean hasDigit = false;
+        boolean hasPoint = false;
+        boolean isLong = true;
+        for (; i < end; i++) {
+            char c = chars[i];
+            int digit = c - '0';
+            if ((digit >= 0) && (digit <= 9)) {
+                hasDigit = true;
+                if ((mantissa != 0) || (digit != 0)) {
+                    mantissa = mantissa * 10 + digit;
+                    digits++;
+                }
+                if (hasPoint) {
+                    exponent--;
+                }
+            } else if ((c == '.') && !hasPoint) {
+                hasPoint = true;
+                isLong = false;
+            } else {
+                break;
+            }
+        }
+        if (!hasDigit)
+            throw new ParseException("Number expected", start);
+        if ((i < end) && ((chars[i] == 'e') || (chars[i] == 'E'))) {
+            isLong = false;
+            i++;
+            boolean isNegativeExponent = false;
+            if ((i < end) && ((chars[i] == '-') || (chars[i] == '+'))) {
+                isNegativeExponent = chars[i++] == '-';
+            }
+            int e = 0;
+            int exponentStart = i;
+            for (int digit; (i < end) && ((digit = chars[i] - '0') >= 0)
+                    && (digit <= 9); i++) {
+                e = Math.min(e * 10 + digit, 100000); // No overflow.
+            }
+            if (i == exponentStart)
+                throw new ParseException("Exponent expected", i);
+            exponent += isNegativeExponent ? -e : e;
+        }
+        if (digits > 18) { // Mantissa overflow.
+            isLong = isLong && toLong(chars, start, i);
+            _doubleValue = isLong ? _longValue : Double.parseDouble(new String(
+                    chars, start, i - start));
+        } else {
+            _doubleValue = toDouble(mantissa, exponent, chars, start, i);
+            if (isNegative) {
+                _doubleValue = -_doubleValue;
+            }
+        }
+        if (digits <= 18) {
+            _longValue = isNegative ? -mantissa : mantissa;
+        }
+        _isLong = isLong;
+        return i;
+    }
+
+    /**
+     * Sets the long value of the specified integer if it is within the
+     * <code>long</code> range (accumulated negatively to include
+     * <code>Long.MIN_VALUE</code>).
+     */
+    private boolean toLong(char[] chars, int start, int end) {
+        boolean isNegative = chars[start] == '-';
+        long value = 0;
+        for (int i = ((chars[start] == '-') || (chars[start] == '+')) ? start + 1
+                : start; i < end; i++) {
+            int digit = chars[i] - '0';
+            if ((value < Long.MIN_VALUE / 10)
+                    || (value * 10 < Long.MIN_VALUE + digit))
+                return false; // Overflow.
+            value = value * 10 - digit;
+        }
+        if (!isNegative) {
+            if (value == Long.MIN_VALUE)
+                return false;
+            value = -value;
+        }
+        _longValue = value;
+        return true;
+    }
+
+    /**
+     * Scans the number (ASCII) starting at the specified index.
+     *
+     * @param  bytes the bytes.
+     * @param  start the index of the first byte of the number.
+     * @param  end the index after the last byte which may be read.
+     * @return the index after the last byte of the number.
+     * @throws ParseException if there is no valid number at the specified
+     *         index (the error offset is an index in the bytes).
+     */
+    int scan(byte[] bytes, int start, int end) throws ParseException {
+        int n = 0;
+        for (int i = start; (i < end) && isNumberPart(bytes[i]); i++, n++) {
+            if (n == _chars.length) {
+                char[] tmp = new char[n * 2];
+                System.arraycopy(_chars, 0, tmp, 0, n);
+                _chars = tmp;
+            }
+            _chars[n] = (char) bytes[i];
+        }
+        try {
+            return start + scan(_chars, 0, n);
+        } catch (ParseException e) {
+            throw new ParseException(e.getMessage(), start
+                    + e.getErrorOffset());
+        }
+    }
+
+    private static boolean isNumberPart(byte b) {
+        return ((b >= '0') && (b <= '9')) || (b == '.') || (b == '-')
+                || (b == '+') || (b == 'e') || (b == 'E');
+    }
+
+    /**
+     * Returns the double nearest to <code>mantissa * 10^exponent</code>
+     * (exact arithmetic if both the mantissa and the power of ten are
+     * exactly representable, the JDK parsing otherwise).
+     */
+    private static double toDouble(long mantissa, int exponent, char[] chars,
+            int start, int end) {
+        if (mantissa == 0)
+            return 0.0;
+        if (mantissa < (1L << 53)) {
+            if ((exponent >= 0) && (exponent < POW10.length))
+                return mantissa * POW10[exponent];
+            if ((exponent < 0) && (-exponent < POW10.length))
+                return mantissa / POW10[-exponent];
+        }
+        double value = Double.parseDouble(new String(chars, start, end
+                - start));
+        return Math.abs(value);
+    }
+}
@@ -0,0 +1,198 @@
+/*
+ * JScience - Java(TM) Tools and Libraries for the Advancement of Sciences.
+ * Copyright (C) 2007 - JScience (http://jscience.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package javax.measure;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+import javax.measure.converter.ConversionException;
+import javax.measure.converter.UnitConverter;
+import javax.measure.unit.Unit;
+
+/**
+ * <p> This class provides unit conversions of numeric values held in
+ *     {@link java.nio} buffers (heap, direct or memory-mapped) and in
+ *     files.</p>
+ *
+ * <p> Values are converted chunk by chunk using the bulk methods of
+ *     {@link UnitConverter}; no more than one small chunk is copied
+ *     on the heap whatever the buffer or file size. Byte buffers and files
+ *     hold <code>double</code> values (8 bytes each) in the byte order of
+ *     the buffer, respectively the specified byte order. For example:[code]
+ *         FileChannel channel = FileChannel.open(path, READ, WRITE);
+ *         MeasureBuffers.convert(channel, 0, channel.size() / 8,
+ *             ByteOrder.LITTLE_ENDIAN, NonSI.FAHRENHEIT, SI.CELSIUS);
+ *     [/code]</p>
+ */
+public final class MeasureBuffers {
+
+    /**
+     * Holds the number of values copied on the heap at once (non-heap
+     * buffers).
+     */
+    private static final int CHUNK_LENGTH = 4096;
+
+    /**
+     * Holds the maximum number of bytes mapped at once (files).
+     */
+    private static final long MAPPING_SIZE = 64L << 20;
+
+    /**
+     * Default constructor (private for utility class).
+     */
+    private MeasureBuffers() {
+    }
+
+    /**
+     * Converts in place the remaining values of the specified buffer
+     * (the buffer position is not modified).
+     *
+     * @param  values the values stated in the source unit.
+     * @param  from the source unit.
+     * @param  to the target unit.
+     * @throws ConversionException if the units are not compatible.
+     * @throws java.nio.ReadOnlyBufferException if the buffer is read-only.
+     */
+    public static void convert(DoubleBuffer values, Unit<?> from, Unit<?> to)
+            throws ConversionException {
+        UnitConverter cvtr = from.getConverterTo(to);
+        if (cvtr != UnitConverter.IDENTITY) {
+            convert(values, values.duplicate(), cvtr);
+        }
+    }
+
+    /**
+     * Converts the remaining values of the source buffer into the target
+     * buffer. As for {@link DoubleBuffer#put(DoubleBuffer)} the positions
+     * of both buffers are incremented by the number of values converted.
+     *
+     * @param  src the values stated in the source unit.
+     * @param  from the source unit.
+     * @param  dst the buffer receiving the values stated in the target unit.
+     * @param  to the target unit.
+     * @throws ConversionException if the units are not compatible.
+     * @throws BufferOverflowException if there is insufficient space in
+     *         the target buffer.
+     */
+    public static void convert(DoubleBuffer src, Unit<?> from,
+            DoubleBuffer dst, Unit<?> to) throws ConversionException {
+        UnitConverter cvtr = from.getConverterTo(to);
+        int n = src.remaining();
+        if (n > dst.remaining())
+            throw new BufferOverflowException();
+        convert(src.duplicate(), dst.duplicate(), cvtr);
+        position(src, src.position() + n);
+        position(dst, dst.position() + n);
+    }
+
+    /**
+     * Converts in place the remaining <code>double</code> values of the
+     * specified byte buffer, using the buffer {@link ByteBuffer#order()
+     * byte order} (the buffer position is not modified).
+     *
+     * @param  bytes the values stated in the source unit.
+     * @param  from the source unit.
+     * @param  to the target unit.
+     * @throws ConversionException if the units are not compatible.
+     * @throws java.nio.ReadOnlyBufferException if the buffer is read-only.
+     */
+    public static void convert(ByteBuffer bytes, Unit<?> from, Unit<?> to)
+            throws ConversionException {
+        convert(bytes.asDoubleBuffer(), from, to);
+    }
+
+    /**
+     * Converts the remaining <code>double</code> values of the source byte
+     * buffer into the target byte buffer; each buffer uses its own
+     * {@link ByteBuffer#order() byte order}. The positions of both buffers
+     * are incremented by the number of bytes converted (trailing bytes
+     * not forming a complete value are left unread).
+     *
+     * @param  src the values stated in the source unit.
+     * @param  from the source unit.
+     * @param  dst the buffer receiving the values stated in the target unit.
+     * @param  to the target unit.
+     * @throws ConversionException if the units are not compatible.
+     * @throws BufferOverflowException if there is insufficient space in
+     *         the target buffer.
+     */
+    public static void convert(ByteBuffer src, Unit<?> from, ByteBuffer dst,
+            Unit<?> to) throws ConversionException {
+        DoubleBuffer srcValues = src.asDoubleBuffer();
+        int n = srcValues.remaining();
+        convert(srcValues, from, dst.asDoubleBuffer(), to);
+        position(src, src.position() + n * 8);
+        position(dst, dst.position() + n * 8);
+    }
+
+    /**
+     * Converts in place <code>double</code> values stored in the specified
+     * file. The file region is memory-mapped piecewise, the heap usage does
+     * not depend upon the region size.
+     *
+     * @param  channel the file channel (opened for reading and writing).
+     * @param  position the file position of the first value (in bytes).
+     * @param  count the number of values to convert.
+     * @param  order the byte order of the values in the file.
+     * @param  from the source unit.
+     * @param  to the target unit.
+     * @throws ConversionException if the units are not compatible.
+     * @throws IOException if an I/O error occurs.
+     */
+    public static void convert(FileChannel channel, long position, long count,
+            ByteOrder order, Unit<?> from, Unit<?> to)
+            throws ConversionException, IOException {
+        UnitConverter cvtr = from.getConverterTo(to);
+        if (cvtr == UnitConverter.IDENTITY)
+            return;
+        long size = count * 8;
+        for (long offset = 0; offset < size; offset += MAPPING_SIZE) {
+            MappedByteBuffer mapping = channel.map(
+                    FileChannel.MapMode.READ_WRITE, position + offset, Math
+                            .min(MAPPING_SIZE, size - offset));
+            DoubleBuffer values = mapping.order(order).asDoubleBuffer();
+            convert(values, values.duplicate(), cvtr);
+        }
+    }
+
+    /**
+     * Converts the remaining values of the source buffer into the target
+     * buffer (both buffers positions are modified).
+     */
+    private static void convert(DoubleBuffer src, DoubleBuffer dst,
+            UnitConverter cvtr) {
+        int n = src.remaining();
+        if (src.hasArray() && dst.hasArray()) { // No copy.
+            cvtr.convert(src.array(), src.arrayOffset() + src.position(), dst
+                    .array(), dst.arrayOffset() + dst.position(), n);
+            return;
+        }
+        double[] chunk = new double[Math.min(n, CHUNK_LENGTH)];
+        while (n > 0) {
+            int length = Math.min(n, chunk.length);
+            src.get(chunk, 0, length);
+            cvtr.convert(chunk, 0, chunk, 0, length);
+            dst.put(chunk, 0, length);
+            n -= length;
+        }
+    }
+
+    /**
+     * Sets the position of the specified buffer (Java 8 compatible).
+     */
+    private static void position(Buffer buffer, int position) {
+        buffer.position(position);
+    }
+}
@@ -0,0 +1,233 @@
+/*
+ * JScience - Java(TM) Tools and Libraries for the Advancement of Sciences.
+ * Copyright (C) 2007 - JScience (http://jscience.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package javax.measure;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collector;
+import java.util.stream.Collectors;
+
+import javax.measure.converter.UnitConverter;
+import javax.measure.quantity.Quantity;
+import javax.measure.unit.Unit;
+
+/**
+ * <p> This class provides {@link Collector collectors} aggregating streams
+ *     of {@link Measure measures}.</p>
+ *
+ * <p> Measures are converted to a target unit and accumulated in place
+ *     (compensated summation, running mean and variance); the converters
+ *     from the source units are cached by each partial accumulator.
+ *     Partial accumulators are merged pairwise, parallel streams are then
+ *     split across the fork-join pool. For example:[code]
+ *         Measure<Double, Power> mean = samples.parallelStream()
+ *             .collect(MeasureCollectors.averaging(WATT)).get();
+ *     [/code]</p>
+ */
+public final class MeasureCollectors {
+
+    /**
+     * Default constructor (private for utility class).
+     */
+    private MeasureCollectors() {
+    }
+
+    /**
+     * Returns a collector summing the measures.
+     *
+     * @param unit the unit in which the sum is stated.
+     * @return the collector returning the sum (zero if no measure).
+     */
+    public static <Q extends Quantity> Collector<Measure<?, ?>, ?, Measure<Double, Q>> summing(
+            final Unit<Q> unit) {
+        return Collectors.collectingAndThen(accumulating(unit),
+                acc -> Measure.valueOf(acc.sum(), unit));
+    }
+
+    /**
+     * Returns a collector selecting the smallest measure.
+     *
+     * @param unit the unit in which the minimum is stated.
+     * @return the collector returning the minimum (empty if no measure).
+     */
+    public static <Q extends Quantity> Collector<Measure<?, ?>, ?, Optional<Measure<Double, Q>>> minimum(
+            final Unit<Q> unit) {
+        return Collectors.collectingAndThen(accumulating(unit),
+                acc -> (acc._count == 0) ? Optional.<Measure<Double, Q>> empty()
+                        : Optional.of(Measure.valueOf(acc._min, unit)));
+    }
+
+    /**
+     * Returns a collector selecting the largest measure.
+     *
+     * @param unit the unit in which the maximum is stated.
+     * @return the collector returning the maximum (empty if no measure).
+     */
+    public static <Q extends Quantity> Collector<Measure<?, ?>, ?, Optional<Measure<Double, Q>>> maximum(
+            final Unit<Q> unit) {
+        return Collectors.collectingAndThen(accumulating(unit),
+                acc -> (acc._count == 0) ? Optional.<Measure<Double, Q>> empty()
+                        : Optional.of(Measure.valueOf(acc._max, unit)));
+    }
+
+    /**
+     * Returns a collector calculating the arithmetic mean of the measures.
+     *
+     * @param unit the unit in which the mean is stated.
+     * @return the collector returning the mean (empty if no measure).
+     */
+    public static <Q extends Quantity> Collector<Measure<?, ?>, ?, Optional<Measure<Double, Q>>> averaging(
+            final Unit<Q> unit) {
+        return Collectors.collectingAndThen(accumulating(unit),
+                acc -> (acc._count == 0) ? Optional.<Measure<Double, Q>> empty()
+                        : Optional.of(Measure.valueOf(acc._mean, unit)));
+    }
+
+    /**
+     * Returns a collector calculating the sample variance of the measures.
+     *
+     * @param unit the unit in which the measures are accumulated (the
+     *        variance is stated in the square of this unit).
+     * @return the collector returning the variance (empty if less than
+     *         two measures).
+     */
+    public static Collector<Measure<?, ?>, ?, Optional<Measure<Double, ? extends Quantity>>> variance(
+            Unit<?> unit) {
+        final Unit<? extends Quantity> square = unit.times(unit);
+        return Collectors.collectingAndThen(accumulating(unit),
+                acc -> (acc._count < 2) ? Optional.<Measure<Double, ? extends Quantity>> empty()
+                        : Optional.<Measure<Double, ? extends Quantity>> of(
+                                Measure.valueOf(acc._m2 / (acc._count - 1), square)));
+    }
+
+    /**
+     * Returns a collector counting the measures by unit (no conversion is
+     * performed).
+     *
+     * @return the collector returning the number of measures per unit.
+     */
+    public static Collector<Measure<?, ?>, ?, Map<Unit<?>, Long>> countingByUnit() {
+        return Collectors.groupingBy(MeasureCollectors::unitOf,
+                Collectors.counting());
+    }
+
+    private static Unit<?> unitOf(Measure<?, ?> measure) {
+        return measure.getUnit();
+    }
+
+    private static Collector<Measure<?, ?>, Accumulator, Accumulator> accumulating(
+            final Unit<?> unit) {
+        return Collector.of(() -> new Accumulator(unit), Accumulator::add,
+                Accumulator::combine, Collector.Characteristics.IDENTITY_FINISH);
+    }
+
+    /**
+     * This class represents the mutable state of a measure reduction
+     * (values stated in the target unit).
+     */
+    private static final class Accumulator {
+
+        /**
+         * Holds the number of source units whose converter is cached.
+         */
+        private static final int CONVERTER_CACHE_SIZE = 8;
+
+        private final Unit<?> _unit;
+
+        private long _count;
+
+        private double _sum;
+
+        private double _compensation; // Neumaier summation.
+
+        private double _min = java.lang.Double.POSITIVE_INFINITY;
+
+        private double _max = java.lang.Double.NEGATIVE_INFINITY;
+
+        private double _mean; // Welford.
+
+        private double _m2;
+
+        private final Unit<?>[] _sourceUnits = new Unit<?>[CONVERTER_CACHE_SIZE];
+
+        private final UnitConverter[] _converters = new UnitConverter[CONVERTER_CACHE_SIZE];
+
+        private int _nextConverter;
+
+        Accumulator(Unit<?> unit) {
+            _unit = unit;
+        }
+
+        void add(Measure<?, ?> measure) {
+            double value = converterFrom(measure.getUnit()).convert(
+                    valueOf(measure));
+            addToSum(value);
+            if (value < _min) {
+                _min = value;
+            }
+            if (value > _max) {
+                _max = value;
+            }
+            _count++;
+            double delta = value - _mean;
+            _mean += delta / _count;
+            _m2 += delta * (value - _mean);
+        }
+
+        Accumulator combine(Accumulator that) {
+            if (that._count == 0)
+                return this;
+            if (this._count == 0)
+                return that;
+            addToSum(that._sum);
+            addToSum(that._compensation);
+            _min = Math.min(_min, that._min);
+            _max = Math.max(_max, that._max);
+            long count = _count + that._count;
+            double delta = that._mean - _mean;
+            _mean += delta * that._count / count;
+            _m2 += that._m2 + delta * delta * ((double) _count) * that._count
+                    / count;
+            _count = count;
+            return this;
+        }
+
+        double sum() {
+            return _sum + _compensation;
+        }
+
+        private void addToSum(double value) {
+            double t = _sum + value;
+            if (Math.abs(_sum) >= Math.abs(value)) {
+                _compensation += (_sum - t) + value;
+            } else {
+                _compensation += (value - t) + _sum;
+            }
+            _sum = t;
+        }
+
+        private static <Q extends Quantity> double valueOf(Measure<?, Q> measure) {
+            return measure.doubleValue(measure.getUnit());
+        }
+
+        private UnitConverter converterFrom(Unit<?> unit) {
+            if (unit == _unit)
+                return UnitConverter.IDENTITY;
+            for (int i = 0; i < CONVERTER_CACHE_SIZE; i++) {
+                if (_sourceUnits[i] == unit)
+                    return _converters[i];
+            }
+            UnitConverter cvtr = unit.getConverterTo(_unit);
+            _sourceUnits[_nextConverter] = unit;
+            _converters[_nextConverter] = cvtr;
+            _nextConverter = (_nextConverter + 1) % CONVERTER_CACHE_SIZE;
+            return cvtr;
+        }
+    }
+}
@@ -0,0 +1,486 @@
+/*
+ * JScience - Java(TM) Tools and Libraries for the Advancement of Sciences.
+ * Copyright (C) 2007 - JScience (http://jscience.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package javax.measure;
+
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+import javax.measure.converter.ConversionException;
+import javax.measure.converter.UnitConverter;
+import javax.measure.quantity.Quantity;
+import javax.measure.unit.Unit;
+
+/**
+ * <p> This class represents a column of measurements (e.g. the samples of
+ *     a time series) stated in the same unit. Values are held in a
+ *     primitive array (<code>double</code>, <code>long</code> or
+ *     <code>float</code>); no object is created per value unless the
+ *     column is {@link #asList() viewed} as a list of measurables.
+ *     For example:[code]
+ *         MeasureColumn<Temperature> samples = MeasureColumn.valueOf(fahrenheit, FAHRENHEIT);
+ *         MeasureColumn<Temperature> celsius = samples.to(CELSIUS); // Bulk conversion.
+ *         double last = samples.doubleValue(samples.size() - 1, KELVIN); // No boxing.
+ *         MeasureColumn<Temperature> lastHour = samples.subColumn(n - 3600, n); // View.
+ *     [/code]</p>
+ *
+ * <p> Columns sharing the same array (sub-columns) are views; the array
+ *     itself is never exposed, instances of this class are immutable.</p>
+ */
+public abstract class MeasureColumn<Q extends Quantity> implements Serializable {
+
+    /**
+     * Holds the unit.
+     */
+    private final Unit<Q> _unit;
+
+    /**
+     * Holds the index of the first value in the array.
+     */
+    final int _offset;
+
+    /**
+     * Holds the number of values.
+     */
+    private final int _length;
+
+    /**
+     * Holds the last converter used (not serialized).
+     */
+    private transient volatile Conversion _conversion;
+
+    /**
+     * Base constructor.
+     */
+    MeasureColumn(Unit<Q> unit, int offset, int length) {
+        _unit = unit;
+        _offset = offset;
+        _length = length;
+    }
+
+    /**
+     * Returns a column holding a copy of the specified <code>double</code>
+     * values stated in the specified unit.
+     *
+     * @param values the measurement values.
+     * @param unit the measurement unit.
+     */
+    public static <Q extends Quantity> MeasureColumn<Q> valueOf(
+            double[] values, Unit<Q> unit) {
+        return new Double<Q>(values.clone(), 0, values.length, unit);
+    }
+
+    /**
+     * Returns a column holding a copy of the specified <code>long</code>
+     * values stated in the specified unit.
+     *
+     * @param values the measurement values.
+     * @param unit the measurement unit.
+     */
+    public static <Q extends Quantity> MeasureColumn<Q> valueOf(
+            long[] values, Unit<Q> unit) {
+        return new Long<Q>(values.clone(), 0, values.length, unit);
+    }
+
+    /**
+     * Returns a column holding a copy of the specified <code>float</code>
+     * values stated in the specified unit.
+     *
+     * @param values the measurement values.
+     * @param unit the measurement unit.
+     */
+    public static <Q extends Quantity> MeasureColumn<Q> valueOf(
+            float[] values, Unit<Q> unit) {
+        return new Float<Q>(values.clone(), 0, values.length, unit);
+    }
+
+    /**
+     * Returns the unit of the values of this column.
+     *
+     * @return the measurement unit.
+     */
+    public final Unit<Q> getUnit() {
+        return _unit;
+    }
+
+    /**
+     * Returns the number of values in this column.
+     *
+     * @return the column length.
+     */
+    public final int size() {
+        return _length;
+    }
+
+    /**
+     * Returns the value at the specified index stated in this column unit.
+     *
+     * @param  index the value index.
+     * @return the value as <code>double</code>.
+     * @throws IndexOutOfBoundsException if <code>index</code> is out of
+     *         bounds.
+     */
+    public final double doubleValue(int index) {
+        return valueAt(checkIndex(index));
+    }
+
+    /**
+     * Returns the value at the specified index stated in the specified unit
+     * (the converter is kept for subsequent calls with the same unit).
+     *
+     * @param  index the value index.
+     * @param  unit the unit in which the value is stated.
+     * @return the converted value.
+     * @throws IndexOutOfBoundsException if <code>index</code> is out of
+     *         bounds.
+     */
+    public final double doubleValue(int index, Unit<Q> unit) {
+        double value = valueAt(checkIndex(index));
+        return (unit == _unit) ? value : converterTo(unit).convert(value);
+    }
+
+    /**
+     * Returns the estimated integral value at the specified index stated in
+     * the specified unit (closest integer value).
+     *
+     * @param  index the value index.
+     * @param  unit the unit in which the value is stated.
+     * @return the converted value as <code>long</code>.
+     * @throws ArithmeticException if the value cannot be represented
+     *         as a <code>long</code> number in the specified unit.
+     */
+    public long longValue(int index, Unit<Q> unit) throws ArithmeticException {
+        double value = doubleValue(index, unit);
+        if (java.lang.Double.isNaN(value)
+                || (value < java.lang.Long.MIN_VALUE)
+                || (value > java.lang.Long.MAX_VALUE))
+            throw new ArithmeticException(value + " " + unit
+                    + " cannot be represented as long");
+        return Math.round(value);
+    }
+
+    /**
+     * Returns the column equivalent to this one but stated in the specified
+     * unit; all the values are converted at once.
+     *
+     * @param  unit the new measurement unit.
+     * @return this column if the units are equal or a new column holding
+     *         <code>double</code> values (<code>float</code> values for a
+     *         <code>float</code> column).
+     * @throws ConversionException if the units are not compatible.
+     */
+    public abstract MeasureColumn<Q> to(Unit<Q> unit);
+
+    /**
+     * Returns the values of this column stated in the specified unit.
+     *
+     * @param  unit the unit in which the values are stated.
+     * @return a new array holding the converted values.
+     * @throws ConversionException if the units are not compatible.
+     */
+    public final double[] toDoubleArray(Unit<Q> unit) {
+        double[] values = new double[_length];
+        getValues(values, 0, unit);
+        return values;
+    }
+
+    /**
+     * Copies the values of this column stated in the specified unit into
+     * the specified array.
+     *
+     * @param  dst the destination array.
+     * @param  dstOff the index of the first value written.
+     * @param  unit the unit in which the values are stated.
+     * @throws ConversionException if the units are not compatible.
+     * @throws IndexOutOfBoundsException if there is insufficient space in
+     *         the destination array.
+     */
+    public final void getValues(double[] dst, int dstOff, Unit<Q> unit) {
+        if ((dstOff < 0) || (dstOff + _length > dst.length))
+            throw new IndexOutOfBoundsException();
+        convert((unit == _unit) ? UnitConverter.IDENTITY : converterTo(unit),
+                dst, dstOff);
+    }
+
+    /**
+     * Returns a view of the values of this column in the specified range.
+     *
+     * @param  fromIndex the index of the first value (inclusive).
+     * @param  toIndex the index of the last value (exclusive).
+     * @return the corresponding sub-column (shares this column array).
+     * @throws IndexOutOfBoundsException if the range is out of bounds.
+     */
+    public final MeasureColumn<Q> subColumn(int fromIndex, int toIndex) {
+        if ((fromIndex < 0) || (fromIndex > toIndex) || (toIndex > _length))
+            throw new IndexOutOfBoundsException("Range [" + fromIndex + ", "
+                    + toIndex + ") out of [0, " + _length + ")");
+        return view(_offset + fromIndex, toIndex - fromIndex);
+    }
+
+    /**
+     * Returns a list view of this column; the measurable elements are
+     * created when accessed.
+     *
+     * @return this column as a list of measurables.
+     */
+    public final List<Measurable<Q>> asList() {
+        return new MeasurableList();
+    }
+
+    /**
+     * Returns the <code>String</code> representation of this column
+     * (for example <code>[2.3, 5.6, 7.1] m/s</code>).
+     *
+     * @return the textual representation of the column.
+     */
+    @Override
+    public String toString() {
+        StringBuilder tmp = new StringBuilder();
+        tmp.append('[');
+        for (int i = 0; i < _length; i++) {
+            if (i != 0) {
+                tmp.append(", ");
+            }
+            appendValue(tmp, _offset + i);
+        }
+        return tmp.append("] ").append(_unit).toString();
+    }
+
+    /**
+     * Returns the value at the specified array index as
+     * <code>double</code>.
+     */
+    abstract double valueAt(int arrayIndex);
+
+    /**
+     * Returns the measurable at the specified array index.
+     */
+    abstract Measurable<Q> measurableAt(int arrayIndex);
+
+    /**
+     * Appends the value at the specified array index.
+     */
+    abstract void appendValue(StringBuilder tmp, int arrayIndex);
+
+    /**
+     * Converts all the values of this column into the specified array.
+     */
+    abstract void convert(UnitConverter cvtr, double[] dst, int dstOff);
+
+    /**
+     * Returns a column of the same type over the specified array range.
+     */
+    abstract MeasureColumn<Q> view(int offset, int length);
+
+    /**
+     * Returns the converter from this column unit to the specified unit.
+     */
+    final UnitConverter converterTo(Unit<Q> unit) {
+        Conversion conversion = _conversion;
+        if ((conversion == null) || (conversion._unit != unit)) {
+            _conversion = conversion = new Conversion(unit, _unit
+                    .getConverterTo(unit));
+        }
+        return conversion._converter;
+    }
+
+    private int checkIndex(int index) {
+        if ((index < 0) || (index >= _length))
+            throw new IndexOutOfBoundsException("Index: " + index
+                    + ", Size: " + _length);
+        return _offset + index;
+    }
+
+    /**
+     * This class represents a target unit and its converter (immutable).
+     */
+    private static final class Conversion {
+        final Unit<?> _unit;
+        final UnitConverter _converter;
+        Conversion(Unit<?> unit, UnitConverter converter) {
+            _unit = unit;
+            _converter = converter;
+        }
+    }
+
+    // Holds the list view.
+    private final class MeasurableList extends AbstractList<Measurable<Q>>
+            implements RandomAccess {
+        @Override
+        public Measurable<Q> get(int index) {
+            return measurableAt(checkIndex(index));
+        }
+        @Override
+        public int size() {
+            return _length;
+        }
+    }
+
+    // Holds double implementation.
+    private static final class Double<Q extends Quantity> extends
+            MeasureColumn<Q> {
+
+        private final double[] _values;
+
+        private Double(double[] values, int offset, int length, Unit<Q> unit) {
+            super(unit, offset, length);
+            _values = values;
+        }
+
+        @Override
+        public MeasureColumn<Q> to(Unit<Q> unit) {
+            if ((unit == getUnit()) || (unit.equals(getUnit())))
+                return this;
+            double[] values = new double[size()];
+            converterTo(unit).convert(_values, _offset, values, 0, size());
+            return new Double<Q>(values, 0, values.length, unit);
+        }
+
+        @Override
+        double valueAt(int arrayIndex) {
+            return _values[arrayIndex];
+        }
+
+        @Override
+        Measurable<Q> measurableAt(int arrayIndex) {
+            return Measure.valueOf(_values[arrayIndex], getUnit());
+        }
+
+        @Override
+        void appendValue(StringBuilder tmp, int arrayIndex) {
+            tmp.append(_values[arrayIndex]);
+        }
+
+        @Override
+        void convert(UnitConverter cvtr, double[] dst, int dstOff) {
+            cvtr.convert(_values, _offset, dst, dstOff, size());
+        }
+
+        @Override
+        MeasureColumn<Q> view(int offset, int length) {
+            return new Double<Q>(_values, offset, length, getUnit());
+        }
+
+        private static final long serialVersionUID = 1L;
+    }
+
+    // Holds long implementation.
+    private static final class Long<Q extends Quantity> extends
+            MeasureColumn<Q> {
+
+        private final long[] _values;
+
+        private Long(long[] values, int offset, int length, Unit<Q> unit) {
+            super(unit, offset, length);
+            _values = values;
+        }
+
+        @Override
+        public long longValue(int index, Unit<Q> unit)
+                throws ArithmeticException {
+            if ((unit == getUnit()) || (unit.equals(getUnit()))) {
+                if ((index < 0) || (index >= size()))
+                    throw new IndexOutOfBoundsException("Index: " + index
+                            + ", Size: " + size());
+                return _values[_offset + index]; // Exact.
+            }
+            return super.longValue(index, unit);
+        }
+
+        @Override
+        public MeasureColumn<Q> to(Unit<Q> unit) {
+            if ((unit == getUnit()) || (unit.equals(getUnit())))
+                return this;
+            double[] values = new double[size()];
+            converterTo(unit).convert(_values, _offset, values, 0, size());
+            return new Double<Q>(values, 0, values.length, unit);
+        }
+
+        @Override
+        double valueAt(int arrayIndex) {
+            return _values[arrayIndex];
+        }
+
+        @Override
+        Measurable<Q> measurableAt(int arrayIndex) {
+            return Measure.valueOf(_values[arrayIndex], getUnit());
+        }
+
+        @Override
+        void appendValue(StringBuilder tmp, int arrayIndex) {
+            tmp.append(_values[arrayIndex]);
+        }
+
+        @Override
+        void convert(UnitConverter cvtr, double[] dst, int dstOff) {
+            cvtr.convert(_values, _offset, dst, dstOff, size());
+        }
+
+        @Override
+        MeasureColumn<Q> view(int offset, int length) {
+            return new Long<Q>(_values, offset, length, getUnit());
+        }
+
+        private static final long serialVersionUID = 1L;
+    }
+
+    // Holds float implementation.
+    private static final class Float<Q extends Quantity> extends
+            MeasureColumn<Q> {
+
+        private final float[] _values;
+
+        private Float(float[] values, int offset, int length, Unit<Q> unit) {
+            super(unit, offset, length);
+            _values = values;
+        }
+
+        @Override
+        public MeasureColumn<Q> to(Unit<Q> unit) {
+            if ((unit == getUnit()) || (unit.equals(getUnit())))
+                return this;
+            float[] values = new float[size()];
+            converterTo(unit).convert(_values, _offset, values, 0, size());
+            return new Float<Q>(values, 0, values.length, unit);
+        }
+
+        @Override
+        double valueAt(int arrayIndex) {
+            return _values[arrayIndex];
+        }
+
+        @Override
+        Measurable<Q> measurableAt(int arrayIndex) {
+            return Measure.valueOf(_values[arrayIndex], getUnit());
+        }
+
+        @Override
+        void appendValue(StringBuilder tmp, int arrayIndex) {
+            tmp.append(_values[arrayIndex]);
+        }
+
+        @Override
+        void convert(UnitConverter cvtr, double[] dst, int dstOff) {
+            for (int i = 0; i < size(); i++) {
+                dst[dstOff + i] = _values[_offset + i];
+            }
+            cvtr.convert(dst, dstOff, size());
+        }
+
+        @Override
+        MeasureColumn<Q> view(int offset, int length) {
+            return new Float<Q>(_values, offset, length, getUnit());
+        }
+
+        private static final long serialVersionUID = 1L;
+    }
+
+    private static final long serialVersionUID = 1L;
+}
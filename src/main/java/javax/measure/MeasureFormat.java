@@ -8,7 +8,10 @@
  */
 package javax.measure;
 
+import java.io.IOException;
 import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.text.FieldPosition;
 import java.text.Format;
 import java.text.NumberFormat;
@@ -56,6 +59,131 @@ public abstract class MeasureFormat extends Format {
         return new NumberUnit(numberFormat, unitFormat);
     }
 
+    /**
+     * Returns a measure format stating numbers with the fewest digits
+     * needed to parse them back exactly (e.g. <code>"0.1 m"</code> for
+     * <code>Measure.valueOf(0.1, SI.METER)</code>), using the default unit
+     * format. The number is formatted as by {@link Double#toString(double)}
+     * (no grouping, locale independent) and the number and unit are
+     * separated by a space. The returned format is immutable and can be
+     * shared between threads.
+     *
+     * @return the shortest round-trip measure format.
+     */
+    public static MeasureFormat getShortestInstance() {
+        return SHORTEST;
+    }
+
+    static final Shortest SHORTEST = new Shortest(UnitFormat.getInstance());
+
+    /**
+     * Returns a shortest round-trip measure format (see
+     * {@link #getShortestInstance()}) using the specified unit format.
+     *
+     * @param unitFormat the unit format.
+     * @return the corresponding format.
+     */
+    public static MeasureFormat getShortestInstance(UnitFormat unitFormat) {
+        return new Shortest(unitFormat);
+    }
+
+    /**
+     * Formats the specified measure into the specified appendable.
+     *
+     * @param  measure the measure to format.
+     * @param  appendable the appendable destination.
+     * @return the specified appendable.
+     * @throws IOException if an I/O error occurs.
+     */
+    public Appendable format(Measure<?, ?> measure, Appendable appendable)
+            throws IOException {
+        return appendable.append(format(measure));
+    }
+
+    /**
+     * Formats the specified measure into the specified string builder
+     * (convenience method not throwing <code>IOException</code>).
+     *
+     * @param  measure the measure to format.
+     * @param  sb the string builder destination.
+     * @return the specified string builder.
+     */
+    public StringBuilder format(Measure<?, ?> measure, StringBuilder sb) {
+        return sb.append(format(measure));
+    }
+
+    /**
+     * Writes the UTF-8 encoded text of the specified measure into the
+     * specified bytes array.
+     *
+     * @param  measure the measure to format.
+     * @param  bytes the destination array.
+     * @param  off the index of the first byte to write.
+     * @return the index after the last byte written.
+     * @throws IndexOutOfBoundsException if there is insufficient space in
+     *         the destination array.
+     */
+    public int format(Measure<?, ?> measure, byte[] bytes, int off) {
+        byte[] utf8 = format(measure).getBytes(StandardCharsets.UTF_8);
+        System.arraycopy(utf8, 0, bytes, off, utf8.length);
+        return off + utf8.length;
+    }
+
+    /**
+     * Writes the UTF-8 encoded text of the specified measure into the
+     * specified buffer (at its current position).
+     *
+     * @param  measure the measure to format.
+     * @param  buffer the destination buffer.
+     * @return the specified buffer.
+     * @throws java.nio.BufferOverflowException if there is insufficient
+     *         space in the buffer.
+     */
+    public ByteBuffer format(Measure<?, ?> measure, ByteBuffer buffer) {
+        return buffer.put(format(measure).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Parses the UTF-8 encoded text held by the specified range of bytes
+     * to produce a measure (the whole range is parsed).
+     *
+     * @param  bytes the UTF-8 encoded text.
+     * @param  off the index of the first byte to parse.
+     * @param  len the number of bytes to parse.
+     * @return the measure parsed from the bytes.
+     * @throws ParseException if the bytes do not hold a valid measure (the
+     *         error offset is an index in the bytes array).
+     */
+    public Measure<?, ?> parse(byte[] bytes, int off, int len)
+            throws ParseException {
+        String source = new String(bytes, off, len, StandardCharsets.UTF_8);
+        ParsePosition pos = new ParsePosition(0);
+        Object measure = parseObject(source, pos);
+        int index = (measure == null) ? Math.max(pos.getErrorIndex(), 0)
+                : pos.getIndex();
+        if ((measure == null) || (index < source.length()))
+            throw new ParseException("Cannot parse " + source, off
+                    + source.substring(0, index).getBytes(
+                            StandardCharsets.UTF_8).length);
+        return (Measure<?, ?>) measure;
+    }
+
+    // Measure using Compound unit have no separators in their representation.
+    static StringBuffer formatCompound(double value, Unit<?> unit,
+            UnitFormat unitFormat, StringBuffer toAppendTo, FieldPosition pos) {
+        if (!(unit instanceof CompoundUnit)) {
+            toAppendTo.append((long) value);
+            return unitFormat.format(unit, toAppendTo, pos);
+        }
+        Unit<?> high = ((CompoundUnit<?>) unit).getHigher();
+        Unit<?> low = ((CompoundUnit<?>) unit).getLower(); // The unit in which the value is stated.
+        long highValue = (long) low.getConverterTo(high).convert(value);
+        double lowValue = value - high.getConverterTo(low).convert(highValue);
+        formatCompound(highValue, high, unitFormat, toAppendTo, pos);
+        formatCompound(lowValue, low, unitFormat, toAppendTo, pos);
+        return toAppendTo;
+    }
+
     // Holds default implementation.
     static final class NumberUnit extends MeasureFormat {
         private final NumberFormat _numberFormat;
@@ -91,18 +219,8 @@ public abstract class MeasureFormat extends Format {
         // Measure using Compound unit have no separators in their representation.
         StringBuffer formatCompound(double value, Unit<?> unit,
                 StringBuffer toAppendTo, FieldPosition pos) {
-            if (!(unit instanceof CompoundUnit)) {
-                toAppendTo.append((long) value);
-                return _unitFormat.format(unit, toAppendTo, pos);
-            }
-            Unit<?> high = ((CompoundUnit<?>) unit).getHigher();
-            Unit<?> low = ((CompoundUnit<?>) unit).getLower(); // The unit in which the value is stated.
-            long highValue = (long) low.getConverterTo(high).convert(value);
-            double lowValue = value
-                    - high.getConverterTo(low).convert(highValue);
-            formatCompound(highValue, high, toAppendTo, pos);
-            formatCompound(lowValue, low, toAppendTo, pos);
-            return toAppendTo;
+            return MeasureFormat.formatCompound(value, unit, _unitFormat,
+                    toAppendTo, pos);
         }
 
         @Override
@@ -148,7 +266,7 @@ public abstract class MeasureFormat extends Format {
         }
 
         @SuppressWarnings("unchecked")
-        private static Measure measureOf(Number value, Unit unit) {
+        static Measure measureOf(Number value, Unit unit) {
             if (value instanceof Double) {
                 return Measure.valueOf(value.doubleValue(), unit);
             } else if (value instanceof Long) {
@@ -166,4 +284,213 @@ public abstract class MeasureFormat extends Format {
 
         private static final long serialVersionUID = 1L;
     }
+
+    // Holds shortest round-trip implementation (immutable).
+    static final class Shortest extends MeasureFormat {
+        private final UnitFormat _unitFormat;
+
+        private Shortest(UnitFormat unitFormat) {
+            _unitFormat = unitFormat;
+        }
+
+        @Override
+        public StringBuffer format(Object obj, StringBuffer toAppendTo,
+                FieldPosition pos) {
+            Measure<?, ?> measure = (Measure<?, ?>) obj;
+            Object value = measure.getValue();
+            Unit<?> unit = measure.getUnit();
+            if ((unit instanceof CompoundUnit) && (value instanceof Number))
+                return formatCompound(((Number) value).doubleValue(), unit,
+                        _unitFormat, toAppendTo, pos);
+            if (value instanceof Double) {
+                char[] chars = new char[ShortestDecimal.MAX_LENGTH];
+                toAppendTo.append(chars, 0, ShortestDecimal.format(
+                        ((Double) value).doubleValue(), chars, 0));
+            } else {
+                toAppendTo.append(value);
+            }
+            if (!unit.equals(Unit.ONE)) {
+                toAppendTo.append(' ').append(_unitFormat.textOf(unit));
+            }
+            return toAppendTo;
+        }
+
+        @Override
+        public Appendable format(Measure<?, ?> measure, Appendable appendable)
+                throws IOException {
+            Object value = measure.getValue();
+            Unit<?> unit = measure.getUnit();
+            if (unit instanceof CompoundUnit)
+                return appendable.append(format(measure));
+            if (value instanceof Double) {
+                char[] chars = new char[ShortestDecimal.MAX_LENGTH];
+                int length = ShortestDecimal.format(((Double) value)
+                        .doubleValue(), chars, 0);
+                for (int i = 0; i < length; i++) {
+                    appendable.append(chars[i]);
+                }
+            } else {
+                appendable.append(String.valueOf(value));
+            }
+            if (!unit.equals(Unit.ONE)) {
+                appendable.append(' ').append(_unitFormat.textOf(unit));
+            }
+            return appendable;
+        }
+
+        @Override
+        public StringBuilder format(Measure<?, ?> measure, StringBuilder sb) {
+            Object value = measure.getValue();
+            Unit<?> unit = measure.getUnit();
+            if (unit instanceof CompoundUnit)
+                return sb.append(format(measure));
+            if (value instanceof Double) {
+                char[] chars = new char[ShortestDecimal.MAX_LENGTH];
+                sb.append(chars, 0, ShortestDecimal.format(((Double) value)
+                        .doubleValue(), chars, 0));
+            } else {
+                sb.append(value);
+            }
+            if (!unit.equals(Unit.ONE)) {
+                sb.append(' ').append(_unitFormat.textOf(unit));
+            }
+            return sb;
+        }
+
+        @Override
+        public int format(Measure<?, ?> measure, byte[] bytes, int off) {
+            Object value = measure.getValue();
+            Unit<?> unit = measure.getUnit();
+            if ((unit instanceof CompoundUnit)
+                    || !((value instanceof Double) || (value instanceof Long)))
+                return super.format(measure, bytes, off);
+            off = formatNumber(value, bytes, off);
+            if (!unit.equals(Unit.ONE)) {
+                bytes[off++] = ' ';
+                off = _unitFormat.format(unit, bytes, off);
+            }
+            return off;
+        }
+
+        @Override
+        public ByteBuffer format(Measure<?, ?> measure, ByteBuffer buffer) {
+            Object value = measure.getValue();
+            Unit<?> unit = measure.getUnit();
+            if ((unit instanceof CompoundUnit)
+                    || !((value instanceof Double) || (value instanceof Long)))
+                return super.format(measure, buffer);
+            byte[] number = new byte[ShortestDecimal.MAX_LENGTH];
+            buffer.put(number, 0, formatNumber(value, number, 0));
+            if (!unit.equals(Unit.ONE)) {
+                buffer.put((byte) ' ');
+                _unitFormat.format(unit, buffer);
+            }
+            return buffer;
+        }
+
+        @Override
+        public Measure<?, ?> parse(byte[] bytes, int off, int len)
+                throws ParseException {
+            int end = off + len;
+            DecimalScanner number = new DecimalScanner();
+            int i = number.scan(bytes, off, end);
+            Number value = number._isLong ? (Number) Long
+                    .valueOf(number._longValue) : (Number) Double
+                    .valueOf(number._doubleValue);
+            if (i == end)
+                return NumberUnit.measureOf(value, Unit.ONE); // No unit.
+            if ((bytes[i] != ' ') || (i + 1 == end))
+                throw new ParseException("Unexpected character", i);
+            Unit<?> unit = _unitFormat.parseProductUnit(bytes, i + 1, end
+                    - i - 1);
+            return NumberUnit.measureOf(value, unit);
+        }
+
+        // Writes the specified Double or Long value (ASCII).
+        private static int formatNumber(Object value, byte[] bytes, int off) {
+            if (value instanceof Double) {
+                char[] chars = new char[ShortestDecimal.MAX_LENGTH];
+                int length = ShortestDecimal.format(((Double) value)
+                        .doubleValue(), chars, 0);
+                if (off + length > bytes.length)
+                    throw new IndexOutOfBoundsException();
+                for (int i = 0; i < length; i++) {
+                    bytes[off++] = (byte) chars[i];
+                }
+                return off;
+            }
+            long l = ((Long) value).longValue();
+            if (l == Long.MIN_VALUE) {
+                byte[] min = "-9223372036854775808"
+                        .getBytes(StandardCharsets.US_ASCII);
+                System.arraycopy(min, 0, bytes, off, min.length);
+                return off + min.length;
+            }
+            if (l < 0) {
+                bytes[off++] = '-';
+                l = -l;
+            }
+            int length = 1;
+            for (long i = l; i >= 10; i /= 10) {
+                length++;
+            }
+            if (off + length > bytes.length)
+                throw new IndexOutOfBoundsException();
+            for (int i = off + length - 1; i >= off; i--, l /= 10) {
+                bytes[i] = (byte) ('0' + l % 10);
+            }
+            return off + length;
+        }
+        @Override
+        public Object parseObject(String source, ParsePosition pos) {
+            int start = pos.getIndex();
+            int i = start;
+            int length = source.length();
+            if ((i < length)
+                    && ((source.charAt(i) == '-') || (source.charAt(i) == '+'))) {
+                i++;
+            }
+            boolean isInteger = true;
+            for (; i < length; i++) {
+                char c = source.charAt(i);
+                boolean isExponentSign = ((c == '-') || (c == '+'))
+                        && ((source.charAt(i - 1) == 'E') || (source
+                                .charAt(i - 1) == 'e'));
+                if ((c == '.') || (c == 'E') || (c == 'e') || isExponentSign) {
+                    isInteger = false;
+                } else if ((c < '0') || (c > '9')) {
+                    break;
+                }
+            }
+            String number = source.substring(start, i);
+            try {
+                Number value;
+                try {
+                    value = isInteger ? (Number) Long.valueOf(number)
+                            : (Number) Double.valueOf(number);
+                } catch (NumberFormatException e) {
+                    if (!isInteger)
+                        throw e;
+                    value = Double.valueOf(number); // Out of long range.
+                }
+                if ((i + 1 >= length) || (source.charAt(i) != ' ')) {
+                    pos.setIndex(i);
+                    return NumberUnit.measureOf(value, Unit.ONE); // No unit.
+                }
+                pos.setIndex(i + 1); // Skips separator.
+                Unit<?> unit = _unitFormat.parseProductUnit(source, pos);
+                return NumberUnit.measureOf(value, unit);
+            } catch (NumberFormatException e) {
+                pos.setIndex(start);
+                pos.setErrorIndex(start);
+                return null;
+            } catch (ParseException e) {
+                pos.setIndex(start);
+                pos.setErrorIndex(e.getErrorOffset());
+                return null;
+            }
+        }
+
+        private static final long serialVersionUID = 1L;
+    }
 }
@@ -0,0 +1,549 @@
+/*
+ * JScience - Java(TM) Tools and Libraries for the Advancement of Sciences.
+ * Copyright (C) 2007 - JScience (http://jscience.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package javax.measure;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.MalformedInputException;
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+import java.util.IdentityHashMap;
+
+import javax.measure.converter.ConversionException;
+import javax.measure.converter.UnitConverter;
+import javax.measure.quantity.Quantity;
+import javax.measure.unit.Unit;
+import javax.measure.unit.UnitTokenCache;
+
+/**
+ * <p> This class reads measures stated as <code>"number unit"</code> records
+ *     from large text sources (e.g. CSV columns, line-oriented logs) without
+ *     creating any object per record.</p>
+ *
+ * <p> Records are separated by line terminators, tabs, commas or semicolons
+ *     (empty records are ignored). The number is stated using the Java
+ *     syntax (e.g. <code>"-1.5e3"</code>) and is parsed directly into a
+ *     primitive value; the unit, if any, follows the number after a space
+ *     and is stated using the {@link javax.measure.unit.UnitFormat#getInstance()
+ *     default unit format}. Repeated unit tokens are resolved through a
+ *     {@link UnitTokenCache}. Measures can be read one at a time or into
+ *     primitive columns stated in a given unit. For example:[code]
+ *         MeasureReader reader = new MeasureReader(new FileInputStream("lengths.txt"));
+ *         double[] meters = new double[4096];
+ *         for (int n; (n = reader.read(meters, 0, meters.length, SI.METER)) > 0;) {
+ *             ... // Lines "12.5 km", "1500 m", "3 ft", ...
+ *         }
+ *         reader.close();
+ *     [/code]</p>
+ *
+ * <p> Byte sources are decoded as UTF-8. Instances of this class are not
+ *     synchronized.</p>
+ *
+ * @see MeasureFormat
+ */
+public final class MeasureReader implements Closeable {
+
+    /**
+     * Holds the characters buffer length.
+     */
+    private static final int BUFFER_LENGTH = 8192;
+
+    /**
+     * Holds the maximum record length (in characters).
+     */
+    private static final int MAX_RECORD_LENGTH = 256;
+
+    /**
+     * Holds the characters source or <code>null</code> for bytes sources.
+     */
+    private final Reader _reader;
+
+    /**
+     * Holds the bytes channel or <code>null</code> (characters source or
+     * buffer source).
+     */
+    private final ReadableByteChannel _channel;
+
+    /**
+     * Holds the bytes to decode or <code>null</code> (characters source).
+     */
+    private final ByteBuffer _bytes;
+
+    /**
+     * Holds the decoder for bytes sources.
+     */
+    private final CharsetDecoder _decoder;
+
+    /**
+     * Holds the numbers scanner.
+     */
+    private final DecimalScanner _number = new DecimalScanner();
+
+    /**
+     * Holds the unit tokens cache.
+     */
+    private final UnitTokenCache _units = new UnitTokenCache();
+
+    /**
+     * Holds the converters to the last unit values have been converted to
+     * (from the records units).
+     */
+    private final IdentityHashMap<Unit<?>, UnitConverter> _converters = new IdentityHashMap<Unit<?>, UnitConverter>();
+
+    /**
+     * Holds the last unit values have been converted to.
+     */
+    private Unit<?> _target;
+
+    /**
+     * Holds the characters buffer.
+     */
+    private final char[] _buffer = new char[BUFFER_LENGTH];
+
+    /**
+     * Holds the index of the next character to read.
+     */
+    private int _index;
+
+    /**
+     * Holds the index after the last character buffered.
+     */
+    private int _limit;
+
+    /**
+     * Holds the number of characters discarded from the buffer.
+     */
+    private long _offset;
+
+    /**
+     * Indicates if the end of the source has been reached.
+     */
+    private boolean _isEnd;
+
+    /**
+     * Holds the value of the current record.
+     */
+    private double _doubleValue;
+
+    /**
+     * Holds the exact value of the current record if integer.
+     */
+    private long _longValue;
+
+    /**
+     * Indicates if the current record value is an integer (exact).
+     */
+    private boolean _isLong;
+
+    /**
+     * Holds the unit of the current record.
+     */
+    private Unit<? extends Quantity> _unit;
+
+    /**
+     * Creates a measure reader for the specified characters source.
+     *
+     * @param reader the characters source.
+     */
+    public MeasureReader(Reader reader) {
+        _reader = reader;
+        _channel = null;
+        _bytes = null;
+        _decoder = null;
+    }
+
+    /**
+     * Creates a measure reader for the specified bytes source (UTF-8).
+     *
+     * @param in the bytes source.
+     */
+    public MeasureReader(InputStream in) {
+        _reader = null;
+        _channel = Channels.newChannel(in);
+        _bytes = ByteBuffer.allocate(BUFFER_LENGTH);
+        limit(_bytes, 0);
+        _decoder = StandardCharsets.UTF_8.newDecoder();
+    }
+
+    /**
+     * Creates a measure reader for the remaining bytes of the specified
+     * buffer (UTF-8), e.g. a memory-mapped file. The buffer position is
+     * not modified.
+     *
+     * @param bytes the bytes source.
+     */
+    public MeasureReader(ByteBuffer bytes) {
+        _reader = null;
+        _channel = null;
+        _bytes = bytes.duplicate();
+        _decoder = StandardCharsets.UTF_8.newDecoder();
+    }
+
+    /**
+     * Returns the cache used to resolve the unit tokens.
+     *
+     * @return the unit tokens cache.
+     */
+    public UnitTokenCache getUnitTokenCache() {
+        return _units;
+    }
+
+    /**
+     * Reads the next record.
+     *
+     * @return <code>true</code> if a record has been read;
+     *         <code>false</code> if the end of the source has been reached.
+     * @throws IOException if an I/O error occurs.
+     * @throws ParseException if the record is not a valid measure.
+     */
+    public boolean next() throws IOException, ParseException {
+        for (;; _index++) {
+            if ((_index >= _limit) && !fill())
+                return false;
+            if (!isSeparator(_buffer[_index]))
+                break;
+        }
+        if ((_limit - _index < MAX_RECORD_LENGTH) && !_isEnd) {
+            fill();
+        }
+        parseRecord();
+        return true;
+    }
+
+    /**
+     * Returns the value of the current record.
+     *
+     * @return the value stated in the record unit.
+     */
+    public double doubleValue() {
+        return _doubleValue;
+    }
+
+    /**
+     * Returns the value of the current record converted to the specified
+     * unit.
+     *
+     * @param  unit the unit in which the value is returned.
+     * @return the value stated in the specified unit.
+     * @throws ConversionException if the units are not compatible.
+     */
+    public double doubleValue(Unit<?> unit) throws ConversionException {
+        return (_unit == unit) ? _doubleValue : converterTo(unit).convert(
+                _doubleValue);
+    }
+
+    /**
+     * Returns the value of the current record as a <code>long</code>
+     * (exact if the record number is an integer within the <code>long</code>
+     * range).
+     *
+     * @return the value stated in the record unit.
+     * @throws ArithmeticException if the value cannot be represented as
+     *         a <code>long</code>.
+     */
+    public long longValue() throws ArithmeticException {
+        if (_isLong)
+            return _longValue;
+        if ((_doubleValue > Long.MAX_VALUE) || (_doubleValue < Long.MIN_VALUE)
+                || Double.isNaN(_doubleValue))
+            throw new ArithmeticException("Overflow: " + _doubleValue);
+        return (long) _doubleValue;
+    }
+
+    /**
+     * Indicates if the current record number is an integer held exactly
+     * by {@link #longValue()}.
+     *
+     * @return <code>true</code> if the record number is an integer;
+     *         <code>false</code> otherwise.
+     */
+    public boolean isLong() {
+        return _isLong;
+    }
+
+    /**
+     * Returns the unit of the current record.
+     *
+     * @return the record unit ({@link Unit#ONE} if none).
+     */
+    public Unit<? extends Quantity> getUnit() {
+        return _unit;
+    }
+
+    /**
+     * Reads up to <code>len</code> records into the specified column;
+     * the values are converted to the column unit.
+     *
+     * @param  values the column receiving the values.
+     * @param  off the index of the first value to set.
+     * @param  len the maximum number of values to read.
+     * @param  unit the column unit.
+     * @return the number of values read or <code>-1</code> if the end of
+     *         the source has been reached.
+     * @throws IOException if an I/O error occurs.
+     * @throws ParseException if a record is not a valid measure.
+     * @throws ConversionException if a record unit is not compatible with
+     *         the column unit.
+     */
+    public int read(double[] values, int off, int len, Unit<?> unit)
+            throws IOException, ParseException, ConversionException {
+        int n = 0;
+        int runStart = 0; // Values of the same unit converted together.
+        Unit<?> runUnit = null;
+        while ((n < len) && next()) {
+            if (_unit != runUnit) {
+                convert(values, off + runStart, n - runStart, runUnit, unit);
+                runStart = n;
+                runUnit = _unit;
+            }
+            values[off + n++] = _doubleValue;
+        }
+        convert(values, off + runStart, n - runStart, runUnit, unit);
+        return ((n == 0) && (len > 0)) ? -1 : n;
+    }
+
+    /**
+     * Reads up to <code>len</code> rows of <code>columns.length</code>
+     * records each (e.g. CSV lines) into the specified columns; the values
+     * are converted to the unit of their column.
+     *
+     * @param  columns the columns receiving the values.
+     * @param  units the units of the columns.
+     * @param  off the row index of the first values to set.
+     * @param  len the maximum number of rows to read.
+     * @return the number of rows read or <code>-1</code> if the end of
+     *         the source has been reached.
+     * @throws IOException if an I/O error occurs.
+     * @throws ParseException if a record is not a valid measure or if
+     *         the last row is incomplete.
+     * @throws ConversionException if a record unit is not compatible with
+     *         the unit of its column.
+     */
+    public int readRows(double[][] columns, Unit<?>[] units, int off, int len)
+            throws IOException, ParseException, ConversionException {
+        if (columns.length != units.length)
+            throw new IllegalArgumentException("One unit per column expected");
+        Unit<?>[] from = new Unit<?>[columns.length];
+        UnitConverter[] cvtrs = new UnitConverter[columns.length];
+        int n = 0;
+        for (; n < len; n++) {
+            for (int j = 0; j < columns.length; j++) {
+                if (!next()) {
+                    if (j == 0)
+                        return ((n == 0) && (len > 0)) ? -1 : n;
+                    throw new ParseException("Incomplete row", (int) Math.min(
+                            Integer.MAX_VALUE, _offset + _index));
+                }
+                if (_unit != from[j]) {
+                    from[j] = _unit;
+                    cvtrs[j] = _unit.getConverterTo(units[j]);
+                }
+                columns[j][off + n] = cvtrs[j].convert(_doubleValue);
+            }
+        }
+        return n;
+    }
+
+    /**
+     * Closes the underlying source.
+     *
+     * @throws IOException if an I/O error occurs.
+     */
+    public void close() throws IOException {
+        if (_reader != null) {
+            _reader.close();
+        } else if (_channel != null) {
+            _channel.close();
+        }
+    }
+
+    private void convert(double[] values, int off, int len, Unit<?> from,
+            Unit<?> to) {
+        if ((len > 0) && (from != to)) {
+            converterTo(to, from).convert(values, off, len);
+        }
+    }
+
+    private UnitConverter converterTo(Unit<?> unit) {
+        return converterTo(unit, _unit);
+    }
+
+    private UnitConverter converterTo(Unit<?> unit, Unit<?> from) {
+        if (unit != _target) {
+            _converters.clear();
+            _target = unit;
+        }
+        UnitConverter cvtr = _converters.get(from);
+        if (cvtr == null) {
+            cvtr = from.getConverterTo(unit);
+            _converters.put(from, cvtr);
+        }
+        return cvtr;
+    }
+
+    /**
+     * Parses the record starting at the current index (the buffer holds
+     * at least {@link #MAX_RECORD_LENGTH} characters or the end of the
+     * source).
+     */
+    private void parseRecord() throws ParseException {
+        final char[] buffer = _buffer;
+        final int limit = _limit;
+        int start = _index;
+        int i;
+        try {
+            i = _number.scan(buffer, start, limit);
+        } catch (ParseException e) {
+            throw parseError(e.getMessage(), e.getErrorOffset());
+        }
+        _doubleValue = _number._doubleValue;
+        _longValue = _number._longValue;
+        _isLong = _number._isLong;
+
+        // Unit.
+        int end = i;
+        while ((end < limit) && (buffer[end] == ' ')) {
+            end++;
+        }
+        if ((end == limit) && !_isEnd)
+            throw parseError("Record too long", start);
+        if ((end == limit) || isRecordEnd(buffer[end])) {
+            _unit = Unit.ONE;
+        } else {
+            if (end == i)
+                throw parseError("Space expected before unit", end);
+            int unitStart = end;
+            while ((end < limit) && !isSeparator(buffer[end])) {
+                end++;
+            }
+            if ((end == limit) && !_isEnd)
+                throw parseError("Record too long", start);
+            try {
+                _unit = _units.get(buffer, unitStart, end);
+            } catch (ParseException e) {
+                throw parseError(e.getMessage(), e.getErrorOffset());
+            }
+            while ((end < limit) && (buffer[end] == ' ')) {
+                end++;
+            }
+            if ((end < limit) && !isRecordEnd(buffer[end]))
+                throw parseError("Unexpected character", end);
+        }
+        _index = end;
+    }
+
+    private ParseException parseError(String message, int index) {
+        return new ParseException(message, (int) Math.min(Integer.MAX_VALUE,
+                _offset + index));
+    }
+
+    private static boolean isSeparator(char c) {
+        return (c == ' ') || isRecordEnd(c);
+    }
+
+    private static boolean isRecordEnd(char c) {
+        return (c == '\n') || (c == '\r') || (c == '\t') || (c == ',')
+                || (c == ';');
+    }
+
+    /**
+     * Discards the characters before the current index and reads more
+     * characters (at least {@link #MAX_RECORD_LENGTH} unless the end of the
+     * source is reached).
+     *
+     * @return <code>true</code> if characters remain to be read;
+     *         <code>false</code> otherwise.
+     */
+    private boolean fill() throws IOException {
+        int remaining = _limit - _index;
+        System.arraycopy(_buffer, _index, _buffer, 0, remaining);
+        _offset += _index;
+        _index = 0;
+        _limit = remaining;
+        while (!_isEnd && (_limit < MAX_RECORD_LENGTH)) {
+            int n = read(_buffer, _limit, _buffer.length - _limit);
+            if (n < 0) {
+                _isEnd = true;
+            } else {
+                _limit += n;
+            }
+        }
+        return _limit > 0;
+    }
+
+    /**
+     * Reads characters from the source.
+     */
+    private int read(char[] chars, int off, int len) throws IOException {
+        if (_reader != null)
+            return _reader.read(chars, off, len);
+        final ByteBuffer bytes = _bytes;
+        while (true) {
+            int n = 0;
+            int position = bytes.position();
+            int limit = bytes.limit();
+            for (byte b; (n < len) && (position < limit)
+                    && ((b = bytes.get(position)) >= 0); position++) {
+                chars[off + n++] = (char) b; // ASCII
+            }
+            position(bytes, position);
+            if ((n < len) && (position < limit)) { // Not ASCII.
+                CharBuffer out = CharBuffer.wrap(chars, off + n, len - n);
+                CoderResult result = _decoder.decode(bytes, out,
+                        _channel == null);
+                if (result.isError()) {
+                    result.throwException();
+                }
+                n = out.position() - off;
+            }
+            if (n > 0)
+                return n;
+            if (_channel == null)
+                return -1; // Truncated sequence reported by the decoder.
+            bytes.compact();
+            int count = _channel.read(bytes);
+            flip(bytes);
+            if (count < 0) {
+                if (bytes.hasRemaining())
+                    throw new MalformedInputException(bytes.remaining());
+                return -1;
+            }
+        }
+    }
+
+    /**
+     * Sets the position of the specified buffer (Java 8 compatible).
+     */
+    private static void position(Buffer buffer, int position) {
+        buffer.position(position);
+    }
+
+    /**
+     * Sets the limit of the specified buffer (Java 8 compatible).
+     */
+    private static void limit(Buffer buffer, int limit) {
+        buffer.limit(limit);
+    }
+
+    /**
+     * Flips the specified buffer (Java 8 compatible).
+     */
+    private static void flip(Buffer buffer) {
+        buffer.flip();
+    }
+}
@@ -0,0 +1,379 @@
+/*
+ * JScience - Java(TM) Tools and Libraries for the Advancement of Sciences.
+ * Copyright (C) 2007 - JScience (http://jscience.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package javax.measure;
+
+import java.io.Serializable;
+
+import javax.measure.converter.AddConverter;
+import javax.measure.converter.AffineConverter;
+import javax.measure.converter.ConversionException;
+import javax.measure.converter.UnitConverter;
+import javax.measure.quantity.Quantity;
+import javax.measure.unit.Unit;
+
+/**
+ * <p> This class represents a time series of measurements stated in the
+ *     same unit: timestamps (<code>long</code>, any time unit) and values
+ *     (<code>double</code>) are held in primitive arrays.</p>
+ *
+ * <p> Series are aligned to a regular time grid
+ *     (<code>start + k * period</code>) and converted to the requested
+ *     unit in a single pass over the samples. For example:[code]
+ *         MeasureSeries<Pressure> raw = MeasureSeries.valueOf(millis, values, PSI);
+ *         MeasureSeries<Pressure> perMinute = raw.resampleAverage(t0, 60000, 1440, PASCAL);
+ *     [/code]
+ *     The signal is taken as constant from one sample to the next (the last
+ *     value being held), and undefined before the first sample:<ul>
+ *     <li>{@link #resampleStep step}: last value at or before each grid
+ *         time,</li>
+ *     <li>{@link #resampleLinear linear}: linear interpolation between the
+ *         samples surrounding each grid time (no extrapolation),</li>
+ *     <li>{@link #resampleAverage average}: time-weighted average over
+ *         each bucket <code>[start + k * period, start + (k + 1) * period)
+ *         </code>.</li></ul>
+ *     Undefined values are <code>NaN</code>.</p>
+ *
+ * <p> Affine conversions (most conversions) are applied to the resampled
+ *     values; other conversions (e.g. logarithmic) are applied to the
+ *     samples as they are read. Instances of this class are immutable.</p>
+ */
+public final class MeasureSeries<Q extends Quantity> implements Serializable {
+
+    private static final int STEP = 0;
+
+    private static final int LINEAR = 1;
+
+    private static final int AVERAGE = 2;
+
+    /**
+     * Holds the timestamps (non-decreasing).
+     */
+    private final long[] _times;
+
+    /**
+     * Holds the values.
+     */
+    private final double[] _values;
+
+    /**
+     * Holds the unit of the values.
+     */
+    private final Unit<Q> _unit;
+
+    /**
+     * Holds the last converter used (not serialized).
+     */
+    private transient volatile Conversion _conversion;
+
+    /**
+     * Creates a series (arrays not copied).
+     */
+    MeasureSeries(long[] times, double[] values, Unit<Q> unit) {
+        _times = times;
+        _values = values;
+        _unit = unit;
+    }
+
+    /**
+     * Returns a series holding a copy of the specified samples.
+     *
+     * @param  times the timestamps in non-decreasing order (for equal
+     *         timestamps the last sample prevails).
+     * @param  values the values stated in the specified unit.
+     * @param  unit the unit of the values.
+     * @return the corresponding series.
+     * @throws IllegalArgumentException if the arrays have different lengths
+     *         or if the timestamps are not ordered.
+     */
+    public static <Q extends Quantity> MeasureSeries<Q> valueOf(long[] times,
+            double[] values, Unit<Q> unit) {
+        if (times.length != values.length)
+            throw new IllegalArgumentException("Timestamps and values lengths differ");
+        for (int i = 1; i < times.length; i++) {
+            if (times[i] < times[i - 1])
+                throw new IllegalArgumentException("Timestamp at " + i
+                        + " out of order");
+        }
+        return new MeasureSeries<Q>(times.clone(), values.clone(), unit);
+    }
+
+    /**
+     * Returns the unit of the values of this series.
+     *
+     * @return the measurement unit.
+     */
+    public Unit<Q> getUnit() {
+        return _unit;
+    }
+
+    /**
+     * Returns the number of samples in this series.
+     *
+     * @return the number of samples.
+     */
+    public int size() {
+        return _times.length;
+    }
+
+    /**
+     * Returns the timestamp of the specified sample.
+     *
+     * @param  index the sample index.
+     * @return the sample timestamp.
+     */
+    public long getTime(int index) {
+        return _times[index];
+    }
+
+    /**
+     * Returns the value of the specified sample stated in this series unit.
+     *
+     * @param  index the sample index.
+     * @return the sample value.
+     */
+    public double doubleValue(int index) {
+        return _values[index];
+    }
+
+    /**
+     * Returns the value of the specified sample stated in the specified
+     * unit.
+     *
+     * @param  index the sample index.
+     * @param  unit the unit in which the value is stated.
+     * @return the converted sample value.
+     * @throws ConversionException if the units are not compatible.
+     */
+    public double doubleValue(int index, Unit<Q> unit) {
+        double value = _values[index];
+        return (unit == _unit) ? value : conversionTo(unit)._converter
+                .convert(value);
+    }
+
+    /**
+     * Returns the timestamps (not copied).
+     */
+    long[] times() {
+        return _times;
+    }
+
+    /**
+     * Returns the values (not copied).
+     */
+    double[] values() {
+        return _values;
+    }
+
+    /**
+     * Returns the series of the last values at or before each time of the
+     * specified grid, stated in the specified unit.
+     *
+     * @param  start the first grid time.
+     * @param  period the grid period (positive).
+     * @param  count the number of grid times.
+     * @param  unit the unit of the resampled values.
+     * @return the resampled series.
+     * @throws ConversionException if the units are not compatible.
+     */
+    public MeasureSeries<Q> resampleStep(long start, long period, int count,
+            Unit<Q> unit) {
+        return resample(STEP, start, period, count, unit);
+    }
+
+    /**
+     * Writes the last values at or before each time of the specified grid,
+     * stated in the specified unit.
+     *
+     * @param  start the first grid time.
+     * @param  period the grid period (positive).
+     * @param  dst the destination array.
+     * @param  dstOff the index of the first value written.
+     * @param  count the number of grid times.
+     * @param  unit the unit of the resampled values.
+     * @throws ConversionException if the units are not compatible.
+     */
+    public void resampleStep(long start, long period, double[] dst,
+            int dstOff, int count, Unit<Q> unit) {
+        resample(STEP, start, period, dst, dstOff, count, unit);
+    }
+
+    /**
+     * Returns the series of the values linearly interpolated at each time
+     * of the specified grid, stated in the specified unit.
+     *
+     * @param  start the first grid time.
+     * @param  period the grid period (positive).
+     * @param  count the number of grid times.
+     * @param  unit the unit of the resampled values.
+     * @return the resampled series.
+     * @throws ConversionException if the units are not compatible.
+     */
+    public MeasureSeries<Q> resampleLinear(long start, long period, int count,
+            Unit<Q> unit) {
+        return resample(LINEAR, start, period, count, unit);
+    }
+
+    /**
+     * Writes the values linearly interpolated at each time of the specified
+     * grid, stated in the specified unit.
+     *
+     * @param  start the first grid time.
+     * @param  period the grid period (positive).
+     * @param  dst the destination array.
+     * @param  dstOff the index of the first value written.
+     * @param  count the number of grid times.
+     * @param  unit the unit of the resampled values.
+     * @throws ConversionException if the units are not compatible.
+     */
+    public void resampleLinear(long start, long period, double[] dst,
+            int dstOff, int count, Unit<Q> unit) {
+        resample(LINEAR, start, period, dst, dstOff, count, unit);
+    }
+
+    /**
+     * Returns the series of the time-weighted averages over the buckets
+     * of the specified grid (timestamped at the bucket start), stated in
+     * the specified unit.
+     *
+     * @param  start the first grid time.
+     * @param  period the grid period (positive).
+     * @param  count the number of buckets.
+     * @param  unit the unit of the resampled values.
+     * @return the resampled series.
+     * @throws ConversionException if the units are not compatible.
+     */
+    public MeasureSeries<Q> resampleAverage(long start, long period,
+            int count, Unit<Q> unit) {
+        return resample(AVERAGE, start, period, count, unit);
+    }
+
+    /**
+     * Writes the time-weighted averages over the buckets of the specified
+     * grid, stated in the specified unit.
+     *
+     * @param  start the first grid time.
+     * @param  period the grid period (positive).
+     * @param  dst the destination array.
+     * @param  dstOff the index of the first value written.
+     * @param  count the number of buckets.
+     * @param  unit the unit of the resampled values.
+     * @throws ConversionException if the units are not compatible.
+     */
+    public void resampleAverage(long start, long period, double[] dst,
+            int dstOff, int count, Unit<Q> unit) {
+        resample(AVERAGE, start, period, dst, dstOff, count, unit);
+    }
+
+    private MeasureSeries<Q> resample(int method, long start, long period,
+            int count, Unit<Q> unit) {
+        long[] times = new long[count];
+        double[] values = new double[count];
+        resample(method, start, period, values, 0, count, unit);
+        for (int k = 0; k < count; k++) {
+            times[k] = start + k * period;
+        }
+        return new MeasureSeries<Q>(times, values, unit);
+    }
+
+    private void resample(int method, long start, long period, double[] dst,
+            int dstOff, int count, Unit<Q> unit) {
+        if (period <= 0)
+            throw new IllegalArgumentException("Non-positive period");
+        if ((dstOff < 0) || (count < 0) || (dstOff + count > dst.length))
+            throw new IndexOutOfBoundsException();
+        Conversion conversion = (unit == _unit) ? null : conversionTo(unit);
+        UnitConverter in = UnitConverter.IDENTITY;
+        UnitConverter out = UnitConverter.IDENTITY;
+        if ((conversion != null) && conversion._isAffine) {
+            out = conversion._converter;
+        } else if (conversion != null) {
+            in = conversion._converter;
+        }
+        long[] times = _times;
+        int n = times.length;
+        int j = -1; // Last sample at or before the current time.
+        for (int k = 0; k < count; k++) {
+            long t = start + k * period;
+            while ((j + 1 < n) && (times[j + 1] <= t)) {
+                j++;
+            }
+            double value;
+            if (method == STEP) {
+                value = (j < 0) ? Double.NaN : in.convert(_values[j]);
+            } else if (method == LINEAR) {
+                if ((j < 0) || ((j + 1 == n) && (times[j] != t))) {
+                    value = Double.NaN; // No extrapolation.
+                } else if (times[j] == t) {
+                    value = in.convert(_values[j]);
+                } else {
+                    double v0 = in.convert(_values[j]);
+                    double v1 = in.convert(_values[j + 1]);
+                    value = v0 + (v1 - v0) * (t - times[j])
+                            / (times[j + 1] - times[j]);
+                }
+            } else { // AVERAGE
+                value = average(j, t, t + period, in);
+            }
+            dst[dstOff + k] = out.convert(value);
+        }
+    }
+
+    // Time-weighted average over [from, to), j being the last sample at
+    // or before from (if any).
+    private double average(int j, long from, long to, UnitConverter in) {
+        long[] times = _times;
+        int n = times.length;
+        long s = from;
+        if (j < 0) { // Uncovered until the first sample.
+            if ((n == 0) || (times[0] >= to))
+                return Double.NaN;
+            j = 0;
+            s = times[0];
+        }
+        double sum = 0;
+        long covered = 0;
+        while (true) {
+            long e = ((j + 1 < n) && (times[j + 1] < to)) ? times[j + 1] : to;
+            sum += in.convert(_values[j]) * (e - s);
+            covered += e - s;
+            if (e == to)
+                break;
+            s = e;
+            j++;
+        }
+        return sum / covered;
+    }
+
+    private Conversion conversionTo(Unit<Q> unit) {
+        Conversion conversion = _conversion;
+        if ((conversion == null) || (conversion._unit != unit)) {
+            _conversion = conversion = new Conversion(unit, _unit
+                    .getConverterTo(unit));
+        }
+        return conversion;
+    }
+
+    /**
+     * This class represents a target unit and its converter (immutable).
+     */
+    private static final class Conversion {
+        final Unit<?> _unit;
+        final UnitConverter _converter;
+        final boolean _isAffine; // Commutes with weighted averages.
+        Conversion(Unit<?> unit, UnitConverter converter) {
+            _unit = unit;
+            _converter = converter;
+            _isAffine = converter.isLinear()
+                    || (converter instanceof AffineConverter)
+                    || (converter instanceof AddConverter);
+        }
+    }
+
+    private static final long serialVersionUID = 1L;
+}
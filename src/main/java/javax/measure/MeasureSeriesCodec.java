@@ -0,0 +1,496 @@
+/*
+ * JScience - Java(TM) Tools and Libraries for the Advancement of Sciences.
+ * Copyright (C) 2007 - JScience (http://jscience.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package javax.measure;
+
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+import java.util.Arrays;
+
+import javax.measure.quantity.Quantity;
+import javax.measure.unit.Unit;
+import javax.measure.unit.UnitFormat;
+import javax.measure.unit.UnitRegistry;
+
+/**
+ * <p> This class provides a compact binary encoding of
+ *     {@link MeasureSeries measure series}: the unit is written once in a
+ *     header, timestamps are encoded as delta-of-deltas and values as the
+ *     XOR of consecutive <code>double</code> bits (T. Pelkonen et al.,
+ *     "Gorilla: A Fast, Scalable, In-Memory Time Series Database", 2015).
+ *     Regular series typically take one or two bytes per sample instead
+ *     of sixteen. For example:[code]
+ *         byte[] bytes = MeasureSeriesCodec.encode(series, 1024, null);
+ *         ...
+ *         int from = MeasureSeriesCodec.indexOf(bytes, startOfDay);
+ *         int to = MeasureSeriesCodec.indexOf(bytes, endOfDay);
+ *         MeasureSeriesCodec.decode(bytes, from, to, times, values, 0);
+ *     [/code]</p>
+ *
+ * <p> The unit is written either as its {@link UnitFormat#getInstance()
+ *     standard} UTF-8 text or, when a {@link UnitRegistry} is specified,
+ *     as its registry identifier (the same registry is then required to
+ *     decode). Samples are encoded by blocks of fixed length, each block
+ *     starting with its first timestamp and value in full; a block index
+ *     (first timestamp and offset of each block) allows for decoding any
+ *     range of samples or looking up a timestamp without decoding the
+ *     preceding blocks.</p>
+ *
+ * <p> Encoded layout (big-endian):<pre>
+ *     int    magic ("JMS1")
+ *     int    number of samples
+ *     int    block length (in samples)
+ *     int    offset of the block index
+ *     byte   unit kind (0: text, 1: registry identifier)
+ *     ...    unit (unsigned short length and UTF-8 text, or int identifier)
+ *     ...    block index (long first timestamp, int offset), one per block
+ *     ...    blocks (bit streams, byte aligned)</pre></p>
+ */
+public final class MeasureSeriesCodec {
+
+    /**
+     * Holds the magic number ("JMS1").
+     */
+    private static final int MAGIC = 0x4A4D5331;
+
+    private static final int UNIT_TEXT = 0;
+
+    private static final int UNIT_ID = 1;
+
+    private static final int INDEX_ENTRY_SIZE = 12;
+
+    /**
+     * Default constructor (private for utility class).
+     */
+    private MeasureSeriesCodec() {
+    }
+
+    /**
+     * Encodes the specified series.
+     *
+     * @param  series the series to encode.
+     * @param  blockLength the number of samples per block (positive).
+     * @param  registry the registry identifying the series unit or
+     *         <code>null</code> to write the unit text.
+     * @return the encoded series.
+     */
+    public static byte[] encode(MeasureSeries<?> series, int blockLength,
+            UnitRegistry registry) {
+        return encode(series.times(), series.values(), 0, series.size(),
+                series.getUnit(), blockLength, registry);
+    }
+
+    /**
+     * Encodes the specified samples.
+     *
+     * @param  times the timestamps in non-decreasing order.
+     * @param  values the values stated in the specified unit.
+     * @param  off the index of the first sample to encode.
+     * @param  len the number of samples to encode.
+     * @param  unit the unit of the values.
+     * @param  blockLength the number of samples per block (positive).
+     * @param  registry the registry identifying the unit or
+     *         <code>null</code> to write the unit text.
+     * @return the encoded series.
+     * @throws IllegalArgumentException if the timestamps are not ordered.
+     */
+    public static byte[] encode(long[] times, double[] values, int off,
+            int len, Unit<?> unit, int blockLength, UnitRegistry registry) {
+        if ((off < 0) || (len < 0) || (off + len > times.length)
+                || (off + len > values.length))
+            throw new IndexOutOfBoundsException();
+        if (blockLength <= 0)
+            throw new IllegalArgumentException("Non-positive block length");
+        for (int i = off + 1; i < off + len; i++) {
+            if (times[i] < times[i - 1])
+                throw new IllegalArgumentException("Timestamp at " + i
+                        + " out of order");
+        }
+        byte[] text = (registry == null) ? UnitFormat.getInstance().textOf(
+                unit).getBytes(StandardCharsets.UTF_8) : null;
+        if ((text != null) && (text.length > 0xFFFF))
+            throw new IllegalArgumentException("Unit text too long");
+        int blockCount = (len + blockLength - 1) / blockLength;
+        int indexOffset = 17 + ((text != null) ? 2 + text.length : 4);
+        BitWriter writer = new BitWriter(indexOffset + blockCount
+                * INDEX_ENTRY_SIZE + 2 * len + 16);
+        writer._position = indexOffset + blockCount * INDEX_ENTRY_SIZE;
+        for (int b = 0; b < blockCount; b++) {
+            int start = off + b * blockLength;
+            putLong(writer._bytes, indexOffset + b * INDEX_ENTRY_SIZE,
+                    times[start]);
+            putInt(writer._bytes, indexOffset + b * INDEX_ENTRY_SIZE + 8,
+                    writer._position);
+            encodeBlock(times, values, start, Math.min(start + blockLength,
+                    off + len), writer);
+            writer.align();
+        }
+        byte[] bytes = writer._bytes;
+        putInt(bytes, 0, MAGIC);
+        putInt(bytes, 4, len);
+        putInt(bytes, 8, blockLength);
+        putInt(bytes, 12, indexOffset);
+        if (text != null) {
+            bytes[16] = UNIT_TEXT;
+            bytes[17] = (byte) (text.length >>> 8);
+            bytes[18] = (byte) text.length;
+            System.arraycopy(text, 0, bytes, 19, text.length);
+        } else {
+            bytes[16] = UNIT_ID;
+            putInt(bytes, 17, registry.register(unit));
+        }
+        return Arrays.copyOf(bytes, writer._position);
+    }
+
+    /**
+     * Returns the unit of the specified encoded series.
+     *
+     * @param  bytes the encoded series.
+     * @param  registry the registry used for encoding or <code>null</code>
+     *         if the unit text has been written.
+     * @return the unit of the values.
+     * @throws IllegalArgumentException if the bytes do not hold an encoded
+     *         series or if the unit cannot be decoded.
+     */
+    public static Unit<? extends Quantity> getUnit(byte[] bytes,
+            UnitRegistry registry) {
+        checkHeader(bytes);
+        if (bytes[16] == UNIT_ID) {
+            if (registry == null)
+                throw new IllegalArgumentException(
+                        "Unit identifier requires a registry");
+            return registry.getUnit(getInt(bytes, 17));
+        }
+        int length = ((bytes[17] & 0xFF) << 8) | (bytes[18] & 0xFF);
+        try {
+            return UnitFormat.getInstance().parseProductUnit(bytes, 19,
+                    length);
+        } catch (ParseException e) {
+            throw new IllegalArgumentException(e.getMessage());
+        }
+    }
+
+    /**
+     * Returns the number of samples of the specified encoded series.
+     *
+     * @param  bytes the encoded series.
+     * @return the number of samples.
+     * @throws IllegalArgumentException if the bytes do not hold an encoded
+     *         series.
+     */
+    public static int size(byte[] bytes) {
+        checkHeader(bytes);
+        return getInt(bytes, 4);
+    }
+
+    /**
+     * Decodes the specified series.
+     *
+     * @param  bytes the encoded series.
+     * @param  registry the registry used for encoding or <code>null</code>
+     *         if the unit text has been written.
+     * @return the decoded series.
+     * @throws IllegalArgumentException if the bytes do not hold an encoded
+     *         series or if the unit cannot be decoded.
+     */
+    @SuppressWarnings("unchecked")
+    public static MeasureSeries<? extends Quantity> decode(byte[] bytes,
+            UnitRegistry registry) {
+        Unit<Quantity> unit = (Unit<Quantity>) getUnit(bytes, registry);
+        int n = size(bytes);
+        long[] times = new long[n];
+        double[] values = new double[n];
+        decode(bytes, 0, n, times, values, 0);
+        return new MeasureSeries<Quantity>(times, values, unit);
+    }
+
+    /**
+     * Decodes the specified range of samples into the specified arrays;
+     * only the blocks holding the range are read.
+     *
+     * @param  bytes the encoded series.
+     * @param  from the index of the first sample to decode.
+     * @param  to the index after the last sample to decode.
+     * @param  times the destination array of the timestamps.
+     * @param  values the destination array of the values.
+     * @param  off the index of the first sample written.
+     * @throws IllegalArgumentException if the bytes do not hold an encoded
+     *         series.
+     */
+    public static void decode(byte[] bytes, int from, int to, long[] times,
+            double[] values, int off) {
+        int n = size(bytes);
+        if ((from < 0) || (to > n) || (from > to) || (off < 0)
+                || (off + to - from > times.length)
+                || (off + to - from > values.length))
+            throw new IndexOutOfBoundsException();
+        int blockLength = getInt(bytes, 8);
+        int indexOffset = getInt(bytes, 12);
+        BlockReader reader = new BlockReader(bytes);
+        for (int b = from / blockLength; b * blockLength < to; b++) {
+            int start = b * blockLength;
+            reader.seek(getInt(bytes, indexOffset + b * INDEX_ENTRY_SIZE + 8));
+            int end = Math.min(to - start, blockLength);
+            for (int i = 0; i < end; i++) {
+                if (i > 0) {
+                    reader.next();
+                }
+                if (i >= from - start) {
+                    times[off + start + i - from] = reader._time;
+                    values[off + start + i - from] = Double
+                            .longBitsToDouble(reader._bits);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the index of the first sample whose timestamp is greater
+     * than or equal to the specified time; at most one block is decoded.
+     *
+     * @param  bytes the encoded series.
+     * @param  time the time to look up.
+     * @return the index of the first sample at or after the specified time
+     *         or the number of samples if none.
+     * @throws IllegalArgumentException if the bytes do not hold an encoded
+     *         series.
+     */
+    public static int indexOf(byte[] bytes, long time) {
+        int n = size(bytes);
+        int blockLength = getInt(bytes, 8);
+        int indexOffset = getInt(bytes, 12);
+        int blockCount = (n + blockLength - 1) / blockLength;
+        int low = 0; // First block whose first timestamp is >= time.
+        int high = blockCount;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (getLong(bytes, indexOffset + mid * INDEX_ENTRY_SIZE) < time) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        if (low == 0)
+            return 0;
+        int b = low - 1; // Searches the previous block.
+        int start = b * blockLength;
+        int count = Math.min(start + blockLength, n) - start;
+        BlockReader reader = new BlockReader(bytes);
+        reader.seek(getInt(bytes, indexOffset + b * INDEX_ENTRY_SIZE + 8));
+        for (int i = 1; i < count; i++) {
+            reader.next();
+            if (reader._time >= time)
+                return start + i;
+        }
+        return start + count;
+    }
+
+    // Encodes the samples in [from, to).
+    private static void encodeBlock(long[] times, double[] values, int from,
+            int to, BitWriter writer) {
+        long time = times[from];
+        long bits = Double.doubleToRawLongBits(values[from]);
+        writer.write(time, 64);
+        writer.write(bits, 64);
+        long delta = 0;
+        int leading = -1; // No previous window.
+        int trailing = 0;
+        for (int i = from + 1; i < to; i++) {
+            // Timestamp.
+            long d = times[i] - time;
+            long dod = d - delta;
+            if (dod == 0) {
+                writer.write(0, 1);
+            } else if ((dod >= -64) && (dod < 64)) {
+                writer.write(0x2, 2);
+                writer.write(dod, 7);
+            } else if ((dod >= -256) && (dod < 256)) {
+                writer.write(0x6, 3);
+                writer.write(dod, 9);
+            } else if ((dod >= -2048) && (dod < 2048)) {
+                writer.write(0xE, 4);
+                writer.write(dod, 12);
+            } else if (dod == (int) dod) {
+                writer.write(0x1E, 5);
+                writer.write(dod, 32);
+            } else {
+                writer.write(0x1F, 5);
+                writer.write(dod, 64);
+            }
+            time = times[i];
+            delta = d;
+            // Value.
+            long next = Double.doubleToRawLongBits(values[i]);
+            long xor = next ^ bits;
+            bits = next;
+            if (xor == 0) {
+                writer.write(0, 1);
+                continue;
+            }
+            int lz = Math.min(Long.numberOfLeadingZeros(xor), 31);
+            int tz = Long.numberOfTrailingZeros(xor);
+            if ((leading >= 0) && (lz >= leading) && (tz >= trailing)) {
+                writer.write(0x2, 2); // Previous window.
+                writer.write(xor >>> trailing, 64 - leading - trailing);
+            } else {
+                int significant = 64 - lz - tz;
+                writer.write(0x3, 2);
+                writer.write(lz, 5);
+                writer.write(significant & 0x3F, 6); // 64 written as 0.
+                writer.write(xor >>> tz, significant);
+                leading = lz;
+                trailing = tz;
+            }
+        }
+    }
+
+    private static long signed(long value, int n) {
+        return (value << (64 - n)) >> (64 - n);
+    }
+
+    private static void checkHeader(byte[] bytes) {
+        if ((bytes.length < 17) || (getInt(bytes, 0) != MAGIC))
+            throw new IllegalArgumentException(
+                    "Not an encoded measure series");
+    }
+
+    private static int getInt(byte[] bytes, int i) {
+        return (bytes[i] << 24) | ((bytes[i + 1] & 0xFF) << 16)
+                | ((bytes[i + 2] & 0xFF) << 8) | (bytes[i + 3] & 0xFF);
+    }
+
+    private static long getLong(byte[] bytes, int i) {
+        return (((long) getInt(bytes, i)) << 32)
+                | (getInt(bytes, i + 4) & 0xFFFFFFFFL);
+    }
+
+    private static void putInt(byte[] bytes, int i, int value) {
+        bytes[i] = (byte) (value >>> 24);
+        bytes[i + 1] = (byte) (value >>> 16);
+        bytes[i + 2] = (byte) (value >>> 8);
+        bytes[i + 3] = (byte) value;
+    }
+
+    private static void putLong(byte[] bytes, int i, long value) {
+        putInt(bytes, i, (int) (value >>> 32));
+        putInt(bytes, i + 4, (int) value);
+    }
+
+    /**
+     * This class represents a bit stream writer (most significant bit
+     * first) over a growing bytes array.
+     */
+    private static final class BitWriter {
+        byte[] _bytes;
+        int _position; // Next byte.
+        long _pending; // Bits not yet written (low bits).
+        int _count; // Number of pending bits (< 8).
+
+        BitWriter(int capacity) {
+            _bytes = new byte[capacity];
+        }
+
+        // Writes the n (1 to 64) low bits of the specified value.
+        void write(long value, int n) {
+            if (n > 32) {
+                write(value >>> 32, n - 32);
+                n = 32;
+            }
+            _pending = (_pending << n) | (value & ((1L << n) - 1));
+            _count += n;
+            if (_position + 5 > _bytes.length) {
+                _bytes = Arrays.copyOf(_bytes, _bytes.length * 2 + 5);
+            }
+            while (_count >= 8) {
+                _count -= 8;
+                _bytes[_position++] = (byte) (_pending >>> _count);
+            }
+        }
+
+        // Pads the last byte with zeros.
+        void align() {
+            if (_count > 0) {
+                write(0, 8 - _count);
+            }
+        }
+    }
+
+    /**
+     * This class represents a reader of the samples of a block (bit stream
+     * read most significant bit first).
+     */
+    private static final class BlockReader {
+        final byte[] _bytes;
+        int _next; // Next byte.
+        long _buffer; // Bits read ahead (low bits).
+        int _available; // Number of bits read ahead.
+        long _time; // Current sample.
+        long _bits;
+        long _delta;
+        int _leading;
+        int _trailing;
+
+        BlockReader(byte[] bytes) {
+            _bytes = bytes;
+        }
+
+        // Reads the first sample of the block starting at the specified offset.
+        void seek(int offset) {
+            _next = offset;
+            _available = 0;
+            _time = read(64);
+            _bits = read(64);
+            _delta = 0;
+        }
+
+        // Reads the next sample.
+        void next() {
+            long dod;
+            if (read(1) == 0) {
+                dod = 0;
+            } else if (read(1) == 0) {
+                dod = signed(read(7), 7);
+            } else if (read(1) == 0) {
+                dod = signed(read(9), 9);
+            } else if (read(1) == 0) {
+                dod = signed(read(12), 12);
+            } else if (read(1) == 0) {
+                dod = signed(read(32), 32);
+            } else {
+                dod = read(64);
+            }
+            _delta += dod;
+            _time += _delta;
+            if (read(1) != 0) {
+                if (read(1) != 0) {
+                    _leading = (int) read(5);
+                    int significant = (int) read(6);
+                    if (significant == 0) {
+                        significant = 64;
+                    }
+                    _trailing = 64 - _leading - significant;
+                }
+                _bits ^= read(64 - _leading - _trailing) << _trailing;
+            }
+        }
+
+        // Reads n (1 to 64) bits.
+        long read(int n) {
+            if (n > 56)
+                return (read(n - 32) << 32) | read(32);
+            while (_available < n) { // Pads with zeros past the end.
+                _buffer = (_buffer << 8)
+                        | ((_next < _bytes.length) ? _bytes[_next] & 0xFF : 0);
+                _next++;
+                _available += 8;
+            }
+            _available -= n;
+            return (_buffer >>> _available) & ((1L << n) - 1);
+        }
+    }
+}
@@ -0,0 +1,609 @@
+/*
+ * JScience - Java(TM) Tools and Libraries for the Advancement of Sciences.
+ * Copyright (C) 2007 - JScience (http://jscience.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package javax.measure;
+
+import javax.measure.converter.ConversionException;
+import javax.measure.converter.UnitConverter;
+import javax.measure.quantity.Duration;
+import javax.measure.quantity.Quantity;
+import javax.measure.unit.Unit;
+
+/**
+ * <p> This class represents a sliding time window over a stream of
+ *     measurements; the mean, minimum, maximum, standard deviation and
+ *     time integral of the measurements within the window are maintained
+ *     incrementally. For example:[code]
+ *         MeasureWindow<Power> lastMinute = new MeasureWindow<Power>(WATT, MILLI(SECOND), 60000, 500);
+ *         ...
+ *         lastMinute.add(System.currentTimeMillis(), reading, KILO(WATT));
+ *         Measure<Double, Power> peak = lastMinute.max(KILO(WATT));
+ *         Measure<Double, Energy> energy = lastMinute.integral(JOULE);
+ *     [/code]</p>
+ *
+ * <p> The window covers the time range <code>(end - length, end]</code>,
+ *     <code>end</code> being the latest time seen minus the lateness
+ *     tolerance. Measurements are held back until the window end reaches
+ *     them, measurements arriving out of order within the lateness
+ *     tolerance are then accounted for in time order; older measurements
+ *     are dropped (see {@link #getLateCount}). Measurements are evicted
+ *     when the window end moves past them.</p>
+ *
+ * <p> The signal is taken as constant from one measurement to the next
+ *     (the last value being held) for the integral; the mean and standard
+ *     deviation are those of the measurements within the window.</p>
+ *
+ * <p> Measurements are stated in the window unit as they are added and
+ *     held in primitive ring buffers; converters are cached within the
+ *     window (identity lookup). Updates take constant amortized time:
+ *     the running sums are recomputed from the buffered measurements once
+ *     every buffer capacity updates to bound floating-point drift.
+ *     Windows are not thread-safe.</p>
+ *
+ * @see MeasureSeries
+ */
+public final class MeasureWindow<Q extends Quantity> {
+
+    /**
+     * Holds the number of source units whose converter is cached.
+     */
+    private static final int CONVERTER_CACHE_SIZE = 8;
+
+    /**
+     * Holds the initial capacity of the buffers (power of two).
+     */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * Holds the unit in which the measurements are stated.
+     */
+    private final Unit<Q> _unit;
+
+    /**
+     * Holds the unit of the integral (window unit times time unit).
+     */
+    private final Unit<? extends Quantity> _integralUnit;
+
+    /**
+     * Holds the window length.
+     */
+    private final long _length;
+
+    /**
+     * Holds the lateness tolerance.
+     */
+    private final long _lateness;
+
+    /**
+     * Holds the timestamps of the measurements within the window
+     * (ring buffer indexed by sequence number).
+     */
+    private long[] _times = new long[INITIAL_CAPACITY];
+
+    /**
+     * Holds the values of the measurements within the window.
+     */
+    private double[] _values = new double[INITIAL_CAPACITY];
+
+    /**
+     * Holds the sequence numbers of the first measurement and of the next
+     * measurement to be added.
+     */
+    private long _head, _tail;
+
+    /**
+     * Holds the sequence numbers of the candidate minima (increasing
+     * values) and their queue bounds.
+     */
+    private long[] _minQueue = new long[INITIAL_CAPACITY];
+    private long _minHead, _minTail;
+
+    /**
+     * Holds the sequence numbers of the candidate maxima (decreasing
+     * values) and their queue bounds.
+     */
+    private long[] _maxQueue = new long[INITIAL_CAPACITY];
+    private long _maxHead, _maxTail;
+
+    /**
+     * Holds the measurements not yet reached by the window end (ordered
+     * by time, ring buffer).
+     */
+    private long[] _pendingTimes = new long[INITIAL_CAPACITY];
+    private double[] _pendingValues = new double[INITIAL_CAPACITY];
+    private int _pendingHead, _pendingCount;
+
+    /**
+     * Indicates if a measurement has been added.
+     */
+    private boolean _isStarted;
+
+    /**
+     * Holds the latest time seen.
+     */
+    private long _latest;
+
+    /**
+     * Holds the window end.
+     */
+    private long _end;
+
+    /**
+     * Holds the time of the last measurement accounted for.
+     */
+    private long _committed = Long.MIN_VALUE;
+
+    /**
+     * Holds the number of measurements dropped because too late.
+     */
+    private long _lateCount;
+
+    /**
+     * Holds the value subtracted from the values summed (reduces
+     * cancellation in the variance).
+     */
+    private double _shift;
+
+    /**
+     * Holds the running sums of the shifted values and of their squares.
+     */
+    private double _sum, _sumOfSquares;
+
+    /**
+     * Holds the running integral between the first and last measurements.
+     */
+    private double _area;
+
+    /**
+     * Holds the value of the last measurement evicted (held until the
+     * first measurement within the window).
+     */
+    private double _held;
+    private boolean _isHeld;
+
+    /**
+     * Holds the number of updates since the sums were last recomputed.
+     */
+    private int _updates;
+
+    /**
+     * Holds the source units whose converter is cached.
+     */
+    private final Unit<?>[] _sourceUnits = new Unit<?>[CONVERTER_CACHE_SIZE];
+
+    /**
+     * Holds the converters from the source units to the window unit.
+     */
+    private final UnitConverter[] _converters = new UnitConverter[CONVERTER_CACHE_SIZE];
+
+    /**
+     * Holds the index of the next converter cache entry to be replaced.
+     */
+    private int _nextConverter;
+
+    /**
+     * Holds the last converters to a result unit.
+     */
+    private Conversion _conversion, _integralConversion;
+
+    /**
+     * Creates an empty window for measurements stated in the specified
+     * unit.
+     *
+     * @param  unit the unit in which the measurements are stated.
+     * @param  timeUnit the unit of the timestamps.
+     * @param  length the window length (positive, in time unit).
+     * @param  lateness the delay (in time unit) during which measurements
+     *         arriving out of order are still accepted.
+     * @throws IllegalArgumentException if the length is not positive or
+     *         the lateness is negative.
+     */
+    public MeasureWindow(Unit<Q> unit, Unit<Duration> timeUnit, long length,
+            long lateness) {
+        if (length <= 0)
+            throw new IllegalArgumentException("Non-positive length");
+        if (lateness < 0)
+            throw new IllegalArgumentException("Negative lateness");
+        _unit = unit;
+        _integralUnit = unit.times(timeUnit);
+        _length = length;
+        _lateness = lateness;
+    }
+
+    /**
+     * Returns the unit in which the measurements are stated.
+     *
+     * @return the window unit.
+     */
+    public Unit<Q> getUnit() {
+        return _unit;
+    }
+
+    /**
+     * Returns the number of measurements within the window.
+     *
+     * @return the number of measurements accounted for.
+     */
+    public int size() {
+        return (int) (_tail - _head);
+    }
+
+    /**
+     * Returns the number of measurements dropped because they arrived
+     * after the lateness tolerance.
+     *
+     * @return the number of late measurements.
+     */
+    public long getLateCount() {
+        return _lateCount;
+    }
+
+    /**
+     * Adds the specified measurement.
+     *
+     * @param  time the measurement timestamp.
+     * @param  measure the measurement.
+     * @return <code>true</code> if the measurement is accepted;
+     *         <code>false</code> if it arrived too late.
+     * @throws ConversionException if the measurement cannot be stated in
+     *         the window unit.
+     */
+    public boolean add(long time, Measurable<Q> measure) {
+        return add(time, measure.doubleValue(_unit), _unit);
+    }
+
+    /**
+     * Adds the specified value stated in the specified unit.
+     *
+     * @param  time the measurement timestamp.
+     * @param  value the measurement value.
+     * @param  unit the unit in which the value is stated.
+     * @return <code>true</code> if the measurement is accepted;
+     *         <code>false</code> if it arrived too late.
+     * @throws ConversionException if the unit is not compatible with the
+     *         window unit.
+     */
+    public boolean add(long time, double value, Unit<?> unit) {
+        if (time < _committed) {
+            _lateCount++;
+            return false;
+        }
+        double v = (unit == _unit) ? value : converterFrom(unit).convert(
+                value);
+        // Inserts into the pending measurements (ordered by time).
+        if (_pendingCount == _pendingTimes.length) {
+            growPending();
+        }
+        int mask = _pendingTimes.length - 1;
+        int i = _pendingCount++;
+        while ((i > 0)
+                && (_pendingTimes[(_pendingHead + i - 1) & mask] > time)) {
+            _pendingTimes[(_pendingHead + i) & mask] = _pendingTimes[(_pendingHead
+                    + i - 1) & mask];
+            _pendingValues[(_pendingHead + i) & mask] = _pendingValues[(_pendingHead
+                    + i - 1) & mask];
+            i--;
+        }
+        _pendingTimes[(_pendingHead + i) & mask] = time;
+        _pendingValues[(_pendingHead + i) & mask] = v;
+        if ((!_isStarted) || (time > _latest)) {
+            _isStarted = true;
+            _latest = time;
+            _end = time - _lateness;
+        }
+        update();
+        return true;
+    }
+
+    /**
+     * Moves the window end to the specified time minus the lateness
+     * tolerance (e.g. to evict old measurements when no new measurement
+     * arrives). This method has no effect if a later time has been seen.
+     *
+     * @param time the current time.
+     */
+    public void advance(long time) {
+        if ((_isStarted) && (time <= _latest))
+            return;
+        _isStarted = true;
+        _latest = time;
+        _end = time - _lateness;
+        update();
+    }
+
+    /**
+     * Returns the arithmetic mean of the measurements within the window.
+     *
+     * @param  unit the unit of the result.
+     * @return the mean value or <code>null</code> if the window is empty.
+     * @throws ConversionException if the unit is not compatible with the
+     *         window unit.
+     */
+    public Measure<Double, Q> mean(Unit<Q> unit) {
+        int n = size();
+        if (n == 0)
+            return null;
+        return Measure.valueOf(conversionTo(unit)._converter.convert(_shift
+                + _sum / n), unit);
+    }
+
+    /**
+     * Returns the smallest measurement within the window.
+     *
+     * @param  unit the unit of the result.
+     * @return the minimum value or <code>null</code> if the window is
+     *         empty.
+     * @throws ConversionException if the unit is not compatible with the
+     *         window unit.
+     */
+    public Measure<Double, Q> min(Unit<Q> unit) {
+        if (_head == _tail)
+            return null;
+        Conversion conversion = conversionTo(unit);
+        return Measure.valueOf(conversion._converter.convert(extremum(
+                conversion._isDecreasing ? _maxQueue : _minQueue,
+                conversion._isDecreasing ? _maxHead : _minHead)), unit);
+    }
+
+    /**
+     * Returns the largest measurement within the window.
+     *
+     * @param  unit the unit of the result.
+     * @return the maximum value or <code>null</code> if the window is
+     *         empty.
+     * @throws ConversionException if the unit is not compatible with the
+     *         window unit.
+     */
+    public Measure<Double, Q> max(Unit<Q> unit) {
+        if (_head == _tail)
+            return null;
+        Conversion conversion = conversionTo(unit);
+        return Measure.valueOf(conversion._converter.convert(extremum(
+                conversion._isDecreasing ? _minQueue : _maxQueue,
+                conversion._isDecreasing ? _minHead : _maxHead)), unit);
+    }
+
+    /**
+     * Returns the sample standard deviation of the measurements within the
+     * window. Only the scale of the conversion to the specified unit
+     * applies (e.g. offsets are ignored).
+     *
+     * @param  unit the unit of the result.
+     * @return the standard deviation or <code>null</code> if the window
+     *         holds less than two measurements.
+     * @throws ConversionException if the unit is not compatible with the
+     *         window unit.
+     */
+    public Measure<Double, Q> standardDeviation(Unit<Q> unit) {
+        int n = size();
+        if (n < 2)
+            return null;
+        double variance = Math.max(0.0, (_sumOfSquares - _sum * _sum / n)
+                / (n - 1));
+        return Measure.valueOf(Math.sqrt(variance)
+                * Math.abs(conversionTo(unit)._scale), unit);
+    }
+
+    /**
+     * Returns the time integral of the signal over the window; the time
+     * range before the first measurement ever added is not accounted for.
+     *
+     * @param  unit the unit of the result (e.g. <code>JOULE</code> for
+     *         a power window).
+     * @return the integral or <code>null</code> if no measurement has
+     *         been accounted for.
+     * @throws ConversionException if the unit is not compatible with the
+     *         window unit times the time unit.
+     */
+    public <R extends Quantity> Measure<Double, R> integral(Unit<R> unit) {
+        double area;
+        if (_head == _tail) {
+            if (!_isHeld)
+                return null;
+            area = _held * _length;
+        } else {
+            long start = _end - _length;
+            long last = _tail - 1;
+            area = _area + value(last) * (_end - time(last));
+            if (_isHeld) {
+                area += _held * (time(_head) - start);
+            }
+        }
+        Conversion conversion = _integralConversion;
+        if ((conversion == null) || (conversion._unit != unit)) {
+            _integralConversion = conversion = new Conversion(unit,
+                    _integralUnit.getConverterTo(unit));
+        }
+        return Measure.valueOf(conversion._converter.convert(area), unit);
+    }
+
+    // Commits the pending measurements reached by the window end and
+    // evicts the measurements out of the window.
+    private void update() {
+        int mask = _pendingTimes.length - 1;
+        while ((_pendingCount > 0) && (_pendingTimes[_pendingHead] <= _end)) {
+            commit(_pendingTimes[_pendingHead], _pendingValues[_pendingHead]);
+            _pendingHead = (_pendingHead + 1) & mask;
+            _pendingCount--;
+        }
+        long start = _end - _length;
+        while ((_head != _tail) && (time(_head) <= start)) {
+            evict();
+        }
+    }
+
+    private void commit(long time, double value) {
+        if (_tail - _head == _times.length) {
+            grow();
+        }
+        int mask = _times.length - 1;
+        if (_head == _tail) { // Restarts the sums.
+            _shift = value;
+            _sum = 0.0;
+            _sumOfSquares = 0.0;
+            _area = 0.0;
+        } else {
+            long last = _tail - 1;
+            _area += value(last) * (time - time(last));
+        }
+        _committed = time;
+        long seq = _tail++;
+        _times[(int) seq & mask] = time;
+        _values[(int) seq & mask] = value;
+        double d = value - _shift;
+        _sum += d;
+        _sumOfSquares += d * d;
+        while ((_minTail != _minHead)
+                && (value(_minQueue[(int) (_minTail - 1) & mask]) > value)) {
+            _minTail--;
+        }
+        _minQueue[(int) _minTail++ & mask] = seq;
+        while ((_maxTail != _maxHead)
+                && (value(_maxQueue[(int) (_maxTail - 1) & mask]) < value)) {
+            _maxTail--;
+        }
+        _maxQueue[(int) _maxTail++ & mask] = seq;
+        if (++_updates >= _times.length) {
+            recompute();
+        }
+    }
+
+    private void evict() {
+        int mask = _times.length - 1;
+        long seq = _head++;
+        double value = value(seq);
+        if (_head != _tail) {
+            _area -= value * (time(_head) - time(seq));
+        }
+        double d = value - _shift;
+        _sum -= d;
+        _sumOfSquares -= d * d;
+        if (_minQueue[(int) _minHead & mask] == seq) {
+            _minHead++;
+        }
+        if (_maxQueue[(int) _maxHead & mask] == seq) {
+            _maxHead++;
+        }
+        _held = value;
+        _isHeld = true;
+        if (++_updates >= _times.length) {
+            recompute();
+        }
+    }
+
+    // Recomputes the running sums from the buffered measurements.
+    private void recompute() {
+        _updates = 0;
+        if (_head == _tail)
+            return;
+        _shift = value(_head);
+        double sum = 0.0;
+        double sumOfSquares = 0.0;
+        double area = 0.0;
+        for (long seq = _head; seq < _tail; seq++) {
+            double d = value(seq) - _shift;
+            sum += d;
+            sumOfSquares += d * d;
+            if (seq + 1 < _tail) {
+                area += value(seq) * (time(seq + 1) - time(seq));
+            }
+        }
+        _sum = sum;
+        _sumOfSquares = sumOfSquares;
+        _area = area;
+    }
+
+    private long time(long seq) {
+        return _times[(int) seq & (_times.length - 1)];
+    }
+
+    private double value(long seq) {
+        return _values[(int) seq & (_values.length - 1)];
+    }
+
+    private double extremum(long[] queue, long head) {
+        return value(queue[(int) head & (queue.length - 1)]);
+    }
+
+    // Doubles the capacity of the window buffers (sequence numbers kept).
+    private void grow() {
+        int capacity = _times.length * 2;
+        long[] times = new long[capacity];
+        double[] values = new double[capacity];
+        for (long seq = _head; seq < _tail; seq++) {
+            times[(int) seq & (capacity - 1)] = time(seq);
+            values[(int) seq & (capacity - 1)] = value(seq);
+        }
+        _minQueue = grow(_minQueue, _minHead, _minTail, capacity);
+        _maxQueue = grow(_maxQueue, _maxHead, _maxTail, capacity);
+        _times = times;
+        _values = values;
+    }
+
+    private static long[] grow(long[] queue, long head, long tail,
+            int capacity) {
+        long[] grown = new long[capacity];
+        for (long i = head; i < tail; i++) {
+            grown[(int) i & (capacity - 1)] = queue[(int) i
+                    & (queue.length - 1)];
+        }
+        return grown;
+    }
+
+    private void growPending() {
+        int capacity = _pendingTimes.length * 2;
+        long[] times = new long[capacity];
+        double[] values = new double[capacity];
+        int mask = _pendingTimes.length - 1;
+        for (int i = 0; i < _pendingCount; i++) {
+            times[i] = _pendingTimes[(_pendingHead + i) & mask];
+            values[i] = _pendingValues[(_pendingHead + i) & mask];
+        }
+        _pendingTimes = times;
+        _pendingValues = values;
+        _pendingHead = 0;
+    }
+
+    // Returns the converter from the specified unit (cached).
+    private UnitConverter converterFrom(Unit<?> unit) {
+        for (int i = 0; i < CONVERTER_CACHE_SIZE; i++) {
+            if (_sourceUnits[i] == unit)
+                return _converters[i];
+        }
+        UnitConverter cvtr = unit.getConverterTo(_unit);
+        _sourceUnits[_nextConverter] = unit;
+        _converters[_nextConverter] = cvtr;
+        _nextConverter = (_nextConverter + 1) % CONVERTER_CACHE_SIZE;
+        return cvtr;
+    }
+
+    private Conversion conversionTo(Unit<Q> unit) {
+        Conversion conversion = _conversion;
+        if ((conversion == null) || (conversion._unit != unit)) {
+            _conversion = conversion = new Conversion(unit, (unit == _unit) ? UnitConverter.IDENTITY
+                    : _unit.getConverterTo(unit));
+        }
+        return conversion;
+    }
+
+    /**
+     * This class represents a result unit and its converter (immutable).
+     */
+    private static final class Conversion {
+        final Unit<?> _unit;
+        final UnitConverter _converter;
+        final double _scale; // Linear part.
+        final boolean _isDecreasing;
+        Conversion(Unit<?> unit, UnitConverter converter) {
+            _unit = unit;
+            _converter = converter;
+            _scale = converter.convert(1.0) - converter.convert(0.0);
+            _isDecreasing = _scale < 0;
+        }
+    }
+}
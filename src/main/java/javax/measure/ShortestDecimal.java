@@ -0,0 +1,294 @@
+/*
+ * JScience - Java(TM) Tools and Libraries for the Advancement of Sciences.
+ * Copyright (C) 2007 - JScience (http://jscience.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package javax.measure;
+
+import java.math.BigInteger;
+
+/**
+ * <p> This class formats <code>double</code> values using the shortest
+ *     decimal which rounds to the same value (the closest one if several);
+ *     the formatting rules are those of {@link Double#toString(double)}
+ *     (e.g. <code>"12.5"</code>, <code>"1.0E-5"</code>).</p>
+ *
+ * <p> The shortest decimal is calculated by the Schubfach algorithm
+ *     (R. Giulietti, "The Schubfach way to render doubles", 2020) using
+ *     only <code>long</code> arithmetic and a table of 617 powers of ten
+ *     built at class initialization.</p>
+ */
+final class ShortestDecimal {
+
+    /**
+     * Holds the maximum number of characters of a formatted value
+     * (e.g. <code>"-2.2250738585072014E-308"</code>).
+     */
+    static final int MAX_LENGTH = 24;
+
+    private static final int P = 53; // Precision.
+
+    private static final int Q_MIN = -1074; // Minimum binary exponent.
+
+    private static final long C_MIN = 1L << (P - 1);
+
+    private static final int BQ_MASK = 0x7FF;
+
+    private static final long T_MASK = (1L << (P - 1)) - 1;
+
+    private static final long C_TINY = 3;
+
+    private static final int K_MIN = -324;
+
+    private static final int K_MAX = 292;
+
+    private static final int H = 17; // Maximum number of digits.
+
+    private static final long MASK_63 = (1L << 63) - 1;
+
+    private static final long[] POW10 = new long[H + 1];
+    static {
+        POW10[0] = 1;
+        for (int i = 1; i < POW10.length; i++) {
+            POW10[i] = POW10[i - 1] * 10;
+        }
+    }
+
+    /**
+     * Holds the high and low parts of
+     * <code>floor(10^-k * 2^-r) + 1</code>, with
+     * <code>r = flog2pow10(-k) - 125</code>, for <code>k</code> in
+     * <code>[K_MIN, K_MAX]</code> (two entries per power).
+     */
+    private static final long[] G = new long[2 * (K_MAX - K_MIN + 1)];
+    static {
+        BigInteger mask63 = BigInteger.valueOf(MASK_63);
+        for (int k = K_MIN; k <= K_MAX; k++) {
+            int r = flog2pow10(-k) - 125;
+            BigInteger pow10 = BigInteger.TEN.pow(Math.abs(k));
+            BigInteger g;
+            if (k <= 0) {
+                g = (r >= 0) ? pow10.shiftRight(r) : pow10.shiftLeft(-r);
+            } else { // 2^-r / 10^k (r < 0)
+                g = BigInteger.ONE.shiftLeft(-r).divide(pow10);
+            }
+            g = g.add(BigInteger.ONE);
+            G[2 * (k - K_MIN)] = g.shiftRight(63).longValue();
+            G[2 * (k - K_MIN) + 1] = g.and(mask63).longValue();
+        }
+    }
+
+    /**
+     * Default constructor (private for utility class).
+     */
+    private ShortestDecimal() {
+    }
+
+    /**
+     * Writes the shortest decimal representation of the specified value.
+     *
+     * @param  v the value to format.
+     * @param  chars the destination array (at least {@link #MAX_LENGTH}
+     *         characters available from <code>off</code>).
+     * @param  off the index of the first character to write.
+     * @return the index after the last character written.
+     */
+    static int format(double v, char[] chars, int off) {
+        long bits = Double.doubleToRawLongBits(v);
+        long t = bits & T_MASK;
+        int bq = (int) (bits >>> (P - 1)) & BQ_MASK;
+        if (bq == BQ_MASK)
+            return append((t != 0) ? "NaN" : (bits > 0) ? "Infinity"
+                    : "-Infinity", chars, off);
+        if (bits < 0) {
+            chars[off++] = '-';
+        }
+        if (bq != 0) { // Normal value.
+            int mq = -Q_MIN + 1 - bq;
+            long c = C_MIN | t;
+            if ((0 < mq) && (mq < P)) { // Integer values fast path.
+                long f = c >> mq;
+                if (f << mq == c)
+                    return toChars(f, 0, chars, off);
+            }
+            return toDecimal(-mq, c, 0, chars, off);
+        }
+        if (t != 0) // Subnormal value.
+            return (t < C_TINY) ? toDecimal(Q_MIN, 10 * t, -1, chars, off)
+                    : toDecimal(Q_MIN, t, 0, chars, off);
+        return append("0.0", chars, off);
+    }
+
+    /**
+     * Writes the shortest decimal in the rounding interval of
+     * <code>c * 2^q</code> (<code>dk</code> adjusts the decimal exponent
+     * of scaled subnormal values).
+     */
+    private static int toDecimal(int q, long c, int dk, char[] chars, int off) {
+        int out = (int) c & 1;
+        long cb = c << 2;
+        long cbr = cb + 2;
+        long cbl;
+        int k;
+        if ((c != C_MIN) | (q == Q_MIN)) {
+            cbl = cb - 2;
+            k = flog10pow2(q);
+        } else { // Closer lower boundary.
+            cbl = cb - 1;
+            k = flog10threeQuartersPow2(q);
+        }
+        int h = q + flog2pow10(-k) + 2;
+        long g1 = G[2 * (k - K_MIN)];
+        long g0 = G[2 * (k - K_MIN) + 1];
+        long vb = rop(g1, g0, cb << h);
+        long vbl = rop(g1, g0, cbl << h);
+        long vbr = rop(g1, g0, cbr << h);
+
+        long s = vb >> 2;
+        if (s >= 100) { // Tries one digit less.
+            long sp10 = 10 * multiplyHigh(s, 115292150460684698L << 4);
+            long tp10 = sp10 + 10;
+            boolean upin = vbl + out <= sp10 << 2;
+            boolean wpin = (tp10 << 2) + out <= vbr;
+            if (upin != wpin)
+                return toChars(upin ? sp10 : tp10, k, chars, off);
+        }
+        long t = s + 1;
+        boolean uin = vbl + out <= s << 2;
+        boolean win = (t << 2) + out <= vbr;
+        if (uin != win)
+            return toChars(uin ? s : t, k + dk, chars, off);
+        long cmp = vb - (s + t << 1); // Closest, even if tie.
+        return toChars(((cmp < 0) || ((cmp == 0) && ((s & 1) == 0))) ? s : t,
+                k + dk, chars, off);
+    }
+
+    /**
+     * Returns the rounded-to-odd product of <code>g</code> and
+     * <code>cp</code> divided by <code>2^127</code>.
+     */
+    private static long rop(long g1, long g0, long cp) {
+        long x1 = multiplyHigh(g0, cp);
+        long y0 = g1 * cp;
+        long y1 = multiplyHigh(g1, cp);
+        long z = (y0 >>> 1) + x1;
+        long vbp = y1 + (z >>> 63);
+        return vbp | (z & MASK_63) + MASK_63 >>> 63;
+    }
+
+    /**
+     * Writes <code>f * 10^e</code> (<code>f &gt; 0</code>).
+     */
+    private static int toChars(long f, int e, char[] chars, int off) {
+        while (f % 10 == 0) { // Removes trailing zeros.
+            f /= 10;
+            e++;
+        }
+        int n = 1; // Number of digits.
+        while ((n < POW10.length) && (f >= POW10[n])) {
+            n++;
+        }
+        e += n; // Value is 0.digits * 10^e
+        if ((0 < e) && (e <= 7)) { // Plain notation (e.g. 1234.5)
+            if (n <= e) {
+                off = digits(f, n, n, chars, off);
+                for (int i = n; i < e; i++) {
+                    chars[off++] = '0';
+                }
+                chars[off++] = '.';
+                chars[off++] = '0';
+            } else {
+                off = digits(f, n, e, chars, off);
+            }
+        } else if ((-3 < e) && (e <= 0)) { // Plain notation (e.g. 0.00123)
+            chars[off++] = '0';
+            chars[off++] = '.';
+            for (int i = e; i < 0; i++) {
+                chars[off++] = '0';
+            }
+            off = digits(f, n, n, chars, off);
+        } else { // Computerized scientific notation (e.g. 1.2345E10)
+            off = digits(f, n, 1, chars, off);
+            if (n == 1) {
+                chars[off++] = '.';
+                chars[off++] = '0';
+            }
+            chars[off++] = 'E';
+            int exp = e - 1;
+            if (exp < 0) {
+                chars[off++] = '-';
+                exp = -exp;
+            }
+            if (exp >= 100) {
+                chars[off++] = (char) ('0' + exp / 100);
+                exp %= 100;
+                chars[off++] = (char) ('0' + exp / 10);
+            } else if (exp >= 10) {
+                chars[off++] = (char) ('0' + exp / 10);
+            }
+            chars[off++] = (char) ('0' + exp % 10);
+        }
+        return off;
+    }
+
+    /**
+     * Writes the <code>n</code> digits of the specified integer with a
+     * decimal point after the first <code>point</code> digits (none if
+     * <code>point == n</code>).
+     */
+    private static int digits(long f, int n, int point, char[] chars, int off) {
+        int end = (point < n) ? off + n + 1 : off + n;
+        int i = end;
+        for (int j = n; j > point; j--, f /= 10) {
+            chars[--i] = (char) ('0' + f % 10);
+        }
+        if (point < n) {
+            chars[--i] = '.';
+        }
+        for (; i > off; f /= 10) {
+            chars[--i] = (char) ('0' + f % 10);
+        }
+        return end;
+    }
+
+    private static int append(String str, char[] chars, int off) {
+        str.getChars(0, str.length(), chars, off);
+        return off + str.length();
+    }
+
+    // floor(log10(2^e))
+    private static int flog10pow2(int e) {
+        return (int) (e * 661971961083L >> 41);
+    }
+
+    // floor(log10(3/4 * 2^e))
+    private static int flog10threeQuartersPow2(int e) {
+        return (int) (e * 661971961083L + -274743187321L >> 41);
+    }
+
+    // floor(log2(10^e))
+    private static int flog2pow10(int e) {
+        return (int) (e * 913124641741L >> 38);
+    }
+
+    /**
+     * Returns the high 64 bits of the 128-bit product of two signed
+     * <code>long</code> (<code>Math.multiplyHigh</code> is not available
+     * on Java 8).
+     */
+    private static long multiplyHigh(long x, long y) {
+        long x1 = x >> 32;
+        long x2 = x & 0xFFFFFFFFL;
+        long y1 = y >> 32;
+        long y2 = y & 0xFFFFFFFFL;
+        long z2 = x2 * y2;
+        long t = x1 * y2 + (z2 >>> 32);
+        long z1 = t & 0xFFFFFFFFL;
+        long z0 = t >> 32;
+        z1 += x2 * y1;
+        return x1 * y1 + z0 + (z1 >> 32);
+    }
+}
@@ -55,6 +55,33 @@ public final class AddConverter extends UnitConverter {
         return amount + _offset;
     }
 
+    @Override
+    public void convert(double[] src, int srcOff, double[] dst, int dstOff,
+            int len) {
+        final double offset = _offset;
+        for (int i = 0; i < len; i++) {
+            dst[dstOff + i] = src[srcOff + i] + offset;
+        }
+    }
+
+    @Override
+    public void convert(float[] src, int srcOff, float[] dst, int dstOff,
+            int len) {
+        final double offset = _offset;
+        for (int i = 0; i < len; i++) {
+            dst[dstOff + i] = (float) (src[srcOff + i] + offset);
+        }
+    }
+
+    @Override
+    public void convert(long[] src, int srcOff, double[] dst, int dstOff,
+            int len) {
+        final double offset = _offset;
+        for (int i = 0; i < len; i++) {
+            dst[dstOff + i] = ((double) src[srcOff + i]) + offset;
+        }
+    }
+
     @Override
     public boolean isLinear() {
         return false;
@@ -0,0 +1,357 @@
+/*
+ * JScience - Java(TM) Tools and Libraries for the Advancement of Sciences.
+ * Copyright (C) 2006 - JScience (http://jscience.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package javax.measure.converter;
+
+/**
+ * <p> This class represents a converter multiplying numeric values by a
+ *     scaling factor and then adding a constant offset
+ *     (<code>y = factor * x + offset</code>).</p>
+ *
+ * <p> The scaling factor is either exact (represented as the quotient of
+ *     two <code>long</code> numbers, see {@link RationalConverter}) or
+ *     approximated as a <code>double</code> (see {@link MultiplyConverter});
+ *     the offset is approximated as a <code>double</code>
+ *     (see {@link AddConverter}).</p>
+ *
+ * <p> Any sequence of add, multiply and rational converters is concatenated
+ *     into a single converter of this class (or into one of the simpler
+ *     converters if the offset is zero or the factor is one). For example:[code]
+ *         UnitConverter cvtr = NonSI.FAHRENHEIT.getConverterTo(SI.CELSIUS);
+ *         // cvtr is an AffineConverter (x * 5 / 9 - 17.777...)
+ *     [/code]</p>
+ *
+ * <p> Instances of this class are immutable.</p>
+ */
+public final class AffineConverter extends UnitConverter {
+
+    /**
+     * Holds the exact factor dividend (meaningless if the factor is not
+     * exact).
+     */
+    private final long _dividend;
+
+    /**
+     * Holds the exact factor divisor (always positive) or <code>0</code>
+     * if the factor is not exact.
+     */
+    private final long _divisor;
+
+    /**
+     * Holds the factor.
+     */
+    private final double _factor;
+
+    /**
+     * Holds the offset.
+     */
+    private final double _offset;
+
+    /**
+     * Creates an affine converter with the specified scale factor and
+     * offset.
+     *
+     * @param  factor the scale factor.
+     * @param  offset the offset (added after scaling).
+     * @throws IllegalArgumentException if factor is one (or close to one)
+     *         or offset is zero (or close to zero).
+     */
+    public AffineConverter(double factor, double offset) {
+        this(0L, 0L, factor, offset);
+    }
+
+    /**
+     * Creates an affine converter with the specified exact scale factor
+     * and offset.
+     *
+     * @param  dividend the factor dividend.
+     * @param  divisor the factor positive divisor.
+     * @param  offset the offset (added after scaling).
+     * @throws IllegalArgumentException if <code>divisor &lt;= 0</code>
+     * @throws IllegalArgumentException if <code>dividend == divisor</code>
+     *         or offset is zero (or close to zero).
+     */
+    public AffineConverter(long dividend, long divisor, double offset) {
+        this(dividend, checkDivisor(divisor), ((double) dividend) / divisor,
+                offset);
+        if (dividend == divisor)
+            throw new IllegalArgumentException("Add converter expected");
+    }
+
+    private AffineConverter(long dividend, long divisor, double factor,
+            double offset) {
+        if ((float) offset == 0.0)
+            throw new IllegalArgumentException("Linear converter expected");
+        if ((divisor == 0) && ((float) factor == 1.0))
+            throw new IllegalArgumentException("Add converter expected");
+        _dividend = dividend;
+        _divisor = divisor;
+        _factor = factor;
+        _offset = offset;
+    }
+
+    private static long checkDivisor(long divisor) {
+        if (divisor <= 0)
+            throw new IllegalArgumentException("Non-positive divisor");
+        return divisor;
+    }
+
+    /**
+     * Indicates if the scale factor of this converter is exact.
+     *
+     * @return <code>true</code> if the factor is stated as the quotient of
+     *         {@link #getDividend} and {@link #getDivisor};
+     *         <code>false</code> otherwise.
+     */
+    public boolean isExact() {
+        return _divisor != 0;
+    }
+
+    /**
+     * Returns the exact factor dividend.
+     *
+     * @return the factor dividend.
+     * @throws UnsupportedOperationException if the factor is not exact.
+     */
+    public long getDividend() {
+        if (_divisor == 0)
+            throw new UnsupportedOperationException("Factor not exact");
+        return _dividend;
+    }
+
+    /**
+     * Returns the exact factor positive divisor.
+     *
+     * @return the factor divisor.
+     * @throws UnsupportedOperationException if the factor is not exact.
+     */
+    public long getDivisor() {
+        if (_divisor == 0)
+            throw new UnsupportedOperationException("Factor not exact");
+        return _divisor;
+    }
+
+    /**
+     * Returns the scale factor (approximated if exact).
+     *
+     * @return the scale factor.
+     */
+    public double getFactor() {
+        return _factor;
+    }
+
+    /**
+     * Returns the offset value (added after scaling).
+     *
+     * @return the offset value.
+     */
+    public double getOffset() {
+        return _offset;
+    }
+
+    @Override
+    public UnitConverter inverse() {
+        if (_divisor == 0)
+            return new AffineConverter(0L, 0L, 1.0 / _factor, -_offset
+                    / _factor);
+        long dividend = (_dividend < 0) ? -_divisor : _divisor;
+        long divisor = (_dividend < 0) ? -_dividend : _dividend;
+        return new AffineConverter(dividend, divisor, ((double) dividend)
+                / divisor, -_offset * dividend / divisor);
+    }
+
+    @Override
+    public double convert(double amount) {
+        return (_divisor != 0) ? amount * _dividend / _divisor + _offset
+                : _factor * amount + _offset;
+    }
+
+    @Override
+    public void convert(double[] src, int srcOff, double[] dst, int dstOff,
+            int len) {
+        final double offset = _offset;
+        if (_divisor != 0) {
+            final double dividend = _dividend;
+            final double divisor = _divisor;
+            for (int i = 0; i < len; i++) {
+                dst[dstOff + i] = src[srcOff + i] * dividend / divisor + offset;
+            }
+        } else {
+            final double factor = _factor;
+            for (int i = 0; i < len; i++) {
+                dst[dstOff + i] = factor * src[srcOff + i] + offset;
+            }
+        }
+    }
+
+    @Override
+    public void convert(float[] src, int srcOff, float[] dst, int dstOff,
+            int len) {
+        final double offset = _offset;
+        if (_divisor != 0) {
+            final double dividend = _dividend;
+            final double divisor = _divisor;
+            for (int i = 0; i < len; i++) {
+                dst[dstOff + i] = (float) (src[srcOff + i] * dividend / divisor + offset);
+            }
+        } else {
+            final double factor = _factor;
+            for (int i = 0; i < len; i++) {
+                dst[dstOff + i] = (float) (factor * src[srcOff + i] + offset);
+            }
+        }
+    }
+
+    @Override
+    public void convert(long[] src, int srcOff, double[] dst, int dstOff,
+            int len) {
+        final double offset = _offset;
+        if (_divisor != 0) {
+            final double dividend = _dividend;
+            final double divisor = _divisor;
+            for (int i = 0; i < len; i++) {
+                dst[dstOff + i] = ((double) src[srcOff + i]) * dividend
+                        / divisor + offset;
+            }
+        } else {
+            final double factor = _factor;
+            for (int i = 0; i < len; i++) {
+                dst[dstOff + i] = factor * (double) src[srcOff + i] + offset;
+            }
+        }
+    }
+
+    @Override
+    public boolean isLinear() {
+        return false;
+    }
+
+    @Override
+    public boolean equals(Object cvtr) {
+        if (this == cvtr) {
+            return true;
+        }
+        if (cvtr instanceof AffineConverter) {
+            AffineConverter that = (AffineConverter) cvtr;
+            return (this._factor == that._factor)
+                    && (this._offset == that._offset);
+        }
+        return false;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Double.hashCode(_factor) + Double.hashCode(_offset);
+    }
+
+    /**
+     * Returns the converter equivalent to first converting by the
+     * specified converter and then by the other one, if both are
+     * affine (identity, add, multiply, rational or affine converters).
+     *
+     * @param  second the converter applied last.
+     * @param  first the converter applied first.
+     * @return the fused converter or <code>null</code> if one of the
+     *         converters is not affine.
+     */
+    static UnitConverter fuse(UnitConverter second, UnitConverter first) {
+        if (!isAffine(first) || !isAffine(second))
+            return null;
+        if ((first == IDENTITY) || (second == IDENTITY)
+                || (first.isLinear() && second.isLinear())
+                || ((first instanceof AddConverter) && (second instanceof AddConverter)))
+            return second.concatenate(first); // Specialized.
+        double offset = second.convert(first.convert(0.0));
+        long firstDividend = dividendOf(first);
+        long firstDivisor = divisorOf(first);
+        long secondDividend = dividendOf(second);
+        long secondDivisor = divisorOf(second);
+        if ((firstDivisor != 0) && (secondDivisor != 0)) { // Exact.
+            long dividend = firstDividend * secondDividend;
+            long divisor = firstDivisor * secondDivisor;
+            if ((dividend == ((double) firstDividend) * secondDividend)
+                    && (divisor == ((double) firstDivisor) * secondDivisor)) {
+                long gcd = Math.abs(gcd(dividend, divisor));
+                return valueOf(dividend / gcd, divisor / gcd, offset);
+            } // Else long overflows.
+        }
+        return valueOf(factorOf(first) * factorOf(second), offset);
+    }
+
+    private static boolean isAffine(UnitConverter cvtr) {
+        return (cvtr == IDENTITY) || (cvtr instanceof AddConverter)
+                || (cvtr instanceof MultiplyConverter)
+                || (cvtr instanceof RationalConverter)
+                || (cvtr instanceof AffineConverter);
+    }
+
+    private static long dividendOf(UnitConverter cvtr) {
+        if (cvtr instanceof RationalConverter)
+            return ((RationalConverter) cvtr).getDividend();
+        if (cvtr instanceof AffineConverter)
+            return ((AffineConverter) cvtr)._dividend;
+        return 1L; // Identity, add or multiply converter.
+    }
+
+    private static long divisorOf(UnitConverter cvtr) {
+        if (cvtr instanceof RationalConverter)
+            return ((RationalConverter) cvtr).getDivisor();
+        if (cvtr instanceof AffineConverter)
+            return ((AffineConverter) cvtr)._divisor;
+        if (cvtr instanceof MultiplyConverter)
+            return 0L; // Not exact.
+        return 1L; // Identity or add converter.
+    }
+
+    private static double factorOf(UnitConverter cvtr) {
+        if (cvtr instanceof MultiplyConverter)
+            return ((MultiplyConverter) cvtr).getFactor();
+        if (cvtr instanceof RationalConverter)
+            return ((double) ((RationalConverter) cvtr).getDividend())
+                    / ((RationalConverter) cvtr).getDivisor();
+        if (cvtr instanceof AffineConverter)
+            return ((AffineConverter) cvtr)._factor;
+        return 1.0; // Identity or add converter.
+    }
+
+    private static UnitConverter valueOf(long dividend, long divisor,
+            double offset) {
+        if ((float) offset == 0.0f)
+            return (dividend == divisor) ? UnitConverter.IDENTITY
+                    : new RationalConverter(dividend, divisor);
+        return (dividend == divisor) ? new AddConverter(offset)
+                : new AffineConverter(dividend, divisor, ((double) dividend)
+                        / divisor, offset);
+    }
+
+    private static UnitConverter valueOf(double factor, double offset) {
+        boolean isOne = (float) factor == 1.0f;
+        if ((float) offset == 0.0f)
+            return isOne ? UnitConverter.IDENTITY : new MultiplyConverter(
+                    factor);
+        return isOne ? new AddConverter(offset) : new AffineConverter(0L, 0L,
+                factor, offset);
+    }
+
+    /**
+     * Returns the greatest common divisor (Euclid's algorithm).
+     *
+     * @param  m the first number.
+     * @param  n the second number.
+     * @return the greatest common divisor.
+     */
+    private static long gcd(long m, long n) {
+        if (n == 0L) {
+            return m;
+        } else {
+            return gcd(n, m % n);
+        }
+    }
+
+    private static final long serialVersionUID = 1L;
+}
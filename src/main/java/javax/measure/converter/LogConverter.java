@@ -75,6 +75,33 @@ public final class LogConverter extends UnitConverter {
         return _invLogBase * Math.log(amount);
     }
 
+    @Override
+    public void convert(double[] src, int srcOff, double[] dst, int dstOff,
+            int len) {
+        final double invLogBase = _invLogBase;
+        for (int i = 0; i < len; i++) {
+            dst[dstOff + i] = invLogBase * Math.log(src[srcOff + i]);
+        }
+    }
+
+    @Override
+    public void convert(float[] src, int srcOff, float[] dst, int dstOff,
+            int len) {
+        final double invLogBase = _invLogBase;
+        for (int i = 0; i < len; i++) {
+            dst[dstOff + i] = (float) (invLogBase * Math.log(src[srcOff + i]));
+        }
+    }
+
+    @Override
+    public void convert(long[] src, int srcOff, double[] dst, int dstOff,
+            int len) {
+        final double invLogBase = _invLogBase;
+        for (int i = 0; i < len; i++) {
+            dst[dstOff + i] = invLogBase * Math.log(src[srcOff + i]);
+        }
+    }
+
     @Override
     public boolean isLinear() {
         return false;
@@ -56,6 +56,33 @@ public final class MultiplyConverter extends UnitConverter {
         return _factor * amount;
     }
 
+    @Override
+    public void convert(double[] src, int srcOff, double[] dst, int dstOff,
+            int len) {
+        final double factor = _factor;
+        for (int i = 0; i < len; i++) {
+            dst[dstOff + i] = factor * src[srcOff + i];
+        }
+    }
+
+    @Override
+    public void convert(float[] src, int srcOff, float[] dst, int dstOff,
+            int len) {
+        final double factor = _factor;
+        for (int i = 0; i < len; i++) {
+            dst[dstOff + i] = (float) (factor * src[srcOff + i]);
+        }
+    }
+
+    @Override
+    public void convert(long[] src, int srcOff, double[] dst, int dstOff,
+            int len) {
+        final double factor = _factor;
+        for (int i = 0; i < len; i++) {
+            dst[dstOff + i] = factor * (double) src[srcOff + i];
+        }
+    }
+
     @Override
     public boolean isLinear() {
         return true;
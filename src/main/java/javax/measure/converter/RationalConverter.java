@@ -77,6 +77,36 @@ public final class RationalConverter extends UnitConverter {
         return amount * _dividend / _divisor;
     }
 
+    @Override
+    public void convert(double[] src, int srcOff, double[] dst, int dstOff,
+            int len) {
+        final double dividend = _dividend;
+        final double divisor = _divisor;
+        for (int i = 0; i < len; i++) {
+            dst[dstOff + i] = src[srcOff + i] * dividend / divisor;
+        }
+    }
+
+    @Override
+    public void convert(float[] src, int srcOff, float[] dst, int dstOff,
+            int len) {
+        final double dividend = _dividend;
+        final double divisor = _divisor;
+        for (int i = 0; i < len; i++) {
+            dst[dstOff + i] = (float) (src[srcOff + i] * dividend / divisor);
+        }
+    }
+
+    @Override
+    public void convert(long[] src, int srcOff, double[] dst, int dstOff,
+            int len) {
+        final double dividend = _dividend;
+        final double divisor = _divisor;
+        for (int i = 0; i < len; i++) {
+            dst[dstOff + i] = ((double) src[srcOff + i]) * dividend / divisor;
+        }
+    }
+
     @Override
     public boolean isLinear() {
         return true;
@@ -9,6 +9,7 @@
 package javax.measure.converter;
 
 import java.io.Serializable;
+import java.util.ArrayList;
 
 /**
  * <p> This class represents a converter of numeric values.</p>
@@ -56,6 +57,82 @@ public abstract class UnitConverter implements Serializable {
      */
     public abstract double convert(double x) throws ConversionException;
 
+    /**
+     * Converts a range of double values. The destination range may be the
+     * same as the source range (in place conversion) but should not
+     * otherwise overlap it.
+     *
+     * <p>Note: Sub-classes should override this method with a loop
+     *          free of virtual calls (this default implementation calls
+     *          {@link #convert(double)} for each value).</p>
+     *
+     * @param  src the values to convert.
+     * @param  srcOff the index of the first value to convert.
+     * @param  dst the array receiving the converted values.
+     * @param  dstOff the index of the first converted value in
+     *         <code>dst</code>.
+     * @param  len the number of values to convert.
+     * @throws ConversionException if an error occurs during conversion.
+     */
+    public void convert(double[] src, int srcOff, double[] dst, int dstOff,
+            int len) throws ConversionException {
+        for (int i = 0; i < len; i++) {
+            dst[dstOff + i] = convert(src[srcOff + i]);
+        }
+    }
+
+    /**
+     * Converts in place a range of double values.
+     *
+     * @param  values the values to convert (replaced by the converted
+     *         values).
+     * @param  off the index of the first value to convert.
+     * @param  len the number of values to convert.
+     * @throws ConversionException if an error occurs during conversion.
+     */
+    public final void convert(double[] values, int off, int len)
+            throws ConversionException {
+        convert(values, off, values, off, len);
+    }
+
+    /**
+     * Converts a range of float values (calculations are performed using
+     * <code>double</code> arithmetic). The destination range may be the
+     * same as the source range but should not otherwise overlap it.
+     *
+     * @param  src the values to convert.
+     * @param  srcOff the index of the first value to convert.
+     * @param  dst the array receiving the converted values.
+     * @param  dstOff the index of the first converted value in
+     *         <code>dst</code>.
+     * @param  len the number of values to convert.
+     * @throws ConversionException if an error occurs during conversion.
+     */
+    public void convert(float[] src, int srcOff, float[] dst, int dstOff,
+            int len) throws ConversionException {
+        for (int i = 0; i < len; i++) {
+            dst[dstOff + i] = (float) convert(src[srcOff + i]);
+        }
+    }
+
+    /**
+     * Converts a range of long values (e.g. raw counts) into double values.
+     *
+     * @param  src the values to convert.
+     * @param  srcOff the index of the first value to convert.
+     * @param  dst the array receiving the converted values.
+     * @param  dstOff the index of the first converted value in
+     *         <code>dst</code>.
+     * @param  len the number of values to convert.
+     * @throws ConversionException if an error occurs during conversion.
+     */
+    public void convert(long[] src, int srcOff, double[] dst, int dstOff,
+            int len) throws ConversionException {
+        for (int i = 0; i < len; i++) {
+            dst[dstOff + i] = convert((double) src[srcOff + i]);
+        }
+    }
+
     /**
      * Indicates if this converter is linear. A converter is linear if
      * <code>convert(u + v) == convert(u) + convert(v)</code> and
@@ -79,11 +156,58 @@ public abstract class UnitConverter implements Serializable {
      *          is returned if the resulting converter is an identity 
      *          converter.</p> 
      * 
+     * <p>Note: This default implementation fuses consecutive affine
+     *          converters (add, multiply, rational) into a single
+     *          {@link AffineConverter}; only the other converters
+     *          (e.g. logarithmic) are kept as distinct steps.</p>
+     * 
      * @param  converter the other converter.
      * @return the concatenation of this converter with the other converter.
      */
     public UnitConverter concatenate(UnitConverter converter) {
-        return (converter == IDENTITY) ? this : new Compound(converter, this);
+        if (converter == IDENTITY)
+            return this;
+        UnitConverter fused = AffineConverter.fuse(this, converter);
+        if (fused != null)
+            return fused;
+        ArrayList<UnitConverter> steps = new ArrayList<UnitConverter>();
+        addSteps(converter, steps);
+        addSteps(this, steps);
+        if (steps.isEmpty())
+            return IDENTITY;
+        UnitConverter result = steps.get(0);
+        for (int i = 1; i < steps.size(); i++) {
+            result = new Compound(result, steps.get(i));
+        }
+        return result;
+    }
+
+    /**
+     * Appends the steps of the specified converter (in conversion order),
+     * fusing each affine step with the previous one when possible.
+     *
+     * @param cvtr the converter to append.
+     * @param steps the non-identity steps (updated).
+     */
+    private static void addSteps(UnitConverter cvtr,
+            ArrayList<UnitConverter> steps) {
+        if (cvtr instanceof Compound) {
+            addSteps(((Compound) cvtr)._first, steps);
+            addSteps(((Compound) cvtr)._second, steps);
+            return;
+        }
+        int last = steps.size() - 1;
+        UnitConverter fused = (last >= 0) ? AffineConverter.fuse(cvtr, steps
+                .get(last)) : null;
+        if (fused == null) {
+            if (cvtr != IDENTITY) {
+                steps.add(cvtr);
+            }
+        } else if (fused == IDENTITY) {
+            steps.remove(last);
+        } else {
+            steps.set(last, fused);
+        }
     }
 
     /**
@@ -101,6 +225,26 @@ public abstract class UnitConverter implements Serializable {
             return x;
         }
 
+        @Override
+        public void convert(double[] src, int srcOff, double[] dst,
+                int dstOff, int len) {
+            System.arraycopy(src, srcOff, dst, dstOff, len);
+        }
+
+        @Override
+        public void convert(float[] src, int srcOff, float[] dst,
+                int dstOff, int len) {
+            System.arraycopy(src, srcOff, dst, dstOff, len);
+        }
+
+        @Override
+        public void convert(long[] src, int srcOff, double[] dst,
+                int dstOff, int len) {
+            for (int i = 0; i < len; i++) {
+                dst[dstOff + i] = src[srcOff + i];
+            }
+        }
+
         @Override
         public boolean isLinear() {
             return true;
@@ -129,6 +273,12 @@ public abstract class UnitConverter implements Serializable {
      */
     private static final class Compound extends UnitConverter {
 
+        /**
+         * Holds the number of values converted at once when converting
+         * float values.
+         */
+        private static final int CHUNK_LENGTH = 256;
+
         /**
          * Holds the first converter.
          */
@@ -161,6 +311,37 @@ public abstract class UnitConverter implements Serializable {
             return _second.convert(_first.convert(x));
         }
 
+        @Override
+        public void convert(double[] src, int srcOff, double[] dst,
+                int dstOff, int len) {
+            _first.convert(src, srcOff, dst, dstOff, len);
+            _second.convert(dst, dstOff, dst, dstOff, len);
+        }
+
+        @Override
+        public void convert(float[] src, int srcOff, float[] dst,
+                int dstOff, int len) {
+            // Intermediate values are kept in double precision (by chunks).
+            double[] chunk = new double[Math.min(len, CHUNK_LENGTH)];
+            for (int i = 0; i < len; i += chunk.length) {
+                int n = Math.min(chunk.length, len - i);
+                for (int j = 0; j < n; j++) {
+                    chunk[j] = src[srcOff + i + j];
+                }
+                convert(chunk, 0, chunk, 0, n);
+                for (int j = 0; j < n; j++) {
+                    dst[dstOff + i + j] = (float) chunk[j];
+                }
+            }
+        }
+
+        @Override
+        public void convert(long[] src, int srcOff, double[] dst,
+                int dstOff, int len) {
+            _first.convert(src, srcOff, dst, dstOff, len);
+            _second.convert(dst, dstOff, dst, dstOff, len);
+        }
+
         @Override
         public boolean isLinear() {
             return _first.isLinear() && _second.isLinear();
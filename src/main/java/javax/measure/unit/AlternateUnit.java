@@ -56,6 +56,7 @@ public final class AlternateUnit<Q extends Quantity> extends DerivedUnit<Q> {
             Unit<?> unit = Unit.SYMBOL_TO_UNIT.get(symbol);
             if (unit == null) {
                 Unit.SYMBOL_TO_UNIT.put(symbol, this);
+                Unit.SYMBOLS_VERSION.incrementAndGet();
                 return;
             }
             if (unit instanceof AlternateUnit) {
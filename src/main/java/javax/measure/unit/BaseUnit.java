@@ -64,6 +64,7 @@ public class BaseUnit<Q extends Quantity> extends Unit<Q> {
             Unit<?> unit = Unit.SYMBOL_TO_UNIT.get(symbol);
             if (unit == null) {
                 Unit.SYMBOL_TO_UNIT.put(symbol, this);
+                Unit.SYMBOLS_VERSION.incrementAndGet();
                 return;
             }
             if (!(unit instanceof BaseUnit)) 
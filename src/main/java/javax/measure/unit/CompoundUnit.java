@@ -95,6 +95,17 @@ public final class CompoundUnit<Q extends Quantity> extends DerivedUnit<Q> {
         return _high.hashCode() ^ _low.hashCode();
     }
 
+    @Override
+    boolean isIdenticalTo(Unit<?> that) {
+        if (this == that)
+            return true;
+        if (!(that instanceof CompoundUnit))
+            return false;
+        CompoundUnit<?> thatUnit = (CompoundUnit<?>) that;
+        return this._high.isIdenticalTo(thatUnit._high)
+                && this._low.isIdenticalTo(thatUnit._low);
+    }
+
     @Override
     public Unit<? super Q> getStandardUnit() {
         return _low.getStandardUnit(); 
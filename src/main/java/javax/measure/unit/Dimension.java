@@ -8,7 +8,11 @@
  */
 package javax.measure.unit;
 
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamException;
 import java.io.Serializable;
+import java.util.HashMap;
 
 import javax.measure.converter.RationalConverter;
 import javax.measure.converter.UnitConverter;
@@ -20,6 +24,15 @@ import javax.measure.quantity.Dimensionless;
  *     only if <code>(u1.getDimension().equals(u2.getDimension())))</code>
  *     </p>
  *     
+ * <p> Dimensions are represented by the rational exponents of their 
+ *     fundamental dimensions (the SI dimensions and up to ten custom 
+ *     dimensions), packed into two <code>long</code> (one signed byte per
+ *     exponent numerator) and a common denominator. Multiplication, division,
+ *     power, root and comparison are then performed using primitive 
+ *     arithmetic. Dimensions which cannot be packed (exponents overflow or 
+ *     too many custom dimensions) are represented by their 
+ *     {@link #getPseudoUnit pseudo unit}.</p>
+ *     
  * <p> Instances of this class are immutable.</p>
  *
  * @author  <a href="mailto:jean-marie@dautelle.com">Jean-Marie Dautelle</a>
@@ -34,10 +47,26 @@ public final class Dimension implements Serializable {
      */
     private static Model CurrentModel = Model.STANDARD;
 
+    /**
+     * Holds the maximum number of fundamental dimensions (packed exponents).
+     */
+    private static final int LANE_COUNT = 16;
+
+    /**
+     * Holds the pseudo units of the fundamental dimensions by lane
+     * (copy on write).
+     */
+    private static volatile BaseUnit<?>[] LaneUnits = new BaseUnit<?>[0];
+
+    /**
+     * Holds the fundamental dimensions symbol to lane mapping.
+     */
+    private static final HashMap<String, Integer> SYMBOL_TO_LANE = new HashMap<String, Integer>();
+
     /**
      * Holds dimensionless.
      */
-    public static final Dimension NONE = new Dimension(Unit.ONE);
+    public static final Dimension NONE = new Dimension(0L, 0L, 1, Unit.ONE);
 
     /**
      * Holds length dimension (L).
@@ -70,9 +99,26 @@ public final class Dimension implements Serializable {
     public static final Dimension AMOUNT_OF_SUBSTANCE = new Dimension('N');
 
     /**
-     * Holds the pseudo unit associated to this dimension.
+     * Holds the exponents numerators of the lanes 0 to 7 (one byte per lane).
+     */
+    private final transient long _low;
+
+    /**
+     * Holds the exponents numerators of the lanes 8 to 15 (one byte per lane).
+     */
+    private final transient long _high;
+
+    /**
+     * Holds the exponents common denominator (<code>0</code> if this 
+     * dimension is not packed).
      */
-    private final Unit<?> _pseudoUnit;
+    private final transient int _denominator;
+
+    /**
+     * Holds the pseudo unit associated to this dimension (lazily created 
+     * for packed dimensions).
+     */
+    private Unit<?> _pseudoUnit;
 
     /**
      * Creates a new dimension associated to the specified symbol.
@@ -80,19 +126,58 @@ public final class Dimension implements Serializable {
      * @param symbol the associated symbol.
      */
     public Dimension(char symbol) {
-        _pseudoUnit = new BaseUnit<Dimensionless>("[" + symbol + "]");
+        BaseUnit<Dimensionless> pseudoUnit = new BaseUnit<Dimensionless>("[" + symbol + "]");
+        int lane = laneOf(pseudoUnit);
+        _low = (lane >= 0) && (lane < 8) ? 1L << (lane << 3) : 0L;
+        _high = (lane >= 8) ? 1L << ((lane - 8) << 3) : 0L;
+        _denominator = (lane >= 0) ? 1 : 0;
+        _pseudoUnit = pseudoUnit;
     }
 
     /**
-     * Creates a dimension having the specified pseudo-unit 
-     * (base unit or product of base unit).
+     * Creates a dimension from its packed exponents or pseudo unit.
      * 
-     * @param pseudoUnit the pseudo-unit identifying this dimension.
+     * @param low the exponents numerators of the lanes 0 to 7.
+     * @param high the exponents numerators of the lanes 8 to 15.
+     * @param denominator the common denominator or <code>0</code> if not packed.
+     * @param pseudoUnit the pseudo-unit identifying this dimension or 
+     *        <code>null</code> if packed (created when needed).
      */
-    private Dimension(Unit<?> pseudoUnit) {
+    private Dimension(long low, long high, int denominator, Unit<?> pseudoUnit) {
+        _low = low;
+        _high = high;
+        _denominator = denominator;
         _pseudoUnit = pseudoUnit;
     }
 
+    /**
+     * Returns the dimension having the specified pseudo-unit (base unit or
+     * product of base units), packed if possible.
+     * 
+     * @param pseudoUnit the pseudo-unit identifying the dimension.
+     * @return the corresponding dimension.
+     */
+    private static Dimension valueOf(Unit<?> pseudoUnit) {
+        if (pseudoUnit instanceof BaseUnit) {
+            int lane = laneOf((BaseUnit<?>) pseudoUnit);
+            if (lane >= 0)
+                return new Dimension(0L, 0L, 1, null).add(lane, 1, 1, pseudoUnit);
+        } else if (pseudoUnit instanceof ProductUnit) {
+            ProductUnit<?> product = (ProductUnit<?>) pseudoUnit;
+            Dimension dimension = NONE;
+            for (int i = 0; i < product.getUnitCount(); i++) {
+                Unit<?> unit = product.getUnit(i);
+                int lane = (unit instanceof BaseUnit) ? laneOf((BaseUnit<?>) unit) : -1;
+                dimension = (lane >= 0) ? dimension.add(lane,
+                        product.getUnitPow(i), product.getUnitRoot(i), null) : null;
+                if ((dimension == null) || (dimension._denominator == 0))
+                    return new Dimension(0L, 0L, 0, pseudoUnit); // Not packed.
+            }
+            return dimension;
+        }
+        return new Dimension(0L, 0L, 0, pseudoUnit); // Not packed.
+    }
+
     /**
      * Returns the product of this dimension with the one specified.
      *
@@ -100,7 +185,7 @@ public final class Dimension implements Serializable {
      * @return <code>this * that</code>
      */
     public final Dimension times(Dimension that) {
-        return new Dimension(this._pseudoUnit.times(that._pseudoUnit));
+        return combine(that, 1);
     }
 
     /**
@@ -110,7 +195,7 @@ public final class Dimension implements Serializable {
      * @return <code>this / that</code>
      */
     public final Dimension divide(Dimension that) {
-        return new Dimension(this._pseudoUnit.divide(that._pseudoUnit));
+        return combine(that, -1);
     }
 
     /**
@@ -120,7 +205,23 @@ public final class Dimension implements Serializable {
      * @return the result of raising this dimension to the exponent.
      */
     public final Dimension pow(int n) {
-        return new Dimension(this._pseudoUnit.pow(n));
+        if (_denominator == 0)
+            return valueOf(_pseudoUnit.pow(n));
+        if (n == 0)
+            return NONE;
+        long low = 0L;
+        long high = 0L;
+        for (int lane = 0; lane < LANE_COUNT; lane++) {
+            long numerator = (long) numerator(lane) * n;
+            if ((numerator < Byte.MIN_VALUE) || (numerator > Byte.MAX_VALUE))
+                return valueOf(getPseudoUnit().pow(n)); // Overflow.
+            if (lane < 8) {
+                low |= (numerator & 0xFF) << (lane << 3);
+            } else {
+                high |= (numerator & 0xFF) << ((lane - 8) << 3);
+            }
+        }
+        return normalize(low, high, _denominator);
     }
 
     /**
@@ -131,7 +232,16 @@ public final class Dimension implements Serializable {
      * @throws ArithmeticException if <code>n == 0</code>.
      */
     public final Dimension root(int n) {
-        return new Dimension(this._pseudoUnit.root(n));
+        if (_denominator == 0)
+            return valueOf(_pseudoUnit.root(n));
+        if (n == 0)
+            throw new ArithmeticException("Root's order of zero");
+        if (n < 0)
+            return NONE.divide(this.root(-n));
+        long denominator = (long) _denominator * n;
+        if (denominator > Integer.MAX_VALUE)
+            return valueOf(getPseudoUnit().root(n)); // Overflow.
+        return normalize(_low, _high, (int) denominator);
     }
 
     /**
@@ -140,7 +250,7 @@ public final class Dimension implements Serializable {
      * @return the representation of this dimension.
      */
     public String toString() {
-        return _pseudoUnit.toString();
+        return getPseudoUnit().toString();
     }
 
     /**
@@ -153,8 +263,14 @@ public final class Dimension implements Serializable {
     public boolean equals(Object that) {
         if (this == that)
             return true;
-        return (that instanceof Dimension)
-                && _pseudoUnit.equals(((Dimension) that)._pseudoUnit);
+        if (!(that instanceof Dimension))
+            return false;
+        Dimension thatDimension = (Dimension) that;
+        if ((this._denominator != 0) || (thatDimension._denominator != 0))
+            return (this._low == thatDimension._low)
+                    && (this._high == thatDimension._high)
+                    && (this._denominator == thatDimension._denominator);
+        return _pseudoUnit.equals(thatDimension._pseudoUnit);
     }
 
     /**
@@ -163,7 +279,10 @@ public final class Dimension implements Serializable {
      * @return this dimension hashcode value.
      */
     public int hashCode() {
-        return _pseudoUnit.hashCode();
+        if (_denominator == 0)
+            return _pseudoUnit.hashCode();
+        long code = _low * 31 + _high;
+        return (int) (code ^ (code >>> 32)) * 31 + _denominator;
     }
 
     /**
@@ -173,9 +292,154 @@ public final class Dimension implements Serializable {
      * for specific symbols.
      */
     public Unit<?> getPseudoUnit() {
+        if (_pseudoUnit == null) {
+            BaseUnit<?>[] laneUnits = LaneUnits;
+            Unit<?> pseudoUnit = Unit.ONE;
+            for (int lane = 0; lane < LANE_COUNT; lane++) {
+                int numerator = numerator(lane);
+                if (numerator == 0)
+                    continue;
+                int gcd = gcd(Math.abs(numerator), _denominator);
+                Unit<?> unit = laneUnits[lane].pow(numerator / gcd);
+                pseudoUnit = pseudoUnit.times(unit.root(_denominator / gcd));
+            }
+            _pseudoUnit = pseudoUnit;
+        }
         return _pseudoUnit;
     }
 
+    /**
+     * Returns the exponent numerator of the specified lane.
+     */
+    private int numerator(int lane) {
+        return (lane < 8) ? (byte) (_low >>> (lane << 3))
+                : (byte) (_high >>> ((lane - 8) << 3));
+    }
+
+    /**
+     * Returns the product of this dimension with the specified dimension 
+     * raised to the specified sign.
+     */
+    private Dimension combine(Dimension that, int sign) {
+        if ((this._denominator == 0) || (that._denominator == 0)) {
+            Unit<?> thatUnit = that.getPseudoUnit();
+            return valueOf((sign > 0) ? this.getPseudoUnit().times(thatUnit)
+                    : this.getPseudoUnit().divide(thatUnit));
+        }
+        int gcd = gcd(this._denominator, that._denominator);
+        long thisFactor = that._denominator / gcd;
+        long thatFactor = (this._denominator / gcd) * (long) sign;
+        long denominator = this._denominator * thisFactor;
+        long low = 0L;
+        long high = 0L;
+        for (int lane = 0; lane < LANE_COUNT; lane++) {
+            long numerator = this.numerator(lane) * thisFactor
+                    + that.numerator(lane) * thatFactor;
+            if ((numerator < Byte.MIN_VALUE) || (numerator > Byte.MAX_VALUE)
+                    || (denominator > Integer.MAX_VALUE)) { // Overflow.
+                Unit<?> thatUnit = that.getPseudoUnit();
+                return valueOf((sign > 0) ? this.getPseudoUnit().times(thatUnit)
+                        : this.getPseudoUnit().divide(thatUnit));
+            }
+            if (lane < 8) {
+                low |= (numerator & 0xFF) << (lane << 3);
+            } else {
+                high |= (numerator & 0xFF) << ((lane - 8) << 3);
+            }
+        }
+        return normalize(low, high, (int) denominator);
+    }
+
+    /**
+     * Returns this dimension multiplied by the specified lane raised to the
+     * specified rational power (or a dimension not packed on overflow).
+     */
+    private Dimension add(int lane, int pow, int root, Unit<?> pseudoUnit) {
+        long low = (lane < 8) ? ((pow & 0xFFL) << (lane << 3)) : 0L;
+        long high = (lane >= 8) ? ((pow & 0xFFL) << ((lane - 8) << 3)) : 0L;
+        if ((pow < Byte.MIN_VALUE) || (pow > Byte.MAX_VALUE))
+            return new Dimension(0L, 0L, 0, null); // Overflow.
+        Dimension dimension = this.combine(normalize(low, high, root), 1);
+        if (pseudoUnit != null) {
+            dimension._pseudoUnit = pseudoUnit;
+        }
+        return dimension;
+    }
+
+    /**
+     * Returns the packed dimension with the specified numerators and 
+     * denominator after reduction of the exponents to a common denominator.
+     */
+    private static Dimension normalize(long low, long high, int denominator) {
+        int gcd = denominator;
+        for (int i = 0; (i < 64) && (gcd != 1); i += 8) {
+            gcd = gcd(gcd, Math.abs((byte) (low >>> i)));
+            gcd = gcd(gcd, Math.abs((byte) (high >>> i)));
+        }
+        if ((gcd == denominator) && (low == 0L) && (high == 0L))
+            return NONE;
+        if (gcd > 1) {
+            long l = 0L;
+            long h = 0L;
+            for (int i = 0; i < 64; i += 8) {
+                l |= ((((byte) (low >>> i)) / gcd) & 0xFFL) << i;
+                h |= ((((byte) (high >>> i)) / gcd) & 0xFFL) << i;
+            }
+            return new Dimension(l, h, denominator / gcd, null);
+        }
+        return new Dimension(low, high, denominator, null);
+    }
+
+    /**
+     * Returns the lane of the fundamental dimension having the specified
+     * pseudo unit (allocated on first use) or <code>-1</code> if all the lanes
+     * are used.
+     */
+    private static int laneOf(BaseUnit<?> pseudoUnit) {
+        synchronized (SYMBOL_TO_LANE) {
+            Integer lane = SYMBOL_TO_LANE.get(pseudoUnit.getSymbol());
+            if (lane != null)
+                return lane.intValue();
+            int count = SYMBOL_TO_LANE.size();
+            if (count == LANE_COUNT)
+                return -1;
+            BaseUnit<?>[] laneUnits = new BaseUnit<?>[count + 1];
+            System.arraycopy(LaneUnits, 0, laneUnits, 0, count);
+            laneUnits[count] = pseudoUnit;
+            LaneUnits = laneUnits;
+            SYMBOL_TO_LANE.put(pseudoUnit.getSymbol(), count);
+            return count;
+        }
+    }
+
+    /**
+     * Returns the greatest common divisor (Euclid's algorithm).
+     */
+    private static int gcd(int m, int n) {
+        while (n != 0) {
+            int r = m % n;
+            m = n;
+            n = r;
+        }
+        return m;
+    }
+
+    /**
+     * Serializes this dimension using its pseudo unit (lanes allocation
+     * is specific to the running virtual machine).
+     */
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        getPseudoUnit();
+        out.defaultWriteObject();
+    }
+
+    /**
+     * Resolves the deserialized dimension (packed if possible).
+     */
+    private Object readResolve() throws ObjectStreamException {
+        return valueOf(_pseudoUnit);
+    }
+
     /**
      * Sets the model used to determinate the units dimensions.
      *  
@@ -236,7 +500,7 @@ public final class Dimension implements Serializable {
                 if (unit.equals(SI.AMPERE)) return Dimension.ELECTRIC_CURRENT;
                 if (unit.equals(SI.MOLE)) return Dimension.AMOUNT_OF_SUBSTANCE;
                 if (unit.equals(SI.CANDELA)) return SI.WATT.getDimension();
-                return new Dimension(new BaseUnit<Dimensionless>("[" + unit.getSymbol() + "]"));
+                return Dimension.valueOf(new BaseUnit<Dimensionless>("[" + unit.getSymbol() + "]"));
             }
             
             public UnitConverter getTransform(BaseUnit<?> unit) {
@@ -27,6 +27,10 @@ import com.github.benmanes.caffeine.cache.LoadingCache;
  *     <code>METER.pow(2).divide(METER)</code> returns
  *     <code>METER</code>.</p>
  *
+ * <p> Elements are kept in formatting order; their canonical order (sorted
+ *     by unit hash code) is also maintained so that products are merged
+ *     and compared in linear time.</p>
+ *
  * @author  <a href="mailto:jean-marie@dautelle.com">Jean-Marie Dautelle</a>
  * @version 3.1, April 22, 2006
  * @see     Unit#times(Unit)
@@ -37,15 +41,31 @@ import com.github.benmanes.caffeine.cache.LoadingCache;
 public final class ProductUnit<Q extends Quantity> extends DerivedUnit<Q> {
 
     /**
-     * Holds the units composing this product unit.
+     * Holds the units composing this product unit (in formatting order).
      */
     private final Element[] _elements;
 
     /**
-     * Holds the hashcode (optimization).
+     * Holds the indices of the elements in canonical order (sorted by 
+     * unit hash code); used for linear merging and comparison.
      */
-    private int _hashCode;
+    private final int[] _canonical;
 
+    /**
+     * Holds the elements in canonical order.
+     */
+    private final Element[] _sorted;
+
+    /**
+     * Holds the hashcode (independent of the elements order).
+     */
+    private final int _hashCode;
+
+    /**
+     * Holds the hashcode of the elements array (dependent of the elements
+     * order, used by the instances cache).
+     */
+    private final int _elementsHashCode;
 
     /**
      * Holds the standard unit of this unit.
@@ -61,7 +81,7 @@ public final class ProductUnit<Q extends Quantity> extends DerivedUnit<Q> {
      * Default constructor (used solely to create <code>ONE</code> instance).
      */
     ProductUnit() {
-        _elements = new Element[0];
+        this(new Element[0], new int[0]);
     }
 
     /**
@@ -72,88 +92,153 @@ public final class ProductUnit<Q extends Quantity> extends DerivedUnit<Q> {
      *         a product unit.
      */
     public ProductUnit(Unit<?> productUnit) {
-        _elements = ((ProductUnit<?>)productUnit)._elements;
+        ProductUnit<?> source = (ProductUnit<?>) productUnit;
+        _elements = source._elements;
+        _canonical = source._canonical;
+        _sorted = source._sorted;
+        _hashCode = source._hashCode;
+        _elementsHashCode = source._elementsHashCode;
     }
 
     /**
      * Product unit constructor.
      *
      * @param  elements the product elements.
+     * @param  canonical the elements indices in canonical order.
      */
-    private ProductUnit(Element[] elements) {
+    private ProductUnit(Element[] elements, int[] canonical) {
         _elements = elements;
+        _canonical = canonical;
+        _sorted = new Element[elements.length];
+        int code = 0;
+        for (int i = 0; i < elements.length; i++) {
+            _sorted[i] = elements[canonical[i]];
+            code += elements[i]._unitHashCode
+                    * (elements[i]._pow * 3 - elements[i]._root * 2);
+        }
+        _hashCode = code;
+        _elementsHashCode = Arrays.hashCode(elements);
     }
 
     private static final LoadingCache<ProductUnitKey, Unit<? extends Quantity>> INSTANCE_CACHE =
             Caffeine.newBuilder()
                     .maximumSize(4096)
-                    .build(key -> doGetInstance(key._leftElems, key._rightElems));
+                    .build(key -> doGetInstance(key._leftElems, key._leftCanonical,
+                            key._rightElems, key._rightCanonical));
 
 
     /**
      * Returns the unit defined from the product of the specifed elements.
      *
-     * @param  leftElems left multiplicand elements.
-     * @param  rightElems right multiplicand elements.
+     * @param  left left multiplicand.
+     * @param  right right multiplicand.
      * @return the corresponding unit.
      */
-    private static Unit<? extends Quantity> getInstance(Element[] leftElems, Element[] rightElems) {
-        return INSTANCE_CACHE.get(new ProductUnitKey(leftElems, rightElems));
+    private static Unit<? extends Quantity> getInstance(Operand left, Operand right) {
+        return INSTANCE_CACHE.get(new ProductUnitKey(left, right));
     }
 
+    /**
+     * Merges the specified elements (single pass over the canonical orders).
+     * Merged elements keep the position of the left elements, remaining right
+     * elements are appended in their original order.
+     */
     @SuppressWarnings("unchecked")
-    private static Unit<? extends Quantity> doGetInstance(Element[] leftElems, Element[] rightElems) {
-        // Merges left elements with right elements.
-        Element[] result = new Element[leftElems.length + rightElems.length];
-        int resultIndex = 0;
-        for (int i = 0; i < leftElems.length; i++) {
-            Unit unit = leftElems[i]._unit;
-            int p1 = leftElems[i]._pow;
-            int r1 = leftElems[i]._root;
-            int p2 = 0;
-            int r2 = 1;
-            for (int j = 0; j < rightElems.length; j++) {
-                if (unit.equals(rightElems[j]._unit)) {
-                    p2 = rightElems[j]._pow;
-                    r2 = rightElems[j]._root;
-                    break; // No duplicate.
+    private static Unit<? extends Quantity> doGetInstance(Element[] leftElems,
+            int[] leftCanonical, Element[] rightElems, int[] rightCanonical) {
+        Element[] leftResult = new Element[leftElems.length]; // null if cancelled.
+        boolean[] rightMerged = new boolean[rightElems.length];
+        // Canonical order of the result: i for left element i, ~j for right element j.
+        int[] slots = new int[leftElems.length + rightElems.length];
+        int slotCount = 0;
+        int i = 0;
+        int j = 0;
+        while ((i < leftCanonical.length) || (j < rightCanonical.length)) {
+            int leftHash = (i < leftCanonical.length) 
+                    ? leftElems[leftCanonical[i]]._unitHashCode : 0;
+            int rightHash = (j < rightCanonical.length)
+                    ? rightElems[rightCanonical[j]]._unitHashCode : 0;
+            if ((j == rightCanonical.length) || 
+                    ((i < leftCanonical.length) && (leftHash < rightHash))) {
+                int index = leftCanonical[i++];
+                leftResult[index] = leftElems[index];
+                slots[slotCount++] = index;
+            } else if ((i == leftCanonical.length) || (rightHash < leftHash)) {
+                slots[slotCount++] = ~rightCanonical[j++];
+            } else { // Same hash code, merges the group of units.
+                int leftEnd = i;
+                while ((leftEnd < leftCanonical.length) 
+                        && (leftElems[leftCanonical[leftEnd]]._unitHashCode == leftHash)) {
+                    leftEnd++;
                 }
-            }
-            int pow = (p1 * r2) + (p2 * r1);
-            int root = r1 * r2;
-            if (pow != 0) {
-                int gcd = gcd(Math.abs(pow), root);
-                result[resultIndex++] = new Element(unit, pow / gcd, root / gcd);
-            }
-        }
-
-        // Appends remaining right elements not merged.
-        for (int i = 0; i < rightElems.length; i++) {
-            Unit unit = rightElems[i]._unit;
-            boolean hasBeenMerged = false;
-            for (int j = 0; j < leftElems.length; j++) {
-                if (unit.equals(leftElems[j]._unit)) {
-                    hasBeenMerged = true;
-                    break;
+                int rightEnd = j;
+                while ((rightEnd < rightCanonical.length) 
+                        && (rightElems[rightCanonical[rightEnd]]._unitHashCode == rightHash)) {
+                    rightEnd++;
+                }
+                for (; i < leftEnd; i++) {
+                    int index = leftCanonical[i];
+                    Element left = leftElems[index];
+                    Element merged = left;
+                    for (int k = j; k < rightEnd; k++) {
+                        Element right = rightElems[rightCanonical[k]];
+                        if (left._unit.equals(right._unit)) {
+                            rightMerged[rightCanonical[k]] = true;
+                            int pow = (left._pow * right._root) + (right._pow * left._root);
+                            int root = left._root * right._root;
+                            if (pow != 0) {
+                                int gcd = gcd(Math.abs(pow), root);
+                                merged = new Element(left._unit, pow / gcd, root / gcd);
+                            } else {
+                                merged = null;
+                            }
+                            break; // No duplicate.
+                        }
+                    }
+                    if (merged != null) {
+                        leftResult[index] = merged;
+                        slots[slotCount++] = index;
+                    }
+                }
+                for (; j < rightEnd; j++) {
+                    if (!rightMerged[rightCanonical[j]]) {
+                        slots[slotCount++] = ~rightCanonical[j];
+                    }
                 }
-            }
-            if (!hasBeenMerged) {
-                result[resultIndex++] = rightElems[i];
             }
         }
 
         // Returns or creates instance.
-        if (resultIndex == 0) {
+        if (slotCount == 0)
             return ONE;
-        } else if ((resultIndex == 1) && (result[0]._pow == result[0]._root)) {
-            return result[0]._unit;
-        } else {
-            Element[] elems = new Element[resultIndex];
-            for (int i = 0; i < resultIndex; i++) {
-                elems[i] = result[i];
+        if (slotCount == 1) {
+            Element e = (slots[0] >= 0) ? leftResult[slots[0]] : rightElems[~slots[0]];
+            if (e._pow == e._root)
+                return e._unit;
+        }
+        // Formatting order: left elements (merged) then remaining right elements.
+        Element[] elems = new Element[slotCount];
+        int[] leftPosition = new int[leftElems.length];
+        int[] rightPosition = new int[rightElems.length];
+        int n = 0;
+        for (int k = 0; k < leftElems.length; k++) {
+            if (leftResult[k] != null) {
+                leftPosition[k] = n;
+                elems[n++] = leftResult[k];
             }
-            return new ProductUnit<Quantity>(elems);
         }
+        for (int k = 0; k < rightElems.length; k++) {
+            if (!rightMerged[k]) {
+                rightPosition[k] = n;
+                elems[n++] = rightElems[k];
+            }
+        }
+        int[] canonical = new int[slotCount];
+        for (int k = 0; k < slotCount; k++) {
+            int slot = slots[k];
+            canonical[k] = (slot >= 0) ? leftPosition[slot] : rightPosition[~slot];
+        }
+        return Unit.intern(new ProductUnit<Quantity>(elems, canonical));
     }
 
     /**
@@ -164,19 +249,7 @@ public final class ProductUnit<Q extends Quantity> extends DerivedUnit<Q> {
      * @return <code>left * right</code>
      */
     static Unit<? extends Quantity> getProductInstance(Unit<?> left, Unit<?> right) {
-        Element[] leftElems;
-        if (left instanceof ProductUnit) {
-            leftElems = ((ProductUnit<?>) left)._elements;
-        } else {
-            leftElems = new Element[] { new Element(left, 1, 1) };
-        }
-        Element[] rightElems;
-        if (right instanceof ProductUnit) {
-            rightElems = ((ProductUnit<?>) right)._elements;
-        } else {
-            rightElems = new Element[] { new Element(right, 1, 1) };
-        }
-        return getInstance(leftElems, rightElems);
+        return getInstance(Operand.valueOf(left), Operand.valueOf(right));
     }
 
     /**
@@ -187,24 +260,21 @@ public final class ProductUnit<Q extends Quantity> extends DerivedUnit<Q> {
      * @return <code>dividend / divisor</code>
      */
     static Unit<? extends Quantity> getQuotientInstance(Unit<?> left, Unit<?> right) {
-        Element[] leftElems;
-        if (left instanceof ProductUnit) {
-            leftElems = ((ProductUnit<?>) left)._elements;
-        } else {
-            leftElems = new Element[] { new Element(left, 1, 1) };
-        }
-        Element[] rightElems;
+        Operand rightOperand;
         if (right instanceof ProductUnit) {
-            Element[] elems = ((ProductUnit<?>) right)._elements;
-            rightElems = new Element[elems.length];
+            ProductUnit<?> product = (ProductUnit<?>) right;
+            Element[] elems = product._elements;
+            Element[] rightElems = new Element[elems.length];
             for (int i = 0; i < elems.length; i++) {
                 rightElems[i] = new Element(elems[i]._unit, -elems[i]._pow,
                         elems[i]._root);
             }
+            rightOperand = new Operand(rightElems, product._canonical); // Same units.
         } else {
-            rightElems = new Element[] { new Element(right, -1, 1) };
+            rightOperand = new Operand(new Element[] { new Element(right, -1, 1) },
+                    SINGLE);
         }
-        return getInstance(leftElems, rightElems);
+        return getInstance(Operand.valueOf(left), rightOperand);
     }
 
     /**
@@ -217,19 +287,21 @@ public final class ProductUnit<Q extends Quantity> extends DerivedUnit<Q> {
      * @throws ArithmeticException if <code>n == 0</code>.
      */
     static Unit<? extends Quantity> getRootInstance(Unit<?> unit, int n) {
-        Element[] unitElems;
+        Operand operand;
         if (unit instanceof ProductUnit) {
-            Element[] elems = ((ProductUnit<?>) unit)._elements;
-            unitElems = new Element[elems.length];
+            ProductUnit<?> product = (ProductUnit<?>) unit;
+            Element[] elems = product._elements;
+            Element[] unitElems = new Element[elems.length];
             for (int i = 0; i < elems.length; i++) {
                 int gcd = gcd(Math.abs(elems[i]._pow), elems[i]._root * n);
                 unitElems[i] = new Element(elems[i]._unit, elems[i]._pow / gcd,
                         elems[i]._root * n / gcd);
             }
+            operand = new Operand(unitElems, product._canonical); // Same units.
         } else {
-            unitElems = new Element[] { new Element(unit, 1, n) };
+            operand = new Operand(new Element[] { new Element(unit, 1, n) }, SINGLE);
         }
-        return getInstance(unitElems, new Element[0]);
+        return getInstance(operand, Operand.NONE);
     }
 
     /**
@@ -241,19 +313,21 @@ public final class ProductUnit<Q extends Quantity> extends DerivedUnit<Q> {
      * @return <code>unit^n</code>
      */
     static Unit<? extends Quantity> getPowInstance(Unit<?> unit, int n) {
-        Element[] unitElems;
+        Operand operand;
         if (unit instanceof ProductUnit) {
-            Element[] elems = ((ProductUnit<?>) unit)._elements;
-            unitElems = new Element[elems.length];
+            ProductUnit<?> product = (ProductUnit<?>) unit;
+            Element[] elems = product._elements;
+            Element[] unitElems = new Element[elems.length];
             for (int i = 0; i < elems.length; i++) {
                 int gcd = gcd(Math.abs(elems[i]._pow * n), elems[i]._root);
                 unitElems[i] = new Element(elems[i]._unit, elems[i]._pow * n
                         / gcd, elems[i]._root / gcd);
             }
+            operand = new Operand(unitElems, product._canonical); // Same units.
         } else {
-            unitElems = new Element[] { new Element(unit, n, 1) };
+            operand = new Operand(new Element[] { new Element(unit, n, 1) }, SINGLE);
         }
-        return getInstance(unitElems, new Element[0]);
+        return getInstance(operand, Operand.NONE);
     }
 
     /**
@@ -313,50 +387,75 @@ public final class ProductUnit<Q extends Quantity> extends DerivedUnit<Q> {
     public boolean equals(Object that) {
         if (this == that)
             return true;
-        if (that instanceof ProductUnit) {
-            ProductUnit<?> thatUnit = (ProductUnit<?>) that;
-            if (this._hashCode != 0 && thatUnit._hashCode != 0 && this._hashCode != thatUnit._hashCode) {
+        if (!(that instanceof ProductUnit))
+            return false;
+        ProductUnit<?> thatUnit = (ProductUnit<?>) that;
+        if ((this._hashCode != thatUnit._hashCode)
+                || (this._elements.length != thatUnit._elements.length))
+            return false;
+        // Two products are equals if they have the same elements
+        // regardless of the elements' order (compares canonical orders).
+        Element[] sorted = thatUnit._sorted;
+        for (int i = 0; i < _sorted.length; i++) {
+            Element e = _sorted[i];
+            Element other = sorted[i];
+            if (e._unitHashCode != other._unitHashCode)
                 return false;
+            if ((e._unit == other._unit) || e._unit.equals(other._unit)) {
+                if ((e._pow != other._pow) || (e._root != other._root))
+                    return false;
+            } else { // Distinct units with the same hash code (unordered).
+                return equalsUnordered(_sorted, sorted, i);
             }
-            // Two products are equals if they have the same elements
-            // regardless of the elements' order.
-            Element[] elems = thatUnit._elements;
-            if (_elements.length == elems.length) {
-                for (int i = 0; i < _elements.length; i++) {
-                    boolean unitFound = false;
-                    for (int j = 0; j < elems.length; j++) {
-                        if (_elements[i]._unit.equals(elems[j]._unit)) {
-                            if ((_elements[i]._pow != elems[j]._pow)
-                                    || (_elements[i]._root != elems[j]._root)) {
-                                return false;
-                            } else {
-                                unitFound = true;
-                                break;
-                            }
-                        }
-                    }
-                    if (!unitFound) {
+        }
+        return true;
+    }
+
+    /**
+     * Compares the remaining elements regardless of their order.
+     */
+    private static boolean equalsUnordered(Element[] elems, Element[] others,
+            int from) {
+        for (int i = from; i < elems.length; i++) {
+            boolean found = false;
+            for (int j = from; j < others.length; j++) {
+                if (elems[i]._unit.equals(others[j]._unit)) {
+                    if ((elems[i]._pow != others[j]._pow)
+                            || (elems[i]._root != others[j]._root))
                         return false;
-                    }
+                    found = true;
+                    break;
                 }
-                return true;
             }
+            if (!found)
+                return false;
         }
-        return false;
+        return true;
     }
 
     @Override
-    // Implements abstract method.
-    public int hashCode() {
-        if (_hashCode != 0)
-            return _hashCode;
-        int code = 0;
+    boolean isIdenticalTo(Unit<?> that) {
+        if (this == that)
+            return true;
+        if (!(that instanceof ProductUnit))
+            return false;
+        // Same elements in the same order (formatting is order dependent).
+        Element[] elems = ((ProductUnit<?>) that)._elements;
+        if (_elements.length != elems.length)
+            return false;
         for (int i = 0; i < _elements.length; i++) {
-            code += _elements[i]._unit.hashCode()
-                    * (_elements[i]._pow * 3 - _elements[i]._root * 2);
+            if ((_elements[i]._pow != elems[i]._pow)
+                    || (_elements[i]._root != elems[i]._root)
+                    || !_elements[i]._unit.isIdenticalTo(elems[i]._unit))
+                return false;
         }
-        _hashCode = code;
-        return code;
+        return true;
+    }
+
+    @Override
+    // Implements abstract method.
+    public int hashCode() {
+        return _hashCode;
     }
 
     @Override
@@ -464,7 +563,16 @@ public final class ProductUnit<Q extends Quantity> extends DerivedUnit<Q> {
          * Holds the root exponent.
          */
         private final int _root;
-        private int _hashCode;
+
+        /**
+         * Holds the unit hash code (canonical order).
+         */
+        private final int _unitHashCode;
+
+        /**
+         * Holds this element hash code.
+         */
+        private final int _hashCode;
 
         /**
          * Structural constructor.
@@ -477,6 +585,8 @@ public final class ProductUnit<Q extends Quantity> extends DerivedUnit<Q> {
             _unit = unit;
             _pow = pow;
             _root = root;
+            _unitHashCode = unit.hashCode();
+            _hashCode = 31 * (31 * _unitHashCode + Integer.hashCode(_pow)) + Integer.hashCode(_root);
         }
 
         /**
@@ -512,6 +622,8 @@ public final class ProductUnit<Q extends Quantity> extends DerivedUnit<Q> {
 
         @Override
         public boolean equals(Object obj) {
+            if (this == obj)
+                return true;
             if (obj instanceof Element) {
                 Element other = (Element) obj;
                 return _hashCode == other._hashCode
@@ -524,22 +636,62 @@ public final class ProductUnit<Q extends Quantity> extends DerivedUnit<Q> {
 
         @Override
         public int hashCode() {
-            if (_hashCode == 0) {
-                _hashCode = 31 * (31 * _unit.hashCode() + Integer.hashCode(_pow)) + Integer.hashCode(_root);
-            }
             return _hashCode;
         }
     }
 
+    /**
+     * Holds the canonical order of a single element.
+     */
+    private static final int[] SINGLE = new int[] { 0 };
+
+    /**
+     * Operand of a product (elements in formatting order and their 
+     * canonical order).
+     */
+    private static final class Operand {
+
+        private static final Operand NONE = new Operand(new Element[0], new int[0]);
+
+        private final Element[] _elems;
+
+        private final int[] _canonical;
+
+        private final int _hashCode;
+
+        private Operand(Element[] elems, int[] canonical) {
+            this(elems, canonical, Arrays.hashCode(elems));
+        }
+
+        private Operand(Element[] elems, int[] canonical, int hashCode) {
+            _elems = elems;
+            _canonical = canonical;
+            _hashCode = hashCode;
+        }
+
+        private static Operand valueOf(Unit<?> unit) {
+            if (unit instanceof ProductUnit) {
+                ProductUnit<?> product = (ProductUnit<?>) unit;
+                return new Operand(product._elements, product._canonical,
+                        product._elementsHashCode);
+            }
+            return new Operand(new Element[] { new Element(unit, 1, 1) }, SINGLE);
+        }
+    }
+
     private static final class ProductUnitKey {
         private final Element[] _leftElems;
+        private final int[] _leftCanonical;
         private final Element[] _rightElems;
+        private final int[] _rightCanonical;
         private final int _hashCode;
 
-        private ProductUnitKey(Element[] leftElems, Element[] rightElems) {
-            this._leftElems = leftElems;
-            this._rightElems = rightElems;
-            this._hashCode = 31 * Arrays.hashCode(leftElems) + Arrays.hashCode(rightElems);
+        private ProductUnitKey(Operand left, Operand right) {
+            this._leftElems = left._elems;
+            this._leftCanonical = left._canonical;
+            this._rightElems = right._elems;
+            this._rightCanonical = right._canonical;
+            this._hashCode = 31 * left._hashCode + right._hashCode;
         }
 
         @Override
@@ -547,8 +699,8 @@ public final class ProductUnit<Q extends Quantity> extends DerivedUnit<Q> {
             if (obj instanceof ProductUnitKey) {
                 ProductUnitKey other = (ProductUnitKey) obj;
                 return _hashCode == other._hashCode
-                        && Arrays.equals(_leftElems, other._leftElems)
-                        && Arrays.equals(_rightElems, other._rightElems);
+                        && ((_leftElems == other._leftElems) || Arrays.equals(_leftElems, other._leftElems))
+                        && ((_rightElems == other._rightElems) || Arrays.equals(_rightElems, other._rightElems));
             }
             return false;
         }
@@ -22,36 +22,87 @@ class SubUnit {
      *         The unit string from which to extract a subunit.
      */
     SubUnit(CharSequence unit) {
-        if (unit.charAt(0) == '(') {
-            // When the input string starts with a '(', find the outside parenthesis pair and return everything
-            // inside. The outside parenthesis pair is not included in the returned subunit.
-            StringBuilder subUnitBuilder = new StringBuilder("");
+        int end = contentEnd(unit, 0, unit.length());
+        int start = (unit.charAt(0) == '(') ? 1 : 0;
+        this.subUnit = unit.subSequence(start, end).toString();
+        this.parsePositionIncrement = nextIndex(unit, 0, end);
+    }
+
+    /**
+     * Returns the end index (exclusive) of the subunit starting at the specified index. When the subunit starts
+     * with a '(', the subunit is everything inside the outside parenthesis pair (the outside parenthesis pair is
+     * not included); otherwise the subunit is made of all the characters up until a multiply, divide or closing
+     * ')' (there may be an unmatched closing parenthesis because the leading parenthesis may have already been
+     * stripped by UnitFormat#parseProductUnit).
+     *
+     * @param unit
+     *         The unit string from which to extract a subunit.
+     * @param start
+     *         The index of the first character of the subunit.
+     * @param end
+     *         The end index (exclusive) of the unit string range.
+     * @return The end index of the subunit.
+     */
+    static int contentEnd(CharSequence unit, int start, int end) {
+        if (unit.charAt(start) == '(') {
             int leftParenCount = 1;
             int rightParenCount = 0;
-
-            // Strip the leading '(' and process the rest of the characters.
-            for (char c : unit.subSequence(1, unit.length()).toString().toCharArray()) {
+            for (int i = start + 1; i < end; i++) {
+                char c = unit.charAt(i);
                 if (c == '(') {
                     leftParenCount++;
                 } else if (c == ')') {
                     rightParenCount++;
                     if (rightParenCount == leftParenCount) {
                         // Everything inside the outside parenthesis pair has been found. We are done.
-                        break;
+                        return i;
                     }
                 }
-
-                subUnitBuilder.append(c);
             }
-            this.subUnit = subUnitBuilder.toString();
-            this.parsePositionIncrement = this.subUnit.length() + 2; // +2 for the outside paren pair
-        } else {
-            // When the input string doesn't start with a '(', extract all the characters up until a multiply, divide
-            // or closing ')'. (There may be an unmatched closing parenthesis because the leading parenthesis may
-            // have already been stripped by UnitFormat#parseProductUnit.)
-            this.subUnit = unit.toString().split("[\\/\\)*·]")[0];
-            this.parsePositionIncrement = this.subUnit.length();
+            return end;
         }
+        for (int i = start; i < end; i++) {
+            char c = unit.charAt(i);
+            if ((c == '/') || (c == ')') || (c == '*') || (c == '·'))
+                return i;
+        }
+        return end;
+    }
+
+    /**
+     * Indicates if the specified range contains characters other than multiply, divide or closing ')'.
+     *
+     * @param unit
+     *         The unit string.
+     * @param start
+     *         The start index of the range.
+     * @param end
+     *         The end index (exclusive) of the range.
+     * @return <code>true</code> if there is more than separators in the range.
+     */
+    static boolean hasContent(CharSequence unit, int start, int end) {
+        for (int i = start; i < end; i++) {
+            char c = unit.charAt(i);
+            if ((c != '/') && (c != ')') && (c != '*') && (c != '·'))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns the index following the subunit starting at the specified index (including the closing
+     * parenthesis of a parenthesized subunit).
+     *
+     * @param unit
+     *         The unit string from which the subunit is extracted.
+     * @param start
+     *         The index of the first character of the subunit.
+     * @param contentEnd
+     *         The end index of the subunit, see {@link #contentEnd(CharSequence, int, int)}.
+     * @return The index following the subunit.
+     */
+    static int nextIndex(CharSequence unit, int start, int contentEnd) {
+        return (unit.charAt(start) == '(') ? contentEnd + 1 : contentEnd;
     }
 
     /**
@@ -123,6 +123,17 @@ public final class TransformedUnit<Q extends Quantity> extends DerivedUnit<Q> {
         return _hashCode;
     }
 
+    @Override
+    boolean isIdenticalTo(Unit<?> that) {
+        if (this == that) return true;
+        if (!(that instanceof TransformedUnit)) return false;
+        TransformedUnit<?> thatUnit = (TransformedUnit<?>) that;
+        return this._hashCode == thatUnit._hashCode
+                && this._parentUnit.isIdenticalTo(thatUnit._parentUnit)
+                && (this._toParentUnit.getClass() == thatUnit._toParentUnit.getClass())
+                && this._toParentUnit.equals(thatUnit._toParentUnit);
+    }
+
     // Implements abstract method.
     public Unit<? super Q> getStandardUnit() {
         if(_standardUnit == null) {
@@ -12,6 +12,7 @@ import java.io.Serializable;
 import java.text.ParseException;
 import java.text.ParsePosition;
 import java.util.HashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.measure.MeasureFormat;
 import javax.measure.converter.AddConverter;
@@ -22,6 +23,9 @@ import javax.measure.converter.UnitConverter;
 import javax.measure.quantity.Dimensionless;
 import javax.measure.quantity.Quantity;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
 /**
  * <p> This class represents a determinate {@link javax.measure.quantity.Quantity
  *     quantity} (as of length, time, heat, or value) adopted as a standard
@@ -64,6 +68,19 @@ public abstract class Unit<Q extends Quantity> implements Serializable {
      */
     static final HashMap<String, Unit<?>> SYMBOL_TO_UNIT = new HashMap<String, Unit<?>>();
 
+    /**
+     * Holds the number of symbols registered so far (used to validate
+     * parsing results cached by {@link UnitFormat}).
+     */
+    static final AtomicInteger SYMBOLS_VERSION = new AtomicInteger();
+
+    /**
+     * Holds the canonical instances of derived units (bounded, see
+     * {@link #intern(Unit)}).
+     */
+    private static final Cache<InternKey, Unit<?>> INTERNED = Caffeine
+            .newBuilder().maximumSize(4096).build();
+
     /**
      * Holds the dimension of this unit
      */
@@ -79,6 +96,12 @@ public abstract class Unit<Q extends Quantity> implements Serializable {
      */
     private Unit<?> _inverse;
 
+    /**
+     * Holds the memoized texts of this unit, one per format (see
+     * {@link UnitFormat#textOf}).
+     */
+    transient volatile UnitFormat.Text[] _texts;
+
     /**
      * Default constructor.
      */
@@ -315,6 +338,53 @@ public abstract class Unit<Q extends Quantity> implements Serializable {
         return converter;
     }
 
+    /**
+     * Returns a canonical instance for the specified unit. Units returned by
+     * the factory methods of this class ({@link #times(Unit)}, 
+     * {@link #divide(Unit)}, {@link #pow(int)}, {@link #root(int)}, 
+     * {@link #transform(UnitConverter)}, ...) and by the standard 
+     * {@link UnitFormat} are already interned; for these units identity 
+     * comparison is a valid (fast) equality check.
+     * 
+     * <p> Base units and alternate units are canonicalized through the unique
+     *     symbols collection. Other units are canonicalized only if they are
+     *     structurally identical (same type, same elements order, same 
+     *     converters), such as the canonical instance formats the same way. 
+     *     The table of canonical instances is bounded; rarely used units may
+     *     be evicted, in which case {@link #equals} is still valid.</p>
+     *
+     * @param  unit the unit to intern.
+     * @return the canonical unit structurally identical to the specified unit.
+     */
+    @SuppressWarnings("unchecked")
+    public static <Q extends Quantity> Unit<Q> intern(Unit<Q> unit) {
+        if ((unit instanceof BaseUnit) || (unit instanceof AlternateUnit)) {
+            String symbol = (unit instanceof BaseUnit) ? ((BaseUnit<?>) unit)
+                    .getSymbol() : ((AlternateUnit<?>) unit).getSymbol();
+            Unit<?> registered;
+            synchronized (SYMBOL_TO_UNIT) {
+                registered = SYMBOL_TO_UNIT.get(symbol);
+            }
+            return ((registered != null) && registered.isIdenticalTo(unit)) ? 
+                    (Unit<Q>) registered : unit;
+        }
+        return (Unit<Q>) INTERNED.get(new InternKey(unit), key -> key._unit);
+    }
+
+    /**
+     * Indicates if this unit is structurally identical to the one specified
+     * (equal, same type and built the same way); structurally identical units 
+     * are interchangeable (including for formatting).
+     *
+     * @param  that the unit to compare to.
+     * @return <code>true</code> if both units are structurally identical;
+     *         <code>false</code> otherwise.
+     */
+    boolean isIdenticalTo(Unit<?> that) {
+        return (this == that)
+                || ((this.getClass() == that.getClass()) && this.equals(that));
+    }
+
     /**
      * Returns a unit equivalent to this unit but used in expressions to 
      * distinguish between quantities of a different nature but of the same
@@ -333,7 +403,7 @@ public abstract class Unit<Q extends Quantity> implements Serializable {
      *         associated to a different unit.
      */
     public final <A extends Quantity> AlternateUnit<A> alternate(String symbol) {
-        return new AlternateUnit<A>(symbol, this);
+        return (AlternateUnit<A>) intern(new AlternateUnit<A>(symbol, this));
     }
 
     /**
@@ -349,7 +419,7 @@ public abstract class Unit<Q extends Quantity> implements Serializable {
      * @return the corresponding compound unit.
      */
     public final CompoundUnit<Q> compound(Unit<Q> subunit) {
-        return new CompoundUnit<Q>(this, subunit);
+        return (CompoundUnit<Q>) intern(new CompoundUnit<Q>(this, subunit));
     }
 
     /**
@@ -369,11 +439,11 @@ public abstract class Unit<Q extends Quantity> implements Serializable {
             UnitConverter toParent = tf.toParentUnit().concatenate(operation);
             if (toParent == UnitConverter.IDENTITY)
                 return parent;
-            return new TransformedUnit<Q>(parent, toParent);
+            return intern(new TransformedUnit<Q>(parent, toParent));
         }
         if (operation == UnitConverter.IDENTITY) 
             return this;
-        return new TransformedUnit<Q>(this, operation);
+        return intern(new TransformedUnit<Q>(this, operation));
     }
 
     /**
@@ -536,6 +606,36 @@ public abstract class Unit<Q extends Quantity> implements Serializable {
      * @return <code>UnitFormat.getStandardInstance().format(this)</code>
      */
     public final String toString() {
-        return UnitFormat.getInstance().format(this);
+        return UnitFormat.getInstance().textOf(this);
+    }
+
+    /**
+     * Key of the canonical instances table (structural identity).
+     */
+    private static final class InternKey {
+
+        private final Unit<?> _unit;
+
+        private final int _hashCode;
+
+        private InternKey(Unit<?> unit) {
+            _unit = unit;
+            _hashCode = unit.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj instanceof InternKey) {
+                InternKey other = (InternKey) obj;
+                return _hashCode == other._hashCode
+                        && _unit.isIdenticalTo(other._unit);
+            }
+            return false;
+        }
+
+        @Override
+        public int hashCode() {
+            return _hashCode;
+        }
     }
 }
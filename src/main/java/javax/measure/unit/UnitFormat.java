@@ -9,13 +9,22 @@
 package javax.measure.unit;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.lang.CharSequence;
 import java.text.FieldPosition;
 import java.text.Format;
 import java.text.ParseException;
 import java.text.ParsePosition;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.Locale;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
 //@RETROWEAVER import javolution.text.Appendable;
 import javax.measure.converter.AddConverter;
 import javax.measure.converter.MultiplyConverter;
@@ -23,6 +32,10 @@ import javax.measure.converter.RationalConverter;
 import javax.measure.converter.UnitConverter;
 import javax.measure.quantity.Quantity;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
 import static javax.measure.unit.SI.*;
 
 /**
@@ -52,6 +65,16 @@ public abstract class UnitFormat extends Format {
      */
     private static final ASCIIFormat ASCII = new ASCIIFormat();
 
+    /**
+     * Holds the UCUM unit format.
+     */
+    private static final UCUMFormat UCUM = new UCUMFormat();
+
+    /**
+     * Holds the maximum number of formats whose text is memoized by units.
+     */
+    private static final int TEXT_MEMO_SIZE = 4;
+
     /**
      * Returns the unit format for the default locale (format used by
      * {@link Unit#valueOf(CharSequence) Unit.valueOf(CharSequence)} and
@@ -81,7 +104,7 @@ public abstract class UnitFormat extends Format {
      * @return the UCUM international format.
      */
     public static UnitFormat getUCUMInstance() {
-        return UnitFormat.ASCII; // TBD - Provide UCUM implementation.
+        return UnitFormat.UCUM;
     }
 
     /**
@@ -170,6 +193,18 @@ public abstract class UnitFormat extends Format {
      */
     public abstract boolean isValidIdentifier(String name);
 
+    /**
+     * Returns the statistics of the cache holding the results of
+     * {@link #parseProductUnit parsing} whole character sequences
+     * (e.g. hit rate).
+     *
+     * @return the parse cache statistics (empty if this format does not
+     *         cache parsing results).
+     */
+    public CacheStats getParseCacheStats() {
+        return CacheStats.empty();
+    }
+
     /**
      * Formats an unit and appends the resulting text to a given string
      * buffer (implements <code>java.text.Format</code>).
@@ -181,32 +216,134 @@ public abstract class UnitFormat extends Format {
      */
     public final StringBuffer format(Object unit, final StringBuffer toAppendTo,
             FieldPosition pos) {
-        try {
-            Object dest = toAppendTo;
-            if (dest instanceof Appendable) {
-                format((Unit<?>) unit, (Appendable)dest);
-            } else {  // When retroweaver is used to produce 1.4 binaries.
-                format((Unit<?>) unit, new Appendable() {
-
-                    public Appendable append(char arg0) throws IOException {
-                        toAppendTo.append(arg0);
-                        return null;
-                    }
+        return toAppendTo.append(textOf((Unit<?>) unit));
+    }
 
-                    public Appendable append(CharSequence arg0) throws IOException {
-                        toAppendTo.append(arg0);
-                        return null;
-                    }
+    /**
+     * Returns the text of the specified unit. The text is memoized by the
+     * unit (for the last four formats used) as long as the tables of this
+     * format are not modified (see {@link #version}).
+     *
+     * @param unit the unit to format.
+     * @return the formatted unit.
+     */
+    public final String textOf(Unit<?> unit) {
+        return textFor(unit)._value;
+    }
 
-                    public Appendable append(CharSequence arg0, int arg1, int arg2) throws IOException {
-                        toAppendTo.append(arg0.subSequence(arg1, arg2));
-                        return null;
-                    }});
-            }
-            return toAppendTo;
+    /**
+     * Writes the UTF-8 encoded text of the specified unit (pure ASCII for
+     * the {@link #getUCUMInstance() UCUM} format) into the specified
+     * bytes array. The encoded text is memoized as the text itself
+     * (see {@link #textOf}).
+     *
+     * @param  unit the unit to format.
+     * @param  bytes the destination array.
+     * @param  off the index of the first byte to write.
+     * @return the index after the last byte written.
+     * @throws IndexOutOfBoundsException if there is insufficient space in
+     *         the destination array.
+     */
+    public final int format(Unit<?> unit, byte[] bytes, int off) {
+        byte[] utf8 = textFor(unit).utf8();
+        System.arraycopy(utf8, 0, bytes, off, utf8.length);
+        return off + utf8.length;
+    }
+
+    /**
+     * Writes the UTF-8 encoded text of the specified unit into the
+     * specified buffer (at its current position).
+     *
+     * @param  unit the unit to format.
+     * @param  buffer the destination buffer.
+     * @return the specified buffer.
+     * @throws java.nio.BufferOverflowException if there is insufficient
+     *         space in the buffer.
+     */
+    public final ByteBuffer format(Unit<?> unit, ByteBuffer buffer) {
+        return buffer.put(textFor(unit).utf8());
+    }
+
+    /**
+     * Parses the UTF-8 encoded text held by the specified range of bytes
+     * to produce a unit or a rational product of unit (the whole range is
+     * parsed). No string is created if the parsing result is cached.
+     *
+     * @param  bytes the UTF-8 encoded text.
+     * @param  off the index of the first byte to parse.
+     * @param  len the number of bytes to parse.
+     * @return the unit parsed from the bytes.
+     * @throws ParseException if the bytes do not hold a valid unit (the
+     *         error offset is an index in the bytes array).
+     */
+    public Unit<? extends Quantity> parseProductUnit(byte[] bytes, int off,
+            int len) throws ParseException {
+        Utf8Sequence csq = new Utf8Sequence(bytes, off, len);
+        ParsePosition pos = new ParsePosition(0);
+        Unit<? extends Quantity> unit;
+        try {
+            unit = parseProductUnit(csq, pos);
+        } catch (ParseException e) {
+            throw new ParseException(e.getMessage(), csq.byteIndex(e
+                    .getErrorOffset()));
+        }
+        if (pos.getIndex() < csq.length())
+            throw new ParseException("Unexpected character '"
+                    + csq.charAt(pos.getIndex()) + "'", csq.byteIndex(pos
+                    .getIndex()));
+        return unit;
+    }
+
+    /**
+     * Returns the memoized text of the specified unit (or a new text if
+     * this format does not track modifications).
+     */
+    private Text textFor(Unit<?> unit) {
+        long version = version();
+        Text[] texts = unit._texts;
+        int n = (texts != null) ? texts.length : 0;
+        int i = 0;
+        while ((i < n) && (texts[i]._format != this)) {
+            i++;
+        }
+        if ((i < n) && (texts[i]._version == version))
+            return texts[i];
+        StringBuilder tmp = new StringBuilder();
+        try {
+            format(unit, tmp);
         } catch (IOException e) {
             throw new Error(e); // Should never happen.
         }
+        Text text = new Text(this, version, tmp.toString());
+        if (version >= 0) { // Copy on write, the oldest format is dropped.
+            Text[] update;
+            if (i < n) {
+                update = texts.clone();
+            } else if (n < TEXT_MEMO_SIZE) {
+                update = new Text[n + 1];
+                if (n > 0) {
+                    System.arraycopy(texts, 0, update, 0, n);
+                }
+            } else {
+                update = new Text[n];
+                System.arraycopy(texts, 1, update, 0, n - 1);
+                i = n - 1;
+            }
+            update[i] = text;
+            unit._texts = update;
+        }
+        return text;
+    }
+
+    /**
+     * Returns the version of the tables (labels, aliases, symbols) used by
+     * this format; the version changes whenever these tables are modified.
+     *
+     * @return the tables version or <code>-1</code> if this format does
+     *         not track modifications (results are not memoized).
+     */
+    long version() {
+        return -1;
     }
 
     /**
@@ -231,15 +368,133 @@ public abstract class UnitFormat extends Format {
 
 
     /**
-     * This class represents an exponent with both a power (numerator)
-     * and a root (denominator).
+     * This class represents the memoized text of a unit.
+     */
+    static final class Text {
+        final UnitFormat _format;
+        final long _version;
+        final String _value;
+        private volatile byte[] _utf8; // Lazy.
+        Text(UnitFormat format, long version, String value) {
+            _format = format;
+            _version = version;
+            _value = value;
+        }
+        byte[] utf8() {
+            byte[] utf8 = _utf8;
+            if (utf8 == null) {
+                _utf8 = utf8 = _value.getBytes(StandardCharsets.UTF_8);
+            }
+            return utf8;
+        }
+    }
+
+    /**
+     * This class represents a range of bytes used as parse cache key.
+     * Lookup keys refer to the bytes being parsed, stored keys to a copy.
+     */
+    private static final class Utf8Key {
+        final byte[] _bytes;
+        final int _offset;
+        final int _length;
+        final int _hashCode;
+        Utf8Key(byte[] bytes, int offset, int length) {
+            _bytes = bytes;
+            _offset = offset;
+            _length = length;
+            int hash = 0;
+            for (int i = offset; i < offset + length; i++) {
+                hash = 31 * hash + bytes[i];
+            }
+            _hashCode = hash;
+        }
+        Utf8Key copy() {
+            byte[] bytes = new byte[_length];
+            System.arraycopy(_bytes, _offset, bytes, 0, _length);
+            return new Utf8Key(bytes, 0, _length);
+        }
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Utf8Key))
+                return false;
+            Utf8Key that = (Utf8Key) obj;
+            if ((this._hashCode != that._hashCode)
+                    || (this._length != that._length))
+                return false;
+            for (int i = 0; i < _length; i++) {
+                if (this._bytes[this._offset + i] != that._bytes[that._offset + i])
+                    return false;
+            }
+            return true;
+        }
+        @Override
+        public int hashCode() {
+            return _hashCode;
+        }
+    }
+
+    /**
+     * This class represents the cached result of parsing a character
+     * sequence (unit or error).
+     */
+    private static final class ParseResult {
+        final long _version;
+        final Unit<? extends Quantity> _unit;
+        final int _index;
+        final String _message;
+        final int _errorOffset;
+        ParseResult(long version, Unit<? extends Quantity> unit, int index,
+                String message, int errorOffset) {
+            _version = version;
+            _unit = unit;
+            _index = index;
+            _message = message;
+            _errorOffset = errorOffset;
+        }
+    }
+
+    /**
+     * This class represents an index of the names recognized by a format
+     * (open addressing), allowing for names lookup from a range of
+     * characters. Instances of this class are immutable.
      */
-    private static class Exponent {
-        public final int pow;
-        public final int root;
-        public Exponent (int pow, int root) {
-            this.pow = pow;
-            this.root = root;
+    private static final class NameIndex {
+        final long _version;
+        final String[] _names;
+        NameIndex(long version, HashSet<String> names) {
+            _version = version;
+            int capacity = Integer.highestOneBit(Math.max(names.size(), 1) * 4);
+            _names = new String[capacity];
+            for (String name : names) {
+                int i = name.hashCode() & (capacity - 1);
+                while (_names[i] != null) {
+                    i = (i + 1) & (capacity - 1);
+                }
+                _names[i] = name;
+            }
+        }
+        // Returns the name having the specified characters or null if none.
+        String get(CharSequence csq, int start, int end) {
+            int hash = 0;
+            for (int i = start; i < end; i++) {
+                hash = 31 * hash + csq.charAt(i);
+            }
+            int mask = _names.length - 1;
+            for (int i = hash & mask;; i = (i + 1) & mask) {
+                String name = _names[i];
+                if (name == null)
+                    return null;
+                if ((name.hashCode() == hash) && (name.length() == end - start)
+                        && regionMatches(name, csq, start))
+                    return name;
+            }
+        }
+        private static boolean regionMatches(String name, CharSequence csq, int start) {
+            for (int i = 0; i < name.length(); i++) {
+                if (name.charAt(i) != csq.charAt(start + i))
+                    return false;
+            }
+            return true;
         }
     }
 
@@ -258,6 +513,32 @@ public abstract class UnitFormat extends Format {
          */
         final HashMap<Unit<?>, String> _unitToName = new HashMap<Unit<?>, String>();
 
+        /**
+         * Holds the number of labels and aliases attached so far.
+         */
+        private volatile int _version;
+
+        /**
+         * Holds the results of parsing whole character sequences (bounded);
+         * failures are cached as well. Entries are valid as long as no
+         * label, alias or symbol has been added since they were parsed.
+         */
+        private final Cache<String, ParseResult> _parseCache = Caffeine
+                .newBuilder().maximumSize(4096).recordStats().build();
+
+        /**
+         * Holds the results of parsing whole ranges of UTF-8 encoded bytes
+         * (offsets relative to the range start).
+         */
+        private final Cache<Utf8Key, ParseResult> _utf8ParseCache = Caffeine
+                .newBuilder().maximumSize(4096).recordStats().build();
+
+        /**
+         * Holds the index of the names recognized by this format (lazily
+         * rebuilt when labels, aliases or symbols are added).
+         */
+        private volatile NameIndex _nameIndex;
+
         @Override
         public void label(Unit<?> unit, String label) {
             if (!isValidIdentifier(label))
@@ -266,6 +547,7 @@ public abstract class UnitFormat extends Format {
             synchronized (this) {
                 _nameToUnit.put(label, unit);
                 _unitToName.put(unit, label);
+                _version++;
             }
         }
 
@@ -276,6 +558,7 @@ public abstract class UnitFormat extends Format {
                         + " is not a valid identifier.");
             synchronized (this) {
                 _nameToUnit.put(alias, unit);
+                _version++;
             }
         }
 
@@ -369,75 +652,173 @@ public abstract class UnitFormat extends Format {
 
         ////////////////////////////
         // Parsing.
+        //
+        // The parser works on ranges of the character sequence being parsed
+        // (no sub-sequence is created); error messages and offsets are 
+        // relative to the range being parsed (e.g. divisor sub-expression).
 
-        @SuppressWarnings("unchecked")
         public Unit<? extends Quantity> parseSingleUnit(CharSequence csq, ParsePosition pos)
                 throws ParseException {
-            int startIndex = pos.getIndex();
-            String name = readIdentifier(csq, pos);
-            Unit unit = unitFor(name);
-            check(unit != null, name + " not recognized", csq, startIndex);
-            return unit;
+            return parseSingleUnit(csq, pos, 0, csq.length());
         }
 
-        @SuppressWarnings("unchecked")
         @Override
         public Unit<? extends Quantity> parseProductUnit(CharSequence csq, ParsePosition pos)
                 throws ParseException {
-            checkForBalancedParentheses(csq);
+            if (pos.getIndex() != 0)
+                return parse(csq, pos);
+            String key = csq.toString();
+            long version = version();
+            ParseResult cached = _parseCache.getIfPresent(key);
+            if ((cached != null) && (cached._version == version)) {
+                if (cached._unit == null)
+                    throw new ParseException(cached._message, cached._errorOffset);
+                pos.setIndex(cached._index);
+                return cached._unit;
+            }
+            try {
+                Unit<? extends Quantity> unit = parse(csq, pos);
+                _parseCache.put(key, new ParseResult(version, unit, pos.getIndex(), null, 0));
+                return unit;
+            } catch (ParseException e) {
+                _parseCache.put(key, new ParseResult(version, null, 0, e.getMessage(), e.getErrorOffset()));
+                throw e;
+            }
+        }
+
+        @Override
+        public Unit<? extends Quantity> parseProductUnit(byte[] bytes,
+                int off, int len) throws ParseException {
+            Utf8Key key = new Utf8Key(bytes, off, len);
+            long version = version();
+            ParseResult cached = _utf8ParseCache.getIfPresent(key);
+            if ((cached == null) || (cached._version != version)) {
+                Unit<? extends Quantity> unit = null;
+                try {
+                    Utf8Sequence csq = new Utf8Sequence(bytes, off, len);
+                    ParsePosition pos = new ParsePosition(0);
+                    try {
+                        unit = parse(csq, pos);
+                        if (pos.getIndex() < csq.length())
+                            throw new ParseException("Unexpected character '"
+                                    + csq.charAt(pos.getIndex()) + "'", pos
+                                    .getIndex());
+                    } catch (ParseException e) {
+                        throw new ParseException(e.getMessage(), csq
+                                .byteIndex(e.getErrorOffset()));
+                    }
+                    cached = new ParseResult(version, unit, len, null, 0);
+                } catch (ParseException e) {
+                    cached = new ParseResult(version, null, 0, e.getMessage(),
+                            e.getErrorOffset() - off);
+                }
+                _utf8ParseCache.put(key.copy(), cached);
+            }
+            if (cached._unit == null)
+                throw new ParseException(cached._message, off
+                        + cached._errorOffset);
+            return cached._unit;
+        }
+
+        @Override
+        public CacheStats getParseCacheStats() {
+            return _parseCache.stats().plus(_utf8ParseCache.stats());
+        }
+
+        @Override
+        long version() {
+            return (((long) _version) << 32) | (Unit.SYMBOLS_VERSION.get() & 0xFFFFFFFFL);
+        }
+
+        // Adds the names recognized by this format to the specified collection.
+        void collectNames(HashSet<String> names) {
+            synchronized (Unit.SYMBOL_TO_UNIT) {
+                names.addAll(Unit.SYMBOL_TO_UNIT.keySet());
+            }
+            synchronized (this) {
+                names.addAll(_nameToUnit.keySet());
+            }
+        }
+
+        // Parses (no cache) the specified character sequence from the specified position.
+        Unit<? extends Quantity> parse(CharSequence csq, ParsePosition pos)
+                throws ParseException {
+            checkForBalancedParentheses(csq, 0, csq.length());
+            return parse(csq, pos, 0, csq.length());
+        }
+
+        @SuppressWarnings("unchecked")
+        private Unit<? extends Quantity> parseSingleUnit(CharSequence csq,
+                ParsePosition pos, int base, int end) throws ParseException {
+            int startIndex = pos.getIndex();
+            int endIndex = readIdentifier(csq, startIndex, end);
+            pos.setIndex(endIndex);
+            Unit unit = unitFor(csq, startIndex, endIndex);
+            if (unit == null) {
+                check(false, csq.subSequence(startIndex, endIndex)
+                        + " not recognized", csq, base, end, startIndex);
+            }
+            return unit;
+        }
+
+        @SuppressWarnings("unchecked")
+        private Unit<? extends Quantity> parse(CharSequence csq, ParsePosition pos,
+                int base, int end) throws ParseException {
             Unit result = Unit.ONE;
-            int token = nextToken(csq, pos);
+            int token = nextToken(csq, pos, base, end);
             switch (token) {
             case IDENTIFIER:
-                result = parseSingleUnit(csq, pos);
+                result = parseSingleUnit(csq, pos, base, end);
                 break;
             case OPEN_PAREN:
                 pos.setIndex(pos.getIndex() + 1);
-                result = parseProductUnit(csq, pos);
-                token = nextToken(csq, pos);
-                check(token == CLOSE_PAREN, "')' expected", csq, pos.getIndex());
+                result = parse(csq, pos, base, end);
+                token = nextToken(csq, pos, base, end);
+                check(token == CLOSE_PAREN, "')' expected", csq, base, end, pos.getIndex());
                 pos.setIndex(pos.getIndex() + 1);
                 break;
             }
-            token = nextToken(csq, pos);
+            token = nextToken(csq, pos, base, end);
             while (true) {
                 switch (token) {
                 case EXPONENT:
-                    Exponent e = readExponent(csq, pos);
-                    if (e.pow != 1) {
-                        result = result.pow(e.pow);
+                    long e = readExponent(csq, pos, end);
+                    int pow = (int) (e >> 32);
+                    int root = (int) e;
+                    if (pow != 1) {
+                        result = result.pow(pow);
                     }
-                    if (e.root != 1) {
-                        result = result.root(e.root);
+                    if (root != 1) {
+                        result = result.root(root);
                     }
                     break;
                 case MULTIPLY:
                     pos.setIndex(pos.getIndex() + 1);
-                    token = nextToken(csq, pos);
+                    token = nextToken(csq, pos, base, end);
                     if (token == INTEGER) {
-                        long n = readLong(csq, pos);
+                        long n = readLong(csq, pos, end);
                         if (n != 1) {
                             result = result.times(n);
                         }
                     } else if (token == FLOAT) {
-                        double d = readDouble(csq, pos);
+                        double d = readDouble(csq, pos, end);
                         if (d != 1.0) {
                             result = result.times(d);
                         }
                     } else {
-                        result = result.times(parseProductUnit(csq, pos));
+                        result = result.times(parse(csq, pos, base, end));
                     }
                     break;
                 case DIVIDE:
                     pos.setIndex(pos.getIndex() + 1);
-                    token = nextToken(csq, pos);
+                    token = nextToken(csq, pos, base, end);
                     if (token == INTEGER) {
-                        long n = readLong(csq, pos);
+                        long n = readLong(csq, pos, end);
                         if (n != 1) {
                             result = result.divide(n);
                         }
                     } else if (token == FLOAT) {
-                        double d = readDouble(csq, pos);
+                        double d = readDouble(csq, pos, end);
                         if (d != 1.0) {
                             result = result.divide(d);
                         }
@@ -446,40 +827,48 @@ public abstract class UnitFormat extends Format {
                         // unit that needs parsing. If the whole unit string was provided to divide(), it would
                         // recurse which would be like dividing from right to left.
                         //
-                        // Example: a/b/c.  Coming in, a is the result. SubUnit extracts b and provides only that to
-                        // divide().  The result then becomes a/b. c will get processed on the next time through the
-                        // loop.
-                        SubUnit subUnit = new SubUnit(csq.subSequence(pos.getIndex(), csq.length()));
-                        // Increment the parse position by the size of the SubUnit.
-                        pos.setIndex(pos.getIndex() + subUnit.getParsePositionIncrement());
-                        // Only divide by the SubUnit which we treat as a new string, hence parse position = 0.
-                        result = result.divide(parseProductUnit(subUnit.getSubUnit(), new ParsePosition(0)));
+                        // Example: a/b/c.  Coming in, a is the result. The sub-unit b is parsed alone (as if it
+                        // was a new string). The result then becomes a/b. c will get processed on the next time
+                        // through the loop.
+                        int subStart = pos.getIndex();
+                        check(subStart < end, "unit expected", csq, base, end, subStart);
+                        int subEnd = SubUnit.contentEnd(csq, subStart, end);
+                        check((subEnd != subStart) || SubUnit.hasContent(csq, subStart, end),
+                                "unit expected", csq, base, end, subStart);
+                        int next = SubUnit.nextIndex(csq, subStart, subEnd);
+                        if (csq.charAt(subStart) == '(') {
+                            subStart++;
+                        }
+                        checkForBalancedParentheses(csq, subStart, subEnd);
+                        pos.setIndex(subStart);
+                        result = result.divide(parse(csq, pos, subStart, subEnd));
+                        pos.setIndex(next);
                     }
                     break;
                 case PLUS:
                     pos.setIndex(pos.getIndex() + 1);
-                    token = nextToken(csq, pos);
+                    token = nextToken(csq, pos, base, end);
                     if (token == INTEGER) {
-                        long n = readLong(csq, pos);
+                        long n = readLong(csq, pos, end);
                         if (n != 1) {
                             result = result.plus(n);
                         }
                     } else if (token == FLOAT) {
-                        double d = readDouble(csq, pos);
+                        double d = readDouble(csq, pos, end);
                         if (d != 1.0) {
                             result = result.plus(d);
                         }
                     } else {
-                        throw new ParseException("not a number", pos.getIndex());
+                        throw new ParseException("not a number", pos.getIndex() - base);
                     }
                     break;
                 case EOF:
                 case CLOSE_PAREN:
                     return result;
                 default:
-                    throw new ParseException("unexpected token " + token, pos.getIndex());
+                    throw new ParseException("unexpected token " + token, pos.getIndex() - base);
                 }
-                token = nextToken(csq, pos);
+                token = nextToken(csq, pos, base, end);
             }
         }
 
@@ -494,9 +883,9 @@ public abstract class UnitFormat extends Format {
         private static final int INTEGER = 8;
         private static final int FLOAT = 9;
 
-        private int nextToken(CharSequence csq, ParsePosition pos) {
-            final int length = csq.length();
-            while (pos.getIndex() < length) {
+        private int nextToken(CharSequence csq, ParsePosition pos, int base,
+                int end) throws ParseException {
+            while (pos.getIndex() < end) {
                 char c = csq.charAt(pos.getIndex());
                 if (isUnitIdentifierPart(c)) {
                     return IDENTIFIER;
@@ -507,6 +896,7 @@ public abstract class UnitFormat extends Format {
                 } else if ((c == '^') || (c == '¹') || (c == '²') || (c == '³')) {
                     return EXPONENT;
                 } else if (c == '*') {
+                    check(pos.getIndex() + 1 < end, "unexpected end", csq, base, end, end);
                     char c2 = csq.charAt(pos.getIndex() + 1);
                     if (c2 == '*') {
                         return EXPONENT;
@@ -521,7 +911,7 @@ public abstract class UnitFormat extends Format {
                     return PLUS;
                 } else if ((c == '-') || Character.isDigit(c)) {
                     int index = pos.getIndex()+1;
-                    while ((index < length) &&
+                    while ((index < end) &&
                            (Character.isDigit(c) || (c == '-') || (c == '.') || (c == 'E'))) {
                         c = csq.charAt(index++);
                         if (c == '.') {
@@ -536,24 +926,25 @@ public abstract class UnitFormat extends Format {
         }
 
         private void check(boolean expr, String message, CharSequence csq,
-                int index) throws ParseException {
+                int base, int end, int index) throws ParseException {
             if (!expr) {
-                throw new ParseException(message + " (in " + csq
-                        + " at index " + index + ")", index);
+                throw new ParseException(message + " (in " + csq.subSequence(base, end)
+                        + " at index " + (index - base) + ")", index - base);
             }
         }
 
-        private void checkForBalancedParentheses(CharSequence csq) throws ParseException {
+        private void checkForBalancedParentheses(CharSequence csq, int base,
+                int end) throws ParseException {
             int i = 0;
             int parenCount = 0;
-            for (i = 0; i < csq.length(); i++) {
+            for (i = base; i < end; i++) {
                 char c = csq.charAt(i);
                 if (c == '(') {
                     parenCount++;
                 } else if (c == ')') {
                     if (parenCount == 0) {
-                        throw new ParseException("Unmatched parenthesis in " + csq
-                                + " at index " + i + ")", i);
+                        throw new ParseException("Unmatched parenthesis in " + csq.subSequence(base, end)
+                                + " at index " + (i - base) + ")", i - base);
                     } else {
                         parenCount--;
                     }
@@ -561,25 +952,25 @@ public abstract class UnitFormat extends Format {
             }
 
             if (parenCount != 0) {
-                throw new ParseException("Unmatched parenthesis in " + csq
-                        + " at index " + i + ")", i);
+                throw new ParseException("Unmatched parenthesis in " + csq.subSequence(base, end)
+                        + " at index " + (i - base) + ")", i - base);
             }
         }
 
-        private Exponent readExponent(CharSequence csq, ParsePosition pos) {
+        // Returns the exponent power (high 32 bits) and root (low 32 bits).
+        private long readExponent(CharSequence csq, ParsePosition pos, int end) {
             char c = csq.charAt(pos.getIndex());
             if (c == '^') {
                 pos.setIndex(pos.getIndex()+1);
             } else if (c == '*') {
                 pos.setIndex(pos.getIndex()+2);
             }
-            final int length = csq.length();
             int pow = 0;
             boolean isPowNegative = false;
             int root = 0;
             boolean isRootNegative = false;
             boolean isRoot = false;
-            while (pos.getIndex() < length) {
+            while (pos.getIndex() < end) {
                 c = csq.charAt(pos.getIndex());
                 if (c == '¹') {
                     if (isRoot) {
@@ -620,15 +1011,15 @@ public abstract class UnitFormat extends Format {
             }
             if (pow == 0) pow = 1;
             if (root == 0) root = 1;
-            return new Exponent(isPowNegative ? -pow : pow,
-                              isRootNegative ? -root : root);
+            if (isPowNegative) pow = -pow;
+            if (isRootNegative) root = -root;
+            return (((long) pow) << 32) | (root & 0xFFFFFFFFL);
         }
 
-        private long readLong (CharSequence csq, ParsePosition pos) {
-            final int length = csq.length();
+        private long readLong (CharSequence csq, ParsePosition pos, int end) {
             int result = 0;
             boolean isNegative = false;
-            while (pos.getIndex() < length) {
+            while (pos.getIndex() < end) {
                 char c = csq.charAt(pos.getIndex());
                 if (c == '-') {
                     isNegative = true;
@@ -642,27 +1033,39 @@ public abstract class UnitFormat extends Format {
             return isNegative ? -result : result;
         }
 
-        private double readDouble (CharSequence csq, ParsePosition pos) {
-            final int length = csq.length();
+        private double readDouble (CharSequence csq, ParsePosition pos, int end) {
             int start = pos.getIndex();
-            int end = start+1;
-            while (end < length) {
-                if ("012356789+-.E".indexOf(csq.charAt(end)) < 0) {
+            int i = start+1;
+            while (i < end) {
+                if ("012356789+-.E".indexOf(csq.charAt(i)) < 0) {
                     break;
                 }
-                end += 1;
+                i += 1;
             }
-            pos.setIndex(end+1);
-            return Double.parseDouble(csq.subSequence(start,end).toString());
+            pos.setIndex(i+1);
+            return Double.parseDouble(csq.subSequence(start,i).toString());
         }
 
-        private String readIdentifier(CharSequence csq, ParsePosition pos) {
-            final int length = csq.length();
-            int start = pos.getIndex();
+        // Returns the end index of the identifier starting at the specified index.
+        private static int readIdentifier(CharSequence csq, int start, int end) {
             int i = start;
-            while ((++i < length) && isUnitIdentifierPart(csq.charAt(i))) { }
-            pos.setIndex(i);
-            return csq.subSequence(start, i).toString();
+            while ((++i < end) && isUnitIdentifierPart(csq.charAt(i))) { }
+            return i;
+        }
+
+        // Returns the unit for the name at the specified range (the name
+        // is looked up in the names index to avoid creating a string).
+        private Unit<?> unitFor(CharSequence csq, int start, int end) {
+            NameIndex index = _nameIndex;
+            long version = version();
+            if ((index == null) || (index._version != version)) {
+                HashSet<String> names = new HashSet<String>();
+                collectNames(names);
+                index = new NameIndex(version, names);
+                _nameIndex = index;
+            }
+            String name = index.get(csq, start, end);
+            return unitFor((name != null) ? name : csq.subSequence(start, end).toString());
         }
 
         ////////////////////////////
@@ -776,6 +1179,19 @@ public abstract class UnitFormat extends Format {
             return DEFAULT.unitFor(name);
         }
 
+        @Override
+        long version() { // Also depends on the default format tables.
+            return super.version() + (((long) DEFAULT._version) << 32);
+        }
+
+        @Override
+        void collectNames(HashSet<String> names) {
+            DEFAULT.collectNames(names);
+            synchronized (this) {
+                names.addAll(_nameToUnit.keySet());
+            }
+        }
+
         @Override
         public Appendable format(Unit<?> unit, Appendable appendable)
                 throws IOException {
@@ -812,6 +1228,649 @@ public abstract class UnitFormat extends Format {
     }
 
 
+    /**
+     * This class represents the <a href="http://unitsofmeasure.org/">UCUM
+     * </a> case sensitive format (e.g. <code>kg.m/s2</code>,
+     * <code>[degF]</code>, <code>10*3.m</code>, <code>mm[Hg]</code>).
+     *
+     * <p> Symbols are resolved through a trie holding every atom and every
+     *     prefix and metric atom combination, so that prefixed units are
+     *     recognized in a single pass (the longest symbol followed by an
+     *     operator, an exponent, an annotation or the end of the unit is
+     *     selected). Annotations (e.g. <code>{rbc}</code>) are ignored;
+     *     a single annotation stands for the unit <code>1</code>.</p>
+     *
+     * <p> Binary prefixes (<code>Ki, Mi, Gi, Ti</code>) are recognized for
+     *     <code>bit</code> and <code>By</code> only. Units without UCUM
+     *     equivalent (non-rational factors, offsets, fractional exponents)
+     *     cannot be formatted unless labelled.</p>
+     */
+    protected static class UCUMFormat extends UnitFormat {
+
+        /**
+         * Holds the labels and aliases attached to this format.
+         */
+        private final HashMap<String, Unit<?>> _nameToUnit = new HashMap<String, Unit<?>>();
+
+        /**
+         * Holds the units labelled.
+         */
+        private final HashMap<Unit<?>, String> _unitToName = new HashMap<Unit<?>, String>();
+
+        /**
+         * Holds the number of labels and aliases attached so far.
+         */
+        private volatile int _version;
+
+        /**
+         * Holds the symbol tables (lazily rebuilt when labels or aliases
+         * are added).
+         */
+        private volatile Symbols _symbols;
+
+        @Override
+        public void label(Unit<?> unit, String label) {
+            if (!isValidIdentifier(label))
+                throw new IllegalArgumentException("Label: " + label
+                        + " is not a valid identifier.");
+            synchronized (this) {
+                _nameToUnit.put(label, unit);
+                _unitToName.put(unit, label);
+                _version++;
+            }
+        }
+
+        @Override
+        public void alias(Unit<?> unit, String alias) {
+            if (!isValidIdentifier(alias))
+                throw new IllegalArgumentException("Alias: " + alias
+                        + " is not a valid identifier.");
+            synchronized (this) {
+                _nameToUnit.put(alias, unit);
+                _version++;
+            }
+        }
+
+        @Override
+        public boolean isValidIdentifier(String name) {
+            if ((name == null) || (name.length() == 0))
+                return false;
+            for (int i = 0; i < name.length(); i++) {
+                char c = name.charAt(i);
+                if ((c <= ' ') || (c > '~') || ((c >= '0') && (c <= '9'))
+                        || (".+-/(){}".indexOf(c) >= 0))
+                    return false;
+            }
+            return true;
+        }
+
+        @Override
+        long version() {
+            return _version;
+        }
+
+        @Override
+        public Unit<? extends Quantity> parseSingleUnit(CharSequence csq,
+                ParsePosition pos) throws ParseException {
+            Parser parser = new Parser(symbols()._root, csq, pos.getIndex());
+            Unit<? extends Quantity> unit = parser.simpleUnit();
+            pos.setIndex(parser._index);
+            return unit;
+        }
+
+        @Override
+        public Unit<? extends Quantity> parseProductUnit(CharSequence csq,
+                ParsePosition pos) throws ParseException {
+            Parser parser = new Parser(symbols()._root, csq, pos.getIndex());
+            Unit<? extends Quantity> unit = parser.term();
+            pos.setIndex(parser._index);
+            return (parser._dividend == parser._divisor) ? unit : unit
+                    .transform(new RationalConverter(parser._dividend,
+                            parser._divisor));
+        }
+
+        @Override
+        public Appendable format(Unit<?> unit, Appendable appendable)
+                throws IOException {
+            HashMap<Unit<?>, String> unitToCode = symbols()._unitToCode;
+            String code = unitToCode.get(unit);
+            if (code != null)
+                return appendable.append(code);
+            if (unit instanceof ProductUnit) {
+                ProductUnit<?> productUnit = (ProductUnit<?>) unit;
+                int invNbr = 0;
+                boolean start = true;
+                for (int i = 0; i < productUnit.getUnitCount(); i++) {
+                    int pow = productUnit.getUnitPow(i);
+                    if (pow > 0) {
+                        if (!start) {
+                            appendable.append('.');
+                        }
+                        append(appendable, unitToCode, productUnit, i, pow);
+                        start = false;
+                    } else {
+                        invNbr++;
+                    }
+                }
+                if (invNbr == 0)
+                    return start ? appendable.append('1') : appendable; // ONE
+                if (start) {
+                    appendable.append('1'); // e.g. 1/s
+                }
+                appendable.append('/');
+                if (invNbr > 1) {
+                    appendable.append('(');
+                }
+                start = true;
+                for (int i = 0; i < productUnit.getUnitCount(); i++) {
+                    int pow = productUnit.getUnitPow(i);
+                    if (pow < 0) {
+                        if (!start) {
+                            appendable.append('.');
+                        }
+                        append(appendable, unitToCode, productUnit, i, -pow);
+                        start = false;
+                    }
+                }
+                return (invNbr > 1) ? appendable.append(')') : appendable;
+            }
+            if (unit instanceof TransformedUnit) {
+                TransformedUnit<?> tu = (TransformedUnit<?>) unit;
+                UnitConverter cvtr = tu.toParentUnit();
+                if ((cvtr instanceof RationalConverter)
+                        && (((RationalConverter) cvtr).getDividend() > 0)) {
+                    long dividend = ((RationalConverter) cvtr).getDividend();
+                    long divisor = ((RationalConverter) cvtr).getDivisor();
+                    Unit<?> parent = tu.getParentUnit();
+                    if (dividend != 1) {
+                        appendable.append(String.valueOf(dividend));
+                    }
+                    if (!parent.equals(Unit.ONE)) {
+                        StringBuilder tmp = new StringBuilder();
+                        format(parent, tmp);
+                        boolean isProduct = tmp.indexOf(".") >= 0
+                                || tmp.indexOf("/") >= 0;
+                        if (dividend != 1) {
+                            appendable.append('.');
+                        }
+                        appendable.append(isProduct ? "(" : "").append(tmp)
+                                .append(isProduct ? ")" : "");
+                    } else if (dividend == 1) {
+                        appendable.append('1');
+                    }
+                    if (divisor != 1) {
+                        appendable.append('/').append(String.valueOf(divisor));
+                    }
+                    return appendable;
+                }
+            }
+            throw new IllegalArgumentException(
+                    "Cannot format given Object as a UCUM Unit");
+        }
+
+        private static void append(Appendable appendable,
+                HashMap<Unit<?>, String> unitToCode, ProductUnit<?> unit,
+                int index, int pow) throws IOException {
+            String code = unitToCode.get(unit.getUnit(index));
+            if ((code == null) || (unit.getUnitRoot(index) != 1))
+                throw new IllegalArgumentException(
+                        "Cannot format given Object as a UCUM Unit");
+            appendable.append(code);
+            if (pow != 1) {
+                appendable.append(String.valueOf(pow));
+            }
+        }
+
+        // Returns the current symbol tables.
+        private Symbols symbols() {
+            Symbols symbols = _symbols;
+            int version = _version;
+            if ((symbols == null) || (symbols._version != version)) {
+                synchronized (this) {
+                    symbols = new Symbols(_version, _nameToUnit, _unitToName);
+                }
+                _symbols = symbols;
+            }
+            return symbols;
+        }
+
+        private static final long serialVersionUID = 1L;
+    }
+
+    /**
+     * This class represents the UCUM symbol tables (immutable).
+     */
+    private static final class Symbols {
+
+        private static final String[] PREFIXES = { "Y", "Z", "E", "P", "T",
+                "G", "M", "k", "h", "da", "d", "c", "m", "u", "n", "p", "f",
+                "a", "z", "y" };
+
+        private static final String[] BINARY_PREFIXES = { "Ki", "Mi", "Gi",
+                "Ti" };
+
+        final int _version;
+
+        final TrieNode _root;
+
+        final HashMap<Unit<?>, String> _unitToCode = new HashMap<Unit<?>, String>();
+
+        // Atoms in preferred order for formatting, metric atoms (which
+        // can be prefixed) are stored in the second map as well.
+        private final LinkedHashMap<String, Unit<?>> _atoms = new LinkedHashMap<String, Unit<?>>();
+
+        private final LinkedHashMap<String, Unit<?>> _metric = new LinkedHashMap<String, Unit<?>>();
+
+        Symbols(int version, HashMap<String, Unit<?>> nameToUnit,
+                HashMap<Unit<?>, String> unitToName) {
+            _version = version;
+            atoms();
+            TreeMap<String, Unit<?>> codes = new TreeMap<String, Unit<?>>();
+            for (Map.Entry<String, Unit<?>> e : _atoms.entrySet()) {
+                codes.put(e.getKey(), e.getValue());
+                if (!_unitToCode.containsKey(e.getValue())) {
+                    _unitToCode.put(e.getValue(), e.getKey());
+                }
+            }
+            for (Map.Entry<String, Unit<?>> e : _metric.entrySet()) {
+                for (int i = 0; i < PREFIXES.length; i++) {
+                    prefixed(codes, PREFIXES[i] + e.getKey(), e.getValue()
+                            .transform(CONVERTERS[i]));
+                }
+            }
+            for (String atom : new String[] { "bit", "By" }) {
+                long factor = 1;
+                for (String prefix : BINARY_PREFIXES) {
+                    factor *= 1024;
+                    prefixed(codes, prefix + atom, _atoms.get(atom).times(factor));
+                }
+            }
+            codes.putAll(nameToUnit);
+            _unitToCode.putAll(unitToName);
+            _root = new TrieNode(codes, "");
+        }
+
+        private void prefixed(TreeMap<String, Unit<?>> codes, String code,
+                Unit<?> unit) {
+            if (codes.containsKey(code))
+                return; // Atoms have precedence.
+            codes.put(code, unit);
+            // Prefixed atoms collapsing to product units (e.g. cm2 for car,
+            // m3 for kL) are formatted structurally.
+            if (!(unit instanceof ProductUnit) && !_unitToCode.containsKey(unit)) {
+                _unitToCode.put(unit, code);
+            }
+        }
+
+        private void atom(String code, Unit<?> unit) {
+            _atoms.put(code, unit);
+        }
+
+        private void metric(String code, Unit<?> unit) {
+            _atoms.put(code, unit);
+            _metric.put(code, unit);
+        }
+
+        private void atoms() {
+            // Base units.
+            metric("m", METRE);
+            metric("s", SECOND);
+            metric("g", GRAM);
+            metric("rad", RADIAN);
+            metric("K", KELVIN);
+            metric("C", COULOMB);
+            metric("cd", CANDELA);
+            // Dimensionless.
+            atom("[pi]", Unit.ONE.times(Math.PI));
+            atom("%", NonSI.PERCENT);
+            atom("[ppth]", Unit.ONE.divide(1000));
+            atom("[ppm]", Unit.ONE.divide(1000000));
+            atom("[ppb]", Unit.ONE.divide(1000000000L));
+            atom("[pptr]", Unit.ONE.divide(1000000000000L));
+            // SI units.
+            metric("mol", MOLE);
+            metric("sr", STERADIAN);
+            metric("Hz", HERTZ);
+            metric("N", NEWTON);
+            metric("Pa", PASCAL);
+            metric("J", JOULE);
+            metric("W", WATT);
+            metric("A", AMPERE);
+            metric("V", VOLT);
+            metric("F", FARAD);
+            metric("Ohm", OHM);
+            metric("S", SIEMENS);
+            metric("Wb", WEBER);
+            metric("Cel", CELSIUS);
+            metric("T", TESLA);
+            metric("H", HENRY);
+            metric("lm", LUMEN);
+            metric("lx", LUX);
+            metric("Bq", BECQUEREL);
+            metric("Gy", GRAY);
+            metric("Sv", SIEVERT);
+            metric("kat", KATAL);
+            // Other units from ISO 1000, ISO 2955 and ANSI X3.50.
+            atom("gon", NonSI.GRADE);
+            atom("deg", NonSI.DEGREE_ANGLE);
+            atom("'", NonSI.MINUTE_ANGLE);
+            atom("''", NonSI.SECOND_ANGLE);
+            metric("L", NonSI.LITRE);
+            metric("l", NonSI.LITRE);
+            metric("ar", NonSI.ARE);
+            atom("min", NonSI.MINUTE);
+            atom("h", NonSI.HOUR);
+            atom("d", NonSI.DAY);
+            Unit<?> julianYear = NonSI.DAY.times(1461).divide(4);
+            atom("a", julianYear);
+            atom("a_j", julianYear);
+            atom("a_t", NonSI.DAY.times(36524219).divide(100000));
+            atom("a_g", NonSI.YEAR);
+            atom("wk", NonSI.WEEK);
+            atom("mo", julianYear.divide(12));
+            atom("mo_j", julianYear.divide(12));
+            atom("mo_g", NonSI.MONTH);
+            metric("t", NonSI.METRIC_TON);
+            metric("bar", PASCAL.times(100000));
+            metric("u", NonSI.ATOMIC_MASS);
+            metric("eV", NonSI.ELECTRON_VOLT);
+            atom("AU", NonSI.ASTRONOMICAL_UNIT);
+            metric("pc", NonSI.PARSEC);
+            // Natural units.
+            atom("[c]", NonSI.C);
+            atom("[e]", NonSI.E);
+            atom("[m_e]", NonSI.ELECTRON_MASS);
+            atom("[g]", NonSI.G);
+            metric("gf", NonSI.KILOGRAM_FORCE.divide(1000));
+            metric("[ly]", NonSI.LIGHT_YEAR);
+            // CGS units.
+            metric("Ao", NonSI.ANGSTROM);
+            metric("dyn", NonSI.DYNE);
+            metric("erg", NonSI.ERG);
+            metric("P", NonSI.POISE);
+            metric("St", NonSI.STOKE);
+            metric("Mx", NonSI.MAXWELL);
+            metric("G", NonSI.GAUSS);
+            metric("Gb", NonSI.GILBERT);
+            metric("Lmb", NonSI.LAMBERT);
+            metric("Ci", NonSI.CURIE);
+            metric("R", NonSI.ROENTGEN);
+            metric("RAD", NonSI.RAD);
+            metric("REM", NonSI.REM);
+            // Customary units.
+            atom("[in_i]", NonSI.INCH);
+            atom("[ft_i]", NonSI.FOOT);
+            atom("[yd_i]", NonSI.YARD);
+            atom("[mi_i]", NonSI.MILE);
+            atom("[nmi_i]", NonSI.NAUTICAL_MILE);
+            atom("[kn_i]", NonSI.KNOT);
+            atom("[cin_i]", NonSI.CUBIC_INCH);
+            atom("[ft_us]", NonSI.FOOT_SURVEY_US);
+            atom("[pnt]", NonSI.PIXEL);
+            atom("[pnt_pr]", NonSI.POINT);
+            atom("[lb_av]", NonSI.POUND);
+            atom("[oz_av]", NonSI.OUNCE);
+            atom("[ston_av]", NonSI.TON_US);
+            atom("[lton_av]", NonSI.TON_UK);
+            atom("[lbf_av]", NonSI.POUND_FORCE);
+            atom("[gal_us]", NonSI.GALLON_LIQUID_US);
+            atom("[foz_us]", NonSI.OUNCE_LIQUID_US);
+            atom("[gal_wi]", NonSI.GALLON_DRY_US);
+            atom("[gal_br]", NonSI.GALLON_UK);
+            atom("[foz_br]", NonSI.OUNCE_LIQUID_UK);
+            atom("[degF]", NonSI.FAHRENHEIT);
+            atom("[degR]", NonSI.RANKINE);
+            // Miscellaneous.
+            atom("atm", NonSI.ATMOSPHERE);
+            metric("m[Hg]", NonSI.MILLIMETER_OF_MERCURY.times(1000));
+            atom("[in_i'Hg]", NonSI.INCH_OF_MERCURY);
+            atom("circ", NonSI.REVOLUTION);
+            atom("sph", NonSI.SPHERE);
+            metric("bit", BIT);
+            metric("By", NonSI.BYTE);
+        }
+    }
+
+    /**
+     * This class represents a node of the UCUM symbols trie; the children
+     * are sorted by character (binary search).
+     */
+    private static final class TrieNode {
+
+        final char[] _chars;
+
+        final TrieNode[] _children;
+
+        final Unit<?> _unit;
+
+        // Creates the node for the specified prefix from the symbols
+        // starting with that prefix.
+        TrieNode(SortedMap<String, Unit<?>> codes, String prefix) {
+            _unit = codes.get(prefix);
+            TreeSet<Character> next = new TreeSet<Character>();
+            for (String code : codes.keySet()) {
+                if (code.length() > prefix.length()) {
+                    next.add(code.charAt(prefix.length()));
+                }
+            }
+            _chars = new char[next.size()];
+            _children = new TrieNode[next.size()];
+            int i = 0;
+            for (char c : next) {
+                String p = prefix + c;
+                _chars[i] = c;
+                _children[i++] = new TrieNode(codes.subMap(p, p
+                        + Character.MAX_VALUE), p);
+            }
+        }
+
+        TrieNode child(char c) {
+            int i = Arrays.binarySearch(_chars, c);
+            return (i >= 0) ? _children[i] : null;
+        }
+    }
+
+    /**
+     * This class represents a UCUM parser over a character sequence
+     * (terms are parsed from left to right).
+     */
+    private static final class Parser {
+
+        final TrieNode _root;
+
+        final CharSequence _csq;
+
+        int _index;
+
+        // Integer factor of the last component or term parsed.
+        long _dividend = 1;
+
+        long _divisor = 1;
+
+        Parser(TrieNode root, CharSequence csq, int index) {
+            _root = root;
+            _csq = csq;
+            _index = index;
+        }
+
+        // term := ['/'] component (('.' | '/') component)*
+        @SuppressWarnings("unchecked")
+        Unit<? extends Quantity> term() throws ParseException {
+            Unit<?> result = null;
+            long dividend = 1;
+            long divisor = 1;
+            boolean divide = false;
+            if (peek() == '/') {
+                divide = true;
+                _index++;
+            }
+            while (true) {
+                Unit<?> unit = component();
+                if (divide) {
+                    result = (result == null) ? unit.inverse() : result
+                            .divide(unit);
+                    dividend = multiply(dividend, _divisor);
+                    divisor = multiply(divisor, _dividend);
+                } else {
+                    result = (result == null) ? unit : result.times(unit);
+                    dividend = multiply(dividend, _dividend);
+                    divisor = multiply(divisor, _divisor);
+                }
+                char c = peek();
+                if ((c != '.') && (c != '/'))
+                    break;
+                divide = c == '/';
+                _index++;
+            }
+            long gcd = gcd(dividend, divisor);
+            _dividend = dividend / gcd;
+            _divisor = divisor / gcd;
+            return (Unit<? extends Quantity>) result;
+        }
+
+        // component := '(' term ')' | annotation | factor [annotation]
+        //            | simpleUnit [exponent] [annotation]
+        private Unit<?> component() throws ParseException {
+            char c = peek();
+            if (c == '(') {
+                _index++;
+                Unit<?> unit = term();
+                if (peek() != ')')
+                    throw new ParseException("')' expected", _index);
+                _index++;
+                return unit;
+            }
+            _dividend = 1;
+            _divisor = 1;
+            if (c == '{') {
+                annotation();
+                return Unit.ONE;
+            }
+            Unit<?> unit = Unit.ONE;
+            if ((c >= '0') && (c <= '9')) {
+                int start = _index;
+                long value = integer();
+                if (value == 0)
+                    throw new ParseException("Zero factor", start);
+                c = peek();
+                if ((value == 10) && ((c == '*') || (c == '^'))) { // 10*n
+                    _index++;
+                    int exp = isExponentStart(peek()) ? exponent() : 1;
+                    if (Math.abs(exp) > 18)
+                        throw new ParseException("Factor overflow", start);
+                    value = 1;
+                    for (int i = 0; i < Math.abs(exp); i++) {
+                        value = multiply(value, 10);
+                    }
+                    if (exp < 0) {
+                        _divisor = value;
+                    } else {
+                        _dividend = value;
+                    }
+                } else {
+                    _dividend = value;
+                }
+            } else {
+                unit = simpleUnit();
+                if (isExponentStart(peek())) {
+                    unit = unit.pow(exponent());
+                }
+            }
+            if (peek() == '{') {
+                annotation();
+            }
+            return unit;
+        }
+
+        // Longest symbol followed by an operator, an exponent, an
+        // annotation or the end of the unit.
+        @SuppressWarnings("unchecked")
+        Unit<? extends Quantity> simpleUnit() throws ParseException {
+            TrieNode node = _root;
+            Unit<?> unit = null;
+            int end = _index;
+            for (int i = _index; i < _csq.length();) {
+                node = node.child(_csq.charAt(i++));
+                if (node == null)
+                    break;
+                if ((node._unit != null)
+                        && ((i == _csq.length()) || !isSymbolPart(_csq
+                                .charAt(i)))) {
+                    unit = node._unit;
+                    end = i;
+                }
+            }
+            if (unit == null)
+                throw new ParseException("Unknown UCUM unit at " + _index,
+                        _index);
+            _index = end;
+            return (Unit<? extends Quantity>) unit;
+        }
+
+        private void annotation() throws ParseException {
+            int start = _index++;
+            for (char c; (c = peek()) != '}'; _index++) {
+                if ((c < ' ') || (c > '~') || (c == '{'))
+                    throw new ParseException("Unterminated annotation",
+                            start);
+            }
+            _index++;
+        }
+
+        private int exponent() throws ParseException {
+            int start = _index;
+            boolean negative = peek() == '-';
+            if ((peek() == '-') || (peek() == '+')) {
+                _index++;
+            }
+            char c = peek();
+            if ((c < '0') || (c > '9'))
+                throw new ParseException("Exponent expected", start);
+            long exp = integer();
+            if (exp > Integer.MAX_VALUE)
+                throw new ParseException("Exponent overflow", start);
+            return negative ? (int) -exp : (int) exp;
+        }
+
+        private long integer() throws ParseException {
+            int start = _index;
+            long value = 0;
+            for (char c; ((c = peek()) >= '0') && (c <= '9'); _index++) {
+                if (value > (Long.MAX_VALUE - 9) / 10)
+                    throw new ParseException("Factor overflow", start);
+                value = value * 10 + (c - '0');
+            }
+            return value;
+        }
+
+        private char peek() {
+            return (_index < _csq.length()) ? _csq.charAt(_index) : '\uFFFF';
+        }
+
+        private long multiply(long x, long y) throws ParseException {
+            try {
+                return Math.multiplyExact(x, y);
+            } catch (ArithmeticException e) {
+                throw new ParseException("Factor overflow", _index);
+            }
+        }
+
+        private static boolean isExponentStart(char c) {
+            return ((c >= '0') && (c <= '9')) || (c == '+') || (c == '-');
+        }
+
+        // Characters which cannot follow a symbol (they continue it).
+        private static boolean isSymbolPart(char c) {
+            return ((c >= 'a') && (c <= 'z')) || ((c >= 'A') && (c <= 'Z'))
+                    || (c == '[') || (c == ']') || (c == '_') || (c == '\'')
+                    || (c == '%') || (c == '*') || (c == '^');
+        }
+
+        private static long gcd(long m, long n) {
+            return (n == 0L) ? m : gcd(n, m % n);
+        }
+    }
+
     ////////////////////////////////////////////////////////////////////////////
     // Initializes the standard unit database for SI units.
 
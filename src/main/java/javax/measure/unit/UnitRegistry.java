@@ -0,0 +1,232 @@
+/*
+ * JScience - Java(TM) Tools and Libraries for the Advancement of Sciences.
+ * Copyright (C) 2006 - JScience (http://jscience.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package javax.measure.unit;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.measure.converter.ConversionException;
+import javax.measure.converter.UnitConverter;
+
+/**
+ * <p> This class represents a registry assigning dense integer identifiers
+ *     to units and holding the converters between registered units.</p>
+ *
+ * <p> Identifiers are allocated sequentially from <code>0</code> in
+ *     registration order; they are stable for the lifetime of the registry
+ *     and can be stored instead of the unit itself (e.g. one short per
+ *     column of a columnar storage). Converters between registered units
+ *     are resolved once (using {@link Unit#getConverterTo}) and then
+ *     retrieved by indexing a converter matrix. For example:[code]
+ *         UnitRegistry registry = new UnitRegistry();
+ *         int psi = registry.register(NonSI.POUND_FORCE.divide(NonSI.INCH.pow(2)));
+ *         int kPa = registry.register(SI.KILO(SI.PASCAL));
+ *         registry.convert(psi, kPa, values); // In place.
+ *     [/code]</p>
+ *
+ * <p> Instances of this class are thread-safe; registration is
+ *     synchronized, lookups and conversions are lock-free.</p>
+ */
+public final class UnitRegistry {
+
+    /**
+     * Holds the default registry.
+     */
+    private static final UnitRegistry DEFAULT = new UnitRegistry();
+
+    /**
+     * Holds the unit to identifier mapping.
+     */
+    private final ConcurrentHashMap<Unit<?>, Integer> _unitToId = new ConcurrentHashMap<Unit<?>, Integer>();
+
+    /**
+     * Holds the registered units indexed by identifier (copy on write).
+     */
+    private volatile Unit<?>[] _units = new Unit<?>[0];
+
+    /**
+     * Holds the converters matrix rows indexed by source identifier;
+     * rows are created and grown lazily (<code>null</code> entries are
+     * not resolved yet).
+     */
+    private volatile UnitConverter[][] _converters = new UnitConverter[0][];
+
+    /**
+     * Creates an empty registry.
+     */
+    public UnitRegistry() {
+    }
+
+    /**
+     * Returns the default (shared) registry.
+     *
+     * @return the default registry.
+     */
+    public static UnitRegistry getInstance() {
+        return DEFAULT;
+    }
+
+    /**
+     * Registers the specified unit (if not already registered).
+     *
+     * @param  unit the unit to register.
+     * @return the identifier of the specified unit.
+     */
+    public int register(Unit<?> unit) {
+        Integer id = _unitToId.get(unit);
+        if (id != null)
+            return id.intValue();
+        synchronized (this) {
+            id = _unitToId.get(unit);
+            if (id != null)
+                return id.intValue();
+            Unit<?>[] units = _units;
+            Unit<?>[] tmp = new Unit<?>[units.length + 1];
+            System.arraycopy(units, 0, tmp, 0, units.length);
+            tmp[units.length] = unit;
+            UnitConverter[][] converters = _converters;
+            UnitConverter[][] rows = new UnitConverter[tmp.length][];
+            System.arraycopy(converters, 0, rows, 0, converters.length);
+            _converters = rows;
+            _units = tmp;
+            _unitToId.put(unit, units.length);
+            return units.length;
+        }
+    }
+
+    /**
+     * Returns the identifier of the specified unit.
+     *
+     * @param  unit the unit to look up.
+     * @return the unit identifier or <code>-1</code> if the specified unit
+     *         is not registered.
+     */
+    public int getId(Unit<?> unit) {
+        Integer id = _unitToId.get(unit);
+        return (id != null) ? id.intValue() : -1;
+    }
+
+    /**
+     * Returns the unit having the specified identifier.
+     *
+     * @param  id the unit identifier.
+     * @return the corresponding unit.
+     * @throws IndexOutOfBoundsException if no unit is registered with the
+     *         specified identifier.
+     */
+    public Unit<?> getUnit(int id) {
+        return _units[id];
+    }
+
+    /**
+     * Returns the number of registered units.
+     *
+     * @return the number of units (identifiers range from <code>0</code>
+     *         to <code>size() - 1</code>).
+     */
+    public int size() {
+        return _units.length;
+    }
+
+    /**
+     * Returns the converter between the specified registered units.
+     *
+     * @param  fromId the identifier of the source unit.
+     * @param  toId the identifier of the target unit.
+     * @return <code>getUnit(fromId).getConverterTo(getUnit(toId))</code>
+     * @throws ConversionException if the units are not compatible.
+     * @throws IndexOutOfBoundsException if an identifier is not registered.
+     */
+    public UnitConverter getConverter(int fromId, int toId)
+            throws ConversionException {
+        UnitConverter[][] converters = _converters;
+        UnitConverter[] row = converters[fromId];
+        if ((row != null) && (toId < row.length)) {
+            UnitConverter cvtr = row[toId];
+            if (cvtr != null)
+                return cvtr;
+        }
+        return resolve(fromId, toId);
+    }
+
+    /**
+     * Converts the specified value between the specified registered units.
+     *
+     * @param  fromId the identifier of the source unit.
+     * @param  toId the identifier of the target unit.
+     * @param  value the value stated in the source unit.
+     * @return the value stated in the target unit.
+     * @throws ConversionException if the units are not compatible.
+     */
+    public double convert(int fromId, int toId, double value)
+            throws ConversionException {
+        return (fromId == toId) ? value : getConverter(fromId, toId).convert(
+                value);
+    }
+
+    /**
+     * Converts in place the specified values between the specified
+     * registered units.
+     *
+     * @param  fromId the identifier of the source unit.
+     * @param  toId the identifier of the target unit.
+     * @param  values the values stated in the source unit (replaced by the
+     *         values stated in the target unit).
+     * @throws ConversionException if the units are not compatible.
+     */
+    public void convert(int fromId, int toId, double[] values)
+            throws ConversionException {
+        convert(fromId, toId, values, 0, values.length);
+    }
+
+    /**
+     * Converts in place the specified range of values between the specified
+     * registered units.
+     *
+     * @param  fromId the identifier of the source unit.
+     * @param  toId the identifier of the target unit.
+     * @param  values the values array.
+     * @param  offset the index of the first value to convert.
+     * @param  length the number of values to convert.
+     * @throws ConversionException if the units are not compatible.
+     */
+    public void convert(int fromId, int toId, double[] values, int offset,
+            int length) throws ConversionException {
+        if (fromId == toId)
+            return;
+        getConverter(fromId, toId).convert(values, offset, length);
+    }
+
+    /**
+     * Resolves and records the converter between the specified units.
+     * Converters are immutable; concurrent resolutions of the same entry 
+     * are benign.
+     */
+    private UnitConverter resolve(int fromId, int toId) {
+        Unit<?>[] units = _units;
+        UnitConverter cvtr = units[fromId].getConverterTo(units[toId]);
+        synchronized (this) {
+            UnitConverter[][] converters = _converters;
+            UnitConverter[] row = converters[fromId];
+            if ((row != null) && (toId < row.length)) {
+                row[toId] = cvtr;
+                return cvtr;
+            }
+            // Creates or grows the row, then publishes a new rows array.
+            UnitConverter[] tmp = new UnitConverter[_units.length];
+            if (row != null) {
+                System.arraycopy(row, 0, tmp, 0, row.length);
+            }
+            tmp[toId] = cvtr;
+            UnitConverter[][] rows = converters.clone();
+            rows[fromId] = tmp;
+            _converters = rows;
+        }
+        return cvtr;
+    }
+}
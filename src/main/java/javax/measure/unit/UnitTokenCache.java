@@ -0,0 +1,221 @@
+/*
+ * JScience - Java(TM) Tools and Libraries for the Advancement of Sciences.
+ * Copyright (C) 2006 - JScience (http://jscience.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package javax.measure.unit;
+
+import java.text.ParseException;
+import java.text.ParsePosition;
+
+import javax.measure.quantity.Quantity;
+
+/**
+ * <p> This class represents a cache of the units parsed from unit tokens
+ *     (e.g. the unit column of a text file), the same token being usually
+ *     repeated many times.</p>
+ *
+ * <p> Tokens are looked up directly from the characters buffer holding
+ *     them; no object is allocated unless the token has not been seen yet,
+ *     in which case it is parsed using the {@link UnitFormat#parseProductUnit
+ *     product unit} syntax of the format specified at construction. For
+ *     example:[code]
+ *         UnitTokenCache units = new UnitTokenCache();
+ *         Unit<?> unit = units.get(line, start, end); // Token "kg/(m²·s)"
+ *     [/code]</p>
+ *
+ * <p> The cache is bounded, it is cleared when full. Instances of this
+ *     class are not synchronized (one cache per reader).</p>
+ */
+public final class UnitTokenCache {
+
+    /**
+     * Holds the default maximum number of tokens.
+     */
+    private static final int DEFAULT_MAXIMUM_SIZE = 1024;
+
+    /**
+     * Holds the format used to parse new tokens.
+     */
+    private final UnitFormat _format;
+
+    /**
+     * Holds the maximum number of tokens.
+     */
+    private final int _maximumSize;
+
+    /**
+     * Holds the tokens (open addressing, power of two length).
+     */
+    private String[] _tokens;
+
+    /**
+     * Holds the units parsed from the tokens.
+     */
+    private Unit<?>[] _units;
+
+    /**
+     * Holds the number of tokens.
+     */
+    private int _size;
+
+    /**
+     * Holds the number of tokens parsed (cache misses).
+     */
+    private long _missCount;
+
+    /**
+     * Creates a token cache using the default unit format.
+     */
+    public UnitTokenCache() {
+        this(UnitFormat.getInstance(), DEFAULT_MAXIMUM_SIZE);
+    }
+
+    /**
+     * Creates a token cache using the specified format.
+     *
+     * @param format the format used to parse the tokens.
+     * @param maximumSize the maximum number of tokens kept.
+     */
+    public UnitTokenCache(UnitFormat format, int maximumSize) {
+        if (maximumSize <= 0)
+            throw new IllegalArgumentException("Non-positive maximum size");
+        _format = format;
+        _maximumSize = maximumSize;
+        clear();
+    }
+
+    /**
+     * Returns the unit for the token held by the specified characters.
+     *
+     * @param  chars the characters buffer.
+     * @param  start the index of the first character of the token.
+     * @param  end the index after the last character of the token.
+     * @return the corresponding unit.
+     * @throws ParseException if the token is not a valid unit (the error
+     *         offset is an index in the specified characters).
+     */
+    public Unit<? extends Quantity> get(char[] chars, int start, int end)
+            throws ParseException {
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + chars[i];
+        }
+        int mask = _tokens.length - 1;
+        int length = end - start;
+        int i = hash & mask;
+        for (String token; (token = _tokens[i]) != null; i = (i + 1) & mask) {
+            if ((token.hashCode() == hash) && (token.length() == length)
+                    && matches(token, chars, start))
+                return unitAt(i);
+        }
+        return add(new String(chars, start, length), start);
+    }
+
+    /**
+     * Returns the unit for the token held by the specified character
+     * sequence.
+     *
+     * @param  csq the character sequence.
+     * @param  start the index of the first character of the token.
+     * @param  end the index after the last character of the token.
+     * @return the corresponding unit.
+     * @throws ParseException if the token is not a valid unit (the error
+     *         offset is an index in the specified sequence).
+     */
+    public Unit<? extends Quantity> get(CharSequence csq, int start, int end)
+            throws ParseException {
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + csq.charAt(i);
+        }
+        int mask = _tokens.length - 1;
+        int length = end - start;
+        int i = hash & mask;
+        for (String token; (token = _tokens[i]) != null; i = (i + 1) & mask) {
+            if ((token.hashCode() == hash) && (token.length() == length)
+                    && matches(token, csq, start))
+                return unitAt(i);
+        }
+        return add(csq.subSequence(start, end).toString(), start);
+    }
+
+    /**
+     * Returns the number of tokens in this cache.
+     *
+     * @return the number of tokens.
+     */
+    public int size() {
+        return _size;
+    }
+
+    /**
+     * Returns the number of tokens which had to be parsed.
+     *
+     * @return the number of cache misses.
+     */
+    public long getMissCount() {
+        return _missCount;
+    }
+
+    /**
+     * Removes all the tokens from this cache.
+     */
+    public void clear() {
+        int capacity = Integer.highestOneBit(_maximumSize * 2 - 1) * 2;
+        _tokens = new String[capacity];
+        _units = new Unit<?>[capacity];
+        _size = 0;
+    }
+
+    private Unit<? extends Quantity> unitAt(int i) {
+        return _units[i];
+    }
+
+    private Unit<? extends Quantity> add(String token, int start)
+            throws ParseException {
+        ParsePosition pos = new ParsePosition(0);
+        Unit<? extends Quantity> unit;
+        try {
+            unit = _format.parseProductUnit(token, pos);
+        } catch (ParseException e) {
+            throw new ParseException(e.getMessage(), start
+                    + e.getErrorOffset());
+        }
+        if (pos.getIndex() < token.length())
+            throw new ParseException(token + " is not a unit", start
+                    + pos.getIndex());
+        _missCount++;
+        if (_size >= _maximumSize) {
+            clear();
+        }
+        int mask = _tokens.length - 1;
+        int i = token.hashCode() & mask;
+        while (_tokens[i] != null) {
+            i = (i + 1) & mask;
+        }
+        _tokens[i] = token;
+        _units[i] = unit;
+        _size++;
+        return unit;
+    }
+
+    private static boolean matches(String token, char[] chars, int start) {
+        for (int i = 0; i < token.length(); i++) {
+            if (token.charAt(i) != chars[start + i])
+                return false;
+        }
+        return true;
+    }
+
+    private static boolean matches(String token, CharSequence csq, int start) {
+        for (int i = 0; i < token.length(); i++) {
+            if (token.charAt(i) != csq.charAt(start + i))
+                return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * JScience - Java(TM) Tools and Libraries for the Advancement of Sciences.
+ * Copyright (C) 2006 - JScience (http://jscience.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package javax.measure.unit;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+
+/**
+ * <p> This class represents a character sequence view of a range of UTF-8
+ *     encoded bytes. Pure ASCII ranges are read in place; other ranges are
+ *     decoded once into a characters array (no string is created).</p>
+ */
+final class Utf8Sequence implements CharSequence {
+
+    /**
+     * Holds the bytes.
+     */
+    private final byte[] _bytes;
+
+    /**
+     * Holds the index of the first byte.
+     */
+    private final int _offset;
+
+    /**
+     * Holds the decoded characters or <code>null</code> if ASCII.
+     */
+    private final char[] _chars;
+
+    /**
+     * Holds the number of characters.
+     */
+    private final int _length;
+
+    /**
+     * Creates a view of the specified bytes.
+     *
+     * @param  bytes the UTF-8 encoded bytes.
+     * @param  off the index of the first byte.
+     * @param  len the number of bytes.
+     * @throws ParseException if the bytes are not valid UTF-8 (the error
+     *         offset is the index of the first invalid byte).
+     */
+    Utf8Sequence(byte[] bytes, int off, int len) throws ParseException {
+        if ((off < 0) || (len < 0) || (off + len > bytes.length))
+            throw new IndexOutOfBoundsException();
+        _bytes = bytes;
+        _offset = off;
+        int i = off;
+        while ((i < off + len) && (bytes[i] >= 0)) {
+            i++;
+        }
+        if (i == off + len) { // ASCII
+            _chars = null;
+            _length = len;
+            return;
+        }
+        ByteBuffer in = ByteBuffer.wrap(bytes, off, len);
+        CharBuffer out = CharBuffer.allocate(len);
+        CoderResult result = StandardCharsets.UTF_8.newDecoder().decode(in,
+                out, true);
+        if (result.isError())
+            throw new ParseException("Invalid UTF-8 sequence", in.position());
+        _chars = out.array();
+        _length = out.position();
+    }
+
+    public int length() {
+        return _length;
+    }
+
+    public char charAt(int index) {
+        if ((index < 0) || (index >= _length))
+            throw new IndexOutOfBoundsException("index: " + index);
+        return (_chars == null) ? (char) _bytes[_offset + index]
+                : _chars[index];
+    }
+
+    public CharSequence subSequence(int start, int end) {
+        return toString().substring(start, end);
+    }
+
+    @Override
+    public String toString() {
+        return (_chars == null) ? new String(_bytes, _offset, _length,
+                StandardCharsets.US_ASCII) : new String(_chars, 0, _length);
+    }
+
+    /**
+     * Returns the index of the byte holding the specified character.
+     *
+     * @param  index the character index.
+     * @return the corresponding index in the bytes array.
+     */
+    int byteIndex(int index) {
+        if (_chars == null)
+            return _offset + index;
+        int i = _offset;
+        for (int j = 0; (j < index) && (j < _length); j++) {
+            char c = _chars[j];
+            i += (c < 0x80) ? 1 : (c < 0x800) ? 2 : Character
+                    .isHighSurrogate(c) ? 4 : Character.isLowSurrogate(c) ? 0
+                    : 3;
+        }
+        return i;
+    }
+}
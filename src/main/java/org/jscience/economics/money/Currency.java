@@ -225,7 +225,7 @@ public class Currency extends DerivedUnit<Money> {
     
     @Override
     public Unit<? super Money> getStandardUnit() {
-        return new BaseUnit<>(this.getCode());
+        return Unit.intern(new BaseUnit<Money>(this.getCode()));
     }
 
     @Override
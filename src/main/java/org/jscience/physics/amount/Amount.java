@@ -13,9 +13,6 @@ import java.io.Serializable;
 import javolution.context.ObjectFactory;
 import javolution.lang.Immutable;
 import javolution.lang.MathLib;
-import javolution.text.Text;
-import javolution.util.FastComparator;
-import javolution.util.FastMap;
 import javolution.xml.XMLFormat;
 import javolution.xml.stream.XMLStreamException;
 
@@ -26,7 +23,10 @@ import javax.measure.quantity.Dimensionless;
 import javax.measure.quantity.Quantity;
 import javax.measure.unit.Unit;
 import javax.measure.Measurable;
-import javax.realtime.MemoryArea;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
 
 /**
  * <p> The nature of an amount can be deduced from its parameterization 
@@ -843,99 +843,84 @@ public final class Amount<Q extends Quantity> implements
     // Lookup tables //
     ///////////////////
 
-    static final FastMap<Unit<?>, FastMap<Unit<?>, Unit<?>>> MULT_LOOKUP = new FastMap<Unit<?>, FastMap<Unit<?>, Unit<?>>>(
-            "UNITS_MULT_LOOKUP").setKeyComparator(FastComparator.DIRECT);
+    /**
+     * Holds the maximum number of entries kept by each lookup table.
+     */
+    private static final int LOOKUP_MAXIMUM_SIZE = 4096;
 
-    static final FastMap<Unit<?>, Unit<?>> INV_LOOKUP = new FastMap<Unit<?>, Unit<?>>(
-            "UNITS_INV_LOOKUP").setKeyComparator(FastComparator.DIRECT);
+    static final LoadingCache<UnitPair, Unit<?>> MULT_LOOKUP = Caffeine.newBuilder()
+            .maximumSize(LOOKUP_MAXIMUM_SIZE)
+            .recordStats()
+            .build(key -> key._left.times(key._right));
 
-    static final FastMap<Unit<?>, FastMap<Unit<?>, UnitConverter>> CVTR_LOOKUP = new FastMap<Unit<?>, FastMap<Unit<?>, UnitConverter>>(
-            "UNITS_CVTR_LOOKUP").setKeyComparator(FastComparator.DIRECT);
+    static final LoadingCache<Unit<?>, Unit<?>> INV_LOOKUP = Caffeine.newBuilder()
+            .maximumSize(LOOKUP_MAXIMUM_SIZE)
+            .recordStats()
+            .build(unit -> unit.inverse());
 
-    private static Unit<?> productOf(Unit<?> left, Unit<?> right) {
-        FastMap<Unit<?>, Unit<?>> leftTable = MULT_LOOKUP.get(left);
-        if (leftTable == null)
-            return calculateProductOf(left, right);
-        Unit<?> result = leftTable.get(right);
-        if (result == null)
-            return calculateProductOf(left, right);
-        return result;
+    static final LoadingCache<UnitPair, UnitConverter> CVTR_LOOKUP = Caffeine.newBuilder()
+            .maximumSize(LOOKUP_MAXIMUM_SIZE)
+            .recordStats()
+            .build(key -> key._left.getConverterTo(key._right));
+
+    static Unit<?> productOf(Unit<?> left, Unit<?> right) {
+        return MULT_LOOKUP.get(new UnitPair(left, right));
     }
 
-    private static synchronized Unit<?> calculateProductOf(final Unit<?> left, final Unit<?> right) {
-        MemoryArea memoryArea = MemoryArea.getMemoryArea(MULT_LOOKUP);
-        memoryArea.executeInArea(new Runnable() {
-            public void run() {
-                FastMap<Unit<?>, Unit<?>> leftTable = MULT_LOOKUP.get(left);
-                if (leftTable == null) {
-                    leftTable = new FastMap<Unit<?>, Unit<?>>().setKeyComparator(
-                            FastComparator.DIRECT);
-                    MULT_LOOKUP.put(left, leftTable);
-                }
-                Unit<?> result = leftTable.get(right);
-                if (result == null) {
-                    result = left.times(right);
-                    leftTable.put(right, result);
-                }
-            }
-        });
-        return MULT_LOOKUP.get(left).get(right);
-    }
-
-    private static Unit<?> inverseOf(Unit<?> unit) {
-        Unit<?> inverse = INV_LOOKUP.get(unit);
-        if (inverse == null)
-            return calculateInverseOf(unit);
-        return inverse;
-    }
-
-    private static synchronized Unit<?> calculateInverseOf(final Unit<?> unit) {
-        MemoryArea memoryArea = MemoryArea.getMemoryArea(INV_LOOKUP);
-        memoryArea.executeInArea(new Runnable() {
-            public void run() {
-                Unit<?> inverse = INV_LOOKUP.get(unit);
-                if (inverse == null) {
-                    inverse = unit.inverse();
-                    INV_LOOKUP.put(unit, inverse);
-                }
-            }
-        });
+    static Unit<?> inverseOf(Unit<?> unit) {
         return INV_LOOKUP.get(unit);
     }
 
-    private static UnitConverter converterOf(Unit<?> left, Unit<?> right) {
-        FastMap<Unit<?>, UnitConverter> leftTable = CVTR_LOOKUP.get(left);
-        if (leftTable == null)
-            return calculateConverterOf(left, right);
-        UnitConverter result = leftTable.get(right);
-        if (result == null)
-            return calculateConverterOf(left, right);
-        return result;
+    static UnitConverter converterOf(Unit<?> left, Unit<?> right) {
+        return CVTR_LOOKUP.get(new UnitPair(left, right));
     }
 
-    private static synchronized UnitConverter calculateConverterOf(final Unit<?> left,
-            final Unit<?> right) {
-        MemoryArea memoryArea = MemoryArea.getMemoryArea(CVTR_LOOKUP);
-        memoryArea.executeInArea(new Runnable() {
-            public void run() {
-                FastMap<Unit<?>, UnitConverter> leftTable = CVTR_LOOKUP.get(left);
-                if (leftTable == null) {
-                    leftTable = new FastMap<Unit<?>, UnitConverter>()
-                            .setKeyComparator(FastComparator.DIRECT);
-                    synchronized (CVTR_LOOKUP) {
-                        CVTR_LOOKUP.put(left, leftTable);
-                    }
-                }
-                UnitConverter result = leftTable.get(right);
-                if (result == null) {
-                    result = left.getConverterTo(right);
-                    synchronized (leftTable) {
-                        leftTable.put(right, result);
-                    }
-                }
-            }
-        });
-        return CVTR_LOOKUP.get(left).get(right);
+    /**
+     * Returns the cumulative statistics (hits, misses, evictions) of the 
+     * lookup tables used to resolve unit products, unit inverses and unit 
+     * converters during amount arithmetic.
+     *
+     * @return the sum of the statistics of all the lookup tables.
+     */
+    public static CacheStats getLookupStats() {
+        return MULT_LOOKUP.stats().plus(INV_LOOKUP.stats())
+                .plus(CVTR_LOOKUP.stats());
+    }
+
+    /**
+     * This inner class represents the key of the binary lookup tables
+     * (ordered pair of units).
+     */
+    static final class UnitPair {
+
+        private final Unit<?> _left;
+
+        private final Unit<?> _right;
+
+        private final int _hashCode;
+
+        UnitPair(Unit<?> left, Unit<?> right) {
+            _left = left;
+            _right = right;
+            _hashCode = 31 * left.hashCode() + right.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj)
+                return true;
+            if (!(obj instanceof UnitPair))
+                return false;
+            UnitPair that = (UnitPair) obj;
+            return (_hashCode == that._hashCode)
+                    && ((_left == that._left) || _left.equals(that._left))
+                    && ((_right == that._right) || _right.equals(that._right));
+        }
+
+        @Override
+        public int hashCode() {
+            return _hashCode;
+        }
     }
     
     public Amount<Q> copy() {
@@ -958,6 +943,27 @@ public final class Amount<Q extends Quantity> implements
         return measure;
     }
 
+    /**
+     * Returns an amount having the specified internal state (no error 
+     * widening is performed).
+     *
+     * @param unit the amount unit.
+     * @param isExact indicates if the amount is exact.
+     * @param exactValue the exact value (ignored if not exact).
+     * @param minimum the lower bound of the amount interval.
+     * @param maximum the upper bound of the amount interval.
+     * @return the corresponding amount.
+     */
+    static <Q extends Quantity> Amount<Q> newInstance(Unit<?> unit,
+            boolean isExact, long exactValue, double minimum, double maximum) {
+        Amount<Q> measure = Amount.newInstance(unit);
+        measure._isExact = isExact;
+        measure._exactValue = exactValue;
+        measure._minimum = minimum;
+        measure._maximum = maximum;
+        return measure;
+    }
+
     @SuppressWarnings("unchecked")
     private static <Q extends Quantity> Amount<Q> copyOf(Amount original) {
         Amount<Q> measure = FACTORY.object();
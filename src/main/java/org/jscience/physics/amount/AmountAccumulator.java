@@ -0,0 +1,513 @@
+/*
+ * JScience - Java(TM) Tools and Libraries for the Advancement of Sciences.
+ * Copyright (C) 2006 - JScience (http://jscience.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.jscience.physics.amount;
+
+import javax.measure.converter.AddConverter;
+import javax.measure.converter.AffineConverter;
+import javax.measure.converter.ConversionException;
+import javax.measure.converter.RationalConverter;
+import javax.measure.converter.UnitConverter;
+import javax.measure.quantity.Quantity;
+import javax.measure.unit.Unit;
+
+import static org.jscience.physics.amount.Amount.DECREMENT;
+import static org.jscience.physics.amount.Amount.INCREMENT;
+
+/**
+ * <p> This class represents a mutable accumulator of {@link Amount amounts}
+ *     stated in a fixed unit.</p>
+ *
+ * <p> Reducing a series with {@link Amount#plus(Amount)} creates one new
+ *     amount per step; an accumulator updates its state in place and
+ *     materializes an immutable {@link Amount} only when requested.
+ *     For example:[code]
+ *         AmountAccumulator<Length> acc = new AmountAccumulator<Length>(METER);
+ *         for (Amount<Length> distance : distances) {
+ *             acc.add(distance);
+ *         }
+ *         Amount<Length> total = acc.sum();
+ *         Amount<Length> longest = acc.max();
+ *     [/code]</p>
+ *
+ * <p> The sum stays exact as long as all the amounts added are exact
+ *     and the exact sum fits a <code>long</code>; otherwise the interval
+ *     bounds are accumulated with the same error propagation as
+ *     {@link Amount#plus(Amount)}. The results are identical to the ones
+ *     obtained by repeatedly calling {@link Amount#plus(Amount)}.</p>
+ *
+ * <p> Converters from the source units to the accumulator unit are cached
+ *     within the accumulator (identity lookup), no object is allocated when
+ *     adding amounts. Accumulators are not thread-safe.</p>
+ *
+ * @see AmountArray
+ */
+public final class AmountAccumulator<Q extends Quantity> {
+
+    /**
+     * Holds the number of source units whose converter is cached.
+     */
+    private static final int CONVERTER_CACHE_SIZE = 8;
+
+    /**
+     * Holds the unit in which the amounts are accumulated.
+     */
+    private final Unit<Q> _unit;
+
+    /**
+     * Holds the number of amounts accumulated.
+     */
+    private long _count;
+
+    /**
+     * Indicates if the sum is exact.
+     */
+    private boolean _isExact = true;
+
+    /**
+     * Holds the exact sum (when exact).
+     */
+    private long _exactValue;
+
+    /**
+     * Holds the minimum value of the sum.
+     */
+    private double _minimum;
+
+    /**
+     * Holds the maximum value of the sum.
+     */
+    private double _maximum;
+
+    /**
+     * Holds the smallest amount (by estimated value) accumulated.
+     */
+    private boolean _minIsExact;
+    private long _minExactValue;
+    private double _minMinimum;
+    private double _minMaximum;
+
+    /**
+     * Holds the largest amount (by estimated value) accumulated.
+     */
+    private boolean _maxIsExact;
+    private long _maxExactValue;
+    private double _maxMinimum;
+    private double _maxMaximum;
+
+    /**
+     * Holds the running mean of the estimated values (Welford).
+     */
+    private double _mean;
+
+    /**
+     * Holds the running sum of squared deviations from the mean (Welford).
+     */
+    private double _m2;
+
+    /**
+     * Holds the last value added, stated in the accumulator unit.
+     */
+    private boolean _valueIsExact;
+    private long _valueExact;
+    private double _valueMinimum;
+    private double _valueMaximum;
+
+    /**
+     * Holds the source units whose converter is cached.
+     */
+    private final Unit<?>[] _sourceUnits = new Unit<?>[CONVERTER_CACHE_SIZE];
+
+    /**
+     * Holds the converters from the source units to the accumulator unit.
+     */
+    private final UnitConverter[] _converters = new UnitConverter[CONVERTER_CACHE_SIZE];
+
+    /**
+     * Holds the index of the next converter cache entry to be replaced.
+     */
+    private int _nextConverter;
+
+    /**
+     * Creates an empty accumulator for amounts stated in the specified unit.
+     *
+     * @param unit the unit in which the amounts are accumulated.
+     */
+    public AmountAccumulator(Unit<Q> unit) {
+        _unit = unit;
+    }
+
+    /**
+     * Returns the unit in which the amounts are accumulated.
+     *
+     * @return the accumulator unit.
+     */
+    public Unit<Q> getUnit() {
+        return _unit;
+    }
+
+    /**
+     * Returns the number of amounts accumulated.
+     *
+     * @return the number of amounts added.
+     */
+    public long getCount() {
+        return _count;
+    }
+
+    /**
+     * Adds the specified amount to this accumulator.
+     *
+     * @param amount the amount to add.
+     * @return <code>this</code>
+     * @throws ConversionException if the amount cannot be stated in the
+     *         accumulator unit.
+     */
+    public AmountAccumulator<Q> add(Amount<?> amount) throws ConversionException {
+        if (amount.isExact()) {
+            convert(amount.getUnit(), true, amount.getExactValue(),
+                    amount.getMinimumValue(), amount.getMaximumValue());
+        } else {
+            convert(amount.getUnit(), false, 0L, amount.getMinimumValue(),
+                    amount.getMaximumValue());
+        }
+        accumulate();
+        return this;
+    }
+
+    /**
+     * Adds the specified approximate value (± LSB) stated in the specified
+     * unit to this accumulator.
+     *
+     * @param value the estimated value.
+     * @param unit the unit in which the value is stated.
+     * @return <code>this</code>
+     * @throws ConversionException if the unit is not compatible with the
+     *         accumulator unit.
+     * @see Amount#valueOf(double, Unit)
+     */
+    public AmountAccumulator<Q> add(double value, Unit<?> unit)
+            throws ConversionException {
+        double valInc = value * INCREMENT;
+        double valDec = value * DECREMENT;
+        convert(unit, false, 0L, (value < 0) ? valInc : valDec,
+                (value < 0) ? valDec : valInc);
+        accumulate();
+        return this;
+    }
+
+    /**
+     * Adds the specified exact value stated in the accumulator unit.
+     *
+     * @param value the exact value.
+     * @return <code>this</code>
+     * @see Amount#valueOf(long, Unit)
+     */
+    public AmountAccumulator<Q> addExact(long value) {
+        setValueExact(value);
+        accumulate();
+        return this;
+    }
+
+    /**
+     * Returns the sum of the amounts accumulated.
+     *
+     * @return the sum stated in the accumulator unit (exact zero if empty).
+     */
+    public Amount<Q> sum() {
+        return Amount.newInstance(_unit, _isExact, _exactValue, _minimum,
+                _maximum);
+    }
+
+    /**
+     * Returns the smallest amount accumulated (by estimated value).
+     *
+     * @return the smallest amount stated in the accumulator unit or
+     *         <code>null</code> if no amount has been accumulated.
+     */
+    public Amount<Q> min() {
+        return (_count == 0) ? null : Amount.<Q> newInstance(_unit,
+                _minIsExact, _minExactValue, _minMinimum, _minMaximum);
+    }
+
+    /**
+     * Returns the largest amount accumulated (by estimated value).
+     *
+     * @return the largest amount stated in the accumulator unit or
+     *         <code>null</code> if no amount has been accumulated.
+     */
+    public Amount<Q> max() {
+        return (_count == 0) ? null : Amount.<Q> newInstance(_unit,
+                _maxIsExact, _maxExactValue, _maxMinimum, _maxMaximum);
+    }
+
+    /**
+     * Returns the arithmetic mean of the amounts accumulated.
+     *
+     * @return <code>sum().divide(getCount())</code> or <code>null</code>
+     *         if no amount has been accumulated.
+     */
+    public Amount<Q> mean() {
+        return (_count == 0) ? null : sum().divide(_count);
+    }
+
+    /**
+     * Returns the sample variance of the estimated values accumulated.
+     *
+     * @return the sample variance stated in the square of the accumulator
+     *         unit or <code>null</code> if less than two amounts have been
+     *         accumulated.
+     */
+    public Amount<? extends Quantity> variance() {
+        return (_count < 2) ? null : Amount.valueOf(_m2 / (_count - 1),
+                Amount.productOf(_unit, _unit));
+    }
+
+    /**
+     * Resets this accumulator to its initial (empty) state. Cached
+     * converters are kept.
+     *
+     * @return <code>this</code>
+     */
+    public AmountAccumulator<Q> reset() {
+        _count = 0;
+        _isExact = true;
+        _exactValue = 0L;
+        _minimum = 0.0;
+        _maximum = 0.0;
+        _mean = 0.0;
+        _m2 = 0.0;
+        return this;
+    }
+
+    /**
+     * Merges the state of the specified accumulator into this accumulator
+     * (e.g. to combine partial results of a parallel reduction).
+     * The specified accumulator is left unchanged.
+     *
+     * @param that the accumulator to merge.
+     * @return <code>this</code>
+     * @throws ConversionException if the accumulators units are not
+     *         compatible or not related by an affine converter.
+     */
+    public AmountAccumulator<Q> combine(AmountAccumulator<?> that)
+            throws ConversionException {
+        if (that._count == 0)
+            return this;
+        // Sum.
+        convertSum(that);
+        if (_count == 0) { // Avoids widening the interval of an empty sum.
+            _isExact = _valueIsExact;
+            _exactValue = _valueExact;
+            _minimum = _valueMinimum;
+            _maximum = _valueMaximum;
+        } else {
+            addValueToSum();
+        }
+        // Minimum.
+        convert(that._unit, that._minIsExact, that._minExactValue,
+                that._minMinimum, that._minMaximum);
+        if ((_count == 0) || (estimate(_valueIsExact, _valueExact,
+                _valueMinimum, _valueMaximum) < estimate(_minIsExact,
+                _minExactValue, _minMinimum, _minMaximum))) {
+            _minIsExact = _valueIsExact;
+            _minExactValue = _valueExact;
+            _minMinimum = _valueMinimum;
+            _minMaximum = _valueMaximum;
+        }
+        // Maximum.
+        convert(that._unit, that._maxIsExact, that._maxExactValue,
+                that._maxMinimum, that._maxMaximum);
+        if ((_count == 0) || (estimate(_valueIsExact, _valueExact,
+                _valueMinimum, _valueMaximum) > estimate(_maxIsExact,
+                _maxExactValue, _maxMinimum, _maxMaximum))) {
+            _maxIsExact = _valueIsExact;
+            _maxExactValue = _valueExact;
+            _maxMinimum = _valueMinimum;
+            _maxMaximum = _valueMaximum;
+        }
+        // Mean and variance (Chan et al. pairwise update).
+        double thatMean = that._mean;
+        double thatM2 = that._m2;
+        if ((that._unit != _unit) && !that._unit.equals(_unit)) {
+            UnitConverter cvtr = converterFrom(that._unit);
+            double scale = cvtr.convert(1.0) - cvtr.convert(0.0);
+            thatMean = cvtr.convert(thatMean);
+            thatM2 *= scale * scale;
+        }
+        long count = _count + that._count;
+        double delta = thatMean - _mean;
+        _mean += delta * that._count / count;
+        _m2 += thatM2 + delta * delta * ((double) _count) * that._count / count;
+        _count = count;
+        return this;
+    }
+
+    // Sets the current value from an amount stated in the specified unit.
+    private void convert(Unit<?> unit, boolean isExact, long exactValue,
+            double minimum, double maximum) {
+        UnitConverter cvtr = converterFrom(unit);
+        if (cvtr == UnitConverter.IDENTITY) {
+            _valueIsExact = isExact;
+            _valueExact = exactValue;
+            _valueMinimum = minimum;
+            _valueMaximum = maximum;
+        } else if (cvtr instanceof RationalConverter) { // See Amount.to(Unit)
+            RationalConverter rc = (RationalConverter) cvtr;
+            long dividend = rc.getDividend();
+            long divisor = rc.getDivisor();
+            // Amount.times(long)
+            if (isExact) {
+                long productLong = exactValue * dividend;
+                double productDouble = ((double) exactValue) * dividend;
+                if (productLong == productDouble) {
+                    setValueExact(productLong);
+                } else {
+                    isExact = false;
+                }
+            }
+            if (!isExact) {
+                _valueIsExact = false;
+                _valueMinimum = (dividend > 0) ? minimum * dividend : maximum * dividend;
+                _valueMaximum = (dividend > 0) ? maximum * dividend : minimum * dividend;
+            }
+            // Amount.divide(long)
+            if (_valueIsExact) {
+                long quotientLong = _valueExact / divisor;
+                double quotientDouble = ((double) _valueExact) / divisor;
+                if (quotientLong == quotientDouble) {
+                    setValueExact(quotientLong);
+                    return;
+                }
+            }
+            double min = (divisor > 0) ? _valueMinimum / divisor : _valueMaximum / divisor;
+            double max = (divisor > 0) ? _valueMaximum / divisor : _valueMinimum / divisor;
+            _valueIsExact = false;
+            _valueMinimum = (min < 0) ? min * INCREMENT : min * DECREMENT;
+            _valueMaximum = (max < 0) ? max * DECREMENT : max * INCREMENT;
+        } else {
+            double min = cvtr.convert(minimum);
+            double max = cvtr.convert(maximum);
+            _valueIsExact = false;
+            _valueMinimum = (min < 0) ? min * INCREMENT : min * DECREMENT;
+            _valueMaximum = (max < 0) ? max * DECREMENT : max * INCREMENT;
+        }
+    }
+
+    // Sets the current value from the sum of the specified accumulator;
+    // the offset of affine converters applies once per amount summed.
+    private void convertSum(AmountAccumulator<?> that) {
+        UnitConverter cvtr = converterFrom(that._unit);
+        if (cvtr.isLinear()) {
+            convert(that._unit, that._isExact, that._exactValue,
+                    that._minimum, that._maximum);
+            return;
+        }
+        if (!(cvtr instanceof AddConverter)
+                && !(cvtr instanceof AffineConverter))
+            throw new ConversionException("Cannot combine sums stated in "
+                    + that._unit + " and " + _unit);
+        double offset = cvtr.convert(0.0);
+        double scale = cvtr.convert(1.0) - offset;
+        double shift = offset * that._count;
+        double min = ((scale > 0) ? that._minimum : that._maximum) * scale + shift;
+        double max = ((scale > 0) ? that._maximum : that._minimum) * scale + shift;
+        _valueIsExact = false;
+        _valueMinimum = (min < 0) ? min * INCREMENT : min * DECREMENT;
+        _valueMaximum = (max < 0) ? max * DECREMENT : max * INCREMENT;
+    }
+
+    // See Amount.setExact(long)
+    private void setValueExact(long exactValue) {
+        _valueIsExact = true;
+        _valueExact = exactValue;
+        double doubleValue = exactValue;
+        if (doubleValue == exactValue) {
+            _valueMinimum = doubleValue;
+            _valueMaximum = doubleValue;
+        } else {
+            double valInc = exactValue * INCREMENT;
+            double valDec = exactValue * DECREMENT;
+            _valueMinimum = (exactValue < 0) ? valInc : valDec;
+            _valueMaximum = (exactValue < 0) ? valDec : valInc;
+        }
+    }
+
+    // Adds the current value to the sum and updates the statistics.
+    private void accumulate() {
+        addValueToSum();
+        double value = _valueIsExact ? _valueExact
+                : (_valueMinimum + _valueMaximum) * 0.5;
+        if ((_count == 0) || (value < estimate(_minIsExact, _minExactValue,
+                _minMinimum, _minMaximum))) {
+            _minIsExact = _valueIsExact;
+            _minExactValue = _valueExact;
+            _minMinimum = _valueMinimum;
+            _minMaximum = _valueMaximum;
+        }
+        if ((_count == 0) || (value > estimate(_maxIsExact, _maxExactValue,
+                _maxMinimum, _maxMaximum))) {
+            _maxIsExact = _valueIsExact;
+            _maxExactValue = _valueExact;
+            _maxMinimum = _valueMinimum;
+            _maxMaximum = _valueMaximum;
+        }
+        _count++;
+        double delta = value - _mean;
+        _mean += delta / _count;
+        _m2 += delta * (value - _mean);
+    }
+
+    // Adds the current value to the sum (see Amount.plus).
+    private void addValueToSum() {
+        if (_isExact && _valueIsExact) {
+            long sumLong = _exactValue + _valueExact;
+            double sumDouble = ((double) _exactValue) + ((double) _valueExact);
+            if (sumLong == sumDouble) {
+                _exactValue = sumLong;
+                double doubleValue = sumLong;
+                if (doubleValue == sumLong) {
+                    _minimum = doubleValue;
+                    _maximum = doubleValue;
+                } else {
+                    double valInc = sumLong * INCREMENT;
+                    double valDec = sumLong * DECREMENT;
+                    _minimum = (sumLong < 0) ? valInc : valDec;
+                    _maximum = (sumLong < 0) ? valDec : valInc;
+                }
+                return;
+            }
+        }
+        double min = _minimum + _valueMinimum;
+        double max = _maximum + _valueMaximum;
+        _isExact = false;
+        _minimum = (min < 0) ? min * INCREMENT : min * DECREMENT;
+        _maximum = (max < 0) ? max * DECREMENT : max * INCREMENT;
+    }
+
+    private static double estimate(boolean isExact, long exactValue,
+            double minimum, double maximum) {
+        return isExact ? exactValue : (minimum + maximum) * 0.5;
+    }
+
+    // Returns the converter from the specified unit (cached).
+    private UnitConverter converterFrom(Unit<?> unit) {
+        if (unit == _unit)
+            return UnitConverter.IDENTITY;
+        for (int i = 0; i < CONVERTER_CACHE_SIZE; i++) {
+            if (_sourceUnits[i] == unit)
+                return _converters[i];
+        }
+        UnitConverter cvtr = unit.equals(_unit) ? UnitConverter.IDENTITY
+                : Amount.converterOf(unit, _unit);
+        _sourceUnits[_nextConverter] = unit;
+        _converters[_nextConverter] = cvtr;
+        _nextConverter = (_nextConverter + 1) % CONVERTER_CACHE_SIZE;
+        return cvtr;
+    }
+}
@@ -0,0 +1,678 @@
+/*
+ * JScience - Java(TM) Tools and Libraries for the Advancement of Sciences.
+ * Copyright (C) 2006 - JScience (http://jscience.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.jscience.physics.amount;
+
+import java.io.Serializable;
+
+import javax.measure.converter.ConversionException;
+import javax.measure.converter.RationalConverter;
+import javax.measure.converter.UnitConverter;
+import javax.measure.quantity.Quantity;
+import javax.measure.unit.Unit;
+
+import static org.jscience.physics.amount.Amount.DECREMENT;
+import static org.jscience.physics.amount.Amount.INCREMENT;
+
+/**
+ * <p> This class represents a fixed-length column of {@link Amount amounts}
+ *     all stated in the same unit.</p>
+ *
+ * <p> Instead of one object per amount, the exactness flag, the exact value
+ *     and the interval bounds of the elements are held in parallel primitive
+ *     arrays. Bulk operations are performed over whole columns and the unit
+ *     converter (or unit product) is resolved once per column, not once per
+ *     element. For example:[code]
+ *         AmountArray<Temperature> samples = AmountArray.valueOf(rawValues, FAHRENHEIT);
+ *         AmountArray<Temperature> kelvins = samples.to(KELVIN); // Single converter lookup.
+ *         Amount<Temperature> first = kelvins.get(0);
+ *     [/code]</p>
+ *
+ * <p> Element-wise results (exactness and error bounds) are identical to
+ *     the ones obtained using the corresponding {@link Amount} operations.</p>
+ *
+ * <p> Bulk operations return new columns; columns themselves are mutable
+ *     through the <code>set</code> methods and are not thread-safe.</p>
+ *
+ * @see Amount
+ */
+public final class AmountArray<Q extends Quantity> implements Serializable {
+
+    /**
+     * Holds the unit shared by all the elements.
+     */
+    private final Unit<Q> _unit;
+
+    /**
+     * Indicates if the elements are exact.
+     */
+    private final boolean[] _isExact;
+
+    /**
+     * Holds the exact values (when exact) stated in this column unit.
+     */
+    private final long[] _exactValue;
+
+    /**
+     * Holds the minimum values stated in this column unit.
+     */
+    private final double[] _minimum;
+
+    /**
+     * Holds the maximum values stated in this column unit.
+     */
+    private final double[] _maximum;
+
+    /**
+     * Creates a column of the specified length whose elements are all
+     * exact zeros stated in the specified unit.
+     *
+     * @param length the number of elements.
+     * @param unit the unit shared by all the elements.
+     */
+    public AmountArray(int length, Unit<Q> unit) {
+        _unit = unit;
+        _isExact = new boolean[length];
+        _exactValue = new long[length];
+        _minimum = new double[length];
+        _maximum = new double[length];
+        java.util.Arrays.fill(_isExact, true);
+    }
+
+    /**
+     * Returns the column of exact amounts corresponding to the specified
+     * values stated in the specified unit.
+     *
+     * @param values the exact values.
+     * @param unit the unit in which the values are stated.
+     * @return the corresponding column.
+     * @see Amount#valueOf(long, Unit)
+     */
+    public static <Q extends Quantity> AmountArray<Q> valueOf(long[] values,
+            Unit<Q> unit) {
+        AmountArray<Q> array = new AmountArray<Q>(values.length, unit);
+        for (int i = 0; i < values.length; i++) {
+            array.setExact(i, values[i]);
+        }
+        return array;
+    }
+
+    /**
+     * Returns the column of approximate amounts corresponding to the
+     * specified values stated in the specified unit; the precision of
+     * each element is assumed to be the <code>double</code> precision.
+     *
+     * @param values the estimated values (± LSB).
+     * @param unit the unit in which the values are stated.
+     * @return the corresponding column.
+     * @see Amount#valueOf(double, Unit)
+     */
+    public static <Q extends Quantity> AmountArray<Q> valueOf(double[] values,
+            Unit<Q> unit) {
+        AmountArray<Q> array = new AmountArray<Q>(values.length, unit);
+        for (int i = 0; i < values.length; i++) {
+            array.set(i, values[i]);
+        }
+        return array;
+    }
+
+    /**
+     * Returns the number of elements of this column.
+     *
+     * @return the column length.
+     */
+    public int length() {
+        return _isExact.length;
+    }
+
+    /**
+     * Returns the unit in which all the elements are stated.
+     *
+     * @return the column unit.
+     */
+    public Unit<Q> getUnit() {
+        return _unit;
+    }
+
+    /**
+     * Returns the element at the specified index as an amount.
+     *
+     * @param index the element index.
+     * @return the corresponding amount.
+     */
+    public Amount<Q> get(int index) {
+        return Amount.newInstance(_unit, _isExact[index], _exactValue[index],
+                _minimum[index], _maximum[index]);
+    }
+
+    /**
+     * Sets the element at the specified index; the amount is converted
+     * to this column unit if necessary.
+     *
+     * @param index the element index.
+     * @param amount the new element value.
+     * @throws ConversionException if the amount cannot be stated in this
+     *         column unit.
+     */
+    public void set(int index, Amount<?> amount) {
+        @SuppressWarnings("unchecked")
+        Amount<Q> value = ((Amount<Q>) amount).to(_unit);
+        _isExact[index] = value.isExact();
+        _exactValue[index] = value.isExact() ? value.getExactValue() : 0L;
+        _minimum[index] = value.getMinimumValue();
+        _maximum[index] = value.getMaximumValue();
+    }
+
+    /**
+     * Sets the element at the specified index to the specified exact value.
+     *
+     * @param index the element index.
+     * @param value the exact value stated in this column unit.
+     * @see Amount#valueOf(long, Unit)
+     */
+    public void setExact(int index, long value) {
+        setExact(this, index, value);
+    }
+
+    /**
+     * Sets the element at the specified index to the specified approximate
+     * value (± LSB).
+     *
+     * @param index the element index.
+     * @param value the estimated value stated in this column unit.
+     * @see Amount#valueOf(double, Unit)
+     */
+    public void set(int index, double value) {
+        _isExact[index] = false;
+        double valInc = value * INCREMENT;
+        double valDec = value * DECREMENT;
+        _minimum[index] = (value < 0) ? valInc : valDec;
+        _maximum[index] = (value < 0) ? valDec : valInc;
+    }
+
+    /**
+     * Sets the element at the specified index to the specified approximate
+     * value and measurement error.
+     *
+     * @param index the element index.
+     * @param value the estimated value stated in this column unit.
+     * @param error the measurement error (absolute).
+     * @throws IllegalArgumentException if <code>error &lt; 0.0</code>
+     * @see Amount#valueOf(double, double, Unit)
+     */
+    public void set(int index, double value, double error) {
+        if (error < 0)
+            throw new IllegalArgumentException("error: " + error
+                    + " is negative");
+        setInterval(this, index, value - error, value + error);
+    }
+
+    /**
+     * Sets the element at the specified index to the inexact amount having
+     * the specified interval bounds (no error widening is performed).
+     *
+     * @param index the element index.
+     * @param minimum the lower bound stated in this column unit.
+     * @param maximum the upper bound stated in this column unit.
+     */
+    void setBounds(int index, double minimum, double maximum) {
+        _isExact[index] = false;
+        _minimum[index] = minimum;
+        _maximum[index] = maximum;
+    }
+
+    /**
+     * Indicates if the element at the specified index is exact.
+     *
+     * @param index the element index.
+     * @return <code>get(index).isExact()</code>
+     */
+    public boolean isExact(int index) {
+        return _isExact[index];
+    }
+
+    /**
+     * Returns the exact value of the element at the specified index.
+     *
+     * @param index the element index.
+     * @return <code>get(index).getExactValue()</code>
+     * @throws AmountException if the element is not exact.
+     */
+    public long getExactValue(int index) throws AmountException {
+        if (!_isExact[index])
+            throw new AmountException(
+                    "Inexact measures don't have exact values");
+        return _exactValue[index];
+    }
+
+    /**
+     * Returns the estimated value of the element at the specified index.
+     *
+     * @param index the element index.
+     * @return <code>get(index).getEstimatedValue()</code>
+     */
+    public double getEstimatedValue(int index) {
+        return _isExact[index] ? _exactValue[index]
+                : (_minimum[index] + _maximum[index]) * 0.5;
+    }
+
+    /**
+     * Returns the lower bound of the element at the specified index.
+     *
+     * @param index the element index.
+     * @return <code>get(index).getMinimumValue()</code>
+     */
+    public double getMinimumValue(int index) {
+        return _minimum[index];
+    }
+
+    /**
+     * Returns the upper bound of the element at the specified index.
+     *
+     * @param index the element index.
+     * @return <code>get(index).getMaximumValue()</code>
+     */
+    public double getMaximumValue(int index) {
+        return _maximum[index];
+    }
+
+    /**
+     * Returns the column equivalent to this column but stated in the
+     * specified unit. The converter is resolved once for the whole column.
+     *
+     * @param unit the unit of the column to be returned.
+     * @return a column equivalent to this column but stated in the
+     *         specified unit.
+     * @throws ConversionException if the current model does not allows for
+     *         conversion to the specified unit.
+     * @see Amount#to(Unit)
+     */
+    @SuppressWarnings("unchecked")
+    public <R extends Quantity> AmountArray<R> to(Unit<R> unit) {
+        if ((_unit == unit) || this._unit.equals(unit))
+            return (AmountArray<R>) this;
+        UnitConverter cvtr = Amount.converterOf(_unit, unit);
+        final int n = length();
+        AmountArray<R> result = new AmountArray<R>(n, unit);
+        if (cvtr == UnitConverter.IDENTITY) { // No conversion necessary.
+            System.arraycopy(_isExact, 0, result._isExact, 0, n);
+            System.arraycopy(_exactValue, 0, result._exactValue, 0, n);
+            System.arraycopy(_minimum, 0, result._minimum, 0, n);
+            System.arraycopy(_maximum, 0, result._maximum, 0, n);
+            return result;
+        }
+        if (cvtr instanceof RationalConverter) { // Exact conversion.
+            RationalConverter rc = (RationalConverter) cvtr;
+            times(this, rc.getDividend(), result);
+            divide(result, rc.getDivisor(), result);
+            return result;
+        }
+        cvtr.convert(_minimum, 0, result._minimum, 0, n);
+        cvtr.convert(_maximum, 0, result._maximum, 0, n);
+        for (int i = 0; i < n; i++) {
+            double min = result._minimum[i];
+            double max = result._maximum[i];
+            result._isExact[i] = false;
+            result._minimum[i] = (min < 0) ? min * INCREMENT : min * DECREMENT;
+            result._maximum[i] = (max < 0) ? max * DECREMENT : max * INCREMENT;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the element-wise sum of this column with the one specified.
+     *
+     * @param that the column to be added (same length).
+     * @return <code>this + that</code>
+     * @throws ConversionException if the current model does not allows for
+     *         these quantities to be added.
+     * @throws IllegalArgumentException if the columns lengths differ.
+     * @see Amount#plus(Amount)
+     */
+    @SuppressWarnings("unchecked")
+    public AmountArray<Q> plus(AmountArray<?> that) throws ConversionException {
+        final AmountArray<Q> thatToUnit = ((AmountArray<Q>) that).to(_unit);
+        final int n = checkLength(that);
+        AmountArray<Q> result = new AmountArray<Q>(n, _unit);
+        for (int i = 0; i < n; i++) {
+            if (this._isExact[i] && thatToUnit._isExact[i]) {
+                long sumLong = this._exactValue[i] + thatToUnit._exactValue[i];
+                double sumDouble = ((double) this._exactValue[i])
+                        + ((double) thatToUnit._exactValue[i]);
+                if (sumLong == sumDouble) {
+                    setExact(result, i, sumLong);
+                    continue;
+                }
+            }
+            setInterval(result, i, this._minimum[i] + thatToUnit._minimum[i],
+                    this._maximum[i] + thatToUnit._maximum[i]);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the element-wise difference of this column with the one
+     * specified.
+     *
+     * @param that the column to be subtracted (same length).
+     * @return <code>this - that</code>
+     * @throws ConversionException if the current model does not allows for
+     *         these quantities to be subtracted.
+     * @throws IllegalArgumentException if the columns lengths differ.
+     * @see Amount#minus(Amount)
+     */
+    @SuppressWarnings("unchecked")
+    public AmountArray<Q> minus(AmountArray<?> that) throws ConversionException {
+        final AmountArray<Q> thatToUnit = ((AmountArray<Q>) that).to(_unit);
+        final int n = checkLength(that);
+        AmountArray<Q> result = new AmountArray<Q>(n, _unit);
+        for (int i = 0; i < n; i++) {
+            if (this._isExact[i] && thatToUnit._isExact[i]) {
+                long diffLong = this._exactValue[i] - thatToUnit._exactValue[i];
+                double diffDouble = ((double) this._exactValue[i])
+                        - ((double) thatToUnit._exactValue[i]);
+                if (diffLong == diffDouble) {
+                    setExact(result, i, diffLong);
+                    continue;
+                }
+            }
+            setInterval(result, i, this._minimum[i] - thatToUnit._maximum[i],
+                    this._maximum[i] - thatToUnit._minimum[i]);
+        }
+        return result;
+    }
+
+    /**
+     * Returns this column scaled by the specified exact factor
+     * (dimensionless).
+     *
+     * @param factor the scaling factor.
+     * @return <code>this · factor</code>
+     * @see Amount#times(long)
+     */
+    public AmountArray<Q> times(long factor) {
+        AmountArray<Q> result = new AmountArray<Q>(length(), _unit);
+        times(this, factor, result);
+        return result;
+    }
+
+    /**
+     * Returns this column scaled by the specified approximate factor
+     * (dimensionless).
+     *
+     * @param factor the scaling factor.
+     * @return <code>this · factor</code>
+     * @see Amount#times(double)
+     */
+    public AmountArray<Q> times(double factor) {
+        final int n = length();
+        AmountArray<Q> result = new AmountArray<Q>(n, _unit);
+        for (int i = 0; i < n; i++) {
+            double min = (factor > 0) ? _minimum[i] * factor : _maximum[i] * factor;
+            double max = (factor > 0) ? _maximum[i] * factor : _minimum[i] * factor;
+            result._isExact[i] = false;
+            result._minimum[i] = (min < 0) ? min * INCREMENT : min * DECREMENT;
+            result._maximum[i] = (max < 0) ? max * DECREMENT : max * INCREMENT;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the element-wise product of this column with the one
+     * specified. The product unit is resolved once for the whole column.
+     *
+     * @param that the column multiplier (same length).
+     * @return <code>this · that</code>
+     * @throws IllegalArgumentException if the columns lengths differ.
+     * @see Amount#times(Amount)
+     */
+    public AmountArray<? extends Quantity> times(AmountArray<?> that) {
+        final int n = checkLength(that);
+        Unit<?> unit = Amount.productOf(this._unit, that._unit);
+        AmountArray<? extends Quantity> result = new AmountArray<Quantity>(n,
+                uncheckedCast(unit));
+        for (int i = 0; i < n; i++) {
+            if (that._isExact[i]) {
+                times(this, i, that._exactValue[i], result);
+            } else {
+                times(this._minimum[i], this._maximum[i], that._minimum[i],
+                        that._maximum[i], result, i);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns this column divided by the specified exact divisor
+     * (dimensionless).
+     *
+     * @param divisor the exact divisor.
+     * @return <code>this / divisor</code>
+     * @throws ArithmeticException if an element is exact and the
+     *         specified divisor is zero.
+     * @see Amount#divide(long)
+     */
+    public AmountArray<Q> divide(long divisor) {
+        AmountArray<Q> result = new AmountArray<Q>(length(), _unit);
+        divide(this, divisor, result);
+        return result;
+    }
+
+    /**
+     * Returns this column divided by the specified approximate divisor
+     * (dimensionless).
+     *
+     * @param divisor the approximated divisor.
+     * @return <code>this / divisor</code>
+     * @see Amount#divide(double)
+     */
+    public AmountArray<Q> divide(double divisor) {
+        final int n = length();
+        AmountArray<Q> result = new AmountArray<Q>(n, _unit);
+        for (int i = 0; i < n; i++) {
+            double min = (divisor > 0) ? _minimum[i] / divisor : _maximum[i] / divisor;
+            double max = (divisor > 0) ? _maximum[i] / divisor : _minimum[i] / divisor;
+            result._isExact[i] = false;
+            result._minimum[i] = (min < 0) ? min * INCREMENT : min * DECREMENT;
+            result._maximum[i] = (max < 0) ? max * DECREMENT : max * INCREMENT;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the element-wise quotient of this column with the one
+     * specified. The quotient unit is resolved once for the whole column.
+     *
+     * @param that the column divisor (same length).
+     * @return <code>this / that</code>
+     * @throws IllegalArgumentException if the columns lengths differ.
+     * @see Amount#divide(Amount)
+     */
+    public AmountArray<? extends Quantity> divide(AmountArray<?> that) {
+        final int n = checkLength(that);
+        Unit<?> unit = Amount.productOf(this._unit, Amount
+                .inverseOf(that._unit));
+        AmountArray<? extends Quantity> result = new AmountArray<Quantity>(n,
+                uncheckedCast(unit));
+        for (int i = 0; i < n; i++) {
+            if (that._isExact[i]) {
+                divide(this, i, that._exactValue[i], result);
+                continue;
+            }
+            // Inverse of that element (see Amount.inverse()).
+            double invMin, invMax;
+            if ((that._minimum[i] <= 0) && (that._maximum[i] >= 0)) { // Encompass zero.
+                invMin = Double.NEGATIVE_INFINITY;
+                invMax = Double.POSITIVE_INFINITY;
+            } else {
+                double min = 1.0 / that._maximum[i];
+                double max = 1.0 / that._minimum[i];
+                invMin = (min < 0) ? min * INCREMENT : min * DECREMENT;
+                invMax = (max < 0) ? max * DECREMENT : max * INCREMENT;
+            }
+            times(this._minimum[i], this._maximum[i], invMin, invMax, result, i);
+        }
+        return result;
+    }
+
+    /**
+     * Compares element-wise this column with the one specified.
+     *
+     * @param that the column to compare with (same length).
+     * @return the array holding for each element a negative integer, zero,
+     *         or a positive integer as this element is less than, equal to,
+     *         or greater than that element.
+     * @throws ConversionException if the current model does not allows for
+     *         these columns to be compared.
+     * @throws IllegalArgumentException if the columns lengths differ.
+     * @see Amount#compareTo(javax.measure.Measurable)
+     */
+    public int[] compare(AmountArray<Q> that) {
+        final AmountArray<Q> thatToUnit = that.to(_unit);
+        final int n = checkLength(that);
+        int[] result = new int[n];
+        for (int i = 0; i < n; i++) {
+            result[i] = Double.compare(this.getEstimatedValue(i),
+                    thatToUnit.getEstimatedValue(i));
+        }
+        return result;
+    }
+
+    /////////////
+    // Kernels //
+    /////////////
+
+    private int checkLength(AmountArray<?> that) {
+        if (that.length() != this.length())
+            throw new IllegalArgumentException("Length mismatch: "
+                    + this.length() + " and " + that.length());
+        return this.length();
+    }
+
+    // See Amount.setExact(long)
+    private static void setExact(AmountArray<?> array, int i, long exactValue) {
+        array._isExact[i] = true;
+        array._exactValue[i] = exactValue;
+        double doubleValue = exactValue;
+        if (doubleValue == exactValue) {
+            array._minimum[i] = doubleValue;
+            array._maximum[i] = doubleValue;
+        } else {
+            double valInc = exactValue * INCREMENT;
+            double valDec = exactValue * DECREMENT;
+            array._minimum[i] = (exactValue < 0) ? valInc : valDec;
+            array._maximum[i] = (exactValue < 0) ? valDec : valInc;
+        }
+    }
+
+    // Sets an inexact element, widening the interval by the numeric error.
+    private static void setInterval(AmountArray<?> array, int i, double min,
+            double max) {
+        array._isExact[i] = false;
+        array._minimum[i] = (min < 0) ? min * INCREMENT : min * DECREMENT;
+        array._maximum[i] = (max < 0) ? max * DECREMENT : max * INCREMENT;
+    }
+
+    // See Amount.times(long)
+    private static void times(AmountArray<?> src, long factor,
+            AmountArray<?> dst) {
+        for (int i = 0, n = src.length(); i < n; i++) {
+            times(src, i, factor, dst);
+        }
+    }
+
+    private static void times(AmountArray<?> src, int i, long factor,
+            AmountArray<?> dst) {
+        if (src._isExact[i]) {
+            long productLong = src._exactValue[i] * factor;
+            double productDouble = ((double) src._exactValue[i]) * factor;
+            if (productLong == productDouble) {
+                setExact(dst, i, productLong);
+                return;
+            }
+        }
+        double min = src._minimum[i];
+        double max = src._maximum[i];
+        dst._isExact[i] = false;
+        dst._minimum[i] = (factor > 0) ? min * factor : max * factor;
+        dst._maximum[i] = (factor > 0) ? max * factor : min * factor;
+    }
+
+    // See Amount.divide(long)
+    private static void divide(AmountArray<?> src, long divisor,
+            AmountArray<?> dst) {
+        for (int i = 0, n = src.length(); i < n; i++) {
+            divide(src, i, divisor, dst);
+        }
+    }
+
+    private static void divide(AmountArray<?> src, int i, long divisor,
+            AmountArray<?> dst) {
+        if (src._isExact[i]) {
+            long quotientLong = src._exactValue[i] / divisor;
+            double quotientDouble = ((double) src._exactValue[i]) / divisor;
+            if (quotientLong == quotientDouble) {
+                setExact(dst, i, quotientLong);
+                return;
+            }
+        }
+        double srcMin = src._minimum[i];
+        double srcMax = src._maximum[i];
+        double min = (divisor > 0) ? srcMin / divisor : srcMax / divisor;
+        double max = (divisor > 0) ? srcMax / divisor : srcMin / divisor;
+        setInterval(dst, i, min, max);
+    }
+
+    // See Amount.times(Amount) (interval product).
+    private static void times(double thisMin, double thisMax, double thatMin,
+            double thatMax, AmountArray<?> dst, int i) {
+        double min, max;
+        if (thisMin >= 0) {
+            if (thatMin >= 0) {
+                min = thisMin * thatMin;
+                max = thisMax * thatMax;
+            } else if (thatMax < 0) {
+                min = thisMax * thatMin;
+                max = thisMin * thatMax;
+            } else {
+                min = thisMax * thatMin;
+                max = thisMax * thatMax;
+            }
+        } else if (thisMax < 0) {
+            if (thatMin >= 0) {
+                min = thisMin * thatMax;
+                max = thisMax * thatMin;
+            } else if (thatMax < 0) {
+                min = thisMax * thatMax;
+                max = thisMin * thatMin;
+            } else {
+                min = thisMin * thatMax;
+                max = thisMin * thatMin;
+            }
+        } else {
+            if (thatMin >= 0) {
+                min = thisMin * thatMax;
+                max = thisMax * thatMax;
+            } else if (thatMax < 0) {
+                min = thisMax * thatMin;
+                max = thisMin * thatMin;
+            } else { // Both around zero.
+                min = Math.min(thisMin * thatMax, thisMax * thatMin);
+                max = Math.max(thisMin * thatMin, thisMax * thatMax);
+            }
+        }
+        setInterval(dst, i, min, max);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Unit<Quantity> uncheckedCast(Unit<?> unit) {
+        return (Unit<Quantity>) unit;
+    }
+
+    private static final long serialVersionUID = 1L;
+}
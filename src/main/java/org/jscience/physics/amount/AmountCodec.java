@@ -0,0 +1,295 @@
+/*
+ * JScience - Java(TM) Tools and Libraries for the Advancement of Sciences.
+ * Copyright (C) 2006 - JScience (http://jscience.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.jscience.physics.amount;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+import javax.measure.converter.ConversionException;
+import javax.measure.quantity.Quantity;
+import javax.measure.unit.Unit;
+import javax.measure.unit.UnitRegistry;
+
+/**
+ * <p> This class provides a compact binary encoding of {@link Amount amounts}
+ *     preserving their exactness and error bounds; units are referenced by
+ *     their identifier in a {@link UnitRegistry} shared by the writer and
+ *     the reader. For example:[code]
+ *         AmountCodec codec = new AmountCodec(UnitRegistry.getInstance());
+ *         codec.write(measurements, 0, measurements.length(), buffer); // AmountArray
+ *         ...
+ *         Amount<?> first = codec.read(buffer);
+ *     [/code]</p>
+ *
+ * <p> Each amount is encoded as a tag byte, the unit identifier (unsigned
+ *     variable-length integer) and then:<ul>
+ *     <li>exact amounts: the exact value (zigzag variable-length integer,
+ *         one byte for values in <code>[-64, 63]</code>),</li>
+ *     <li>intervals whose bounds have the same sign and are close: the
+ *         minimum (8 bytes) and the number of <code>double</code> values
+ *         from the minimum to the maximum (variable-length integer,
+ *         typically one byte),</li>
+ *     <li>other intervals: the minimum and the maximum (8 bytes each).</li>
+ *     </ul>
+ *     Decoded amounts have the same exactness and interval bounds as the
+ *     encoded ones. No more than {@link #MAX_LENGTH} bytes are written per
+ *     amount.</p>
+ *
+ * <p> Columns of amounts ({@link AmountArray}) are encoded and decoded
+ *     without allocating any object per amount. Instances of this class
+ *     are immutable and thread-safe.</p>
+ */
+public final class AmountCodec {
+
+    /**
+     * Holds the maximum number of bytes written per amount.
+     */
+    public static final int MAX_LENGTH = 1 + 5 + 16;
+
+    private static final int EXACT = 0;
+
+    private static final int INTERVAL = 1;
+
+    private static final int ULPS = 2;
+
+    /**
+     * Holds the largest number of ulps written as an integer (three bytes).
+     */
+    private static final long MAX_ULPS = (1L << 21) - 1;
+
+    /**
+     * Holds the number of bytes buffered when writing to streams.
+     */
+    private static final int CHUNK_LENGTH = 4096;
+
+    /**
+     * Holds the registry identifying units.
+     */
+    private final UnitRegistry _registry;
+
+    /**
+     * Creates a codec referencing units through the specified registry.
+     *
+     * @param registry the registry shared by the writers and the readers.
+     */
+    public AmountCodec(UnitRegistry registry) {
+        _registry = registry;
+    }
+
+    /**
+     * Returns the registry identifying units.
+     *
+     * @return the unit registry.
+     */
+    public UnitRegistry getRegistry() {
+        return _registry;
+    }
+
+    /**
+     * Writes the specified amount into the specified buffer (at its current
+     * position); the amount unit is registered if necessary.
+     *
+     * @param  amount the amount to write.
+     * @param  buffer the destination buffer.
+     * @throws java.nio.BufferOverflowException if there is insufficient
+     *         space in the buffer.
+     */
+    public void write(Amount<?> amount, ByteBuffer buffer) {
+        write(_registry.register(amount.getUnit()), amount.isExact(), amount
+                .isExact() ? amount.getExactValue() : 0L, amount
+                .getMinimumValue(), amount.getMaximumValue(), buffer);
+    }
+
+    /**
+     * Writes the specified range of elements into the specified buffer (at
+     * its current position).
+     *
+     * @param  amounts the column of amounts.
+     * @param  from the index of the first element to write.
+     * @param  to the index after the last element to write.
+     * @param  buffer the destination buffer.
+     * @throws java.nio.BufferOverflowException if there is insufficient
+     *         space in the buffer.
+     */
+    public void write(AmountArray<?> amounts, int from, int to,
+            ByteBuffer buffer) {
+        checkRange(amounts, from, to);
+        int unitId = _registry.register(amounts.getUnit());
+        for (int i = from; i < to; i++) {
+            writeElement(amounts, i, unitId, buffer);
+        }
+    }
+
+    /**
+     * Writes the specified range of elements to the specified stream. The
+     * elements are encoded by chunks into a single buffer.
+     *
+     * @param  amounts the column of amounts.
+     * @param  from the index of the first element to write.
+     * @param  to the index after the last element to write.
+     * @param  out the destination stream (not flushed).
+     * @throws IOException if an I/O error occurs.
+     */
+    public void write(AmountArray<?> amounts, int from, int to,
+            OutputStream out) throws IOException {
+        checkRange(amounts, from, to);
+        int unitId = _registry.register(amounts.getUnit());
+        ByteBuffer buffer = ByteBuffer.allocate(CHUNK_LENGTH);
+        for (int i = from; i < to; i++) {
+            if (buffer.remaining() < MAX_LENGTH) {
+                out.write(buffer.array(), 0, buffer.position());
+                buffer.clear();
+            }
+            writeElement(amounts, i, unitId, buffer);
+        }
+        out.write(buffer.array(), 0, buffer.position());
+    }
+
+    /**
+     * Reads an amount from the specified buffer (at its current position).
+     *
+     * @param  buffer the source buffer.
+     * @return the amount read.
+     * @throws java.nio.BufferUnderflowException if the buffer does not
+     *         hold a complete amount.
+     * @throws IllegalArgumentException if the bytes do not hold a valid
+     *         amount.
+     */
+    public Amount<?> read(ByteBuffer buffer) {
+        int tag = buffer.get();
+        Unit<?> unit = unitOf(buffer);
+        if (tag == EXACT)
+            return Amount.valueOf(zigzag(readVarLong(buffer)), unit);
+        double min = buffer.getDouble();
+        double max = maximum(tag, min, buffer);
+        return Amount.newInstance(unit, false, 0L, min, max);
+    }
+
+    /**
+     * Reads the specified range of elements from the specified buffer (at
+     * its current position). Amounts stated in another unit than the
+     * column unit are converted (see {@link AmountArray#set(int, Amount)}).
+     *
+     * @param  buffer the source buffer.
+     * @param  amounts the destination column.
+     * @param  from the index of the first element to read.
+     * @param  to the index after the last element to read.
+     * @throws java.nio.BufferUnderflowException if the buffer does not
+     *         hold enough amounts.
+     * @throws IllegalArgumentException if the bytes do not hold valid
+     *         amounts.
+     * @throws ConversionException if an amount cannot be stated in the
+     *         column unit.
+     */
+    public void read(ByteBuffer buffer, AmountArray<?> amounts, int from,
+            int to) throws ConversionException {
+        checkRange(amounts, from, to);
+        Unit<?> columnUnit = amounts.getUnit();
+        for (int i = from; i < to; i++) {
+            int tag = buffer.get();
+            Unit<?> unit = unitOf(buffer);
+            boolean isExact = (tag == EXACT);
+            long exactValue = isExact ? zigzag(readVarLong(buffer)) : 0L;
+            double min = isExact ? 0.0 : buffer.getDouble();
+            double max = isExact ? 0.0 : maximum(tag, min, buffer);
+            if ((unit != columnUnit) && !unit.equals(columnUnit)) {
+                amounts.set(i, isExact ? Amount.valueOf(exactValue, unit)
+                        : Amount.newInstance(unit, false, 0L, min, max));
+            } else if (isExact) {
+                amounts.setExact(i, exactValue);
+            } else {
+                amounts.setBounds(i, min, max);
+            }
+        }
+    }
+
+    private void writeElement(AmountArray<?> amounts, int i, int unitId,
+            ByteBuffer buffer) {
+        boolean isExact = amounts.isExact(i);
+        write(unitId, isExact, isExact ? amounts.getExactValue(i) : 0L,
+                amounts.getMinimumValue(i), amounts.getMaximumValue(i), buffer);
+    }
+
+    private static void write(int unitId, boolean isExact, long exactValue,
+            double min, double max, ByteBuffer buffer) {
+        if (isExact) {
+            buffer.put((byte) EXACT);
+            writeVarLong(unitId, buffer);
+            writeVarLong((exactValue << 1) ^ (exactValue >> 63), buffer);
+            return;
+        }
+        long minBits = Double.doubleToRawLongBits(min);
+        long maxBits = Double.doubleToRawLongBits(max);
+        // Same sign: consecutive doubles have consecutive bits (decreasing
+        // for negative values).
+        long ulps = (minBits < 0) ? minBits - maxBits : maxBits - minBits;
+        if ((min == min) && (max == max) && ((minBits ^ maxBits) >= 0)
+                && (ulps >= 0) && (ulps <= MAX_ULPS)) {
+            buffer.put((byte) ULPS);
+            writeVarLong(unitId, buffer);
+            buffer.putDouble(min);
+            writeVarLong(ulps, buffer);
+        } else {
+            buffer.put((byte) INTERVAL);
+            writeVarLong(unitId, buffer);
+            buffer.putDouble(min);
+            buffer.putDouble(max);
+        }
+    }
+
+    private static double maximum(int tag, double min, ByteBuffer buffer) {
+        if (tag == INTERVAL)
+            return buffer.getDouble();
+        if (tag != ULPS)
+            throw new IllegalArgumentException("Invalid amount tag: " + tag);
+        long ulps = readVarLong(buffer);
+        long minBits = Double.doubleToRawLongBits(min);
+        return Double.longBitsToDouble((minBits < 0) ? minBits - ulps
+                : minBits + ulps);
+    }
+
+    private Unit<?> unitOf(ByteBuffer buffer) {
+        long id = readVarLong(buffer);
+        if ((id < 0) || (id >= _registry.size()))
+            throw new IllegalArgumentException("Unknown unit identifier: "
+                    + id);
+        return _registry.getUnit((int) id);
+    }
+
+    private static long zigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    // Writes an unsigned variable-length integer (7 bits per byte).
+    private static void writeVarLong(long value, ByteBuffer buffer) {
+        while ((value & ~0x7FL) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    private static long readVarLong(ByteBuffer buffer) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = buffer.get();
+            value |= ((long) (b & 0x7F)) << shift;
+            if (b >= 0)
+                return value;
+        }
+        throw new IllegalArgumentException("Variable-length integer too long");
+    }
+
+    private static void checkRange(AmountArray<?> amounts, int from, int to) {
+        if ((from < 0) || (to > amounts.length()) || (from > to))
+            throw new IndexOutOfBoundsException("from: " + from + ", to: "
+                    + to);
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * JScience - Java(TM) Tools and Libraries for the Advancement of Sciences.
+ * Copyright (C) 2006 - JScience (http://jscience.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.jscience.physics.amount;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collector;
+import java.util.stream.Collectors;
+
+import javax.measure.quantity.Quantity;
+import javax.measure.unit.Unit;
+
+/**
+ * <p> This class provides {@link Collector collectors} aggregating streams
+ *     of {@link Amount amounts}.</p>
+ *
+ * <p> Amounts are accumulated in place into an {@link AmountAccumulator}
+ *     stated in a target unit; amounts stated in other (compatible) units
+ *     are converted through the accumulator converter cache. Partial
+ *     results are merged using {@link AmountAccumulator#combine}, parallel
+ *     streams are then split across the fork-join pool. For example:[code]
+ *         Amount<Energy> total = readings.parallelStream()
+ *             .collect(AmountCollectors.summing(JOULE));
+ *         Optional<Amount<Energy>> peak = readings.parallelStream()
+ *             .collect(AmountCollectors.maximum(JOULE));
+ *     [/code]</p>
+ *
+ * <p> Error propagation is the same as for {@link Amount#plus(Amount)};
+ *     only the grouping of the additions (and hence the numeric error)
+ *     depends upon how the stream has been split.</p>
+ *
+ * @see AmountAccumulator
+ */
+public final class AmountCollectors {
+
+    /**
+     * Default constructor (private for utility class).
+     */
+    private AmountCollectors() {
+    }
+
+    /**
+     * Returns a collector accumulating the amounts into an
+     * {@link AmountAccumulator} (sum, minimum, maximum, mean and variance
+     * in a single pass).
+     *
+     * @param unit the unit in which the amounts are accumulated.
+     * @return the corresponding collector.
+     */
+    public static <Q extends Quantity> Collector<Amount<?>, ?, AmountAccumulator<Q>> accumulating(
+            final Unit<Q> unit) {
+        return Collector.of(() -> new AmountAccumulator<Q>(unit),
+                AmountAccumulator::add, AmountAccumulator::combine,
+                Collector.Characteristics.IDENTITY_FINISH);
+    }
+
+    /**
+     * Returns a collector summing the amounts.
+     *
+     * @param unit the unit in which the sum is stated.
+     * @return the collector returning the sum (exact zero if no amount).
+     */
+    public static <Q extends Quantity> Collector<Amount<?>, ?, Amount<Q>> summing(
+            Unit<Q> unit) {
+        return Collectors.collectingAndThen(accumulating(unit),
+                AmountAccumulator::sum);
+    }
+
+    /**
+     * Returns a collector selecting the smallest amount (by estimated
+     * value).
+     *
+     * @param unit the unit in which the minimum is stated.
+     * @return the collector returning the minimum (empty if no amount).
+     */
+    public static <Q extends Quantity> Collector<Amount<?>, ?, Optional<Amount<Q>>> minimum(
+            Unit<Q> unit) {
+        return Collectors.collectingAndThen(accumulating(unit),
+                acc -> Optional.ofNullable(acc.min()));
+    }
+
+    /**
+     * Returns a collector selecting the largest amount (by estimated
+     * value).
+     *
+     * @param unit the unit in which the maximum is stated.
+     * @return the collector returning the maximum (empty if no amount).
+     */
+    public static <Q extends Quantity> Collector<Amount<?>, ?, Optional<Amount<Q>>> maximum(
+            Unit<Q> unit) {
+        return Collectors.collectingAndThen(accumulating(unit),
+                acc -> Optional.ofNullable(acc.max()));
+    }
+
+    /**
+     * Returns a collector calculating the arithmetic mean of the amounts.
+     *
+     * @param unit the unit in which the mean is stated.
+     * @return the collector returning the mean (empty if no amount).
+     */
+    public static <Q extends Quantity> Collector<Amount<?>, ?, Optional<Amount<Q>>> averaging(
+            Unit<Q> unit) {
+        return Collectors.collectingAndThen(accumulating(unit),
+                acc -> Optional.ofNullable(acc.mean()));
+    }
+
+    /**
+     * Returns a collector calculating the sample variance of the amounts
+     * estimated values.
+     *
+     * @param unit the unit in which the amounts are accumulated (the
+     *        variance is stated in the square of this unit).
+     * @return the collector returning the variance (empty if less than
+     *         two amounts).
+     */
+    public static Collector<Amount<?>, ?, Optional<Amount<? extends Quantity>>> variance(
+            Unit<?> unit) {
+        return Collectors.collectingAndThen(accumulating(unit),
+                acc -> Optional.<Amount<? extends Quantity>> ofNullable(acc
+                        .variance()));
+    }
+
+    /**
+     * Returns a collector counting the amounts by unit (no conversion is
+     * performed).
+     *
+     * @return the collector returning the number of amounts per unit.
+     */
+    public static Collector<Amount<?>, ?, Map<Unit<?>, Long>> countingByUnit() {
+        return Collectors.groupingBy(AmountCollectors::unitOf,
+                Collectors.counting());
+    }
+
+    private static Unit<?> unitOf(Amount<?> amount) {
+        return amount.getUnit();
+    }
+}
@@ -0,0 +1,758 @@
+/*
+ * JScience - Java(TM) Tools and Libraries for the Advancement of Sciences.
+ * Copyright (C) 2006 - JScience (http://jscience.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package org.jscience.physics.amount;
+
+import javax.measure.converter.ConversionException;
+import javax.measure.converter.RationalConverter;
+import javax.measure.converter.UnitConverter;
+import javax.measure.quantity.Duration;
+import javax.measure.quantity.Quantity;
+import javax.measure.unit.Unit;
+
+import static org.jscience.physics.amount.Amount.DECREMENT;
+import static org.jscience.physics.amount.Amount.INCREMENT;
+
+/**
+ * <p> This class represents a sliding time window over a stream of
+ *     {@link Amount amounts}; the mean, minimum, maximum, standard deviation
+ *     and time integral of the amounts within the window are maintained
+ *     incrementally. For example:[code]
+ *         AmountWindow<Power> lastMinute = new AmountWindow<Power>(WATT, MILLI(SECOND), 60000, 500);
+ *         ...
+ *         lastMinute.add(System.currentTimeMillis(), reading);
+ *         Amount<Power> average = lastMinute.mean(KILO(WATT));
+ *         Amount<Energy> energy = lastMinute.integral(JOULE);
+ *     [/code]</p>
+ *
+ * <p> The window covers the time range <code>(end - length, end]</code>,
+ *     <code>end</code> being the latest time seen minus the lateness
+ *     tolerance. Amounts are held back until the window end reaches them,
+ *     amounts arriving out of order within the lateness tolerance are then
+ *     accounted for in time order; older amounts are dropped (see
+ *     {@link #getLateCount}). Amounts are evicted when the window end moves
+ *     past them. The signal is taken as constant from one amount to the
+ *     next (the last amount being held) for the integral.</p>
+ *
+ * <p> The mean and the integral are calculated from the interval bounds
+ *     of the amounts, their error includes the rounding errors of the
+ *     running sums (recomputed from the buffered amounts once every buffer
+ *     capacity updates). The minimum and maximum are the amounts with the
+ *     smallest and largest estimated values; the standard deviation is
+ *     calculated from the estimated values (see
+ *     {@link AmountAccumulator#variance}).</p>
+ *
+ * <p> Amounts are stated in the window unit as they are added and held in
+ *     primitive ring buffers (see {@link AmountArray}); converters are
+ *     cached within the window (identity lookup). Updates take constant
+ *     amortized time. Windows are not thread-safe.</p>
+ *
+ * @see AmountAccumulator
+ */
+public final class AmountWindow<Q extends Quantity> {
+
+    /**
+     * Holds the number of source units whose converter is cached.
+     */
+    private static final int CONVERTER_CACHE_SIZE = 8;
+
+    /**
+     * Holds the initial capacity of the buffers (power of two).
+     */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * Holds the unit in which the amounts are stated.
+     */
+    private final Unit<Q> _unit;
+
+    /**
+     * Holds the unit of the integral (window unit times time unit).
+     */
+    private final Unit<?> _integralUnit;
+
+    /**
+     * Holds the window length.
+     */
+    private final long _length;
+
+    /**
+     * Holds the lateness tolerance.
+     */
+    private final long _lateness;
+
+    /**
+     * Holds the amounts within the window (ring buffers indexed by
+     * sequence number).
+     */
+    private Buffer _buffer = new Buffer(INITIAL_CAPACITY);
+
+    /**
+     * Holds the sequence numbers of the first amount and of the next
+     * amount to be added.
+     */
+    private long _head, _tail;
+
+    /**
+     * Holds the sequence numbers of the candidate minima (increasing
+     * estimates) and their queue bounds.
+     */
+    private long[] _minQueue = new long[INITIAL_CAPACITY];
+    private long _minHead, _minTail;
+
+    /**
+     * Holds the sequence numbers of the candidate maxima (decreasing
+     * estimates) and their queue bounds.
+     */
+    private long[] _maxQueue = new long[INITIAL_CAPACITY];
+    private long _maxHead, _maxTail;
+
+    /**
+     * Holds the amounts not yet reached by the window end (ordered by
+     * time, ring buffer).
+     */
+    private Buffer _pending = new Buffer(INITIAL_CAPACITY);
+    private int _pendingHead, _pendingCount;
+
+    /**
+     * Indicates if an amount has been added.
+     */
+    private boolean _isStarted;
+
+    /**
+     * Holds the latest time seen.
+     */
+    private long _latest;
+
+    /**
+     * Holds the window end.
+     */
+    private long _end;
+
+    /**
+     * Holds the time of the last amount accounted for.
+     */
+    private long _committed = Long.MIN_VALUE;
+
+    /**
+     * Holds the number of amounts dropped because too late.
+     */
+    private long _lateCount;
+
+    /**
+     * Holds the running sums of the interval bounds and their rounding
+     * error.
+     */
+    private double _sumMinimum, _sumMaximum, _sumError;
+
+    /**
+     * Holds the running integral bounds between the first and last amounts
+     * and their rounding error.
+     */
+    private double _areaMinimum, _areaMaximum, _areaError;
+
+    /**
+     * Holds the value subtracted from the estimates summed (reduces
+     * cancellation in the variance).
+     */
+    private double _shift;
+
+    /**
+     * Holds the running sums of the shifted estimates and of their squares.
+     */
+    private double _sum, _sumOfSquares;
+
+    /**
+     * Holds the interval of the last amount evicted (held until the first
+     * amount within the window).
+     */
+    private double _heldMinimum, _heldMaximum;
+    private boolean _isHeld;
+
+    /**
+     * Holds the number of updates since the sums were last recomputed.
+     */
+    private int _updates;
+
+    /**
+     * Holds the last value added, stated in the window unit.
+     */
+    private boolean _valueIsExact;
+    private long _valueExact;
+    private double _valueMinimum;
+    private double _valueMaximum;
+
+    /**
+     * Holds the source units whose converter is cached.
+     */
+    private final Unit<?>[] _sourceUnits = new Unit<?>[CONVERTER_CACHE_SIZE];
+
+    /**
+     * Holds the converters from the source units to the window unit.
+     */
+    private final UnitConverter[] _converters = new UnitConverter[CONVERTER_CACHE_SIZE];
+
+    /**
+     * Holds the index of the next converter cache entry to be replaced.
+     */
+    private int _nextConverter;
+
+    /**
+     * Creates an empty window for amounts stated in the specified unit.
+     *
+     * @param  unit the unit in which the amounts are stated.
+     * @param  timeUnit the unit of the timestamps.
+     * @param  length the window length (positive, in time unit).
+     * @param  lateness the delay (in time unit) during which amounts
+     *         arriving out of order are still accepted.
+     * @throws IllegalArgumentException if the length is not positive or
+     *         the lateness is negative.
+     */
+    public AmountWindow(Unit<Q> unit, Unit<Duration> timeUnit, long length,
+            long lateness) {
+        if (length <= 0)
+            throw new IllegalArgumentException("Non-positive length");
+        if (lateness < 0)
+            throw new IllegalArgumentException("Negative lateness");
+        _unit = unit;
+        _integralUnit = Amount.productOf(unit, timeUnit);
+        _length = length;
+        _lateness = lateness;
+    }
+
+    /**
+     * Returns the unit in which the amounts are stated.
+     *
+     * @return the window unit.
+     */
+    public Unit<Q> getUnit() {
+        return _unit;
+    }
+
+    /**
+     * Returns the number of amounts within the window.
+     *
+     * @return the number of amounts accounted for.
+     */
+    public int size() {
+        return (int) (_tail - _head);
+    }
+
+    /**
+     * Returns the number of amounts dropped because they arrived after the
+     * lateness tolerance.
+     *
+     * @return the number of late amounts.
+     */
+    public long getLateCount() {
+        return _lateCount;
+    }
+
+    /**
+     * Adds the specified amount.
+     *
+     * @param  time the amount timestamp.
+     * @param  amount the amount to add.
+     * @return <code>true</code> if the amount is accepted;
+     *         <code>false</code> if it arrived too late.
+     * @throws ConversionException if the amount cannot be stated in the
+     *         window unit.
+     */
+    public boolean add(long time, Amount<?> amount) {
+        if (time < _committed) {
+            _lateCount++;
+            return false;
+        }
+        convert(amount.getUnit(), amount.isExact(), amount.isExact() ? amount
+                .getExactValue() : 0L, amount.getMinimumValue(), amount
+                .getMaximumValue());
+        insert(time);
+        return true;
+    }
+
+    /**
+     * Adds the specified approximate value (± LSB) stated in the specified
+     * unit.
+     *
+     * @param  time the amount timestamp.
+     * @param  value the estimated value.
+     * @param  unit the unit in which the value is stated.
+     * @return <code>true</code> if the amount is accepted;
+     *         <code>false</code> if it arrived too late.
+     * @throws ConversionException if the unit is not compatible with the
+     *         window unit.
+     * @see Amount#valueOf(double, Unit)
+     */
+    public boolean add(long time, double value, Unit<?> unit) {
+        if (time < _committed) {
+            _lateCount++;
+            return false;
+        }
+        double valInc = value * INCREMENT;
+        double valDec = value * DECREMENT;
+        convert(unit, false, 0L, (value < 0) ? valInc : valDec,
+                (value < 0) ? valDec : valInc);
+        insert(time);
+        return true;
+    }
+
+    /**
+     * Moves the window end to the specified time minus the lateness
+     * tolerance (e.g. to evict old amounts when no new amount arrives).
+     * This method has no effect if a later time has been seen.
+     *
+     * @param time the current time.
+     */
+    public void advance(long time) {
+        if ((_isStarted) && (time <= _latest))
+            return;
+        _isStarted = true;
+        _latest = time;
+        _end = time - _lateness;
+        update();
+    }
+
+    /**
+     * Returns the arithmetic mean of the amounts within the window.
+     *
+     * @param  unit the unit of the result.
+     * @return the mean amount or <code>null</code> if the window is empty.
+     * @throws ConversionException if the unit is not compatible with the
+     *         window unit.
+     */
+    public Amount<Q> mean(Unit<Q> unit) {
+        int n = size();
+        if (n == 0)
+            return null;
+        return interval(_unit, (_sumMinimum - _sumError) / n,
+                (_sumMaximum + _sumError) / n).to(unit);
+    }
+
+    /**
+     * Returns the smallest amount (by estimated value) within the window.
+     *
+     * @param  unit the unit of the result.
+     * @return the smallest amount or <code>null</code> if the window is
+     *         empty.
+     * @throws ConversionException if the unit is not compatible with the
+     *         window unit.
+     */
+    public Amount<Q> min(Unit<Q> unit) {
+        if (_head == _tail)
+            return null;
+        return get(_minQueue[(int) _minHead & (_minQueue.length - 1)]).to(
+                unit);
+    }
+
+    /**
+     * Returns the largest amount (by estimated value) within the window.
+     *
+     * @param  unit the unit of the result.
+     * @return the largest amount or <code>null</code> if the window is
+     *         empty.
+     * @throws ConversionException if the unit is not compatible with the
+     *         window unit.
+     */
+    public Amount<Q> max(Unit<Q> unit) {
+        if (_head == _tail)
+            return null;
+        return get(_maxQueue[(int) _maxHead & (_maxQueue.length - 1)]).to(
+                unit);
+    }
+
+    /**
+     * Returns the sample standard deviation of the estimated values within
+     * the window. Only the scale of the conversion to the specified unit
+     * applies (e.g. offsets are ignored).
+     *
+     * @param  unit the unit of the result.
+     * @return the standard deviation (± LSB) or <code>null</code> if the
+     *         window holds less than two amounts.
+     * @throws ConversionException if the unit is not compatible with the
+     *         window unit.
+     */
+    public Amount<Q> standardDeviation(Unit<Q> unit) {
+        int n = size();
+        if (n < 2)
+            return null;
+        double variance = Math.max(0.0, (_sumOfSquares - _sum * _sum / n)
+                / (n - 1));
+        double scale = 1.0;
+        if ((unit != _unit) && !unit.equals(_unit)) {
+            UnitConverter cvtr = Amount.converterOf(_unit, unit);
+            scale = Math.abs(cvtr.convert(1.0) - cvtr.convert(0.0));
+        }
+        return Amount.valueOf(Math.sqrt(variance) * scale, unit);
+    }
+
+    /**
+     * Returns the time integral of the signal over the window; the time
+     * range before the first amount ever added is not accounted for.
+     *
+     * @param  unit the unit of the result (e.g. <code>JOULE</code> for
+     *         a power window).
+     * @return the integral or <code>null</code> if no amount has been
+     *         accounted for.
+     * @throws ConversionException if the unit is not compatible with the
+     *         window unit times the time unit.
+     */
+    public <R extends Quantity> Amount<R> integral(Unit<R> unit) {
+        double min, max, error;
+        if (_head == _tail) {
+            if (!_isHeld)
+                return null;
+            min = _heldMinimum * _length;
+            max = _heldMaximum * _length;
+            error = 0.0;
+        } else {
+            long last = _tail - 1;
+            long dt = _end - _buffer._times[_buffer.index(last)];
+            min = _areaMinimum + _buffer.minimum(last) * dt;
+            max = _areaMaximum + _buffer.maximum(last) * dt;
+            error = _areaError + ulp(min, max);
+            if (_isHeld) {
+                dt = _buffer._times[_buffer.index(_head)] - (_end - _length);
+                min += _heldMinimum * dt;
+                max += _heldMaximum * dt;
+                error += ulp(min, max);
+            }
+        }
+        return interval(_integralUnit, min - error, max + error).to(unit);
+    }
+
+    // Inserts the current value into the pending amounts (ordered by time).
+    private void insert(long time) {
+        if (_pendingCount == _pending._times.length) {
+            _pending = _pending.grow(_pendingHead, _pendingHead + _pendingCount);
+        }
+        long i = _pendingHead + _pendingCount++;
+        while ((i > _pendingHead)
+                && (_pending._times[_pending.index(i - 1)] > time)) {
+            _pending.move(i - 1, i);
+            i--;
+        }
+        int index = _pending.index(i);
+        _pending._times[index] = time;
+        _pending._isExact[index] = _valueIsExact;
+        _pending._exactValue[index] = _valueExact;
+        _pending._minimum[index] = _valueMinimum;
+        _pending._maximum[index] = _valueMaximum;
+        if ((!_isStarted) || (time > _latest)) {
+            _isStarted = true;
+            _latest = time;
+            _end = time - _lateness;
+        }
+        update();
+    }
+
+    // Commits the pending amounts reached by the window end and evicts the
+    // amounts out of the window.
+    private void update() {
+        while ((_pendingCount > 0)
+                && (_pending._times[_pending.index(_pendingHead)] <= _end)) {
+            commit(_pending.index(_pendingHead));
+            _pendingHead = _pending.index(_pendingHead + 1);
+            _pendingCount--;
+        }
+        long start = _end - _length;
+        while ((_head != _tail)
+                && (_buffer._times[_buffer.index(_head)] <= start)) {
+            evict();
+        }
+    }
+
+    // Commits the pending amount at the specified index.
+    private void commit(int pendingIndex) {
+        if (_tail - _head == _buffer._times.length) {
+            _buffer = _buffer.grow(_head, _tail);
+            _minQueue = grow(_minQueue, _minHead, _minTail);
+            _maxQueue = grow(_maxQueue, _maxHead, _maxTail);
+        }
+        long time = _pending._times[pendingIndex];
+        double min = _pending._minimum[pendingIndex];
+        double max = _pending._maximum[pendingIndex];
+        double estimate = _pending.estimate(pendingIndex);
+        if (_head == _tail) { // Restarts the sums.
+            _sumMinimum = _sumMaximum = _sumError = 0.0;
+            _areaMinimum = _areaMaximum = _areaError = 0.0;
+            _shift = estimate;
+            _sum = _sumOfSquares = 0.0;
+        } else {
+            long last = _tail - 1;
+            long dt = time - _buffer._times[_buffer.index(last)];
+            double lo = _buffer.minimum(last) * dt;
+            double hi = _buffer.maximum(last) * dt;
+            _areaMinimum += lo;
+            _areaMaximum += hi;
+            _areaError += ulp(lo, hi) + ulp(_areaMinimum, _areaMaximum);
+        }
+        _committed = time;
+        long seq = _tail++;
+        int index = _buffer.index(seq);
+        _buffer._times[index] = time;
+        _buffer._isExact[index] = _pending._isExact[pendingIndex];
+        _buffer._exactValue[index] = _pending._exactValue[pendingIndex];
+        _buffer._minimum[index] = min;
+        _buffer._maximum[index] = max;
+        _sumMinimum += min;
+        _sumMaximum += max;
+        _sumError += ulp(_sumMinimum, _sumMaximum);
+        double d = estimate - _shift;
+        _sum += d;
+        _sumOfSquares += d * d;
+        int mask = _minQueue.length - 1;
+        while ((_minTail != _minHead)
+                && (estimate(_minQueue[(int) (_minTail - 1) & mask]) > estimate)) {
+            _minTail--;
+        }
+        _minQueue[(int) _minTail++ & mask] = seq;
+        while ((_maxTail != _maxHead)
+                && (estimate(_maxQueue[(int) (_maxTail - 1) & mask]) < estimate)) {
+            _maxTail--;
+        }
+        _maxQueue[(int) _maxTail++ & mask] = seq;
+        if (++_updates >= _buffer._times.length) {
+            recompute();
+        }
+    }
+
+    private void evict() {
+        long seq = _head++;
+        int index = _buffer.index(seq);
+        double min = _buffer._minimum[index];
+        double max = _buffer._maximum[index];
+        if (_head != _tail) {
+            long dt = _buffer._times[_buffer.index(_head)]
+                    - _buffer._times[index];
+            double lo = min * dt;
+            double hi = max * dt;
+            _areaMinimum -= lo;
+            _areaMaximum -= hi;
+            _areaError += ulp(lo, hi) + ulp(_areaMinimum, _areaMaximum);
+        }
+        _sumMinimum -= min;
+        _sumMaximum -= max;
+        _sumError += ulp(_sumMinimum, _sumMaximum);
+        double d = _buffer.estimate(index) - _shift;
+        _sum -= d;
+        _sumOfSquares -= d * d;
+        int mask = _minQueue.length - 1;
+        if (_minQueue[(int) _minHead & mask] == seq) {
+            _minHead++;
+        }
+        if (_maxQueue[(int) _maxHead & mask] == seq) {
+            _maxHead++;
+        }
+        _heldMinimum = min;
+        _heldMaximum = max;
+        _isHeld = true;
+        if (++_updates >= _buffer._times.length) {
+            recompute();
+        }
+    }
+
+    // Recomputes the running sums from the buffered amounts.
+    private void recompute() {
+        _updates = 0;
+        if (_head == _tail)
+            return;
+        _sumMinimum = _sumMaximum = _sumError = 0.0;
+        _areaMinimum = _areaMaximum = _areaError = 0.0;
+        _shift = estimate(_head);
+        _sum = _sumOfSquares = 0.0;
+        for (long seq = _head; seq < _tail; seq++) {
+            int index = _buffer.index(seq);
+            double min = _buffer._minimum[index];
+            double max = _buffer._maximum[index];
+            _sumMinimum += min;
+            _sumMaximum += max;
+            _sumError += ulp(_sumMinimum, _sumMaximum);
+            double d = _buffer.estimate(index) - _shift;
+            _sum += d;
+            _sumOfSquares += d * d;
+            if (seq + 1 < _tail) {
+                long dt = _buffer._times[_buffer.index(seq + 1)]
+                        - _buffer._times[index];
+                _areaMinimum += min * dt;
+                _areaMaximum += max * dt;
+                _areaError += ulp(min * dt, max * dt)
+                        + ulp(_areaMinimum, _areaMaximum);
+            }
+        }
+    }
+
+    private double estimate(long seq) {
+        return _buffer.estimate(_buffer.index(seq));
+    }
+
+    private Amount<Q> get(long seq) {
+        int index = _buffer.index(seq);
+        return Amount.newInstance(_unit, _buffer._isExact[index],
+                _buffer._exactValue[index], _buffer._minimum[index],
+                _buffer._maximum[index]);
+    }
+
+    // Returns the inexact amount for the specified bounds (widened by the
+    // rounding error of their last operation).
+    private static <R extends Quantity> Amount<R> interval(Unit<?> unit,
+            double min, double max) {
+        return Amount.newInstance(unit, false, 0L, (min < 0) ? min
+                * INCREMENT : min * DECREMENT, (max < 0) ? max * DECREMENT
+                : max * INCREMENT);
+    }
+
+    // Returns an upper bound of the rounding error of operations whose
+    // results are the specified values.
+    private static double ulp(double a, double b) {
+        return Math.ulp(Math.max(Math.abs(a), Math.abs(b)));
+    }
+
+    private static long[] grow(long[] queue, long head, long tail) {
+        int capacity = queue.length * 2;
+        long[] grown = new long[capacity];
+        for (long i = head; i < tail; i++) {
+            grown[(int) i & (capacity - 1)] = queue[(int) i
+                    & (queue.length - 1)];
+        }
+        return grown;
+    }
+
+    // Sets the current value from an amount stated in the specified unit.
+    private void convert(Unit<?> unit, boolean isExact, long exactValue,
+            double minimum, double maximum) {
+        UnitConverter cvtr = converterFrom(unit);
+        if (cvtr == UnitConverter.IDENTITY) {
+            _valueIsExact = isExact;
+            _valueExact = exactValue;
+            _valueMinimum = minimum;
+            _valueMaximum = maximum;
+            return;
+        }
+        if (isExact && (cvtr instanceof RationalConverter)) {
+            RationalConverter rc = (RationalConverter) cvtr;
+            long dividend = rc.getDividend();
+            long divisor = rc.getDivisor();
+            long product = exactValue * dividend;
+            if ((((double) exactValue) * dividend == product)
+                    && (product % divisor == 0)) {
+                setValueExact(product / divisor);
+                return;
+            }
+        }
+        double min = cvtr.convert(minimum);
+        double max = cvtr.convert(maximum);
+        if (min > max) { // Decreasing converter.
+            double tmp = min;
+            min = max;
+            max = tmp;
+        }
+        _valueIsExact = false;
+        _valueMinimum = (min < 0) ? min * INCREMENT : min * DECREMENT;
+        _valueMaximum = (max < 0) ? max * DECREMENT : max * INCREMENT;
+    }
+
+    // See Amount.setExact(long)
+    private void setValueExact(long exactValue) {
+        _valueIsExact = true;
+        _valueExact = exactValue;
+        double doubleValue = exactValue;
+        if (doubleValue == exactValue) {
+            _valueMinimum = doubleValue;
+            _valueMaximum = doubleValue;
+        } else {
+            double valInc = exactValue * INCREMENT;
+            double valDec = exactValue * DECREMENT;
+            _valueMinimum = (exactValue < 0) ? valInc : valDec;
+            _valueMaximum = (exactValue < 0) ? valDec : valInc;
+        }
+    }
+
+    // Returns the converter from the specified unit (cached).
+    private UnitConverter converterFrom(Unit<?> unit) {
+        if (unit == _unit)
+            return UnitConverter.IDENTITY;
+        for (int i = 0; i < CONVERTER_CACHE_SIZE; i++) {
+            if (_sourceUnits[i] == unit)
+                return _converters[i];
+        }
+        UnitConverter cvtr = unit.equals(_unit) ? UnitConverter.IDENTITY
+                : Amount.converterOf(unit, _unit);
+        _sourceUnits[_nextConverter] = unit;
+        _converters[_nextConverter] = cvtr;
+        _nextConverter = (_nextConverter + 1) % CONVERTER_CACHE_SIZE;
+        return cvtr;
+    }
+
+    /**
+     * This class represents a ring buffer of timestamped amounts (parallel
+     * primitive arrays, power of two capacity).
+     */
+    private static final class Buffer {
+
+        final long[] _times;
+
+        final boolean[] _isExact;
+
+        final long[] _exactValue;
+
+        final double[] _minimum;
+
+        final double[] _maximum;
+
+        Buffer(int capacity) {
+            _times = new long[capacity];
+            _isExact = new boolean[capacity];
+            _exactValue = new long[capacity];
+            _minimum = new double[capacity];
+            _maximum = new double[capacity];
+        }
+
+        int index(long seq) {
+            return (int) seq & (_times.length - 1);
+        }
+
+        double minimum(long seq) {
+            return _minimum[index(seq)];
+        }
+
+        double maximum(long seq) {
+            return _maximum[index(seq)];
+        }
+
+        double estimate(int index) {
+            return _isExact[index] ? _exactValue[index]
+                    : (_minimum[index] + _maximum[index]) * 0.5;
+        }
+
+        void move(long from, long to) {
+            int i = index(from);
+            int j = index(to);
+            _times[j] = _times[i];
+            _isExact[j] = _isExact[i];
+            _exactValue[j] = _exactValue[i];
+            _minimum[j] = _minimum[i];
+            _maximum[j] = _maximum[i];
+        }
+
+        // Returns a buffer twice larger holding the same elements (at the
+        // same sequence numbers).
+        Buffer grow(long head, long tail) {
+            Buffer grown = new Buffer(_times.length * 2);
+            for (long seq = head; seq < tail; seq++) {
+                int i = index(seq);
+                int j = grown.index(seq);
+                grown._times[j] = _times[i];
+                grown._isExact[j] = _isExact[i];
+                grown._exactValue[j] = _exactValue[i];
+                grown._minimum[j] = _minimum[i];
+                grown._maximum[j] = _maximum[i];
+            }
+            return grown;
+        }
+    }
+}
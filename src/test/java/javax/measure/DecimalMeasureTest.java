@@ -0,0 +1,81 @@
+package javax.measure;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assert.fail;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.Arrays;
+import java.util.Random;
+
+import javax.measure.quantity.Length;
+import javax.measure.unit.NonSI;
+import javax.measure.unit.SI;
+import javax.measure.unit.Unit;
+import javax.measure.unit.UnitTokenCache;
+
+import org.junit.Test;
+
+public class DecimalMeasureTest {
+
+    @Test
+    public void parsesCharacterRanges() {
+        String text = "x;12.50 km;-3E-2 m/s; 7;123456789012345678901234.5 kg;";
+        UnitTokenCache units = new UnitTokenCache();
+        DecimalMeasure<?> m = DecimalMeasure.valueOf(text, 2, 10, units);
+        assertThat(m.getValue()).isEqualTo(new BigDecimal("12.50"));
+        assertThat((Object) m.getUnit()).isEqualTo(SI.KILO(SI.METER));
+        m = DecimalMeasure.valueOf(text, 11, 20, units);
+        assertThat(m.getValue()).isEqualTo(new BigDecimal("-3E-2"));
+        assertThat((Object) m.getUnit()).isEqualTo(SI.METRES_PER_SECOND);
+        m = DecimalMeasure.valueOf(text, 22, 23);
+        assertThat(m.getValue()).isEqualTo(new BigDecimal("7"));
+        assertThat((Object) m.getUnit()).isEqualTo(Unit.ONE);
+        m = DecimalMeasure.valueOf(text, 24, text.length() - 1, units);
+        assertThat(m.getValue()).isEqualTo(new BigDecimal("123456789012345678901234.5"));
+        assertThat(DecimalMeasure.valueOf("2.5 m").getValue()).isEqualTo(new BigDecimal("2.5"));
+
+        Random random = new Random(7);
+        for (int i = 0; i < 10000; i++) {
+            String number = BigDecimal.valueOf(random.nextLong() >> random.nextInt(64),
+                    random.nextInt(40) - 20).toString();
+            assertThat(DecimalMeasure.valueOf(number + " m").getValue())
+                    .isEqualTo(new BigDecimal(number));
+        }
+        for (String invalid : new String[] { "", "1..2 m", "1e m", "- m", "1e5x" }) {
+            try {
+                DecimalMeasure.valueOf(invalid);
+                fail(invalid);
+            } catch (NumberFormatException e) {
+                // Expected.
+            }
+        }
+    }
+
+    @Test
+    public void convertsBatches() {
+        BigDecimal[] values = { new BigDecimal("1000"), new BigDecimal("1.5"),
+                new BigDecimal("0.001") };
+        DecimalMeasure.convert(values, 0, values.length, SI.METER, SI.KILO(SI.METER), null);
+        for (int i = 0; i < values.length; i++) { // Same as exact division.
+            assertThat(values[i]).isEqualTo(new BigDecimal[] { new BigDecimal("1000"),
+                    new BigDecimal("1.5"), new BigDecimal("0.001") }[i].divide(BigDecimal
+                    .valueOf(1000)));
+        }
+        assertThat(DecimalMeasure.convert(Arrays.asList(new BigDecimal("12")),
+                NonSI.INCH, NonSI.FOOT, null)).containsExactly(new BigDecimal("1"));
+        assertThat(DecimalMeasure.convert(Arrays.asList(new BigDecimal("212")),
+                NonSI.FAHRENHEIT, SI.CELSIUS, MathContext.DECIMAL64).get(0)
+                .compareTo(BigDecimal.valueOf(100))).isEqualTo(0);
+
+        DecimalMeasure<Length> mile = DecimalMeasure.valueOf(BigDecimal.ONE, NonSI.MILE);
+        assertThat(mile.to(SI.METER).getValue()).isEqualTo(new BigDecimal("1609.344"));
+        assertThat(mile.to(NonSI.FOOT, MathContext.DECIMAL32).getValue())
+                .isEqualTo(new BigDecimal("5280"));
+        try {
+            DecimalMeasure.valueOf(BigDecimal.ONE, NonSI.FOOT).to(NonSI.MILE);
+            fail();
+        } catch (ArithmeticException e) { // 1/5280 does not terminate.
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package javax.measure;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.channels.FileChannel;
+
+import javax.measure.converter.UnitConverter;
+import javax.measure.unit.NonSI;
+import javax.measure.unit.SI;
+
+import org.junit.Test;
+
+public class MeasureBuffersTest {
+
+    private static final UnitConverter F_TO_C = NonSI.FAHRENHEIT
+            .getConverterTo(SI.CELSIUS);
+
+    @Test
+    public void convertsBuffersOfAnyKind() {
+        int n = 10000;
+        DoubleBuffer heap = DoubleBuffer.allocate(n);
+        ByteBuffer little = ByteBuffer.allocateDirect(n * 8).order(ByteOrder.LITTLE_ENDIAN);
+        ByteBuffer big = ByteBuffer.allocate(n * 8);
+        for (int i = 0; i < n; i++) {
+            heap.put(i, i);
+            little.putDouble(i * 8, i);
+            big.putDouble(i * 8, i);
+        }
+        MeasureBuffers.convert(heap, NonSI.FAHRENHEIT, SI.CELSIUS);
+        MeasureBuffers.convert(little, NonSI.FAHRENHEIT, SI.CELSIUS);
+        DoubleBuffer target = ByteBuffer.allocateDirect(n * 8).asDoubleBuffer();
+        MeasureBuffers.convert(big.asDoubleBuffer(), NonSI.FAHRENHEIT, target, SI.CELSIUS);
+        assertThat(target.position()).isEqualTo(n);
+        for (int i = 0; i < n; i++) {
+            double expected = F_TO_C.convert(i);
+            assertThat(heap.get(i)).isEqualTo(expected);
+            assertThat(little.getDouble(i * 8)).isEqualTo(expected);
+            assertThat(target.get(i)).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    public void convertsFileInPlace() throws IOException {
+        File file = File.createTempFile("measures", ".bin");
+        file.deleteOnExit();
+        int n = 5000;
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            FileChannel channel = raf.getChannel();
+            ByteBuffer bytes = ByteBuffer.allocate(16 + n * 8).order(ByteOrder.LITTLE_ENDIAN);
+            bytes.putLong(0, -1L); // Header left untouched.
+            for (int i = 0; i < n; i++) {
+                bytes.putDouble(16 + i * 8, i);
+            }
+            channel.write(bytes, 0);
+            MeasureBuffers.convert(channel, 16, n, ByteOrder.LITTLE_ENDIAN,
+                    SI.KILOMETER, SI.METER);
+            bytes.clear();
+            channel.read(bytes, 0);
+            assertThat(bytes.getLong(0)).isEqualTo(-1L);
+            for (int i = 0; i < n; i++) {
+                assertThat(bytes.getDouble(16 + i * 8)).isEqualTo(i * 1000.0);
+            }
+        } finally {
+            raf.close();
+        }
+    }
+}
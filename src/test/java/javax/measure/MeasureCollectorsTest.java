@@ -0,0 +1,55 @@
+package javax.measure;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import javax.measure.quantity.Length;
+import javax.measure.quantity.Quantity;
+import javax.measure.unit.SI;
+import javax.measure.unit.Unit;
+
+import org.junit.Test;
+
+public class MeasureCollectorsTest {
+
+    @Test
+    public void parallelMatchesSequential() {
+        Random random = new Random(42);
+        List<Measure<?, ?>> measures = new ArrayList<Measure<?, ?>>();
+        for (int i = 0; i < 10000; i++) {
+            measures.add(Measure.valueOf(random.nextDouble() * 100,
+                    (i % 2 == 0) ? SI.METER : SI.KILOMETER));
+        }
+        double sum = 0;
+        for (Measure<?, ?> measure : measures) {
+            sum += measure.getUnit() == SI.METER ? (Double) measure.getValue()
+                    : (Double) measure.getValue() * 1000;
+        }
+
+        Measure<Double, Length> total = measures.parallelStream()
+                .collect(MeasureCollectors.summing(SI.METER));
+        assertThat(total.getValue()).isCloseTo(sum, within(1e-6));
+
+        Measure<Double, Length> mean = measures.parallelStream()
+                .collect(MeasureCollectors.averaging(SI.METER)).get();
+        assertThat(mean.getValue()).isCloseTo(sum / measures.size(), within(1e-9));
+
+        Measure<Double, ? extends Quantity> sequentialVariance = measures.stream()
+                .collect(MeasureCollectors.variance(SI.METER)).get();
+        Measure<Double, ? extends Quantity> parallelVariance = measures.parallelStream()
+                .collect(MeasureCollectors.variance(SI.METER)).get();
+        assertThat(sequentialVariance.getUnit()).isEqualTo(SI.SQUARE_METRE);
+        assertThat(parallelVariance.getUnit()).isEqualTo(SI.SQUARE_METRE);
+        assertThat(parallelVariance.getValue()).isCloseTo(sequentialVariance.getValue(), within(1e-3));
+
+        Map<Unit<?>, Long> counts = measures.parallelStream()
+                .collect(MeasureCollectors.countingByUnit());
+        assertThat(counts.get(SI.METER)).isEqualTo(5000L);
+        assertThat(counts.get(SI.KILOMETER)).isEqualTo(5000L);
+    }
+}
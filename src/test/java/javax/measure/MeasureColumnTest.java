@@ -0,0 +1,71 @@
+package javax.measure;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.offset;
+import static org.junit.Assert.fail;
+
+import java.util.List;
+
+import javax.measure.converter.LogConverter;
+import javax.measure.converter.UnitConverter;
+import javax.measure.quantity.Dimensionless;
+import javax.measure.quantity.Length;
+import javax.measure.quantity.Temperature;
+import javax.measure.unit.NonSI;
+import javax.measure.unit.SI;
+import javax.measure.unit.Unit;
+
+import org.junit.Test;
+
+public class MeasureColumnTest {
+
+    @Test
+    public void convertsWholeColumns() {
+        double[] fahrenheit = { 32, 212, -40 };
+        MeasureColumn<Temperature> column = MeasureColumn.valueOf(fahrenheit, NonSI.FAHRENHEIT);
+        fahrenheit[0] = 0; // Copied.
+        assertThat(column.size()).isEqualTo(3);
+        assertThat(column.doubleValue(0)).isEqualTo(32.0);
+        assertThat(column.doubleValue(1, SI.CELSIUS)).isCloseTo(100.0, offset(1e-12));
+        assertThat(column.doubleValue(2, SI.CELSIUS)).isCloseTo(-40.0, offset(1e-12));
+        assertThat(column.longValue(1, SI.KELVIN)).isEqualTo(373L);
+
+        MeasureColumn<Temperature> celsius = column.to(SI.CELSIUS);
+        assertThat(celsius.getUnit()).isEqualTo(SI.CELSIUS);
+        assertThat(celsius.toDoubleArray(SI.CELSIUS)).containsExactly(new double[] { 0, 100, -40 }, offset(1e-12));
+        assertThat(column.to(NonSI.FAHRENHEIT)).isSameAs(column);
+
+        MeasureColumn<Length> counts = MeasureColumn.valueOf(new long[] { Long.MAX_VALUE, 3 }, SI.MILLI(SI.METER));
+        assertThat(counts.longValue(0, SI.MILLI(SI.METER))).isEqualTo(Long.MAX_VALUE); // Exact.
+        assertThat(counts.to(SI.METER).doubleValue(1)).isEqualTo(0.003);
+        MeasureColumn<Length> floats = MeasureColumn.valueOf(new float[] { 1.5f, 2.5f }, NonSI.FOOT);
+        assertThat(floats.to(NonSI.INCH).doubleValue(1)).isEqualTo(30.0);
+        assertThat(floats.toString()).isEqualTo("[1.5, 2.5] ft");
+        Unit<Dimensionless> decibelLike = Unit.ONE.transform(new LogConverter(10).inverse()).plus(0.3);
+        MeasureColumn<Dimensionless> logs = MeasureColumn.valueOf(new float[] { 1.001f, 2.345f }, decibelLike);
+        UnitConverter cvtr = decibelLike.getConverterTo(Unit.ONE);
+        assertThat(logs.to(Unit.ONE).doubleValue(1)).isEqualTo((float) cvtr.convert((double) 2.345f));
+    }
+
+    @Test
+    public void slicesAndViews() {
+        MeasureColumn<Length> column = MeasureColumn.valueOf(new double[] { 1, 2, 3, 4, 5 }, SI.METER);
+        MeasureColumn<Length> slice = column.subColumn(1, 4).subColumn(1, 3);
+        assertThat(slice.size()).isEqualTo(2);
+        assertThat(slice.doubleValue(0, SI.CENTI(SI.METER))).isEqualTo(300.0);
+        double[] dst = new double[4];
+        slice.getValues(dst, 1, SI.METER);
+        assertThat(dst).containsExactly(0, 3, 4, 0);
+        try {
+            slice.doubleValue(2);
+            fail();
+        } catch (IndexOutOfBoundsException e) {
+            // Expected.
+        }
+
+        List<Measurable<Length>> list = slice.asList();
+        assertThat(list).hasSize(2);
+        assertThat(list.get(1).doubleValue(SI.KILO(SI.METER))).isEqualTo(0.004);
+        assertThat(list.get(0).compareTo(Measure.valueOf(3.0, SI.METER))).isEqualTo(0);
+    }
+}
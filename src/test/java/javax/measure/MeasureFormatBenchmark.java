@@ -0,0 +1,45 @@
+package javax.measure;
+
+import java.util.Random;
+
+import javax.measure.unit.SI;
+import javax.measure.unit.Unit;
+
+/**
+ * Measures the cost of formatting double measures with the shortest
+ * round-trip format versus the default (<code>NumberFormat</code>) format.
+ * Run with: <code>java -cp target/classes:target/test-classes:... javax.measure.MeasureFormatBenchmark</code>
+ */
+public class MeasureFormatBenchmark {
+
+    private static final int ITERATIONS = 1000000;
+
+    public static void main(String[] args) {
+        Unit<?> unit = SI.KILOGRAM.divide(SI.METER.pow(2).times(SI.SECOND));
+        Random random = new Random(0);
+        Measure<?, ?>[] measures = new Measure<?, ?>[1024];
+        for (int i = 0; i < measures.length; i++) {
+            measures[i] = Measure.valueOf(random.nextDouble() * 1000, unit);
+        }
+        MeasureFormat shortest = MeasureFormat.getShortestInstance();
+        MeasureFormat standard = MeasureFormat.getInstance();
+        StringBuilder sb = new StringBuilder();
+        for (int run = 0; run < 5; run++) {
+            int check = 0;
+            long start = System.nanoTime();
+            for (int i = 0; i < ITERATIONS; i++) {
+                sb.setLength(0);
+                check += shortest.format(measures[i & 1023], sb).length();
+            }
+            long fast = System.nanoTime() - start;
+            start = System.nanoTime();
+            for (int i = 0; i < ITERATIONS; i++) {
+                check += standard.format(measures[i & 1023]).length();
+            }
+            long slow = System.nanoTime() - start;
+            System.out.println("shortest: " + (fast / ITERATIONS)
+                    + " ns, NumberFormat: " + (slow / ITERATIONS) + " ns ["
+                    + check + "]");
+        }
+    }
+}
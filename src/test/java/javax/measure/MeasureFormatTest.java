@@ -0,0 +1,90 @@
+package javax.measure;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assert.fail;
+
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+import java.text.ParsePosition;
+import java.util.Random;
+
+import javax.measure.unit.NonSI;
+import javax.measure.unit.SI;
+import javax.measure.unit.Unit;
+
+import org.junit.Test;
+
+public class MeasureFormatTest {
+
+    private static final MeasureFormat SHORTEST = MeasureFormat
+            .getShortestInstance();
+
+    @Test
+    public void formatsShortestRoundTrip() throws Exception {
+        assertThat(SHORTEST.format(Measure.valueOf(0.1, SI.METER))).isEqualTo("0.1 m");
+        assertThat(SHORTEST.format(Measure.valueOf(1234567.0, SI.METER))).isEqualTo("1234567.0 m");
+        assertThat(SHORTEST.format(Measure.valueOf(1e-5, SI.SECOND))).isEqualTo("1.0E-5 s");
+        assertThat(SHORTEST.format(Measure.valueOf(2e23, Unit.ONE))).isEqualTo("2.0E23");
+        assertThat(SHORTEST.format(Measure.valueOf(-3L, NonSI.FOOT))).isEqualTo("-3 ft");
+        assertThat(SHORTEST.format(Measure.valueOf(5.0, NonSI.FOOT),
+                new StringBuilder("x = ")).toString()).isEqualTo("x = 5.0 ft");
+        StringWriter writer = new StringWriter();
+        SHORTEST.format(Measure.valueOf(12.5, SI.KILOGRAM.divide(SI.METER.pow(2))), writer);
+        assertThat(writer.toString()).isEqualTo("12.5 kg/m²");
+
+        Random random = new Random(7);
+        for (int i = 0; i < 100000; i++) {
+            double value = Double.longBitsToDouble(random.nextLong());
+            if (Double.isNaN(value) || Double.isInfinite(value))
+                continue;
+            String text = SHORTEST.format(Measure.valueOf(value, SI.METER));
+            assertThat(text.length()).isLessThanOrEqualTo((Double.toString(value) + " m").length());
+            Measure<?, ?> measure = (Measure<?, ?>) SHORTEST.parseObject(text, new ParsePosition(0));
+            assertThat(measure.getValue()).as(text).isEqualTo(value);
+            assertThat(measure.getUnit()).isEqualTo(SI.METER);
+        }
+    }
+
+    @Test
+    public void parsesLongsAndDoubles() throws Exception {
+        Measure<?, ?> measure = (Measure<?, ?>) SHORTEST.parseObject("-42 kg");
+        assertThat(measure.getValue()).isEqualTo(-42L);
+        measure = (Measure<?, ?>) SHORTEST.parseObject("2.5E-3 km");
+        assertThat(measure.getValue()).isEqualTo(0.0025);
+        assertThat(measure.getUnit()).isEqualTo(SI.KILOMETER);
+        measure = (Measure<?, ?>) SHORTEST.parseObject("7");
+        assertThat(measure.getUnit()).isEqualTo(Unit.ONE);
+        ParsePosition pos = new ParsePosition(0);
+        assertThat(SHORTEST.parseObject("abc", pos)).isNull();
+        assertThat(pos.getErrorIndex()).isEqualTo(0);
+    }
+
+    @Test
+    public void formatsAndParsesUtf8() throws Exception {
+        Unit<?> unit = SI.KILOGRAM.divide(SI.METER.pow(2));
+        for (MeasureFormat format : new MeasureFormat[] { SHORTEST, MeasureFormat.getInstance() }) {
+            byte[] bytes = new byte[64];
+            int end = format.format(Measure.valueOf(-12.5, unit), bytes, 1);
+            assertThat(new String(bytes, 1, end - 1, StandardCharsets.UTF_8)).isEqualTo("-12.5 kg/m²");
+            Measure<?, ?> measure = format.parse(bytes, 1, end - 1);
+            assertThat(measure.getUnit()).isEqualTo(unit);
+            assertThat(((Number) measure.getValue()).doubleValue()).isEqualTo(-12.5);
+
+            ByteBuffer buffer = ByteBuffer.allocateDirect(64);
+            format.format(Measure.valueOf(Long.MIN_VALUE, SI.SECOND), buffer);
+            buffer.flip();
+            byte[] text = new byte[buffer.remaining()];
+            buffer.get(text);
+            assertThat(format.parse(text, 0, text.length).getValue()).isEqualTo(Long.MIN_VALUE);
+        }
+        byte[] bytes = "12 xyz".getBytes(StandardCharsets.UTF_8);
+        try {
+            SHORTEST.parse(bytes, 0, bytes.length);
+            fail();
+        } catch (ParseException e) {
+            assertThat(e.getErrorOffset()).isEqualTo(3);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package javax.measure;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.text.ParsePosition;
+import java.util.Random;
+
+import javax.measure.unit.SI;
+
+/**
+ * Measures the throughput of {@link MeasureReader} reading "number unit"
+ * lines into a column versus {@link MeasureFormat} parsing line by line.
+ * Run with: <code>java -cp target/classes:target/test-classes:... javax.measure.MeasureReaderBenchmark</code>
+ */
+public class MeasureReaderBenchmark {
+
+    private static final int LINES = 2000000;
+
+    public static void main(String[] args) throws Exception {
+        String[] units = { "m", "km", "ft", "mi", "in" };
+        Random random = new Random(0);
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < LINES; i++) {
+            text.append(random.nextInt(100000) / 100.0).append(' ').append(
+                    units[random.nextInt(units.length)]).append('\n');
+        }
+        byte[] bytes = text.toString().getBytes(StandardCharsets.UTF_8);
+        String[] lines = text.toString().split("\n");
+        double mb = bytes.length / 1e6;
+        double[] column = new double[4096];
+        for (int run = 0; run < 5; run++) {
+            long start = System.nanoTime();
+            MeasureReader reader = new MeasureReader(ByteBuffer.wrap(bytes));
+            double check = 0;
+            for (int n; (n = reader.read(column, 0, column.length, SI.METER)) > 0;) {
+                check += column[n - 1];
+            }
+            long read = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            MeasureFormat format = MeasureFormat.getInstance();
+            for (int i = 0; i < lines.length; i += 10) { // 1/10 of the lines.
+                Measure<?, ?> measure = (Measure<?, ?>) format.parseObject(
+                        lines[i], new ParsePosition(0));
+                check += measure.getUnit().getConverterTo(SI.METER).convert(
+                        ((Number) measure.getValue()).doubleValue());
+            }
+            long parse = (System.nanoTime() - start) * 10;
+
+            System.out.println("MeasureReader: " + (int) (mb / (read / 1e9))
+                    + " MB/s, MeasureFormat: " + (int) (mb / (parse / 1e9))
+                    + " MB/s [" + check + "]");
+        }
+    }
+}
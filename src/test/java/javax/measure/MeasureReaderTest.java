@@ -0,0 +1,132 @@
+package javax.measure;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.data.Offset.offset;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+import java.util.Random;
+
+import javax.measure.unit.SI;
+import javax.measure.unit.Unit;
+
+import org.junit.Test;
+
+public class MeasureReaderTest {
+
+    @Test
+    public void readsRecordsAndColumns() throws Exception {
+        String text = "7\n12.5 km\n1500 m\r\n-3 ft, 2e-3 km;4 m\t0.25 m\n";
+        MeasureReader reader = new MeasureReader(new StringReader(text));
+        assertThat(reader.next()).isTrue();
+        assertThat(reader.longValue()).isEqualTo(7L);
+        assertThat(reader.getUnit()).isEqualTo(Unit.ONE);
+        assertThat(reader.next()).isTrue();
+        assertThat(reader.doubleValue()).isEqualTo(12.5);
+        assertThat(reader.isLong()).isFalse();
+        assertThat(reader.getUnit()).isEqualTo(SI.KILOMETER);
+        assertThat(reader.next()).isTrue();
+        assertThat(reader.longValue()).isEqualTo(1500L);
+        assertThat(reader.isLong()).isTrue();
+        assertThat(reader.getUnit()).isEqualTo(SI.METER);
+        double[] meters = new double[10];
+        assertThat(reader.read(meters, 1, 10, SI.METER)).isEqualTo(4);
+        assertThat(meters[1]).isEqualTo(-3 * 0.3048, offset(1e-12));
+        assertThat(meters[2]).isEqualTo(2.0, offset(1e-12));
+        assertThat(meters[3]).isEqualTo(4.0);
+        assertThat(meters[4]).isEqualTo(0.25);
+        assertThat(reader.read(meters, 0, 10, SI.METER)).isEqualTo(-1);
+        assertThat(reader.getUnitTokenCache().getMissCount()).isEqualTo(3);
+    }
+
+    @Test
+    public void readsRowsFromSplitBytes() throws Exception {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            text.append(i).append(" °F,").append(i).append(" kg/(m²·s)\n");
+        }
+        byte[] bytes = text.toString().getBytes(StandardCharsets.UTF_8);
+        InputStream oneByteAtATime = new FilterInputStream(
+                new ByteArrayInputStream(bytes)) {
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                return super.read(b, off, Math.min(len, 1));
+            }
+        };
+        Reader oneCharAtATime = new FilterReader(new StringReader(text
+                .toString())) {
+            @Override
+            public int read(char[] b, int off, int len) throws IOException {
+                return super.read(b, off, Math.min(len, 1));
+            }
+        };
+        Unit<?> flux = SI.KILOGRAM.divide(SI.METER.pow(2).times(SI.SECOND));
+        for (MeasureReader reader : new MeasureReader[] {
+                new MeasureReader(oneByteAtATime),
+                new MeasureReader(oneCharAtATime),
+                new MeasureReader(ByteBuffer.wrap(bytes)) }) {
+            double[][] columns = new double[2][1000];
+            assertThat(reader.readRows(columns, new Unit<?>[] { SI.CELSIUS,
+                    flux }, 0, 2000)).isEqualTo(1000);
+            for (int i = 0; i < 1000; i++) {
+                assertThat(columns[0][i]).isEqualTo((i - 32) * 5 / 9.0, offset(1e-12));
+                assertThat(columns[1][i]).isEqualTo(i);
+            }
+            assertThat(reader.readRows(columns, new Unit<?>[] { SI.CELSIUS,
+                    flux }, 0, 2000)).isEqualTo(-1);
+        }
+    }
+
+    @Test
+    public void parsesNumbersAsTheJavaPlatform() throws Exception {
+        Random random = new Random(42);
+        StringBuilder text = new StringBuilder();
+        String[] numbers = new String[10000];
+        for (int i = 0; i < numbers.length; i++) {
+            switch (i % 4) {
+            case 0:
+                numbers[i] = Double.toString(random.nextDouble() * Math.pow(10, random.nextInt(40) - 20));
+                break;
+            case 1:
+                numbers[i] = Long.toString(random.nextLong() >> random.nextInt(64));
+                break;
+            case 2:
+                numbers[i] = String.format("%." + random.nextInt(20) + "f", random.nextGaussian() * 1000);
+                break;
+            default:
+                numbers[i] = random.nextInt(1000) + "." + random.nextInt(1000) + "e" + (random.nextInt(700) - 350);
+            }
+            text.append(numbers[i]).append(" m\n");
+        }
+        MeasureReader reader = new MeasureReader(new StringReader(text.toString()));
+        for (String number : numbers) {
+            assertThat(reader.next()).isTrue();
+            assertThat(reader.doubleValue()).as(number).isEqualTo(Double.parseDouble(number));
+        }
+        assertThat(reader.next()).isFalse();
+    }
+
+    @Test
+    public void rejectsInvalidRecords() throws Exception {
+        for (String text : new String[] { "1 m\nabc", "1 m\n2m", "1 m\n2 m m",
+                "1 m\n2 xyz", "1 m\n3e" }) {
+            MeasureReader reader = new MeasureReader(new StringReader(text));
+            assertThat(reader.next()).isTrue();
+            try {
+                reader.next();
+                fail(text);
+            } catch (ParseException e) {
+                assertThat(e.getErrorOffset()).as(text).isGreaterThanOrEqualTo(4);
+            }
+        }
+    }
+}
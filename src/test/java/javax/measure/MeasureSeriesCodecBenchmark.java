@@ -0,0 +1,82 @@
+package javax.measure;
+
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectOutputStream;
+import java.util.Random;
+
+import javax.measure.unit.NonSI;
+import javax.measure.unit.SI;
+
+/**
+ * Measures the compression ratio and the encoding/decoding throughput of
+ * {@link MeasureSeriesCodec} for a regular gauge (slowly varying value,
+ * 1 s period) and a noisy decimal sensor (jittered timestamps, 0.1
+ * resolution).
+ * Run with: <code>java -cp target/classes:target/test-classes:... javax.measure.MeasureSeriesCodecBenchmark</code>
+ */
+public class MeasureSeriesCodecBenchmark {
+
+    private static final int SAMPLES = 2000000;
+
+    private static final int SEEKS = 10000;
+
+    public static void main(String[] args) throws Exception {
+        Random random = new Random(0);
+        long[] times = new long[SAMPLES];
+        double[] gauge = new double[SAMPLES];
+        double[] sensor = new double[SAMPLES];
+        long[] jittered = new long[SAMPLES];
+        long t = 1500000000000L;
+        double level = 20;
+        for (int i = 0; i < SAMPLES; i++) {
+            times[i] = t + i * 1000L;
+            jittered[i] = times[i] + random.nextInt(20);
+            if (random.nextInt(10) == 0) {
+                level += random.nextInt(3) - 1;
+            }
+            gauge[i] = level;
+            sensor[i] = Math.round((level + random.nextGaussian()) * 10) / 10.0;
+        }
+        run("gauge", MeasureSeries.valueOf(times, gauge, SI.CELSIUS));
+        run("sensor", MeasureSeries.valueOf(jittered, sensor, NonSI.FAHRENHEIT));
+    }
+
+    private static void run(String name, MeasureSeries<?> series) throws Exception {
+        ByteArrayOutputStream serialized = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(serialized);
+        out.writeObject(series);
+        out.close();
+        long[] times = new long[SAMPLES];
+        double[] values = new double[SAMPLES];
+        for (int run = 0; run < 5; run++) {
+            long start = System.nanoTime();
+            byte[] bytes = MeasureSeriesCodec.encode(series, 1024, null);
+            long encode = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            MeasureSeriesCodec.decode(bytes, 0, SAMPLES, times, values, 0);
+            long decode = System.nanoTime() - start;
+
+            Random random = new Random(run);
+            long[] minuteTimes = new long[60];
+            double[] minuteValues = new double[60];
+            start = System.nanoTime();
+            for (int i = 0; i < SEEKS; i++) {
+                int from = MeasureSeriesCodec.indexOf(bytes,
+                        times[random.nextInt(SAMPLES - 60)]);
+                MeasureSeriesCodec.decode(bytes, from, from + 60, minuteTimes,
+                        minuteValues, 0);
+            }
+            long seek = (System.nanoTime() - start) / SEEKS;
+
+            System.out.println(name + ": "
+                    + String.format("%.2f", bytes.length / (double) SAMPLES)
+                    + " bytes/sample (serialized: "
+                    + String.format("%.2f", serialized.size() / (double) SAMPLES)
+                    + "), encode: " + (int) (SAMPLES / (encode / 1e3))
+                    + " M/s, decode: " + (int) (SAMPLES / (decode / 1e3))
+                    + " M/s, seek + 60 samples: " + seek / 1000 + " us ["
+                    + values[0] + "]");
+        }
+    }
+}
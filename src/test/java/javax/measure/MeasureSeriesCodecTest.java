@@ -0,0 +1,85 @@
+package javax.measure;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Random;
+
+import javax.measure.quantity.Pressure;
+import javax.measure.unit.SI;
+import javax.measure.unit.Unit;
+import javax.measure.unit.UnitRegistry;
+
+import org.junit.Test;
+
+public class MeasureSeriesCodecTest {
+
+    private static final Unit<Pressure> KPA = SI.KILO(SI.PASCAL);
+
+    @Test
+    public void roundTrips() {
+        Random random = new Random(3);
+        int n = 10000;
+        long[] times = new long[n];
+        double[] values = new double[n];
+        long t = 1500000000000L;
+        for (int i = 0; i < n; i++) {
+            t += (i % 100 == 0) ? random.nextInt(1 << 20) : 1000 + random.nextInt(3) - 1;
+            times[i] = (i % 50 == 0) ? times[Math.max(i - 1, 0)] : t; // Duplicates.
+            values[i] = (i % 7 == 0) ? values[Math.max(i - 1, 0)]
+                    : Math.round(random.nextGaussian() * 1000) / 10.0;
+        }
+        values[5] = Double.NaN;
+        values[6] = Double.NEGATIVE_INFINITY;
+        values[7] = -0.0;
+        values[8] = Double.MIN_VALUE;
+        times[0] = Long.MIN_VALUE / 2;
+        MeasureSeries<Pressure> series = MeasureSeries.valueOf(times, values, KPA);
+        byte[] bytes = MeasureSeriesCodec.encode(series, 256, null);
+        assertThat(bytes.length).isLessThan(n * 10); // Raw: 16 bytes per sample.
+        assertThat(MeasureSeriesCodec.size(bytes)).isEqualTo(n);
+        assertThat(MeasureSeriesCodec.getUnit(bytes, null)).isEqualTo(KPA);
+
+        MeasureSeries<?> decoded = MeasureSeriesCodec.decode(bytes, null);
+        for (int i = 0; i < n; i++) {
+            assertThat(decoded.getTime(i)).isEqualTo(times[i]);
+            assertThat(Double.doubleToRawLongBits(decoded.doubleValue(i)))
+                    .isEqualTo(Double.doubleToRawLongBits(values[i]));
+        }
+
+        // Random access.
+        long[] rangeTimes = new long[1000];
+        double[] rangeValues = new double[1000];
+        MeasureSeriesCodec.decode(bytes, 4000, 4700, rangeTimes, rangeValues, 1);
+        for (int i = 0; i < 700; i++) {
+            assertThat(rangeTimes[i + 1]).isEqualTo(times[4000 + i]);
+            assertThat(rangeValues[i + 1]).isEqualTo(values[4000 + i]);
+        }
+        for (int i : new int[] { 0, 1, 50, 255, 256, 257, 5120, 9999 }) {
+            int expected = i;
+            while ((expected > 0) && (times[expected - 1] == times[i])) {
+                expected--;
+            }
+            assertThat(MeasureSeriesCodec.indexOf(bytes, times[i])).isEqualTo(expected);
+            assertThat(MeasureSeriesCodec.indexOf(bytes, times[i] + 1)).isGreaterThan(i);
+        }
+        assertThat(MeasureSeriesCodec.indexOf(bytes, Long.MIN_VALUE)).isEqualTo(0);
+        assertThat(MeasureSeriesCodec.indexOf(bytes, Long.MAX_VALUE)).isEqualTo(n);
+    }
+
+    @Test
+    public void writesUnitIdentifiers() {
+        UnitRegistry registry = new UnitRegistry();
+        byte[] bytes = MeasureSeriesCodec.encode(new long[] { 1, 2 },
+                new double[] { 3, 4 }, 0, 2, KPA, 16, registry);
+        assertThat(MeasureSeriesCodec.getUnit(bytes, registry)).isSameAs(KPA);
+        assertThat(MeasureSeriesCodec.decode(bytes, registry).doubleValue(1)).isEqualTo(4.0);
+        assertThat(MeasureSeriesCodec.size(MeasureSeriesCodec.encode(new long[0],
+                new double[0], 0, 0, KPA, 16, null))).isEqualTo(0);
+        try {
+            MeasureSeriesCodec.getUnit(bytes, null);
+            assertThat(false).isTrue();
+        } catch (IllegalArgumentException e) {
+            // Expected.
+        }
+    }
+}
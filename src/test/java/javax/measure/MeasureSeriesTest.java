@@ -0,0 +1,70 @@
+package javax.measure;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.offset;
+
+import javax.measure.converter.LogConverter;
+import javax.measure.quantity.Dimensionless;
+import javax.measure.quantity.Temperature;
+import javax.measure.unit.NonSI;
+import javax.measure.unit.SI;
+import javax.measure.unit.Unit;
+
+import org.junit.Test;
+
+public class MeasureSeriesTest {
+
+    private static final MeasureSeries<Temperature> SERIES = MeasureSeries.valueOf(
+            new long[] { 10, 20, 40 }, new double[] { 32, 212, 122 }, NonSI.FAHRENHEIT);
+
+    @Test
+    public void resamplesAndConverts() {
+        MeasureSeries<Temperature> step = SERIES.resampleStep(0, 10, 6, SI.CELSIUS);
+        assertThat(step.getUnit()).isEqualTo(SI.CELSIUS);
+        assertThat(step.getTime(5)).isEqualTo(50L);
+        assertValues(values(step), Double.NaN, 0, 100, 100, 50, 50);
+
+        MeasureSeries<Temperature> linear = SERIES.resampleLinear(5, 10, 5, SI.CELSIUS);
+        assertValues(values(linear), Double.NaN, 50, 87.5, 62.5, Double.NaN);
+
+        // Buckets [0, 20): 0°C over [10, 20); [20, 40): 100°C; [40, 60): 50°C.
+        double[] average = new double[4];
+        SERIES.resampleAverage(0, 20, average, 1, 3, SI.CELSIUS);
+        assertValues(average, 0, 0, 100, 50);
+        SERIES.resampleAverage(15, 10, average, 0, 2, SI.CELSIUS); // [15, 25), [25, 35)
+        assertThat(average[0]).isCloseTo(50, offset(1e-9));
+        assertThat(average[1]).isCloseTo(100, offset(1e-9));
+
+        assertThat(SERIES.doubleValue(1, SI.KELVIN)).isCloseTo(373.15, offset(1e-9));
+        assertThat(SERIES.resampleStep(10, 10, 1, NonSI.FAHRENHEIT).doubleValue(0)).isEqualTo(32.0);
+    }
+
+    @Test
+    public void averagesNonLinearUnits() {
+        Unit<Dimensionless> bel = Unit.ONE.transform(new LogConverter(10).inverse());
+        MeasureSeries<Dimensionless> series = MeasureSeries.valueOf(
+                new long[] { 0, 1 }, new double[] { 0, 2 }, bel);
+        double[] ratio = new double[1];
+        series.resampleAverage(0, 2, ratio, 0, 1, Unit.ONE);
+        assertThat(ratio[0]).isCloseTo((1 + 100) / 2.0, offset(1e-9)); // Averages ratios.
+    }
+
+    private static void assertValues(double[] actual, double... expected) {
+        assertThat(actual).hasSize(expected.length);
+        for (int i = 0; i < expected.length; i++) {
+            if (Double.isNaN(expected[i])) {
+                assertThat(actual[i]).isNaN();
+            } else {
+                assertThat(actual[i]).isCloseTo(expected[i], offset(1e-9));
+            }
+        }
+    }
+
+    private static double[] values(MeasureSeries<?> series) {
+        double[] values = new double[series.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = series.doubleValue(i);
+        }
+        return values;
+    }
+}
@@ -0,0 +1,94 @@
+package javax.measure;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.offset;
+
+import java.util.Random;
+
+import javax.measure.quantity.Power;
+import javax.measure.unit.SI;
+import javax.measure.unit.Unit;
+
+import org.junit.Test;
+
+public class MeasureWindowTest {
+
+    private static final Unit<Power> KW = SI.KILO(SI.WATT);
+
+    @Test
+    public void aggregatesAndEvicts() {
+        MeasureWindow<Power> window = new MeasureWindow<Power>(SI.WATT,
+                SI.MILLI(SI.SECOND), 10, 0);
+        assertThat(window.mean(SI.WATT)).isNull();
+        assertThat(window.integral(SI.JOULE)).isNull();
+        assertThat(window.add(0, 1, SI.WATT)).isTrue();
+        assertThat(window.add(5, 3, SI.WATT)).isTrue();
+        assertThat(window.add(10, 0.002, KW)).isTrue(); // Evicts t = 0.
+        assertThat(window.size()).isEqualTo(2);
+        assertThat(window.mean(SI.WATT).getValue()).isCloseTo(2.5, offset(1e-12));
+        assertThat(window.min(SI.WATT).getValue()).isCloseTo(2, offset(1e-12));
+        assertThat(window.max(KW).getValue()).isCloseTo(0.003, offset(1e-15));
+        assertThat(window.standardDeviation(SI.WATT).getValue())
+                .isCloseTo(Math.sqrt(0.5), offset(1e-12));
+        // 1 W held over (0, 5], 3 W over (5, 10].
+        assertThat(window.integral(SI.JOULE).getValue()).isCloseTo(0.02, offset(1e-15));
+
+        assertThat(window.add(3, 7, SI.WATT)).isFalse();
+        assertThat(window.getLateCount()).isEqualTo(1);
+
+        window.advance(25); // Evicts all, 2 W held.
+        assertThat(window.size()).isEqualTo(0);
+        assertThat(window.max(SI.WATT)).isNull();
+        assertThat(window.integral(SI.JOULE).getValue()).isCloseTo(0.02, offset(1e-15));
+    }
+
+    @Test
+    public void reordersWithinLateness() {
+        MeasureWindow<Power> window = new MeasureWindow<Power>(SI.WATT,
+                SI.SECOND, 100, 5);
+        window.add(10, 1, SI.WATT);
+        window.add(20, 5, SI.WATT);
+        window.add(15, 3, SI.WATT); // Out of order, 20 not yet reached.
+        assertThat(window.size()).isEqualTo(2);
+        assertThat(window.mean(SI.WATT).getValue()).isEqualTo(2.0);
+        window.advance(25);
+        assertThat(window.size()).isEqualTo(3);
+        assertThat(window.mean(SI.WATT).getValue()).isEqualTo(3.0);
+        assertThat(window.integral(SI.JOULE).getValue()).isEqualTo(1 * 5 + 3 * 5);
+        assertThat(window.add(12, 9, SI.WATT)).isFalse();
+
+        // Compares with a brute force evaluation (random order within lateness).
+        Random random = new Random(7);
+        window = new MeasureWindow<Power>(SI.WATT, SI.SECOND, 50, 5);
+        long[] times = new long[2000];
+        double[] values = new double[times.length];
+        int n = 0;
+        long latest = Long.MIN_VALUE;
+        for (long t = 0; n < times.length; t += 1 + random.nextInt(3)) {
+            times[n] = t + random.nextInt(5); // Within lateness.
+            values[n] = random.nextGaussian() * 1000;
+            window.add(times[n], values[n] / 1000, KW);
+            latest = Math.max(latest, times[n++]);
+            long end = latest - 5;
+            double min = Double.POSITIVE_INFINITY;
+            double max = Double.NEGATIVE_INFINITY;
+            double sum = 0;
+            int count = 0;
+            for (int i = 0; i < n; i++) {
+                if ((times[i] <= end) && (times[i] > end - 50)) {
+                    min = Math.min(min, values[i]);
+                    max = Math.max(max, values[i]);
+                    sum += values[i];
+                    count++;
+                }
+            }
+            assertThat(window.size()).isEqualTo(count);
+            if (count > 0) {
+                assertThat(window.min(SI.WATT).getValue()).isCloseTo(min, offset(1e-9));
+                assertThat(window.max(SI.WATT).getValue()).isCloseTo(max, offset(1e-9));
+                assertThat(window.mean(SI.WATT).getValue()).isCloseTo(sum / count, offset(1e-9));
+            }
+        }
+        assertThat(window.getLateCount()).isEqualTo(0);
+    }
+}
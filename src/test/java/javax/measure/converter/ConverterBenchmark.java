@@ -0,0 +1,45 @@
+package javax.measure.converter;
+
+/**
+ * Measures the cost of converting through a deep chain of affine converters
+ * applied one after the other versus the fused converter returned by
+ * {@link UnitConverter#concatenate(UnitConverter)}.
+ * Run with: <code>java -cp target/classes:target/test-classes:... javax.measure.converter.ConverterBenchmark</code>
+ */
+public class ConverterBenchmark {
+
+    private static final int ITERATIONS = 10000000;
+
+    public static void main(String[] args) {
+        UnitConverter[] steps = { new RationalConverter(5, 9),
+                new AddConverter(459.67), new MultiplyConverter(1.5),
+                new AddConverter(-273.15), new RationalConverter(1000, 1),
+                new MultiplyConverter(0.3048), new AddConverter(12.5),
+                new RationalConverter(1, 3600) };
+        UnitConverter fused = UnitConverter.IDENTITY;
+        for (UnitConverter step : steps) {
+            fused = step.concatenate(fused);
+        }
+        System.out.println("Fused converter: " + fused.getClass().getSimpleName());
+        for (int run = 0; run < 5; run++) {
+            double check = 0;
+            long start = System.nanoTime();
+            for (int i = 0; i < ITERATIONS; i++) {
+                double x = i;
+                for (int j = 0; j < steps.length; j++) {
+                    x = steps[j].convert(x);
+                }
+                check += x;
+            }
+            long chain = System.nanoTime() - start;
+            start = System.nanoTime();
+            for (int i = 0; i < ITERATIONS; i++) {
+                check -= fused.convert(i);
+            }
+            long single = System.nanoTime() - start;
+            System.out.println("chain (" + steps.length + " steps): "
+                    + (chain * 1000 / ITERATIONS) + " ps, fused: "
+                    + (single * 1000 / ITERATIONS) + " ps [" + check + "]");
+        }
+    }
+}
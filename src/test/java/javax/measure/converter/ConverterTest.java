@@ -3,9 +3,12 @@ package javax.measure.converter;
 import java.text.ParseException;
 import java.text.ParsePosition;
 
+import javax.measure.unit.NonSI;
+import javax.measure.unit.SI;
 import javax.measure.unit.Unit;
 import javax.measure.unit.UnitFormat;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.offset;
 
 import org.junit.Test;
 
@@ -39,4 +42,127 @@ public class ConverterTest {
             assertThat(a.getConverterTo(b)).isNotEqualTo(a.getConverterTo(c));
         }
     }
+
+    @Test
+    public void bulkConversionMatchesScalar() {
+        UnitConverter[] converters = { UnitConverter.IDENTITY,
+                new AddConverter(273.15), new MultiplyConverter(0.3048),
+                new RationalConverter(5, 9), new LogConverter(10),
+                NonSI.FAHRENHEIT.getConverterTo(SI.CELSIUS),
+                new LogConverter(10).concatenate(new AddConverter(1)) };
+        double[] values = new double[37];
+        float[] floats = new float[values.length];
+        long[] longs = new long[values.length];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = 0.5 + i * 7.25;
+            floats[i] = (float) values[i];
+            longs[i] = i * 1000L + 1;
+        }
+        for (UnitConverter cvtr : converters) {
+            double[] doubleResults = new double[values.length + 2];
+            cvtr.convert(values, 0, doubleResults, 2, values.length);
+            float[] floatResults = floats.clone();
+            cvtr.convert(floatResults, 0, floatResults, 0, floats.length);
+            double[] longResults = new double[longs.length];
+            cvtr.convert(longs, 0, longResults, 0, longs.length);
+            double[] inPlace = values.clone();
+            cvtr.convert(inPlace, 1, inPlace.length - 1);
+            for (int i = 0; i < values.length; i++) {
+                assertThat(doubleResults[i + 2]).isEqualTo(cvtr.convert(values[i]));
+                assertThat(floatResults[i]).isEqualTo((float) cvtr.convert(floats[i]));
+                assertThat(longResults[i]).isEqualTo(cvtr.convert((double) longs[i]));
+                assertThat(inPlace[i]).isEqualTo((i == 0) ? values[0] : cvtr.convert(values[i]));
+            }
+        }
+    }
+
+    @Test
+    public void bulkFloatConversionKeepsDoublePrecision() {
+        // Non-linear middle step: intermediate values must not be rounded to float.
+        UnitConverter cvtr = new AddConverter(0.3).concatenate(
+                new LogConverter(10).inverse().concatenate(new AddConverter(1e-3)));
+        float[] floats = new float[1000];
+        for (int i = 0; i < floats.length; i++) {
+            floats[i] = 1 + i * 0.00731f;
+        }
+        float[] results = new float[floats.length];
+        cvtr.convert(floats, 0, results, 0, floats.length);
+        float[] inPlace = floats.clone();
+        cvtr.convert(inPlace, 0, inPlace, 0, inPlace.length);
+        for (int i = 0; i < floats.length; i++) {
+            float expected = (float) cvtr.convert((double) floats[i]);
+            assertThat(results[i]).isEqualTo(expected);
+            assertThat(inPlace[i]).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    public void affineConvertersAreFused() {
+        // (x - 32) * 5 / 9
+        UnitConverter cvtr = new RationalConverter(5, 9).concatenate(new AddConverter(-32));
+        assertThat(cvtr).isInstanceOf(AffineConverter.class);
+        AffineConverter affine = (AffineConverter) cvtr;
+        assertThat(affine.isExact()).isTrue();
+        assertThat(affine.getDividend()).isEqualTo(5);
+        assertThat(affine.getDivisor()).isEqualTo(9);
+        assertThat(affine.getOffset()).isCloseTo(-160.0 / 9, offset(1e-12));
+        assertThat(cvtr.convert(212)).isCloseTo(100, offset(1e-12));
+        assertThat(cvtr.isLinear()).isFalse();
+
+        // Fused with a further offset and an approximate factor.
+        UnitConverter kelvin = new AddConverter(273.15).concatenate(cvtr);
+        assertThat(kelvin).isInstanceOf(AffineConverter.class);
+        assertThat(kelvin.convert(32)).isCloseTo(273.15, offset(1e-12));
+        UnitConverter scaled = new MultiplyConverter(0.5).concatenate(kelvin);
+        assertThat(scaled).isInstanceOf(AffineConverter.class);
+        assertThat(((AffineConverter) scaled).isExact()).isFalse();
+        assertThat(scaled.convert(212)).isCloseTo(373.15 / 2, offset(1e-12));
+
+        // Offsets cancelling out.
+        assertThat(new AddConverter(-1.5).concatenate(new AddConverter(1.5)))
+                .isSameAs(UnitConverter.IDENTITY);
+    }
+
+    @Test
+    public void rationalConvertersStayRational() {
+        UnitConverter cvtr = new RationalConverter(5, 9).concatenate(new RationalConverter(3, 2));
+        assertThat(cvtr).isEqualTo(new RationalConverter(5, 6));
+        assertThat(SI.KILOMETER.getConverterTo(NonSI.FOOT)).isInstanceOf(RationalConverter.class);
+        assertThat(NonSI.MILE.getConverterTo(SI.CENTIMETER)).isInstanceOf(RationalConverter.class);
+        assertThat(new RationalConverter(2, 3).concatenate(new RationalConverter(3, 2)))
+                .isSameAs(UnitConverter.IDENTITY);
+    }
+
+    @Test
+    public void fusedConvertersInverse() {
+        UnitConverter cvtr = NonSI.FAHRENHEIT.getConverterTo(SI.KELVIN);
+        UnitConverter inverse = cvtr.inverse();
+        assertThat(inverse).isInstanceOf(AffineConverter.class);
+        assertThat(inverse).isEqualTo(SI.KELVIN.getConverterTo(NonSI.FAHRENHEIT));
+        UnitConverter approximate = new MultiplyConverter(Math.PI).concatenate(new AddConverter(3));
+        for (double x = -500; x < 500; x += 12.5) {
+            assertThat(inverse.convert(cvtr.convert(x))).isCloseTo(x, offset(1e-9));
+            assertThat(approximate.inverse().convert(approximate.convert(x))).isCloseTo(x, offset(1e-9));
+        }
+        assertThat(cvtr.inverse().inverse().convert(100)).isCloseTo(cvtr.convert(100), offset(1e-12));
+    }
+
+    @Test
+    public void temperatureConversions() {
+        UnitConverter fToC = NonSI.FAHRENHEIT.getConverterTo(SI.CELSIUS);
+        UnitConverter cToK = SI.CELSIUS.getConverterTo(SI.KELVIN);
+        UnitConverter fToK = NonSI.FAHRENHEIT.getConverterTo(SI.KELVIN);
+        UnitConverter kToF = SI.KELVIN.getConverterTo(NonSI.FAHRENHEIT);
+        assertThat(fToC.convert(32)).isCloseTo(0, offset(1e-12));
+        assertThat(fToC.convert(-40)).isCloseTo(-40, offset(1e-12));
+        assertThat(fToC.convert(98.6)).isCloseTo(37, offset(1e-12));
+        assertThat(cToK.convert(0)).isCloseTo(273.15, offset(1e-12));
+        assertThat(fToK.convert(212)).isCloseTo(373.15, offset(1e-12));
+        assertThat(kToF.convert(0)).isCloseTo(-459.67, offset(1e-12));
+        assertThat(SI.CELSIUS.getConverterTo(NonSI.FAHRENHEIT).convert(100)).isCloseTo(212, offset(1e-12));
+        assertThat(SI.KELVIN.getConverterTo(SI.CELSIUS).convert(0)).isCloseTo(-273.15, offset(1e-12));
+        for (double f = -100; f < 300; f += 7.5) {
+            assertThat(fToK.convert(f)).isCloseTo(cToK.convert(fToC.convert(f)), offset(1e-9));
+        }
+    }
 }
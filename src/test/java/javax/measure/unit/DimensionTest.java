@@ -0,0 +1,71 @@
+package javax.measure.unit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import org.junit.Test;
+
+
+public class DimensionTest {
+    private static final Dimension L = Dimension.LENGTH;
+    private static final Dimension M = Dimension.MASS;
+    private static final Dimension T = Dimension.TIME;
+
+    @Test
+    public void testPackedOperations() {
+        Unit<?> l = L.getPseudoUnit();
+        Unit<?> m = M.getPseudoUnit();
+        Unit<?> t = T.getPseudoUnit();
+
+        Dimension force = M.times(L).divide(T.pow(2));
+        assertThat(force.getPseudoUnit()).isEqualTo(m.times(l).divide(t.pow(2)));
+        assertThat(force).isEqualTo(SI.NEWTON.getDimension());
+        assertThat(force.hashCode()).isEqualTo(SI.NEWTON.getDimension().hashCode());
+        assertThat(L.pow(3).root(2).getPseudoUnit()).isEqualTo(l.pow(3).root(2));
+        assertThat(L.root(2).times(L.root(2))).isEqualTo(L);
+        assertThat(L.pow(2).root(2)).isEqualTo(L);
+        assertThat(L.pow(3).root(-3)).isEqualTo(Dimension.NONE.divide(L));
+        assertThat(L.divide(L)).isSameAs(Dimension.NONE);
+        assertThat(force.pow(0)).isSameAs(Dimension.NONE);
+        assertThat(force.pow(-2).getPseudoUnit()).isEqualTo(m.times(l).divide(t.pow(2)).pow(-2));
+        assertThat(force.divide(M).divide(L).times(T.pow(2))).isEqualTo(Dimension.NONE);
+        assertThat(T.root(3).times(L.root(2)).getPseudoUnit()).isEqualTo(t.root(3).times(l.root(2)));
+    }
+
+    @Test
+    public void testOverflowFallback() {
+        Unit<?> l = L.getPseudoUnit();
+        Dimension big = L.pow(100); // Fits in a lane.
+        Dimension overflow = big.times(big); // Does not fit.
+        assertThat(overflow.getPseudoUnit()).isEqualTo(l.pow(200));
+        assertThat(overflow).isEqualTo(L.pow(200));
+        assertThat(overflow.hashCode()).isEqualTo(L.pow(200).hashCode());
+        assertThat(L.pow(20).pow(10)).isEqualTo(overflow);
+        assertThat(overflow.divide(big)).isEqualTo(big); // Packed again.
+        assertThat(overflow.divide(big).hashCode()).isEqualTo(big.hashCode());
+        assertThat(overflow.root(2)).isEqualTo(big);
+        assertThat(overflow.times(M).getPseudoUnit()).isEqualTo(l.pow(200).times(M.getPseudoUnit()));
+    }
+
+    @Test
+    public void testSerialization() throws Exception {
+        Dimension[] dimensions = { Dimension.NONE, L, M.times(L).divide(T.pow(2)),
+                L.pow(3).root(2), L.pow(200) };
+        for (Dimension dimension : dimensions) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            ObjectOutputStream out = new ObjectOutputStream(bytes);
+            out.writeObject(dimension);
+            out.close();
+            Object read = new ObjectInputStream(new ByteArrayInputStream(
+                    bytes.toByteArray())).readObject();
+            assertThat(read).isEqualTo(dimension);
+            assertThat(read.hashCode()).isEqualTo(dimension.hashCode());
+            assertThat(((Dimension) read).getPseudoUnit()).isEqualTo(dimension.getPseudoUnit());
+            assertThat(((Dimension) read).times(T)).isEqualTo(dimension.times(T));
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package javax.measure.unit;
+
+/**
+ * Measures the cost of {@link Unit#times(Unit)} / {@link Unit#divide(Unit)}
+ * chains and of product units comparison (many factors).
+ * Run with: <code>java -cp target/classes:target/test-classes:... javax.measure.unit.ProductUnitBenchmark</code>
+ */
+public class ProductUnitBenchmark {
+
+    private static final int ITERATIONS = 2000000;
+
+    public static void main(String[] args) {
+        Unit<?>[] factors = { SI.KILOGRAM, SI.METER, SI.SECOND, SI.KELVIN,
+                SI.MOLE, SI.AMPERE, SI.CANDELA, NonSI.HOUR, SI.PASCAL,
+                SI.NEWTON };
+        for (int run = 0; run < 5; run++) {
+            long start = System.nanoTime();
+            int check = 0;
+            for (int i = 0; i < ITERATIONS; i++) {
+                Unit<?> unit = Unit.ONE;
+                for (int j = 0; j < factors.length; j++) {
+                    unit = ((j & 1) == 0) ? unit.times(factors[j]) : unit
+                            .divide(factors[j]);
+                }
+                check += unit.hashCode();
+            }
+            long chain = System.nanoTime() - start;
+
+            Unit<?> left = Unit.ONE;
+            Unit<?> right = Unit.ONE;
+            for (int j = 0; j < factors.length; j++) {
+                left = left.times(factors[j].pow(j + 1));
+                right = right.times(factors[factors.length - 1 - j]
+                        .pow(factors.length - j));
+            }
+            start = System.nanoTime();
+            for (int i = 0; i < ITERATIONS; i++) {
+                if (left.equals(right))
+                    check++;
+            }
+            long equals = System.nanoTime() - start;
+
+            System.out.println("times/divide chain (10 factors): "
+                    + (chain / ITERATIONS) + " ns, equals (10 factors): "
+                    + (equals / ITERATIONS) + " ns [" + check + "]");
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package javax.measure.unit;
+
+import java.text.ParseException;
+import java.text.ParsePosition;
+
+/**
+ * Compares the cost of parsing and formatting units with the UCUM format
+ * and with the default format (uncached parsing, unmemoized formatting).
+ * Run with: <code>java -cp target/classes:target/test-classes:... javax.measure.unit.UCUMFormatBenchmark</code>
+ */
+public class UCUMFormatBenchmark {
+
+    private static final int ITERATIONS = 200000;
+
+    // Same units in both syntaxes.
+    private static final String[] UCUM = { "m", "kg", "Cel", "kW", "kW.h",
+            "m/s", "km/h", "m/s2", "kg/(m2.s)", "N.m", "kg.m/s2", "J/(kg.K)",
+            "W/(m2.K)", "Pa", "kPa", "[ft_i]", "[degF]", "mm[Hg]", "ug/L",
+            "mmol/L" };
+
+    private static final String[] DEFAULT = { "m", "kg", "°C", "kW", "kW·h",
+            "m/s", "km/h", "m/s²", "kg/(m²·s)", "N·m", "kg·m/s^2", "J/(kg·K)",
+            "W/(m²·K)", "Pa", "kPa", "ft", "°F", "mmHg", "µg/L", "mmol/L" };
+
+    public static void main(String[] args) throws ParseException {
+        UnitFormat ucum = UnitFormat.getUCUMInstance();
+        UnitFormat.DefaultFormat standard = (UnitFormat.DefaultFormat) UnitFormat
+                .getInstance();
+        Unit<?>[] units = new Unit<?>[UCUM.length];
+        for (int i = 0; i < UCUM.length; i++) {
+            units[i] = ucum.parseProductUnit(UCUM[i], new ParsePosition(0));
+            if (!units[i].equals(Unit.valueOf(DEFAULT[i])))
+                throw new AssertionError(UCUM[i] + " / " + DEFAULT[i]);
+        }
+        StringBuilder tmp = new StringBuilder();
+        for (int run = 0; run < 5; run++) {
+            int check = 0;
+            long start = System.nanoTime();
+            for (int i = 0; i < ITERATIONS; i++) {
+                for (String unit : UCUM) {
+                    check += ucum.parseProductUnit(unit, new ParsePosition(0))
+                            .hashCode();
+                }
+            }
+            long ucumParse = System.nanoTime() - start;
+            start = System.nanoTime();
+            for (int i = 0; i < ITERATIONS; i++) {
+                for (String unit : DEFAULT) {
+                    check += standard.parse(unit, new ParsePosition(0))
+                            .hashCode();
+                }
+            }
+            long defaultParse = System.nanoTime() - start;
+            start = System.nanoTime();
+            for (int i = 0; i < ITERATIONS; i++) {
+                for (Unit<?> unit : units) {
+                    tmp.setLength(0);
+                    check += formatTo(ucum, unit, tmp).length();
+                }
+            }
+            long ucumFormat = System.nanoTime() - start;
+            start = System.nanoTime();
+            for (int i = 0; i < ITERATIONS; i++) {
+                for (Unit<?> unit : units) {
+                    tmp.setLength(0);
+                    check += formatTo(standard, unit, tmp).length();
+                }
+            }
+            long defaultFormat = System.nanoTime() - start;
+            int n = ITERATIONS * UCUM.length;
+            System.out.println("parse ucum: " + (ucumParse / n)
+                    + " ns, default: " + (defaultParse / n)
+                    + " ns; format ucum: " + (ucumFormat / n)
+                    + " ns, default: " + (defaultFormat / n) + " ns ["
+                    + check + "]");
+        }
+    }
+
+    private static StringBuilder formatTo(UnitFormat format, Unit<?> unit,
+            StringBuilder tmp) {
+        try {
+            format.format(unit, tmp);
+        } catch (java.io.IOException e) {
+            throw new Error(e);
+        }
+        return tmp;
+    }
+}
@@ -0,0 +1,47 @@
+package javax.measure.unit;
+
+import java.text.ParseException;
+import java.text.ParsePosition;
+
+/**
+ * Measures the cost of parsing unit strings, with and without the parse
+ * cache of the default format.
+ * Run with: <code>java -cp target/classes:target/test-classes:... javax.measure.unit.UnitFormatBenchmark</code>
+ */
+public class UnitFormatBenchmark {
+
+    private static final int ITERATIONS = 200000;
+
+    // Unit strings as found in historian exports.
+    private static final String[] CORPUS = { "m", "kg", "°C", "kW", "kW·h",
+            "m/s", "km/h", "m/s²", "kg/(m²·s)", "N·m", "kg·m/s^2", "J/(kg·K)",
+            "W/(m²·K)", "g/m/s", "(g/m)/s", "m³/h", "Pa", "kPa",
+            "lbf/in²", "ft", "ft/min", "°F", "A·h", "V·A", "rad/s",
+            "kg/m³", "L/min", "MW", "m^3:2", "W·h/kg" };
+
+    public static void main(String[] args) throws ParseException {
+        UnitFormat.DefaultFormat format = (UnitFormat.DefaultFormat) UnitFormat
+                .getInstance();
+        for (int run = 0; run < 5; run++) {
+            int check = 0;
+            long start = System.nanoTime();
+            for (int i = 0; i < ITERATIONS; i++) {
+                for (String unit : CORPUS) {
+                    check += format.parse(unit, new ParsePosition(0))
+                            .hashCode();
+                }
+            }
+            long parse = System.nanoTime() - start;
+            start = System.nanoTime();
+            for (int i = 0; i < ITERATIONS; i++) {
+                for (String unit : CORPUS) {
+                    check += Unit.valueOf(unit).hashCode();
+                }
+            }
+            long cached = System.nanoTime() - start;
+            int n = ITERATIONS * CORPUS.length;
+            System.out.println("parse: " + (parse / n) + " ns, cached: "
+                    + (cached / n) + " ns [" + check + "]");
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package javax.measure.unit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.offset;
+
+import javax.measure.converter.ConversionException;
+import javax.measure.converter.UnitConverter;
+
+import org.junit.Test;
+
+
+public class UnitRegistryTest {
+    @Test
+    public void testRegister() {
+        UnitRegistry registry = new UnitRegistry();
+        assertThat(registry.size()).isEqualTo(0);
+        assertThat(registry.getId(SI.METER)).isEqualTo(-1);
+        assertThat(registry.register(SI.METER)).isEqualTo(0);
+        assertThat(registry.register(NonSI.FOOT)).isEqualTo(1);
+        assertThat(registry.register(SI.METER)).isEqualTo(0); // Idempotent.
+        assertThat(registry.register(SI.METER.times(SI.METER).divide(SI.METER))).isEqualTo(0);
+        assertThat(registry.register(SI.KILO(SI.METER))).isEqualTo(2);
+        assertThat(registry.size()).isEqualTo(3);
+        assertThat(registry.getId(NonSI.FOOT)).isEqualTo(1);
+        assertThat(registry.getUnit(2)).isEqualTo(SI.KILO(SI.METER));
+        assertThatThrownBy(() -> registry.getUnit(3)).isInstanceOf(IndexOutOfBoundsException.class);
+        assertThat(UnitRegistry.getInstance()).isSameAs(UnitRegistry.getInstance());
+    }
+
+    @Test
+    public void testConverters() {
+        UnitRegistry registry = new UnitRegistry();
+        int m = registry.register(SI.METER);
+        int ft = registry.register(NonSI.FOOT);
+        UnitConverter cvtr = registry.getConverter(ft, m);
+        assertThat(cvtr).isEqualTo(NonSI.FOOT.getConverterTo(SI.METER));
+        assertThat(registry.getConverter(ft, m)).isSameAs(cvtr); // Cached.
+        assertThat(registry.getConverter(m, m)).isEqualTo(UnitConverter.IDENTITY);
+
+        // Rows grow lazily for units registered after a lookup.
+        int km = registry.register(SI.KILO(SI.METER));
+        int celsius = registry.register(SI.CELSIUS);
+        int kelvin = registry.register(SI.KELVIN);
+        assertThat(registry.getConverter(ft, km)).isEqualTo(NonSI.FOOT.getConverterTo(SI.KILO(SI.METER)));
+        assertThat(registry.getConverter(ft, m)).isSameAs(cvtr);
+        assertThat(registry.convert(km, ft, 0.3048)).isCloseTo(1000, offset(1e-9));
+        assertThat(registry.convert(celsius, kelvin, 25.0)).isCloseTo(298.15, offset(1e-12));
+        assertThat(registry.convert(kelvin, kelvin, 25.0)).isEqualTo(25.0);
+        assertThatThrownBy(() -> registry.getConverter(m, kelvin)).isInstanceOf(ConversionException.class);
+    }
+
+    @Test
+    public void testConvertArray() {
+        UnitRegistry registry = new UnitRegistry();
+        int celsius = registry.register(SI.CELSIUS);
+        int fahrenheit = registry.register(NonSI.FAHRENHEIT);
+        int second = registry.register(SI.SECOND);
+        double[] values = { -40, 0, 100, 37 };
+        registry.convert(celsius, fahrenheit, values);
+        assertThat(values[0]).isCloseTo(-40, offset(1e-12));
+        assertThat(values[1]).isCloseTo(32, offset(1e-12));
+        assertThat(values[2]).isCloseTo(212, offset(1e-12));
+        assertThat(values[3]).isCloseTo(98.6, offset(1e-12));
+
+        double[] range = { 1, 0, 100, 2 };
+        registry.convert(celsius, fahrenheit, range, 1, 2);
+        assertThat(range[0]).isEqualTo(1);
+        assertThat(range[1]).isCloseTo(32, offset(1e-12));
+        assertThat(range[2]).isCloseTo(212, offset(1e-12));
+        assertThat(range[3]).isEqualTo(2);
+
+        double[] unchanged = { 1, 2 };
+        registry.convert(second, second, unchanged);
+        assertThat(unchanged).containsExactly(1, 2);
+        assertThatThrownBy(() -> registry.convert(celsius, second, unchanged))
+                .isInstanceOf(ConversionException.class);
+        assertThat(unchanged).containsExactly(1, 2);
+        assertThatThrownBy(() -> registry.convert(celsius, 7, unchanged))
+                .isInstanceOf(IndexOutOfBoundsException.class);
+    }
+}
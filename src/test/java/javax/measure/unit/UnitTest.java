@@ -2,7 +2,11 @@ package javax.measure.unit;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.Assert.fail;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
 import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.Map;
@@ -33,6 +37,132 @@ public class UnitTest {
                 .hasMessageContaining("Unmatched parenthesis").hasMessageContaining("index 5");
     }
 
+    @Test
+    public void testParseCache() {
+        long hits = UnitFormat.getInstance().getParseCacheStats().hitCount();
+        assertThat(Unit.valueOf("kg/(m²·s)")).isSameAs(Unit.valueOf("kg/(m²·s)"));
+        assertThat(UnitFormat.getInstance().getParseCacheStats().hitCount()).isGreaterThan(hits);
+
+        // Failures are cached until the symbol tables change.
+        assertThatThrownBy(() -> Unit.valueOf("furlong/s")).isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("furlong not recognized");
+        assertThatThrownBy(() -> Unit.valueOf("furlong/s")).isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("furlong not recognized");
+        UnitFormat.getInstance().alias(NonSI.FOOT.times(660), "furlong");
+        assertThat(Unit.valueOf("furlong/s")).isEqualTo(NonSI.FOOT.times(660).divide(SI.SECOND));
+    }
+
+    @Test
+    public void testToStringMemoized() {
+        Unit<?> unit = SI.METER.times(7).divide(SI.SECOND);
+        String text = unit.toString();
+        assertThat(text).isEqualTo("m*7/s");
+        assertThat(unit.toString()).isSameAs(text);
+
+        // Label changes are taken into account.
+        UnitFormat.getInstance().label(SI.METER.times(7), "sevenMeter");
+        assertThat(unit.toString()).isEqualTo("sevenMeter/s");
+    }
+
+    @Test
+    public void testTextMemoizedPerFormat() {
+        Unit<?> unit = SI.KILOGRAM.times(SI.METER).divide(SI.SECOND.pow(3));
+        UnitFormat ucum = UnitFormat.getUCUMInstance();
+        String text = UnitFormat.getInstance().textOf(unit);
+        String ucumText = ucum.textOf(unit);
+        assertThat(ucumText).isEqualTo("kg.m/s3");
+        // Alternating formats does not evict the memoized texts.
+        assertThat(UnitFormat.getInstance().textOf(unit)).isSameAs(text);
+        assertThat(ucum.textOf(unit)).isSameAs(ucumText);
+        assertThat(unit.toString()).isSameAs(text);
+    }
+
+    @Test
+    public void testUCUMFormat() throws Exception {
+        UnitFormat ucum = UnitFormat.getUCUMInstance();
+        assertThat(ucum.parseObject("kg.m/s2")).isEqualTo(SI.KILOGRAM.times(SI.METER).divide(SI.SECOND.pow(2)));
+        assertThat(ucum.parseObject("[degF]")).isEqualTo(NonSI.FAHRENHEIT);
+        assertThat(ucum.parseObject("10*3.m")).isEqualTo(SI.KILO(SI.METER));
+        assertThat(ucum.parseObject("mm[Hg]")).isEqualTo(NonSI.MILLIMETER_OF_MERCURY);
+        assertThat(ucum.parseObject("ug/(m2.h)")).isEqualTo(SI.MICRO(SI.GRAM).divide(SI.METER.pow(2).times(NonSI.HOUR)));
+        assertThat(ucum.parseObject("{rbc}/uL")).isEqualTo(SI.MICRO(NonSI.LITRE).inverse());
+        assertThat(ucum.parseObject("mmol{total}/L")).isEqualTo(SI.MILLI(SI.MOLE).divide(NonSI.LITRE));
+        assertThat(ucum.parseObject("s-1")).isEqualTo(SI.SECOND.inverse());
+        assertThat(Unit.ONE.getConverterTo((Unit<?>) ucum.parseObject("10*18")).convert(1e18)).isEqualTo(1);
+        assertThat(Unit.ONE.getConverterTo((Unit<?>) ucum.parseObject("10*-18")).convert(1e-18)).isEqualTo(1);
+        assertThat(ucum.parseObject("10*-3.m")).isEqualTo(SI.MILLI(SI.METER));
+        assertThat(ucum.parseObject("10*0")).isEqualTo(Unit.ONE);
+
+        assertThat(ucum.format(SI.KILOGRAM.times(SI.METER).divide(SI.SECOND.pow(2)))).isEqualTo("kg.m/s2");
+        assertThat(ucum.format(SI.KILOGRAM.divide(SI.METER.pow(2).times(SI.SECOND)))).isEqualTo("kg/(m2.s)");
+        assertThat(ucum.format(NonSI.FOOT.divide(SI.SECOND))).isEqualTo("[ft_i]/s");
+        assertThat(ucum.format(SI.MILLI(SI.CELSIUS))).isEqualTo("mCel");
+        assertThat(ucum.format(SI.METER.times(3))).isEqualTo("3.m");
+        assertThat(ucum.format(SI.METER.pow(2))).isEqualTo("m2");
+        assertThat(ucum.format(SI.METER.times(SI.METER))).isEqualTo("m2");
+        assertThat(ucum.format(SI.CUBIC_METRE)).isEqualTo("m3");
+        assertThat(ucum.format(SI.KILOGRAM)).isEqualTo("kg");
+        assertThat(ucum.parseObject("car")).isEqualTo(SI.METER.pow(2));
+
+        try {
+            ucum.parseProductUnit("kg.xyz", new java.text.ParsePosition(0));
+            fail();
+        } catch (ParseException e) {
+            assertThat(e.getErrorOffset()).isEqualTo(3);
+        }
+        for (String factor : new String[] { "10*19", "10*-19" }) {
+            try {
+                ucum.parseProductUnit(factor, new java.text.ParsePosition(0));
+                fail();
+            } catch (ParseException e) {
+                assertThat(e.getMessage()).isEqualTo("Factor overflow");
+            }
+        }
+        assertThatThrownBy(() -> ucum.format(SI.METER.times(0.5))).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void testUtf8FormatAndParse() throws Exception {
+        Unit<?> unit = SI.KILOGRAM.divide(SI.METER.pow(2).times(SI.SECOND));
+        byte[] bytes = new byte[32];
+        int end = UnitFormat.getInstance().format(unit, bytes, 2);
+        assertThat(new String(bytes, 2, end - 2, StandardCharsets.UTF_8)).isEqualTo(unit.toString());
+        assertThat(UnitFormat.getInstance().parseProductUnit(bytes, 2, end - 2)).isSameAs(unit);
+        assertThat(UnitFormat.getInstance().parseProductUnit(bytes, 2, end - 2)).isSameAs(unit);
+
+        ByteBuffer buffer = ByteBuffer.allocate(32);
+        UnitFormat.getUCUMInstance().format(unit, buffer); // ASCII
+        for (int i = 0; i < buffer.position(); i++) {
+            assertThat(buffer.get(i)).isGreaterThan((byte) 0);
+        }
+        byte[] text = "m/s²".getBytes(StandardCharsets.UTF_8);
+        assertThat(UnitFormat.getInstance().parseProductUnit(text, 0, text.length))
+                .isEqualTo(SI.METER.divide(SI.SECOND.pow(2)));
+
+        byte[] invalid = "x kg·foo".getBytes(StandardCharsets.UTF_8);
+        for (int i = 0; i < 2; i++) { // Uncached and cached failures.
+            try {
+                UnitFormat.getInstance().parseProductUnit(invalid, 2, invalid.length - 2);
+                fail();
+            } catch (ParseException e) {
+                assertThat(e.getErrorOffset()).isEqualTo(6); // Byte index of "foo".
+            }
+        }
+    }
+
+    @Test
+    public void testInterning() {
+        assertThat(Unit.valueOf("g/m/s")).isSameAs(SI.GRAM.divide(SI.METER).divide(SI.SECOND));
+        assertThat(SI.KILOMETER.divide(NonSI.HOUR)).isSameAs(SI.KILOMETER.divide(NonSI.HOUR));
+        assertThat(SI.METER.times(1000)).isSameAs(SI.METER.times(1000));
+
+        // Equal but built differently: both instances are kept for formatting.
+        Unit<?> ms = SI.METER.times(SI.SECOND);
+        Unit<?> sm = SI.SECOND.times(SI.METER);
+        assertThat(ms).isEqualTo(sm).isNotSameAs(sm);
+        assertThat(ms.toString()).isEqualTo("m·s");
+        assertThat(sm.toString()).isEqualTo("s·m");
+    }
 
     // The jscience library 4.3.1 did not follow the order of operations when division was involved.  These tests
     // all failed before the fix was made.
@@ -0,0 +1,98 @@
+package org.jscience.physics.amount;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.offset;
+
+import javax.measure.quantity.Length;
+import javax.measure.quantity.Temperature;
+import javax.measure.unit.NonSI;
+import javax.measure.unit.SI;
+
+import org.junit.Test;
+
+public class AmountAccumulatorTest {
+
+    @Test
+    public void testAddMatchesPlus() {
+        AmountAccumulator<Length> acc = new AmountAccumulator<Length>(SI.METER);
+        Amount<Length> expected = Amount.valueOf(0, SI.METER);
+        Amount<?>[] amounts = { Amount.valueOf(3, SI.METER),
+                Amount.valueOf(250, SI.CENTIMETER), Amount.valueOf(1, NonSI.FOOT),
+                Amount.valueOf(-0.5, SI.METER) };
+        for (Amount<?> amount : amounts) {
+            acc.add(amount);
+            expected = expected.plus(amount);
+        }
+        Amount<Length> sum = acc.sum();
+        assertThat(sum.isExact()).isFalse();
+        assertThat(sum.getMinimumValue()).isEqualTo(expected.getMinimumValue());
+        assertThat(sum.getMaximumValue()).isEqualTo(expected.getMaximumValue());
+        assertThat(acc.getCount()).isEqualTo(4);
+        assertThat(acc.min().getEstimatedValue()).isEqualTo(-0.5, offset(1e-15));
+        assertThat(acc.max().getEstimatedValue()).isEqualTo(3.0);
+
+        acc = new AmountAccumulator<Length>(SI.METER);
+        acc.add(Amount.valueOf(3, SI.METER)).add(Amount.valueOf(250, SI.CENTIMETER)).addExact(4);
+        assertThat(acc.sum().isExact()).isFalse(); // 2.5 m is not an integer.
+        acc = new AmountAccumulator<Length>(SI.MILLIMETER);
+        acc.add(Amount.valueOf(3, SI.METER)).add(Amount.valueOf(250, SI.CENTIMETER)).addExact(4);
+        assertThat(acc.sum().isExact()).isTrue();
+        assertThat(acc.sum().getExactValue()).isEqualTo(5504);
+        assertThat(acc.mean().getEstimatedValue()).isEqualTo(5504 / 3.0, offset(1e-9));
+    }
+
+    @Test
+    public void testMeanAndVariance() {
+        AmountAccumulator<Temperature> acc = new AmountAccumulator<Temperature>(SI.KELVIN);
+        acc.add(Amount.valueOf(0, SI.CELSIUS)).add(Amount.valueOf(10, SI.CELSIUS))
+                .add(20, SI.CELSIUS);
+        assertThat(acc.mean().getEstimatedValue()).isEqualTo(283.15, offset(1e-9));
+        // Variance is not affected by the offset: 100 K².
+        assertThat(acc.variance().getEstimatedValue()).isEqualTo(100, offset(1e-9));
+        assertThat(acc.variance().getUnit()).isEqualTo(SI.KELVIN.pow(2));
+        assertThat(new AmountAccumulator<Temperature>(SI.KELVIN).mean()).isNull();
+        assertThat(new AmountAccumulator<Temperature>(SI.KELVIN).add(1, SI.KELVIN)
+                .variance()).isNull();
+    }
+
+    @Test
+    public void testCombineAcrossUnits() {
+        AmountAccumulator<Temperature> celsius = new AmountAccumulator<Temperature>(SI.CELSIUS);
+        celsius.addExact(5).addExact(10).addExact(15); // Sum: 30 °C
+        AmountAccumulator<Temperature> kelvin = new AmountAccumulator<Temperature>(SI.KELVIN);
+        kelvin.add(300, SI.KELVIN);
+        kelvin.combine(celsius);
+        assertThat(kelvin.getCount()).isEqualTo(4);
+        // 300 K + (278.15 + 283.15 + 288.15) K
+        assertThat(kelvin.sum().getEstimatedValue()).isEqualTo(1149.45, offset(1e-9));
+        assertThat(kelvin.mean().getEstimatedValue()).isEqualTo(1149.45 / 4, offset(1e-9));
+        assertThat(kelvin.min().getEstimatedValue()).isEqualTo(278.15, offset(1e-9));
+        assertThat(kelvin.max().getEstimatedValue()).isEqualTo(300, offset(1e-9));
+
+        // Same statistics as a single accumulator.
+        AmountAccumulator<Temperature> all = new AmountAccumulator<Temperature>(SI.KELVIN);
+        all.add(300, SI.KELVIN).add(Amount.valueOf(5, SI.CELSIUS))
+                .add(Amount.valueOf(10, SI.CELSIUS)).add(Amount.valueOf(15, SI.CELSIUS));
+        assertThat(kelvin.sum().getEstimatedValue()).isEqualTo(
+                all.sum().getEstimatedValue(), offset(1e-9));
+        assertThat(kelvin.variance().getEstimatedValue()).isEqualTo(
+                all.variance().getEstimatedValue(), offset(1e-9));
+
+        // Into an empty accumulator (factor and offset).
+        AmountAccumulator<Temperature> fahrenheit = new AmountAccumulator<Temperature>(NonSI.FAHRENHEIT);
+        fahrenheit.combine(celsius);
+        assertThat(fahrenheit.sum().getEstimatedValue()).isEqualTo(30 * 1.8 + 3 * 32, offset(1e-9));
+        assertThat(fahrenheit.mean().getEstimatedValue()).isEqualTo(50, offset(1e-9));
+        assertThat(fahrenheit.variance().getEstimatedValue()).isEqualTo(25 * 1.8 * 1.8, offset(1e-9));
+
+        // Exact rational combination.
+        AmountAccumulator<Length> mm = new AmountAccumulator<Length>(SI.MILLIMETER);
+        mm.addExact(7);
+        AmountAccumulator<Length> m = new AmountAccumulator<Length>(SI.METER);
+        m.addExact(2).addExact(3);
+        mm.combine(m);
+        assertThat(mm.sum().isExact()).isTrue();
+        assertThat(mm.sum().getExactValue()).isEqualTo(5007);
+        assertThat(mm.getCount()).isEqualTo(3);
+    }
+}
@@ -0,0 +1,148 @@
+package org.jscience.physics.amount;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import javax.measure.quantity.Length;
+import javax.measure.quantity.Quantity;
+import javax.measure.quantity.Temperature;
+import javax.measure.unit.NonSI;
+import javax.measure.unit.SI;
+import javax.measure.unit.Unit;
+
+import org.junit.Test;
+
+public class AmountArrayTest {
+
+    private static final long BIG = Long.MAX_VALUE / 3;
+
+    private static AmountArray<Length> lengths() {
+        AmountArray<Length> array = new AmountArray<Length>(8, SI.METER);
+        array.setExact(0, 0);
+        array.setExact(1, -7);
+        array.setExact(2, 123456789);
+        array.setExact(3, BIG); // Overflows on times.
+        array.setExact(4, Long.MIN_VALUE); // Overflows on plus.
+        array.set(5, 2.5);
+        array.set(6, -1e-3, 1e-6);
+        array.set(7, Amount.valueOf(1234, SI.CENTIMETER));
+        return array;
+    }
+
+    private static AmountArray<Length> others() {
+        AmountArray<Length> array = new AmountArray<Length>(8, SI.MILLIMETER);
+        array.setExact(0, 5);
+        array.setExact(1, 3000);
+        array.set(2, 0.5);
+        array.setExact(3, BIG);
+        array.setExact(4, -1);
+        array.set(5, -2500, 1);
+        array.setExact(6, 7);
+        array.set(7, 1e300);
+        return array;
+    }
+
+    @Test
+    public void testPlusMinus() {
+        AmountArray<Length> a = lengths();
+        AmountArray<Length> b = others();
+        AmountArray<Length> sum = a.plus(b);
+        AmountArray<Length> difference = a.minus(b);
+        for (int i = 0; i < a.length(); i++) {
+            assertElement(sum, i, a.get(i).plus(b.get(i)));
+            assertElement(difference, i, a.get(i).minus(b.get(i)));
+        }
+        // Exact overflow falls back to intervals.
+        AmountArray<Length> twice = a.plus(a);
+        assertThat(twice.isExact(3)).isTrue();
+        assertThat(twice.isExact(4)).isFalse();
+        assertElement(twice, 4, a.get(4).plus(a.get(4)));
+    }
+
+    @Test
+    public void testTimesDivide() {
+        AmountArray<Length> a = lengths();
+        AmountArray<Length> b = others();
+        AmountArray<? extends Quantity> product = a.times(b);
+        AmountArray<? extends Quantity> quotient = a.divide(b);
+        AmountArray<Length> timesLong = a.times(4);
+        AmountArray<Length> timesDouble = a.times(-0.25);
+        AmountArray<Length> divideLong = a.divide(-3);
+        AmountArray<Length> divideDouble = a.divide(8.0);
+        assertThat(product.getUnit()).isEqualTo(a.get(0).times(b.get(0)).getUnit());
+        assertThat(quotient.getUnit()).isEqualTo(a.get(0).divide(b.get(0)).getUnit());
+        for (int i = 0; i < a.length(); i++) {
+            assertElement(product, i, a.get(i).times(b.get(i)));
+            if (b.getEstimatedValue(i) != 0) {
+                assertElement(quotient, i, a.get(i).divide(b.get(i)));
+            }
+            assertElement(timesLong, i, a.get(i).times(4));
+            assertElement(timesDouble, i, a.get(i).times(-0.25));
+            assertElement(divideLong, i, a.get(i).divide(-3));
+            assertElement(divideDouble, i, a.get(i).divide(8.0));
+        }
+        assertThat(timesLong.isExact(3)).isFalse(); // Overflow.
+        assertThat(timesLong.isExact(2)).isTrue();
+        assertThat(divideLong.isExact(1)).isFalse(); // -7 / -3
+    }
+
+    @Test
+    public void testCompare() {
+        AmountArray<Length> a = lengths();
+        AmountArray<Length> b = others();
+        int[] comparisons = a.compare(b);
+        for (int i = 0; i < a.length(); i++) {
+            assertThat(Integer.signum(comparisons[i])).as("element " + i)
+                    .isEqualTo(Integer.signum(a.get(i).compareTo(b.get(i))));
+        }
+    }
+
+    @Test
+    public void testTo() {
+        assertSameAsScalar(AmountArray.valueOf(new long[] { 32, 212 },
+                NonSI.FAHRENHEIT), SI.KELVIN);
+        assertSameAsScalar(AmountArray.valueOf(new double[] { -40.5, 0, 98.6 },
+                NonSI.FAHRENHEIT), SI.CELSIUS);
+        assertSameAsScalar(AmountArray.valueOf(new long[] { -3, 0, 1000 },
+                SI.MILLI(SI.KELVIN)), SI.KELVIN);
+    }
+
+    @Test
+    public void testToRational() {
+        AmountArray<Length> a = lengths();
+        AmountArray<Length> converted = a.to(SI.MILLIMETER);
+        for (int i = 0; i < a.length(); i++) {
+            assertElement(converted, i, a.get(i).to(SI.MILLIMETER));
+        }
+        assertThat(converted.isExact(1)).isTrue();
+        assertThat(converted.isExact(3)).isFalse(); // Overflow.
+        assertThat(lengths().to(SI.METER).getUnit()).isSameAs(SI.METER);
+    }
+
+    private static void assertElement(AmountArray<?> array, int i,
+            Amount<?> expected) {
+        assertThat(array.isExact(i)).as("exact " + i).isEqualTo(expected.isExact());
+        if (expected.isExact()) {
+            assertThat(array.getExactValue(i)).as("value " + i).isEqualTo(
+                    expected.getExactValue());
+        }
+        assertThat(array.getMinimumValue(i)).as("minimum " + i).isEqualTo(
+                expected.getMinimumValue());
+        assertThat(array.getMaximumValue(i)).as("maximum " + i).isEqualTo(
+                expected.getMaximumValue());
+    }
+
+    private static void assertSameAsScalar(AmountArray<Temperature> array,
+            Unit<Temperature> unit) {
+        AmountArray<Temperature> converted = array.to(unit);
+        for (int i = 0; i < array.length(); i++) {
+            Amount<Temperature> expected = array.get(i).to(unit);
+            Amount<Temperature> actual = converted.get(i);
+            assertThat(actual.isExact()).isEqualTo(expected.isExact());
+            if (expected.isExact()) {
+                assertThat(actual.getExactValue()).isEqualTo(expected.getExactValue());
+            }
+            assertThat(actual.getMinimumValue()).isEqualTo(expected.getMinimumValue());
+            assertThat(actual.getMaximumValue()).isEqualTo(expected.getMaximumValue());
+        }
+    }
+}
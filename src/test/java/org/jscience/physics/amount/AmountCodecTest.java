@@ -0,0 +1,137 @@
+package org.jscience.physics.amount;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+
+import javax.measure.quantity.Length;
+import javax.measure.unit.SI;
+import javax.measure.unit.UnitRegistry;
+
+import org.junit.Test;
+
+public class AmountCodecTest {
+
+    @Test
+    public void testExact() {
+        AmountCodec codec = new AmountCodec(new UnitRegistry());
+        ByteBuffer buffer = ByteBuffer.allocate(AmountCodec.MAX_LENGTH);
+        codec.write(Amount.valueOf(-64, SI.METER), buffer);
+        assertThat(buffer.position()).isEqualTo(3); // Tag, unit, value.
+        for (long value : new long[] { 0, 1, -1, 63, -64, 64, 123456789,
+                Long.MAX_VALUE, Long.MIN_VALUE }) {
+            assertRoundTrip(codec, Amount.valueOf(value, SI.METER));
+        }
+    }
+
+    @Test
+    public void testUlps() {
+        AmountCodec codec = new AmountCodec(new UnitRegistry());
+        ByteBuffer buffer = ByteBuffer.allocate(AmountCodec.MAX_LENGTH);
+        codec.write(Amount.valueOf(2.5, SI.METER), buffer);
+        assertThat(buffer.position()).isEqualTo(11); // Tag, unit, min, ulps.
+        for (double value : new double[] { 2.5, -2.5, 1e-300, -1e300,
+                Math.PI }) {
+            assertRoundTrip(codec, Amount.valueOf(value, SI.METER));
+            assertRoundTrip(codec, Amount.valueOf(value, Math.abs(value) * 1e-12,
+                    SI.METER));
+        }
+        assertRoundTrip(codec, Amount.newInstance(SI.METER, false, 0L, -0.0, -0.0));
+        assertRoundTrip(codec, Amount.newInstance(SI.METER, false, 0L, 0.0,
+                Double.MIN_VALUE));
+    }
+
+    @Test
+    public void testInterval() {
+        AmountCodec codec = new AmountCodec(new UnitRegistry());
+        ByteBuffer buffer = ByteBuffer.allocate(AmountCodec.MAX_LENGTH);
+        codec.write(Amount.valueOf(0.5, 2.0, SI.METER), buffer); // [-1.5, 2.5]
+        assertThat(buffer.position()).isEqualTo(18); // Tag, unit, min, max.
+        assertRoundTrip(codec, Amount.valueOf(0.5, 2.0, SI.METER));
+        assertRoundTrip(codec, Amount.valueOf(1000, 1, SI.METER)); // Wide.
+        assertRoundTrip(codec, Amount.newInstance(SI.METER, false, 0L, -0.0, 0.0));
+        assertRoundTrip(codec, Amount.newInstance(SI.METER, false, 0L,
+                Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY));
+        assertRoundTrip(codec, Amount.newInstance(SI.METER, false, 0L,
+                Double.NaN, Double.NaN));
+    }
+
+    @Test
+    public void testArrayStream() throws Exception {
+        AmountCodec codec = new AmountCodec(new UnitRegistry());
+        AmountArray<Length> amounts = new AmountArray<Length>(1000, SI.METER);
+        for (int i = 0; i < amounts.length(); i++) {
+            if (i % 3 == 0) {
+                amounts.setExact(i, i * 1000L - 50000);
+            } else if (i % 3 == 1) {
+                amounts.set(i, i * 0.1);
+            } else {
+                amounts.set(i, -i, i); // Mixed sign.
+            }
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        codec.write(amounts, 0, amounts.length(), out);
+        assertThat(out.size()).isGreaterThan(4096); // Several chunks.
+        ByteBuffer buffer = ByteBuffer.wrap(out.toByteArray());
+        AmountArray<Length> decoded = new AmountArray<Length>(1000, SI.METER);
+        codec.read(buffer, decoded, 0, decoded.length());
+        assertThat(buffer.remaining()).isEqualTo(0);
+        for (int i = 0; i < amounts.length(); i++) {
+            assertSame(decoded.get(i), amounts.get(i));
+        }
+
+        // Into a column stated in another unit.
+        buffer.rewind();
+        AmountArray<Length> millimeters = new AmountArray<Length>(1002, SI.MILLIMETER);
+        codec.read(buffer, millimeters, 1, 1001);
+        for (int i = 0; i < amounts.length(); i++) {
+            assertSame(millimeters.get(i + 1), amounts.get(i).to(SI.MILLIMETER));
+        }
+
+        // Buffer and sub-range.
+        buffer = ByteBuffer.allocate(10 * AmountCodec.MAX_LENGTH);
+        codec.write(amounts, 10, 20, buffer);
+        buffer.flip();
+        for (int i = 10; i < 20; i++) {
+            assertSame(codec.read(buffer), amounts.get(i));
+        }
+        assertThatThrownBy(() -> codec.write(amounts, 5, 1001,
+                ByteBuffer.allocate(0))).isInstanceOf(IndexOutOfBoundsException.class);
+    }
+
+    @Test
+    public void testInvalid() {
+        AmountCodec codec = new AmountCodec(new UnitRegistry());
+        codec.getRegistry().register(SI.METER); // Identifier 0.
+        ByteBuffer unknownTag = ByteBuffer.allocate(32);
+        unknownTag.put((byte) 7).put((byte) 0).putDouble(1.0).putDouble(2.0).flip();
+        assertThatThrownBy(() -> codec.read(unknownTag)).isInstanceOf(
+                IllegalArgumentException.class).hasMessageContaining("tag");
+        ByteBuffer unknownUnit = ByteBuffer.allocate(32);
+        unknownUnit.put((byte) 0).put((byte) 99).put((byte) 0).flip();
+        assertThatThrownBy(() -> codec.read(unknownUnit)).isInstanceOf(
+                IllegalArgumentException.class).hasMessageContaining("unit");
+    }
+
+    private static void assertRoundTrip(AmountCodec codec, Amount<?> amount) {
+        ByteBuffer buffer = ByteBuffer.allocate(AmountCodec.MAX_LENGTH);
+        codec.write(amount, buffer);
+        buffer.flip();
+        assertSame(codec.read(buffer), amount);
+        assertThat(buffer.remaining()).isEqualTo(0);
+    }
+
+    private static void assertSame(Amount<?> actual, Amount<?> expected) {
+        assertThat(actual.getUnit()).isEqualTo(expected.getUnit());
+        assertThat(actual.isExact()).isEqualTo(expected.isExact());
+        if (expected.isExact()) {
+            assertThat(actual.getExactValue()).isEqualTo(expected.getExactValue());
+        }
+        assertThat(Double.doubleToRawLongBits(actual.getMinimumValue())).isEqualTo(
+                Double.doubleToRawLongBits(expected.getMinimumValue()));
+        assertThat(Double.doubleToRawLongBits(actual.getMaximumValue())).isEqualTo(
+                Double.doubleToRawLongBits(expected.getMaximumValue()));
+    }
+}
@@ -0,0 +1,32 @@
+package org.jscience.physics.amount;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.measure.quantity.Length;
+import javax.measure.unit.NonSI;
+import javax.measure.unit.SI;
+
+import org.junit.Test;
+
+public class AmountCollectorsTest {
+
+    @Test
+    public void exactAmountSumStaysExact() {
+        List<Amount<?>> amounts = new ArrayList<Amount<?>>();
+        for (int i = 1; i <= 1000; i++) {
+            amounts.add(Amount.valueOf(i, (i % 2 == 0) ? SI.METER : SI.KILOMETER));
+        }
+        Amount<Length> total = amounts.parallelStream()
+                .collect(AmountCollectors.summing(SI.METER));
+        assertThat(total.isExact()).isTrue();
+        assertThat(total.getExactValue()).isEqualTo(250500L + 250000000L);
+
+        Amount<Length> max = amounts.parallelStream()
+                .collect(AmountCollectors.maximum(NonSI.FOOT)).get();
+        assertThat(max.to(SI.METER).getEstimatedValue()).isCloseTo(999000.0, within(1e-6));
+    }
+}
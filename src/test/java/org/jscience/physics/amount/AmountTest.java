@@ -0,0 +1,49 @@
+package org.jscience.physics.amount;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.offset;
+
+import javax.measure.quantity.Length;
+import javax.measure.unit.NonSI;
+import javax.measure.unit.SI;
+
+import org.junit.Test;
+
+public class AmountTest {
+
+    @Test
+    public void testLookupTables() {
+        Amount<Length> length = Amount.valueOf(3, NonSI.NAUTICAL_MILE);
+        Amount<?> time = Amount.valueOf(2, NonSI.MINUTE);
+
+        length.times(time); // Resolves the lookup entries.
+        length.inverse();
+        length.to(SI.KILOMETER);
+        long hits = Amount.getLookupStats().hitCount();
+        long multHits = Amount.MULT_LOOKUP.stats().hitCount();
+        long invHits = Amount.INV_LOOKUP.stats().hitCount();
+        long cvtrHits = Amount.CVTR_LOOKUP.stats().hitCount();
+        long misses = Amount.getLookupStats().missCount();
+
+        Amount<?> product = length.times(time);
+        assertThat(Amount.MULT_LOOKUP.stats().hitCount()).isEqualTo(multHits + 1);
+        Amount<?> inverse = length.inverse();
+        assertThat(Amount.INV_LOOKUP.stats().hitCount()).isEqualTo(invHits + 1);
+        Amount<Length> converted = length.to(SI.KILOMETER);
+        assertThat(Amount.CVTR_LOOKUP.stats().hitCount()).isEqualTo(cvtrHits + 1);
+        assertThat(Amount.getLookupStats().hitCount()).isEqualTo(hits + 3);
+        assertThat(Amount.getLookupStats().missCount()).isEqualTo(misses);
+
+        // Same cached instances.
+        assertThat(product.getUnit()).isSameAs(length.times(time).getUnit());
+        assertThat(product.getUnit()).isSameAs(
+                Amount.productOf(NonSI.NAUTICAL_MILE, NonSI.MINUTE));
+        assertThat(inverse.getUnit()).isSameAs(length.inverse().getUnit());
+        assertThat(inverse.getUnit()).isSameAs(Amount.inverseOf(NonSI.NAUTICAL_MILE));
+        assertThat(Amount.converterOf(NonSI.NAUTICAL_MILE, SI.KILOMETER)).isSameAs(
+                Amount.converterOf(NonSI.NAUTICAL_MILE, SI.KILOMETER));
+        assertThat(converted.getEstimatedValue()).isCloseTo(5.556, offset(1e-12));
+        assertThat(product.getUnit()).isEqualTo(NonSI.NAUTICAL_MILE.times(NonSI.MINUTE));
+        assertThat(inverse.getUnit()).isEqualTo(NonSI.NAUTICAL_MILE.inverse());
+    }
+}
@@ -0,0 +1,127 @@
+package org.jscience.physics.amount;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.offset;
+
+import javax.measure.quantity.Temperature;
+import javax.measure.unit.NonSI;
+import javax.measure.unit.SI;
+import javax.measure.unit.Unit;
+
+import org.junit.Test;
+
+public class AmountWindowTest {
+
+    private static final Unit<?> KELVIN_SECOND = SI.KELVIN.times(SI.SECOND);
+
+    @Test
+    public void aggregatesAndEvicts() {
+        AmountWindow<Temperature> window = new AmountWindow<Temperature>(
+                SI.KELVIN, SI.SECOND, 10, 0);
+        assertThat(window.mean(SI.KELVIN)).isNull();
+        assertThat(window.integral(KELVIN_SECOND)).isNull();
+        assertThat(window.add(0, Amount.valueOf(1, SI.KELVIN))).isTrue();
+        assertThat(window.add(5, 3.0, SI.KELVIN)).isTrue();
+        assertThat(window.add(10, Amount.valueOf(2000, SI.MILLI(SI.KELVIN)))).isTrue(); // Evicts t = 0.
+        assertThat(window.size()).isEqualTo(2);
+        assertContains(window.mean(SI.KELVIN), 2.5);
+        assertThat(window.min(SI.KELVIN).isExact()).isTrue();
+        assertThat(window.min(SI.KELVIN).getExactValue()).isEqualTo(2);
+        assertContains(window.max(SI.MILLI(SI.KELVIN)), 3000);
+        assertThat(window.standardDeviation(SI.KELVIN).getEstimatedValue())
+                .isCloseTo(Math.sqrt(0.5), offset(1e-12));
+        // 1 K held over (0, 5], 3 K over (5, 10].
+        assertContains(window.integral(KELVIN_SECOND), 20);
+
+        window.advance(25); // Evicts all, 2 K held.
+        assertThat(window.size()).isEqualTo(0);
+        assertThat(window.max(SI.KELVIN)).isNull();
+        assertThat(window.standardDeviation(SI.KELVIN)).isNull();
+        assertContains(window.integral(KELVIN_SECOND), 20);
+        window.advance(20); // No effect.
+        assertThat(window.size()).isEqualTo(0);
+    }
+
+    @Test
+    public void dropsLateAmounts() {
+        AmountWindow<Temperature> window = new AmountWindow<Temperature>(
+                SI.KELVIN, SI.SECOND, 100, 5);
+        window.add(10, 1, SI.KELVIN);
+        window.add(20, 5, SI.KELVIN);
+        assertThat(window.add(15, 3, SI.KELVIN)).isTrue(); // Within lateness.
+        assertThat(window.size()).isEqualTo(2);
+        assertContains(window.mean(SI.KELVIN), 2);
+        window.advance(25);
+        assertThat(window.size()).isEqualTo(3);
+        assertContains(window.mean(SI.KELVIN), 3);
+        assertContains(window.integral(KELVIN_SECOND), 1 * 5 + 3 * 5);
+        assertThat(window.add(12, 9, SI.KELVIN)).isFalse();
+        assertThat(window.add(19, 9, SI.KELVIN)).isFalse();
+        assertThat(window.getLateCount()).isEqualTo(2);
+        assertThat(window.size()).isEqualTo(3);
+    }
+
+    @Test
+    public void growsBuffers() {
+        AmountWindow<Temperature> window = new AmountWindow<Temperature>(
+                SI.KELVIN, SI.SECOND, 1000, 3);
+        for (int i = 0; i < 100; i++) { // Pairwise swapped (out of order).
+            window.add(i ^ 1, Amount.valueOf(i ^ 1, SI.KELVIN));
+        }
+        window.advance(1000);
+        assertThat(window.size()).isEqualTo(100);
+        assertContains(window.mean(SI.KELVIN), 49.5);
+        assertThat(window.min(SI.KELVIN).getExactValue()).isEqualTo(0);
+        assertThat(window.max(SI.KELVIN).getExactValue()).isEqualTo(99);
+        // Values held over (0, 99], then 99 K up to the window end (997).
+        assertContains(window.integral(KELVIN_SECOND), 99 * 98 / 2 + 99 * (997 - 99));
+        window.advance(1050); // Window (47, 1047].
+        assertThat(window.size()).isEqualTo(52);
+        assertContains(window.mean(SI.KELVIN), 73.5);
+        assertThat(window.min(SI.KELVIN).getExactValue()).isEqualTo(48);
+    }
+
+    @Test
+    public void recomputesRunningSums() {
+        AmountWindow<Temperature> window = new AmountWindow<Temperature>(
+                SI.KELVIN, SI.SECOND, 20, 0);
+        window.add(0, 1e17, SI.KELVIN);
+        for (int t = 1; t <= 200; t++) {
+            window.add(t, 1.0, SI.KELVIN);
+        }
+        // The rounding errors of the large amount are no longer accounted for.
+        Amount<Temperature> mean = window.mean(SI.KELVIN);
+        assertContains(mean, 1.0);
+        assertThat(mean.getMaximumValue() - mean.getMinimumValue()).isLessThan(1e-12);
+        Amount<?> integral = window.integral(KELVIN_SECOND);
+        assertContains(integral, 20.0);
+        assertThat(integral.getMaximumValue() - integral.getMinimumValue()).isLessThan(1e-10);
+    }
+
+    @Test
+    public void convertsAmounts() {
+        AmountWindow<Temperature> window = new AmountWindow<Temperature>(
+                SI.KELVIN, SI.SECOND, 100, 0);
+        window.add(1, Amount.valueOf(32, NonSI.FAHRENHEIT));
+        window.add(2, 212, NonSI.FAHRENHEIT);
+        window.add(3, Amount.valueOf(50, SI.CELSIUS));
+        assertContains(window.mean(SI.KELVIN), 323.15);
+        assertContains(window.mean(SI.CELSIUS), 50);
+        assertContains(window.min(SI.KELVIN), 273.15);
+        assertContains(window.max(NonSI.FAHRENHEIT), 212);
+        // Offsets do not apply to the standard deviation.
+        assertThat(window.standardDeviation(SI.KELVIN).getEstimatedValue())
+                .isCloseTo(50, offset(1e-9));
+        assertThat(window.standardDeviation(NonSI.FAHRENHEIT).getEstimatedValue())
+                .isCloseTo(90, offset(1e-9));
+        // 273.15 K over (1, 2], 373.15 K over (2, 3].
+        assertContains(window.integral(KELVIN_SECOND), 646.3);
+    }
+
+    private static void assertContains(Amount<?> amount, double value) {
+        assertThat(amount.getMinimumValue()).isLessThanOrEqualTo(value);
+        assertThat(amount.getMaximumValue()).isGreaterThanOrEqualTo(value);
+        assertThat(amount.getEstimatedValue()).isCloseTo(value,
+                offset(Math.abs(value) * 1e-12));
+    }
+}